@@ -0,0 +1,135 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2017 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * http://glassfish.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package com.sun.xml.ws.benchmark;
+
+import com.oracle.webservices.api.databinding.DatabindingFactory;
+import com.sun.xml.ws.api.BindingID;
+import com.sun.xml.ws.api.WSBinding;
+import com.sun.xml.ws.api.databinding.Databinding;
+
+import javax.xml.namespace.QName;
+import javax.xml.ws.WebServiceFeature;
+import javax.xml.ws.soap.MTOMFeature;
+import java.lang.reflect.Method;
+import java.util.Arrays;
+
+/**
+ * Set up shared by the benchmarks.
+ */
+final class BenchmarkSupport {
+
+    static final String NAMESPACE = "http://benchmark.ws.xml.sun.com/";
+
+    static final QName SERVICE_NAME = new QName(NAMESPACE, "EchoService");
+
+    static final QName PORT_NAME = new QName(NAMESPACE, "EchoPort");
+
+    static final Method ECHO_DATA;
+
+    static final Method ECHO_TEXT;
+
+    static {
+        try {
+            ECHO_DATA = Echo.class.getMethod("echoData", byte[].class);
+            ECHO_TEXT = Echo.class.getMethod("echoText", String.class);
+        } catch (NoSuchMethodException e) {
+            throw new AssertionError(e);
+        }
+    }
+
+    private BenchmarkSupport() {
+    }
+
+    /**
+     * @param soapVersion
+     *      "1.1" or "1.2"
+     */
+    static BindingID bindingId(String soapVersion) {
+        if ("1.1".equals(soapVersion)) {
+            return BindingID.SOAP11_HTTP;
+        }
+        if ("1.2".equals(soapVersion)) {
+            return BindingID.SOAP12_HTTP;
+        }
+        throw new IllegalArgumentException("Unknown SOAP version: " + soapVersion);
+    }
+
+    static WebServiceFeature[] features(boolean mtom) {
+        // threshold 0, so that every binary payload is sent as an attachment
+        return new WebServiceFeature[] {new MTOMFeature(mtom, 0)};
+    }
+
+    static WSBinding createBinding(String soapVersion, boolean mtom) {
+        return bindingId(soapVersion).createBinding(features(mtom));
+    }
+
+    /**
+     * Creates the databinding of {@link Echo}.
+     *
+     * @param client
+     *      true for the databinding of a proxy, that serializes requests,
+     *      false for the one of the endpoint, that deserializes them.
+     */
+    static Databinding createDatabinding(WSBinding binding, boolean client) {
+        com.oracle.webservices.api.databinding.Databinding.Builder builder =
+                DatabindingFactory.newInstance().createBuilder(Echo.class, client ? null : EchoImpl.class);
+        builder.targetNamespace(NAMESPACE);
+        builder.serviceName(SERVICE_NAME);
+        builder.portName(PORT_NAME);
+        builder.property(WSBinding.class.getName(), binding);
+        builder.feature(binding.getFeatures().toArray());
+        return (Databinding) builder.build();
+    }
+
+    static byte[] binaryPayload(int size) {
+        byte[] data = new byte[size];
+        for (int i = 0; i < size; i++) {
+            data[i] = (byte) i;
+        }
+        return data;
+    }
+
+    static String textPayload(int size) {
+        char[] text = new char[size];
+        Arrays.fill(text, 'x');
+        return new String(text);
+    }
+}
@@ -0,0 +1,131 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2017 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * http://glassfish.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package com.sun.xml.ws.benchmark;
+
+import com.sun.xml.ws.api.WSBinding;
+import com.sun.xml.ws.api.databinding.Databinding;
+import com.sun.xml.ws.api.message.Packet;
+import com.sun.xml.ws.api.pipe.Codec;
+import com.sun.xml.ws.api.pipe.ContentType;
+import com.sun.xml.ws.encoding.SOAPBindingCodec;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import javax.xml.stream.XMLStreamReader;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Encoding and decoding of a request with {@link SOAPBindingCodec}.
+ *
+ * <p>
+ * The request is produced by the databinding of {@link Echo#echoData(byte[])},
+ * and the decoded request is read up to the end of its payload.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CodecBenchmark {
+
+    @Param({"256", "16384", "1048576"})
+    public int payloadSize;
+
+    @Param({"1.1", "1.2"})
+    public String soapVersion;
+
+    @Param({"false", "true"})
+    public boolean mtom;
+
+    private Databinding databinding;
+    private Codec codec;
+    private byte[] payload;
+    private byte[] encoded;
+    private String contentType;
+    private final ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+    @Setup
+    public void setUp() throws Exception {
+        WSBinding binding = BenchmarkSupport.createBinding(soapVersion, mtom);
+        databinding = BenchmarkSupport.createDatabinding(binding, true);
+        codec = binding.getBindingId().createEncoder(binding);
+        payload = BenchmarkSupport.binaryPayload(payloadSize);
+
+        ContentType ct = codec.encode(createRequest(), out);
+        encoded = out.toByteArray();
+        contentType = ct.getContentType();
+    }
+
+    private Packet createRequest() {
+        return (Packet) databinding.serializeRequest(
+                databinding.createJavaCallInfo(BenchmarkSupport.ECHO_DATA, new Object[] {payload}));
+    }
+
+    @Benchmark
+    public ContentType encode() throws Exception {
+        out.reset();
+        return codec.encode(createRequest(), out);
+    }
+
+    @Benchmark
+    public void decode(Blackhole bh) throws Exception {
+        Packet packet = new Packet();
+        codec.decode(new ByteArrayInputStream(encoded), contentType, packet);
+        XMLStreamReader reader = packet.getMessage().readPayload();
+        while (reader.hasNext()) {
+            bh.consume(reader.next());
+        }
+        reader.close();
+    }
+}
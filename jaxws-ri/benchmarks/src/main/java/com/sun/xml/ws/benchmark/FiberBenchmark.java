@@ -0,0 +1,167 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2017 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * http://glassfish.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package com.sun.xml.ws.benchmark;
+
+import com.sun.istack.NotNull;
+import com.sun.xml.ws.api.message.Packet;
+import com.sun.xml.ws.api.pipe.Engine;
+import com.sun.xml.ws.api.pipe.Fiber;
+import com.sun.xml.ws.api.pipe.NextAction;
+import com.sun.xml.ws.api.pipe.Tube;
+import com.sun.xml.ws.api.pipe.TubeCloner;
+import com.sun.xml.ws.api.pipe.helper.AbstractFilterTubeImpl;
+import com.sun.xml.ws.api.pipe.helper.AbstractTubeImpl;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Overhead of running a {@link Packet} through a tubeline of pass-through tubes
+ * with a {@link Fiber}, synchronously and asynchronously.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FiberBenchmark {
+
+    @Param({"1", "10"})
+    public int tubes;
+
+    private Engine engine;
+    private Tube tubeline;
+
+    @Setup
+    public void setUp() {
+        engine = new Engine("benchmark");
+        Tube t = new TerminalTube();
+        for (int i = 0; i < tubes; i++) {
+            t = new FilterTube(t);
+        }
+        tubeline = t;
+    }
+
+    @Benchmark
+    public Packet runSync() {
+        return engine.createFiber().runSync(tubeline, new Packet());
+    }
+
+    @Benchmark
+    public Packet runAsync() throws InterruptedException {
+        final CountDownLatch done = new CountDownLatch(1);
+        final Packet[] response = new Packet[1];
+        engine.createFiber().start(tubeline, new Packet(), new Fiber.CompletionCallback() {
+            @Override
+            public void onCompletion(@NotNull Packet p) {
+                response[0] = p;
+                done.countDown();
+            }
+
+            @Override
+            public void onCompletion(@NotNull Throwable error) {
+                done.countDown();
+            }
+        });
+        done.await();
+        return response[0];
+    }
+
+    private static final class FilterTube extends AbstractFilterTubeImpl {
+        FilterTube(Tube next) {
+            super(next);
+        }
+
+        private FilterTube(FilterTube that, TubeCloner cloner) {
+            super(that, cloner);
+        }
+
+        @Override
+        public FilterTube copy(TubeCloner cloner) {
+            return new FilterTube(this, cloner);
+        }
+    }
+
+    private static final class TerminalTube extends AbstractTubeImpl {
+        TerminalTube() {
+        }
+
+        private TerminalTube(TerminalTube that, TubeCloner cloner) {
+            super(that, cloner);
+        }
+
+        @Override
+        public @NotNull NextAction processRequest(@NotNull Packet request) {
+            return doReturnWith(request);
+        }
+
+        @Override
+        public @NotNull NextAction processResponse(@NotNull Packet response) {
+            return doReturnWith(response);
+        }
+
+        @Override
+        public @NotNull NextAction processException(@NotNull Throwable t) {
+            return doThrow(t);
+        }
+
+        @Override
+        public void preDestroy() {
+        }
+
+        @Override
+        public TerminalTube copy(TubeCloner cloner) {
+            return new TerminalTube(this, cloner);
+        }
+    }
+}
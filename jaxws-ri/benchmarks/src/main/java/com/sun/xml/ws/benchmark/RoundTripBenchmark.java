@@ -0,0 +1,188 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2017 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * http://glassfish.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package com.sun.xml.ws.benchmark;
+
+import com.sun.istack.NotNull;
+import com.sun.xml.ws.api.WSBinding;
+import com.sun.xml.ws.api.server.DocumentAddressResolver;
+import com.sun.xml.ws.api.server.PortAddressResolver;
+import com.sun.xml.ws.api.server.SDDocument;
+import com.sun.xml.ws.api.server.WSEndpoint;
+import com.sun.xml.ws.developer.WSBindingProvider;
+import com.sun.xml.ws.transport.local.InVmServer;
+import com.sun.xml.ws.transport.local.InVmTransportFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.xml.sax.EntityResolver;
+
+import javax.xml.namespace.QName;
+import javax.xml.ws.Service;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.URL;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Full client and server round trip of {@link Echo} through the in-VM transport
+ * ({@link InVmTransportFactory}): proxy, client tubeline, codecs in both directions,
+ * server tubeline and endpoint invocation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RoundTripBenchmark {
+
+    private static final AtomicInteger SERVER_ID = new AtomicInteger();
+
+    @Param({"256", "16384", "1048576"})
+    public int payloadSize;
+
+    @Param({"1.1", "1.2"})
+    public String soapVersion;
+
+    @Param({"false", "true"})
+    public boolean mtom;
+
+    private InVmServer server;
+    private File wsdlDir;
+    private byte[] payload;
+    private String text;
+
+    /**
+     * Proxies are thread safe as long as the request context is not modified.
+     */
+    private Echo proxy;
+
+    @Setup
+    public void setUp() throws Exception {
+        WSBinding binding = BenchmarkSupport.createBinding(soapVersion, mtom);
+        WSEndpoint<EchoImpl> endpoint = WSEndpoint.create(EchoImpl.class, false, null,
+                BenchmarkSupport.SERVICE_NAME, BenchmarkSupport.PORT_NAME, null, binding,
+                null, null, (EntityResolver) null, true);
+        String id = "benchmark" + SERVER_ID.incrementAndGet();
+        server = new InVmServer(id, Collections.<WSEndpoint>singletonList(endpoint));
+
+        // proxies need WSDL, so the client uses the one generated for the endpoint
+        wsdlDir = File.createTempFile("benchmark", "");
+        if (!wsdlDir.delete() || !wsdlDir.mkdir()) {
+            throw new IOException("Cannot create " + wsdlDir);
+        }
+        URL wsdl = writeServiceDefinition(endpoint, "in-vm://" + id + "/", wsdlDir);
+        Service service = Service.create(wsdl, BenchmarkSupport.SERVICE_NAME);
+        proxy = service.getPort(BenchmarkSupport.PORT_NAME, Echo.class, BenchmarkSupport.features(mtom));
+
+        payload = BenchmarkSupport.binaryPayload(payloadSize);
+        text = BenchmarkSupport.textPayload(payloadSize);
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        ((WSBindingProvider) proxy).close();
+        server.undeploy();
+        for (File f : wsdlDir.listFiles()) {
+            f.delete();
+        }
+        wsdlDir.delete();
+    }
+
+    /**
+     * Writes the WSDL and schemas of the endpoint into the directory.
+     *
+     * @return
+     *      the URL of the primary WSDL.
+     */
+    private static URL writeServiceDefinition(WSEndpoint<?> endpoint, final String address, File dir) throws IOException {
+        final Map<SDDocument, String> names = new HashMap<SDDocument, String>();
+        for (SDDocument doc : endpoint.getServiceDefinition()) {
+            names.put(doc, "doc" + names.size() + (doc.isWSDL() ? ".wsdl" : ".xsd"));
+        }
+        PortAddressResolver portAddressResolver = new PortAddressResolver() {
+            @Override
+            public String getAddressFor(@NotNull QName serviceName, @NotNull String portName) {
+                return address;
+            }
+        };
+        DocumentAddressResolver documentAddressResolver = new DocumentAddressResolver() {
+            @Override
+            public String getRelativeAddressFor(@NotNull SDDocument current, @NotNull SDDocument referenced) {
+                return names.get(referenced);
+            }
+        };
+        for (Map.Entry<SDDocument, String> e : names.entrySet()) {
+            OutputStream out = new FileOutputStream(new File(dir, e.getValue()));
+            try {
+                e.getKey().writeTo(portAddressResolver, documentAddressResolver, out);
+            } finally {
+                out.close();
+            }
+        }
+        return new File(dir, names.get(endpoint.getServiceDefinition().getPrimary())).toURI().toURL();
+    }
+
+    @Benchmark
+    public byte[] echoData() {
+        return proxy.echoData(payload);
+    }
+
+    @Benchmark
+    public String echoText() {
+        return proxy.echoText(text);
+    }
+}
@@ -0,0 +1,130 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2017 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * http://glassfish.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package com.sun.xml.ws.benchmark;
+
+import com.sun.xml.ws.api.SOAPVersion;
+import com.sun.xml.ws.api.WSBinding;
+import com.sun.xml.ws.api.message.Header;
+import com.sun.xml.ws.api.message.Message;
+import com.sun.xml.ws.api.message.MessageHeaders;
+import com.sun.xml.ws.api.message.Packet;
+import com.sun.xml.ws.api.pipe.Codecs;
+import com.sun.xml.ws.api.pipe.StreamSOAPCodec;
+import com.sun.xml.ws.message.stream.StreamMessage;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.Charset;
+import java.util.Iterator;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parsing of the SOAP headers into a {@link StreamMessage}.
+ *
+ * <p>
+ * Decodes an envelope with a number of headers, looks up one of them by name,
+ * and iterates over all of them, without reading the body.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class StreamMessageBenchmark {
+
+    private static final String HEADER_NS = "urn:benchmark:headers";
+
+    @Param({"1", "10", "50"})
+    public int headerCount;
+
+    @Param({"1.1", "1.2"})
+    public String soapVersion;
+
+    private StreamSOAPCodec codec;
+    private byte[] envelope;
+    private String contentType;
+    private String lastHeader;
+
+    @Setup
+    public void setUp() {
+        WSBinding binding = BenchmarkSupport.createBinding(soapVersion, false);
+        SOAPVersion version = binding.getSOAPVersion();
+        codec = Codecs.createSOAPEnvelopeXmlCodec(binding.getFeatures());
+        contentType = version.contentType + ";charset=utf-8";
+        lastHeader = "header" + (headerCount - 1);
+
+        StringBuilder sb = new StringBuilder();
+        sb.append("<S:Envelope xmlns:S=\"").append(version.nsUri).append("\"><S:Header>");
+        for (int i = 0; i < headerCount; i++) {
+            sb.append("<h:header").append(i).append(" xmlns:h=\"").append(HEADER_NS).append("\">")
+                    .append("value ").append(i).append("</h:header").append(i).append('>');
+        }
+        sb.append("</S:Header><S:Body><echoText xmlns=\"").append(BenchmarkSupport.NAMESPACE)
+                .append("\"><arg0>text</arg0></echoText></S:Body></S:Envelope>");
+        envelope = sb.toString().getBytes(Charset.forName("UTF-8"));
+    }
+
+    @Benchmark
+    public void parseHeaders(Blackhole bh) throws Exception {
+        Packet packet = new Packet();
+        codec.decode(new ByteArrayInputStream(envelope), contentType, packet);
+        Message message = packet.getMessage();
+        MessageHeaders headers = message.getHeaders();
+        bh.consume(headers.get(HEADER_NS, lastHeader, false));
+        Iterator<Header> it = headers.getHeaders();
+        while (it.hasNext()) {
+            bh.consume(it.next().getStringContent());
+        }
+        bh.consume(message.getPayloadLocalPart());
+    }
+}
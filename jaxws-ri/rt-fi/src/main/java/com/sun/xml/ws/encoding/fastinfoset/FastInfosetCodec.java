@@ -51,6 +51,8 @@ import com.sun.xml.ws.api.pipe.Codec;
 import com.sun.xml.ws.api.pipe.ContentType;
 import com.sun.xml.ws.api.message.Packet;
 import com.sun.xml.ws.encoding.ContentTypeImpl;
+import com.sun.xml.ws.util.ChannelInputStream;
+import com.sun.xml.ws.util.ChannelOutputStream;
 import java.io.BufferedInputStream;
 
 import javax.xml.stream.XMLStreamException;
@@ -117,8 +119,14 @@ public class FastInfosetCodec implements Codec {
     }
     
     public ContentType encode(Packet packet, WritableByteChannel buffer) {
-        //TODO: not yet implemented
-        throw new UnsupportedOperationException();
+        ChannelOutputStream out = new ChannelOutputStream(buffer);
+        try {
+            ContentType ct = encode(packet, out);
+            out.flush();
+            return ct;
+        } catch (IOException e) {
+            throw new WebServiceException(e);
+        }
     }
     
     public void decode(InputStream in, String contentType, Packet packet) throws IOException {
@@ -137,7 +145,11 @@ public class FastInfosetCodec implements Codec {
     }
     
     public void decode(ReadableByteChannel in, String contentType, Packet response) {
-        throw new UnsupportedOperationException();
+        try {
+            decode(new ChannelInputStream(in), contentType, response);
+        } catch (IOException e) {
+            throw new WebServiceException(e);
+        }
     }
     
     private XMLStreamWriter getXMLStreamWriter(OutputStream out) {
@@ -191,7 +203,33 @@ public class FastInfosetCodec implements Codec {
      */
     /* package */ static StAXDocumentSerializer createNewStreamWriter(OutputStream out,
             boolean retainState, int indexedStringSizeLimit, int stringsMemoryLimit) {
+        return createNewStreamWriter(out, retainState, indexedStringSizeLimit, stringsMemoryLimit, null);
+    }
+    
+    /**
+     * Create a new (@link StAXDocumentSerializer} instance that starts from
+     * the tables of a shared vocabulary.
+     *
+     * @param out the OutputStream to serialize to.
+     * @param retainState if true the serializer should retain the state of
+     *        vocabulary tables for multiple serializations.
+     * @param vocabulary the vocabulary of the serializer, created by
+     *        {@link SharedVocabulary#createSerializerVocabulary()}, or null.
+     *        Unless the state is retained, the caller clears it before each
+     *        serialization.
+     * @return a new {@link StAXDocumentSerializer} instance.
+     */
+    /* package */ static StAXDocumentSerializer createNewStreamWriter(OutputStream out,
+            boolean retainState, SerializerVocabulary vocabulary) {
+        return createNewStreamWriter(out, retainState, DEFAULT_INDEXED_STRING_SIZE_LIMIT, DEFAULT_INDEXED_STRING_MEMORY_LIMIT, vocabulary);
+    }
+    
+    private static StAXDocumentSerializer createNewStreamWriter(OutputStream out,
+            boolean retainState, int indexedStringSizeLimit, int stringsMemoryLimit, SerializerVocabulary vocabulary) {
         StAXDocumentSerializer serializer = new StAXDocumentSerializer(out);
+        if (vocabulary != null) {
+            serializer.setVocabulary(vocabulary);
+        }
         if (retainState) {
             /**
              * Create a serializer vocabulary external to the serializer.
@@ -199,8 +237,9 @@ public class FastInfosetCodec implements Codec {
              * for each serialization and will be retained (and will grow)
              * for each serialization
              */
-            SerializerVocabulary vocabulary = new SerializerVocabulary();
-            serializer.setVocabulary(vocabulary);
+            if (vocabulary == null) {
+                serializer.setVocabulary(new SerializerVocabulary());
+            }
             serializer.setMinAttributeValueSize(0);
             serializer.setMaxAttributeValueSize(indexedStringSizeLimit);
             serializer.setMinCharacterContentChunkSize(0);
@@ -220,8 +259,27 @@ public class FastInfosetCodec implements Codec {
      * @return a new {@link StAXDocumentParser} instance.
      */
     /* package */ static StAXDocumentParser createNewStreamReader(InputStream in, boolean retainState) {
+        return createNewStreamReader(in, retainState, null);
+    }
+    
+    /**
+     * Create a new (@link StAXDocumentParser} instance that resolves the
+     * external vocabulary of the documents against a shared vocabulary.
+     *
+     * @param in the InputStream to parse from.
+     * @param retainState if true the parser should retain the state of
+     *        vocabulary tables for multiple parses.
+     * @param externalVocabulary the vocabulary referenced by the documents, or null.
+     *        Once a document referenced it, the parser must only be used for
+     *        documents that reference it as well.
+     * @return a new {@link StAXDocumentParser} instance.
+     */
+    /* package */ static StAXDocumentParser createNewStreamReader(InputStream in, boolean retainState, SharedVocabulary externalVocabulary) {
         StAXDocumentParser parser = new StAXDocumentParser(in);
         parser.setStringInterning(true);
+        if (externalVocabulary != null) {
+            parser.setExternalVocabularies(externalVocabulary.getParserVocabularies());
+        }
         if (retainState) {
             /**
              * Create a parser vocabulary external to the parser.
@@ -43,6 +43,7 @@ package com.sun.xml.ws.encoding.fastinfoset;
 import com.sun.xml.ws.api.pipe.ContentType;
 import com.sun.xml.ws.api.pipe.Codec;
 import com.sun.xml.ws.api.SOAPVersion;
+import com.sun.xml.ws.api.fastinfoset.FastInfosetVocabularyFeature;
 import com.sun.xml.ws.api.pipe.StreamSOAPCodec;
 import com.sun.xml.ws.encoding.ContentTypeImpl;
 import com.sun.xml.ws.message.stream.StreamHeader;
@@ -59,8 +60,12 @@ import javax.xml.stream.XMLStreamReader;
  */
 final class FastInfosetStreamSOAP12Codec extends FastInfosetStreamSOAPCodec {
     /*package*/ FastInfosetStreamSOAP12Codec(StreamSOAPCodec soapCodec, boolean retainState) {
+        this(soapCodec, retainState, null);
+    }
+
+    /*package*/ FastInfosetStreamSOAP12Codec(StreamSOAPCodec soapCodec, boolean retainState, FastInfosetVocabularyFeature vocabularyFeature) {
         super(soapCodec, SOAPVersion.SOAP_12, retainState, 
-                (retainState) ? FastInfosetMIMETypes.STATEFUL_SOAP_12 : FastInfosetMIMETypes.SOAP_12);
+                (retainState) ? FastInfosetMIMETypes.STATEFUL_SOAP_12 : FastInfosetMIMETypes.SOAP_12, vocabularyFeature);
     }
 
     private FastInfosetStreamSOAP12Codec(FastInfosetStreamSOAPCodec that) {
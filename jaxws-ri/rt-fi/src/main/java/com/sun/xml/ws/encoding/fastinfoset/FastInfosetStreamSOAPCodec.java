@@ -42,6 +42,9 @@ package com.sun.xml.ws.encoding.fastinfoset;
 
 import com.sun.xml.fastinfoset.stax.StAXDocumentSerializer;
 import com.sun.xml.fastinfoset.stax.StAXDocumentParser;
+import com.sun.xml.fastinfoset.vocab.SerializerVocabulary;
+import com.sun.xml.ws.api.fastinfoset.FastInfosetVocabulary;
+import com.sun.xml.ws.api.fastinfoset.FastInfosetVocabularyFeature;
 import com.sun.xml.ws.api.pipe.Codec;
 import com.sun.xml.ws.api.pipe.ContentType;
 import com.sun.xml.ws.api.message.Packet;
@@ -50,11 +53,15 @@ import com.sun.xml.ws.api.pipe.StreamSOAPCodec;
 import com.sun.xml.ws.message.stream.StreamHeader;
 import com.sun.xml.stream.buffer.XMLStreamBuffer;
 import com.sun.xml.ws.encoding.ContentTypeImpl;
+import com.sun.xml.ws.util.ChannelInputStream;
+import com.sun.xml.ws.util.ChannelOutputStream;
+import org.jvnet.fastinfoset.VocabularyApplicationData;
 
 import javax.xml.stream.XMLStreamException;
 import javax.xml.stream.XMLStreamWriter;
 import javax.xml.stream.XMLStreamReader;
 import javax.xml.ws.WebServiceException;
+import java.io.BufferedInputStream;
 import java.io.OutputStream;
 import java.io.InputStream;
 import java.io.IOException;
@@ -69,11 +76,21 @@ import java.nio.channels.ReadableByteChannel;
  * This implementation currently defers to {@link StreamSOAPCodec} for the decoding
  * using {@link XMLStreamReader}.
  *
+ * <p>
+ * With a {@link FastInfosetVocabularyFeature}, documents reference the vocabulary
+ * derived from the WSDL instead of starting from empty tables. A client always
+ * references it, a service only in responses to requests that referenced it.
+ *
  * @author Paul Sandoz
  */
 public abstract class FastInfosetStreamSOAPCodec implements Codec {
     private static final FastInfosetStreamReaderFactory READER_FACTORY = FastInfosetStreamReaderFactory.getInstance();
 
+    /**
+     * Invocation property that records the vocabulary URI referenced by a decoded message.
+     */
+    private static final String VOCABULARY_PROPERTY = FastInfosetStreamSOAPCodec.class.getName() + ".vocabulary";
+
     private StAXDocumentParser _statefulParser;
     private StAXDocumentSerializer _serializer;
     
@@ -81,19 +98,28 @@ public abstract class FastInfosetStreamSOAPCodec implements Codec {
     
     private final boolean _retainState;
     
+    private final FastInfosetVocabularyFeature _vocabularyFeature;
+    private SharedVocabulary _vocabulary;
+    private SerializerVocabulary _serializerVocabulary;
+    private StAXDocumentSerializer _vocabularySerializer;
+    private StAXDocumentParser _vocabularyParser;
+    
     protected final ContentType _defaultContentType;
     
-    /* package */ FastInfosetStreamSOAPCodec(StreamSOAPCodec soapCodec, SOAPVersion soapVersion, boolean retainState, String mimeType) {
+    /* package */ FastInfosetStreamSOAPCodec(StreamSOAPCodec soapCodec, SOAPVersion soapVersion, boolean retainState, String mimeType,
+            FastInfosetVocabularyFeature vocabularyFeature) {
 //        _soapCodec = StreamSOAPCodec.create(soapVersion);
         _soapCodec = soapCodec;
         _retainState = retainState;
         _defaultContentType = new ContentTypeImpl(mimeType);
+        _vocabularyFeature = vocabularyFeature;
     }
     
     /* package */ FastInfosetStreamSOAPCodec(FastInfosetStreamSOAPCodec that) {
         this._soapCodec = (StreamSOAPCodec) that._soapCodec.copy();
         this._retainState = that._retainState;
         this._defaultContentType = that._defaultContentType;
+        this._vocabularyFeature = that._vocabularyFeature;
     }
     
     public String getMimeType() {
@@ -106,7 +132,7 @@ public abstract class FastInfosetStreamSOAPCodec implements Codec {
     
     public ContentType encode(Packet packet, OutputStream out) {
         if (packet.getMessage() != null) {
-            final XMLStreamWriter writer = getXMLStreamWriter(out);
+            final XMLStreamWriter writer = useVocabulary(packet) ? getVocabularyStreamWriter(out) : getXMLStreamWriter(out);
             try {
                 packet.getMessage().writeTo(writer);
                 writer.flush();
@@ -118,17 +144,39 @@ public abstract class FastInfosetStreamSOAPCodec implements Codec {
     }
     
     public ContentType encode(Packet packet, WritableByteChannel buffer) {
-        //TODO: not yet implemented
-        throw new UnsupportedOperationException();
+        ChannelOutputStream out = new ChannelOutputStream(buffer);
+        try {
+            ContentType ct = encode(packet, out);
+            out.flush();
+            return ct;
+        } catch (IOException e) {
+            throw new WebServiceException(e);
+        }
     }
     
     public void decode(InputStream in, String contentType, Packet response) throws IOException {
+        SharedVocabulary vocabulary = getVocabulary();
+        if (vocabulary != null) {
+            if (!in.markSupported()) {
+                in = new BufferedInputStream(in);
+            }
+            if (SharedVocabulary.referencesExternalVocabulary(in)) {
+                response.invocationProperties.put(VOCABULARY_PROPERTY, vocabulary.uri);
+                response.setMessage(
+                        _soapCodec.decode(getVocabularyStreamReader(in, vocabulary)));
+                return;
+            }
+        }
         response.setMessage(
                 _soapCodec.decode(getXMLStreamReader(in)));
     }
     
     public void decode(ReadableByteChannel in, String contentType, Packet response) {
-        throw new UnsupportedOperationException();
+        try {
+            decode(new ChannelInputStream(in), contentType, response);
+        } catch (IOException e) {
+            throw new WebServiceException(e);
+        }
     }
     
     protected abstract StreamHeader createHeader(XMLStreamReader reader, XMLStreamBuffer mark);
@@ -144,6 +192,59 @@ public abstract class FastInfosetStreamSOAPCodec implements Codec {
         }
     }
     
+    /**
+     * The shared vocabulary, once the feature's vocabulary is derived.
+     * Stateful documents always start from empty tables.
+     */
+    private SharedVocabulary getVocabulary() {
+        if (_vocabulary == null && _vocabularyFeature != null && !_retainState) {
+            FastInfosetVocabulary v = _vocabularyFeature.getVocabulary();
+            if (v != null) {
+                _vocabulary = SharedVocabulary.get(v);
+            }
+        }
+        return _vocabulary;
+    }
+    
+    private boolean useVocabulary(Packet packet) {
+        SharedVocabulary vocabulary = getVocabulary();
+        if (vocabulary == null) {
+            return false;
+        }
+        // a client relies on the vocabulary it was configured with, a service
+        // only references it when the peer did
+        return packet.endpoint == null || vocabulary.uri.equals(packet.invocationProperties.get(VOCABULARY_PROPERTY));
+    }
+    
+    private XMLStreamWriter getVocabularyStreamWriter(OutputStream out) {
+        if (_vocabularySerializer != null) {
+            // documents are stateless, only the external vocabulary is kept.
+            // The serializer only clears a vocabulary it owns, together with the
+            // data applications such as JAXB keep about it, so both are cleared here
+            _serializerVocabulary.clear();
+            VocabularyApplicationData data = _vocabularySerializer.getVocabularyApplicationData();
+            if (data != null) {
+                data.clear();
+            }
+            _vocabularySerializer.setOutputStream(out);
+            return _vocabularySerializer;
+        } else {
+            _serializerVocabulary = _vocabulary.createSerializerVocabulary();
+            return _vocabularySerializer = FastInfosetCodec.createNewStreamWriter(out, false, _serializerVocabulary);
+        }
+    }
+    
+    private XMLStreamReader getVocabularyStreamReader(InputStream in, SharedVocabulary vocabulary) {
+        // this parser keeps the vocabulary once a document referenced it,
+        // so it is only used for documents that reference a vocabulary
+        if (_vocabularyParser != null) {
+            _vocabularyParser.setInputStream(in);
+            return _vocabularyParser;
+        } else {
+            return _vocabularyParser = FastInfosetCodec.createNewStreamReader(in, false, vocabulary);
+        }
+    }
+    
     private XMLStreamReader getXMLStreamReader(InputStream in) {
         // If the _retainState is true (FI stateful) then pick up Codec assiciated XMLStreamReader
         if (_retainState) {
@@ -179,14 +280,33 @@ public abstract class FastInfosetStreamSOAPCodec implements Codec {
      */
     public static FastInfosetStreamSOAPCodec create(StreamSOAPCodec soapCodec,
             SOAPVersion version, boolean retainState) {
+        return create(soapCodec, version, retainState, null);
+    }
+    
+    /**
+     * Creates a new {@link FastInfosetStreamSOAPCodec} instance whose stateless
+     * documents use the vocabulary of the feature.
+     *
+     * @param version the SOAP version of the codec.
+     * @param vocabularyFeature the feature that carries the vocabulary. The vocabulary
+     *        is looked up when the codec is first used, so it may be derived later.
+     * @return a new {@link FastInfosetStreamSOAPCodec} instance.
+     */
+    public static FastInfosetStreamSOAPCodec create(StreamSOAPCodec soapCodec,
+            SOAPVersion version, FastInfosetVocabularyFeature vocabularyFeature) {
+        return create(soapCodec, version, false, vocabularyFeature);
+    }
+    
+    private static FastInfosetStreamSOAPCodec create(StreamSOAPCodec soapCodec,
+            SOAPVersion version, boolean retainState, FastInfosetVocabularyFeature vocabularyFeature) {
         if(version==null)
             // this decoder is for SOAP, not for XML/HTTP
             throw new IllegalArgumentException();
         switch(version) {
             case SOAP_11:
-                return new FastInfosetStreamSOAP11Codec(soapCodec, retainState);
+                return new FastInfosetStreamSOAP11Codec(soapCodec, retainState, vocabularyFeature);
             case SOAP_12:
-                return new FastInfosetStreamSOAP12Codec(soapCodec, retainState);
+                return new FastInfosetStreamSOAP12Codec(soapCodec, retainState, vocabularyFeature);
             default:
                 throw new AssertionError();
         }
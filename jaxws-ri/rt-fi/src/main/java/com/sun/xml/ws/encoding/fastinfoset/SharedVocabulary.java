@@ -0,0 +1,174 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2017 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * http://glassfish.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package com.sun.xml.ws.encoding.fastinfoset;
+
+import com.sun.xml.fastinfoset.vocab.ParserVocabulary;
+import com.sun.xml.fastinfoset.vocab.SerializerVocabulary;
+import com.sun.xml.ws.api.fastinfoset.FastInfosetVocabulary;
+import org.jvnet.fastinfoset.Vocabulary;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * The serializer and parser tables of a {@link FastInfosetVocabulary}.
+ *
+ * <p>
+ * The tables are built once per vocabulary URI, and are shared read-only
+ * by all the serializers and parsers that use the vocabulary. Each of them
+ * only adds the names that are not in the vocabulary to its own tables.
+ * Only the string tables of the vocabulary are used.
+ *
+ * @see FastInfosetVocabulary
+ */
+final class SharedVocabulary {
+    /**
+     * Vocabularies by URI. The URI is a digest of the names, so a vocabulary
+     * that is derived again for another endpoint reuses the same tables.
+     */
+    private static final ConcurrentMap<String, SharedVocabulary> VOCABULARIES = new ConcurrentHashMap<String, SharedVocabulary>();
+
+    /**
+     * Number of bytes that are looked at to find the vocabulary of a
+     * document, enough for the longest XML declaration allowed by Fast Infoset.
+     */
+    private static final int HEADER_LIMIT = 64;
+
+    final String uri;
+    private final SerializerVocabulary serializerVocabulary;
+    private final Map<String, ParserVocabulary> parserVocabularies;
+
+    @SuppressWarnings("unchecked")
+    private SharedVocabulary(FastInfosetVocabulary vocabulary) {
+        Vocabulary v = new Vocabulary();
+        addInterned(v.prefixes, vocabulary.getPrefixes());
+        addInterned(v.namespaceNames, vocabulary.getNamespaceNames());
+        addInterned(v.localNames, vocabulary.getLocalNames());
+        // The qualified name tables are left out: a serializer that meets a known
+        // local name with another prefix adds the name to the vocabulary's entry,
+        // so those tables would not stay read-only. Names are still encoded as
+        // indexes of the prefix, namespace and local name tables.
+        this.uri = vocabulary.getURI();
+        this.serializerVocabulary = new SerializerVocabulary(v, false);
+        this.parserVocabularies = Collections.singletonMap(uri, new ParserVocabulary(v));
+    }
+
+    /**
+     * Parsers that intern strings, as used by JAXB, return the names of
+     * the vocabulary as they are, so they are interned here.
+     */
+    private static void addInterned(Set<String> table, List<String> names) {
+        for (String name : names) {
+            table.add(name.intern());
+        }
+    }
+
+    static SharedVocabulary get(FastInfosetVocabulary vocabulary) {
+        SharedVocabulary v = VOCABULARIES.get(vocabulary.getURI());
+        if (v == null) {
+            v = new SharedVocabulary(vocabulary);
+            SharedVocabulary existing = VOCABULARIES.putIfAbsent(v.uri, v);
+            if (existing != null) {
+                v = existing;
+            }
+        }
+        return v;
+    }
+
+    /**
+     * Creates the tables of one serializer, starting from this vocabulary.
+     */
+    SerializerVocabulary createSerializerVocabulary() {
+        SerializerVocabulary v = new SerializerVocabulary();
+        v.setExternalVocabulary(uri, serializerVocabulary, false);
+        return v;
+    }
+
+    /**
+     * The external vocabularies to register with a parser.
+     */
+    Map<String, ParserVocabulary> getParserVocabularies() {
+        return parserVocabularies;
+    }
+
+    /**
+     * Tells if the document that starts at the current position of the stream
+     * references an external vocabulary. The stream is reset to that position.
+     *
+     * @param in a stream that supports {@link InputStream#mark(int)}
+     */
+    static boolean referencesExternalVocabulary(InputStream in) throws IOException {
+        in.mark(HEADER_LIMIT);
+        try {
+            int b = in.read();
+            if (b == '<') {
+                // skip the XML declaration
+                int previous = 0;
+                for (int n = 1; !(previous == '?' && b == '>'); n++) {
+                    if (b == -1 || n == HEADER_LIMIT - 6) {
+                        return false;
+                    }
+                    previous = b;
+                    b = in.read();
+                }
+                b = in.read();
+            }
+            if (b != 0xE0 || in.read() != 0 || in.read() != 0 || in.read() != 1) {
+                return false;
+            }
+            // the document's optional components, then the initial vocabulary's ones
+            b = in.read();
+            if (b == -1 || (b & 0x20) == 0) {
+                return false;
+            }
+            b = in.read();
+            return b != -1 && (b & 0x10) != 0;
+        } finally {
+            in.reset();
+        }
+    }
+}
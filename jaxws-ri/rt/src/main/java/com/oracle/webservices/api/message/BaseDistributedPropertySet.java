@@ -99,10 +99,20 @@ public abstract class BaseDistributedPropertySet extends BasePropertySet impleme
     private final Map<Class<? extends com.oracle.webservices.api.message.PropertySet>, PropertySet> satellites 
         = new IdentityHashMap<Class<? extends com.oracle.webservices.api.message.PropertySet>, PropertySet>();
 
-    private final Map<String, Object> viewthis;
+    /**
+     * Map view of the properties of this object, without the satellites.
+     * Lazily created, as most instances are never viewed as a map.
+     */
+    private Map<String, Object> viewthis;
     
     public BaseDistributedPropertySet() {
-        this.viewthis = super.createView();
+    }
+
+    private Map<String, Object> viewthis() {
+        if (viewthis == null) {
+            viewthis = super.createView();
+        }
+        return viewthis;
     }
     
     @Override
@@ -186,7 +196,8 @@ public abstract class BaseDistributedPropertySet extends BasePropertySet impleme
 
     @Override
     public boolean containsKey(Object key) {
-        if (viewthis.containsKey(key))
+        // without a view, only the typed properties can be there
+        if (viewthis != null ? viewthis.containsKey(key) : super.supports(key))
             return true;
         for (PropertySet child : satellites.values()) {
             if (child.containsKey(key)) {
@@ -229,7 +240,7 @@ public abstract class BaseDistributedPropertySet extends BasePropertySet impleme
     }
     
     protected Map<String, Object> asMapLocal() {
-        return viewthis;
+        return viewthis();
     }
     
     protected boolean supportsLocal(Object key) {
@@ -245,12 +256,12 @@ public abstract class BaseDistributedPropertySet extends BasePropertySet impleme
                 }
             }
             
-            return viewthis.get(key);
+            return viewthis().get(key);
         }
         
         @Override
         public int size() {
-            int size = viewthis.size();
+            int size = viewthis().size();
             for (PropertySet child : satellites.values()) {
                 size += child.asMap().size();
             }
@@ -259,7 +270,7 @@ public abstract class BaseDistributedPropertySet extends BasePropertySet impleme
 
         @Override
         public boolean containsKey(Object key) {
-            if (viewthis.containsKey(key))
+            if (viewthis().containsKey(key))
                 return true;
             for (PropertySet child : satellites.values()) {
                 if (child.asMap().containsKey(key))
@@ -278,7 +289,7 @@ public abstract class BaseDistributedPropertySet extends BasePropertySet impleme
                     entries.add(new SimpleImmutableEntry<String, Object>(entry.getKey(), entry.getValue()));
                 }
             }
-            for (Entry<String,Object> entry : viewthis.entrySet()) {
+            for (Entry<String,Object> entry : viewthis().entrySet()) {
                 // the code below is here to avoid entries.addAll(child.asMap().entrySet()); which works differently on JDK6/7
                 // see DMI_ENTRY_SETS_MAY_REUSE_ENTRY_OBJECTS
                 entries.add(new SimpleImmutableEntry<String, Object>(entry.getKey(), entry.getValue()));
@@ -295,13 +306,13 @@ public abstract class BaseDistributedPropertySet extends BasePropertySet impleme
                 }
             }
             
-            return viewthis.put(key, value);
+            return viewthis().put(key, value);
         }
 
         @Override
         public void clear() {
             satellites.clear();
-            viewthis.clear();
+            viewthis().clear();
         }
 
         @Override
@@ -312,7 +323,7 @@ public abstract class BaseDistributedPropertySet extends BasePropertySet impleme
                 }
             }
             
-            return viewthis.remove(key);
+            return viewthis().remove(key);
         }
     }
 
@@ -43,14 +43,18 @@ package com.oracle.webservices.api.message;
 import com.sun.istack.NotNull;
 import com.sun.istack.Nullable;
 
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.Field;
-import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.security.AccessController;
 import java.security.PrivilegedAction;
 import java.util.AbstractMap;
+import java.util.AbstractSet;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
@@ -190,12 +194,26 @@ public abstract class BasePropertySet implements PropertySet {
         void set(PropertySet props, Object value);
     }
 
+    /**
+     * Property access goes through method handles created once per property,
+     * so {@link #get(Object)} and {@link #put(String, Object)} don't pay for
+     * the reflection checks and argument arrays on every call.
+     */
+    private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+
+    private static final MethodType GETTER = MethodType.methodType(Object.class, PropertySet.class);
+
+    private static final MethodType SETTER = MethodType.methodType(void.class, PropertySet.class, Object.class);
+
     static final class FieldAccessor implements Accessor {
         /**
          * Field with the annotation.
          */
         private final Field f;
 
+        private final MethodHandle getter;
+        private final MethodHandle setter;
+
         /**
          * One of the values in {@link Property} annotation on {@link #f}.
          */
@@ -205,6 +223,12 @@ public abstract class BasePropertySet implements PropertySet {
             this.f = f;
             f.setAccessible(true);
             this.name = name;
+            try {
+                getter = LOOKUP.unreflectGetter(f).asType(GETTER);
+                setter = LOOKUP.unreflectSetter(f).asType(SETTER);
+            } catch (IllegalAccessException e) {
+                throw new AssertionError(e);
+            }
         }
 
         @Override
@@ -220,18 +244,18 @@ public abstract class BasePropertySet implements PropertySet {
         @Override
         public Object get(PropertySet props) {
             try {
-                return f.get(props);
-            } catch (IllegalAccessException e) {
-                throw new AssertionError();
+                return (Object) getter.invokeExact(props);
+            } catch (Throwable t) {
+                throw handle(t);
             }
         }
 
         @Override
         public void set(PropertySet props, Object value) {
             try {
-                f.set(props,value);
-            } catch (IllegalAccessException e) {
-                throw new AssertionError();
+                setter.invokeExact(props, value);
+            } catch (Throwable t) {
+                throw handle(t);
             }
         }
     }
@@ -240,12 +264,12 @@ public abstract class BasePropertySet implements PropertySet {
         /**
          * Getter method.
          */
-        private final @NotNull Method getter;
+        private final @NotNull MethodHandle getter;
         /**
          * Setter method.
          * Some property is read-only.
          */
-        private final @Nullable Method setter;
+        private final @Nullable MethodHandle setter;
 
         /**
          * One of the values in {@link Property} annotation on {@link #getter}.
@@ -253,13 +277,17 @@ public abstract class BasePropertySet implements PropertySet {
         private final String name;
 
         protected MethodAccessor(Method getter, Method setter, String value) {
-            this.getter = getter;
-            this.setter = setter;
             this.name = value;
             getter.setAccessible(true);
             if (setter!=null) {
                 setter.setAccessible(true);
             }
+            try {
+                this.getter = LOOKUP.unreflect(getter).asType(GETTER);
+                this.setter = (setter != null) ? LOOKUP.unreflect(setter).asType(SETTER) : null;
+            } catch (IllegalAccessException e) {
+                throw new AssertionError(e);
+            }
         }
 
         @Override
@@ -275,12 +303,9 @@ public abstract class BasePropertySet implements PropertySet {
         @Override
         public Object get(PropertySet props) {
             try {
-                return getter.invoke(props);
-            } catch (IllegalAccessException e) {
-                throw new AssertionError();
-            } catch (InvocationTargetException e) {
-                handle(e);
-                return 0;   // never reach here
+                return (Object) getter.invokeExact(props);
+            } catch (Throwable t) {
+                throw handle(t);
             }
         }
 
@@ -290,32 +315,28 @@ public abstract class BasePropertySet implements PropertySet {
                 throw new ReadOnlyPropertyException(getName());
             }
             try {
-                setter.invoke(props,value);
-            } catch (IllegalAccessException e) {
-                throw new AssertionError();
-            } catch (InvocationTargetException e) {
-                handle(e);
+                setter.invokeExact(props, value);
+            } catch (Throwable t) {
+                throw handle(t);
             }
         }
+    }
 
-        /**
-         * Since we don't expect the getter/setter to throw a checked exception,
-         * it should be possible to make the exception propagation transparent.
-         * That's what we are trying to do here.
-         */
-        private Exception handle(InvocationTargetException e) {
-            Throwable t = e.getTargetException();
-            if (t instanceof Error) {
-                throw (Error)t;
-            }
-            if (t instanceof RuntimeException) {
-                throw (RuntimeException)t;
-            }
-            throw new Error(e);
+    /**
+     * Since we don't expect the getter/setter to throw a checked exception,
+     * it should be possible to make the exception propagation transparent.
+     * That's what we are trying to do here.
+     */
+    private static Error handle(Throwable t) {
+        if (t instanceof Error) {
+            throw (Error)t;
         }
+        if (t instanceof RuntimeException) {
+            throw (RuntimeException)t;
+        }
+        throw new Error(t);
     }
 
-
     /**
      * Class allowing to work with PropertySet object as with a Map; it doesn't only allow to read properties from
      * the map but also to modify the map in a way it is in sync with original strongly typed fields. It also allows
@@ -355,11 +376,46 @@ public abstract class BasePropertySet implements PropertySet {
 
         @Override
         public Set<Entry<String, Object>> entrySet() {
-            Set<Entry<String, Object>> entries = new HashSet<Entry<String, Object>>();
-            for (String key : keySet()) {
-                entries.add(new SimpleImmutableEntry<String, Object>(key, get(key)));
-            }
-            return entries;
+            // values of the typed properties are read as the entries are iterated,
+            // rather than copied upfront
+            final Set<Entry<String, Object>> entries = super.entrySet();
+            return new AbstractSet<Entry<String, Object>>() {
+                @Override
+                public Iterator<Entry<String, Object>> iterator() {
+                    final Iterator<Entry<String, Object>> it = entries.iterator();
+                    return new Iterator<Entry<String, Object>>() {
+                        private Entry<String, Object> current;
+
+                        @Override
+                        public boolean hasNext() {
+                            return it.hasNext();
+                        }
+
+                        @Override
+                        public Entry<String, Object> next() {
+                            current = it.next();
+                            Object o = current.getValue();
+                            if (o instanceof Accessor) {
+                                o = ((Accessor) o).get(BasePropertySet.this);
+                            }
+                            return new SimpleImmutableEntry<String, Object>(current.getKey(), o);
+                        }
+
+                        @Override
+                        public void remove() {
+                            if (current != null && current.getValue() instanceof Accessor) {
+                                ((Accessor) current.getValue()).set(BasePropertySet.this, null);
+                            }
+                            it.remove();
+                        }
+                    };
+                }
+
+                @Override
+                public int size() {
+                    return entries.size();
+                }
+            };
         }
 
         @Override
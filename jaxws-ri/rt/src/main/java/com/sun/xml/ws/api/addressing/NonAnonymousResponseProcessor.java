@@ -54,6 +54,12 @@ import com.sun.xml.ws.binding.BindingImpl;
 
 /**
  * Delivers response messages targeted at non-anonymous endpoint addresses
+ *
+ * <p>
+ * The transport tubes are pooled per endpoint and reply address, and the
+ * responses are sent from a dedicated thread pool, with retries. The limits
+ * are set with the {@code com.sun.xml.ws.api.addressing.ReplyTransportCache.*}
+ * system properties.
  * @since 2.2.6
  */
 public class NonAnonymousResponseProcessor {
@@ -99,16 +105,21 @@ public class NonAnonymousResponseProcessor {
 	        }
         }
 
-        // we need to assemble a pipeline to talk to this endpoint.
+        // we need a pipeline to talk to this endpoint.
 		WSEndpoint<?> endpoint = packet.endpoint;
-		WSBinding binding = endpoint.getBinding();
-        Tube transport = TransportTubeFactory.create(Thread.currentThread().getContextClassLoader(),
-            new ClientTubeAssemblerContext(
-            		packet.endpointAddress, endpoint.getPort(), (WSService) null, 
-            		binding, endpoint.getContainer(),
-            		((BindingImpl) binding).createCodec(), null, null));
-        Fiber fiber = endpoint.getEngine().createFiber();
-        fiber.start(transport, packet, fiberCallback);
+		ReplyTransportCache cache = ReplyTransportCache.get(endpoint);
+		if (cache != null) {
+		    cache.deliver(packet, fiberCallback);
+		} else {
+		    WSBinding binding = endpoint.getBinding();
+		    Tube transport = TransportTubeFactory.create(Thread.currentThread().getContextClassLoader(),
+		        new ClientTubeAssemblerContext(
+		        		packet.endpointAddress, endpoint.getPort(), (WSService) null,
+		        		binding, endpoint.getContainer(),
+		        		((BindingImpl) binding).createCodec(), null, null));
+		    Fiber fiber = endpoint.getEngine().createFiber();
+		    fiber.start(transport, packet, fiberCallback);
+		}
         
         // then we'll proceed the rest like one-way.
         Packet copy = packet.copy(false);
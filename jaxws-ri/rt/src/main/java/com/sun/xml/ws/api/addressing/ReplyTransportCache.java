@@ -0,0 +1,408 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2017 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * http://glassfish.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package com.sun.xml.ws.api.addressing;
+
+import com.sun.istack.NotNull;
+import com.sun.istack.Nullable;
+import com.sun.xml.ws.api.EndpointAddress;
+import com.sun.xml.ws.api.WSBinding;
+import com.sun.xml.ws.api.WSService;
+import com.sun.xml.ws.api.message.Packet;
+import com.sun.xml.ws.api.pipe.ClientTubeAssemblerContext;
+import com.sun.xml.ws.api.pipe.Engine;
+import com.sun.xml.ws.api.pipe.Fiber;
+import com.sun.xml.ws.api.pipe.TransportTubeFactory;
+import com.sun.xml.ws.api.pipe.Tube;
+import com.sun.xml.ws.api.server.WSEndpoint;
+import com.sun.xml.ws.api.Component;
+import com.sun.xml.ws.binding.BindingImpl;
+import com.sun.xml.ws.util.Pool.TubePool;
+
+import javax.xml.ws.WebServiceException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Transport tubes that deliver the responses of one endpoint to non-anonymous
+ * reply addresses.
+ *
+ * <p>
+ * Assembling a transport tube (and its codec) for every response is expensive, so
+ * the tubes are pooled per reply address, and at most {@code maxAddresses} reply
+ * addresses are remembered (least recently used ones are dropped first). Deliveries
+ * run on a dedicated thread pool, so that slow or unreachable reply endpoints don't
+ * hold the threads that process requests; the {@link Executor} of the
+ * {@link com.sun.xml.ws.api.server.Container} is used when it provides one. A delivery
+ * that fails is retried up to {@code maxRetries} times, waiting {@code retryDelay}
+ * milliseconds before the first retry and twice as long before each subsequent one.
+ * As sending a message consumes it, a retry needs a copy of the response that is
+ * made before the first attempt, so with retries enabled every response is buffered
+ * in memory. Set {@code maxRetries} to 0 to stream the responses instead.
+ *
+ * <p>
+ * The defaults can be changed with the
+ * {@code com.sun.xml.ws.api.addressing.ReplyTransportCache.maxAddresses},
+ * {@code .maxTubesPerAddress}, {@code .maxRetries}, {@code .retryDelay} and
+ * {@code .deliveryThreads} system properties.
+ *
+ * <p>
+ * An instance is registered as a {@link Component} of the endpoint, and is
+ * {@link #close() closed} when the endpoint is disposed. The transport tubes are
+ * destroyed when their reply address is dropped, when they are dropped from their
+ * pool, and when a delivery through them fails.
+ */
+public final class ReplyTransportCache implements Component {
+
+    private static final Logger LOGGER = Logger.getLogger(ReplyTransportCache.class.getName());
+
+    private static final int MAX_ADDRESSES = getIntProperty("maxAddresses", 64);
+    private static final int MAX_TUBES_PER_ADDRESS = getIntProperty("maxTubesPerAddress", 16);
+    private static final int MAX_RETRIES = getIntProperty("maxRetries", 2);
+    private static final int RETRY_DELAY = getIntProperty("retryDelay", 500);
+    private static final int DELIVERY_THREADS = getIntProperty("deliveryThreads",
+            Math.max(2, Runtime.getRuntime().availableProcessors()));
+
+    private final WSEndpoint<?> endpoint;
+    private final Engine engine;
+    /**
+     * Our own delivery threads, null when the container provides the {@link Executor}.
+     */
+    private final @Nullable ExecutorService deliveryExecutor;
+    private final Executor executor;
+    // guarded by this
+    private ScheduledExecutorService retryTimer;
+    private volatile boolean closed;
+    // guarded by pools
+    private final List<TubePool> dropped = new ArrayList<TubePool>();
+    // guarded by itself
+    private final Map<String, TubePool> pools = new LinkedHashMap<String, TubePool>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, TubePool> eldest) {
+            if (size() > MAX_ADDRESSES) {
+                dropped.add(eldest.getValue());
+                return true;
+            }
+            return false;
+        }
+    };
+
+    private ReplyTransportCache(WSEndpoint<?> endpoint) {
+        this.endpoint = endpoint;
+        Executor containerExecutor = endpoint.getContainer().getSPI(Executor.class);
+        if (containerExecutor != null) {
+            this.deliveryExecutor = null;
+            this.executor = containerExecutor;
+        } else {
+            this.deliveryExecutor = Executors.newFixedThreadPool(DELIVERY_THREADS, new DaemonThreadFactory("jaxws-reply-delivery-"));
+            this.executor = deliveryExecutor;
+        }
+        this.engine = new Engine(endpoint.getServiceName() + "-replies", endpoint.getContainer(), executor);
+    }
+
+    /**
+     * Gets the cache of the endpoint, registering one if needed.
+     *
+     * @return null if the endpoint doesn't accept components.
+     */
+    static @Nullable ReplyTransportCache get(@NotNull WSEndpoint<?> endpoint) {
+        Set<Component> components = endpoint.getComponents();
+        synchronized (components) {
+            for (Component c : components) {
+                if (c instanceof ReplyTransportCache) {
+                    return (ReplyTransportCache) c;
+                }
+            }
+            ReplyTransportCache cache = new ReplyTransportCache(endpoint);
+            try {
+                components.add(cache);
+            } catch (UnsupportedOperationException e) {
+                return null;
+            }
+            return cache;
+        }
+    }
+
+    @Override
+    public <S> S getSPI(Class<S> spiType) {
+        if (spiType == ReplyTransportCache.class) {
+            return spiType.cast(this);
+        }
+        return null;
+    }
+
+    /**
+     * Stops the delivery threads and destroys the pooled transport tubes.
+     * Deliveries that are still waiting for a retry fail.
+     */
+    public void close() {
+        List<TubePool> destroyed;
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            if (retryTimer != null) {
+                retryTimer.shutdown();
+            }
+        }
+        if (deliveryExecutor != null) {
+            deliveryExecutor.shutdown();
+        }
+        synchronized (pools) {
+            destroyed = new ArrayList<TubePool>(pools.values());
+            destroyed.addAll(dropped);
+            pools.clear();
+            dropped.clear();
+        }
+        for (TubePool pool : destroyed) {
+            pool.takeMaster().preDestroy();
+        }
+    }
+
+    /**
+     * Sends the packet to its {@link Packet#endpointAddress}.
+     *
+     * @param callback
+     *      notified once the delivery succeeded, or the last attempt failed. Can be null.
+     */
+    void deliver(@NotNull Packet packet, @Nullable Fiber.CompletionCallback callback) {
+        if (closed) {
+            throw new WebServiceException("Endpoint " + endpoint.getServiceName() + " is disposed");
+        }
+        new Delivery(getPool(packet.endpointAddress), packet, callback).attempt();
+    }
+
+    private TubePool getPool(EndpointAddress address) {
+        String key = address.toString();
+        synchronized (pools) {
+            TubePool pool = pools.get(key);
+            if (pool != null) {
+                return pool;
+            }
+        }
+        // assemble outside of the lock, a concurrent assembly for the same address is harmless
+        WSBinding binding = endpoint.getBinding();
+        Tube transport = TransportTubeFactory.create(Thread.currentThread().getContextClassLoader(),
+            new ClientTubeAssemblerContext(
+                    address, endpoint.getPort(), (WSService) null,
+                    binding, endpoint.getContainer(),
+                    ((BindingImpl) binding).createCodec(), null, null));
+        TubePool pool = new TubePool(transport, 0, MAX_TUBES_PER_ADDRESS, 0, true);
+        TubePool existing;
+        List<TubePool> destroyed;
+        synchronized (pools) {
+            existing = pools.get(key);
+            if (existing == null) {
+                pools.put(key, pool);
+            }
+            destroyed = new ArrayList<TubePool>(dropped);
+            dropped.clear();
+        }
+        if (existing != null) {
+            transport.preDestroy();
+            return existing;
+        }
+        // deliveries still running on a dropped pool recycle their tubes into it, and are left alone
+        for (TubePool p : destroyed) {
+            p.takeMaster().preDestroy();
+        }
+        return pool;
+    }
+
+    /**
+     * Delivery of one response, with its retries.
+     */
+    private final class Delivery implements Fiber.CompletionCallback, Runnable {
+        private final TubePool pool;
+        private final Packet packet;
+        /**
+         * Pristine copy of the response for the retries, as sending consumes the message.
+         */
+        private final Packet master;
+        private final Fiber.CompletionCallback callback;
+        /**
+         * Retries run on our threads, so they need the context class loader of the request.
+         */
+        private final ClassLoader contextClassLoader;
+        private int attempts;
+        private Tube tube;
+
+        Delivery(TubePool pool, Packet packet, Fiber.CompletionCallback callback) {
+            this.pool = pool;
+            this.packet = packet;
+            this.master = MAX_RETRIES > 0 ? packet.copy(true) : null;
+            this.callback = callback;
+            this.contextClassLoader = Thread.currentThread().getContextClassLoader();
+        }
+
+        void attempt() {
+            Packet request = (attempts == 0) ? packet : master.copy(true);
+            attempts++;
+            tube = pool.take();
+            Fiber fiber = engine.createFiber();
+            fiber.setContextClassLoader(contextClassLoader);
+            fiber.start(tube, request, this);
+        }
+
+        @Override
+        public void run() {
+            try {
+                attempt();
+            } catch (Throwable t) {
+                onCompletion(t);
+            }
+        }
+
+        @Override
+        public void onCompletion(@NotNull Packet response) {
+            pool.recycle(tube);
+            if (callback != null) {
+                callback.onCompletion(response);
+            }
+        }
+
+        @Override
+        public void onCompletion(@NotNull Throwable error) {
+            // the state of a failed transport is unknown, so it's not put back in the pool.
+            // The master is kept for cloning, and destroyed with the pool
+            if (tube != pool.takeMaster()) {
+                try {
+                    tube.preDestroy();
+                } catch (RuntimeException e) {
+                    LOGGER.log(Level.FINE, "Failed to destroy the transport of " + packet.endpointAddress, e);
+                }
+            }
+            tube = null;
+            if (attempts <= MAX_RETRIES && !closed) {
+                long delay = (long) RETRY_DELAY << (attempts - 1);
+                if (LOGGER.isLoggable(Level.FINE)) {
+                    LOGGER.log(Level.FINE, "Delivery of the response to " + packet.endpointAddress
+                            + " failed, retrying in " + delay + "ms", error);
+                }
+                try {
+                    scheduleRetry(new Runnable() {
+                        @Override
+                        public void run() {
+                            if (closed) {
+                                fail(error);
+                                return;
+                            }
+                            try {
+                                executor.execute(Delivery.this);
+                            } catch (RejectedExecutionException e) {
+                                fail(error);
+                            }
+                        }
+                    }, delay);
+                    return;
+                } catch (RejectedExecutionException e) {
+                    // closed meanwhile
+                }
+            }
+            fail(error);
+        }
+
+        private void fail(Throwable error) {
+            if (callback != null) {
+                callback.onCompletion(error);
+            } else {
+                LOGGER.log(Level.WARNING, "Could not deliver the response to " + packet.endpointAddress
+                        + " after " + attempts + " attempts", error);
+            }
+        }
+    }
+
+    private synchronized void scheduleRetry(Runnable retry, long delay) {
+        if (closed) {
+            throw new RejectedExecutionException();
+        }
+        if (retryTimer == null) {
+            retryTimer = Executors.newSingleThreadScheduledExecutor(new DaemonThreadFactory("jaxws-reply-retry-"));
+        }
+        retryTimer.schedule(retry, delay, TimeUnit.MILLISECONDS);
+    }
+
+    private static int getIntProperty(String name, int defaultValue) {
+        String key = ReplyTransportCache.class.getName() + "." + name;
+        try {
+            return Integer.getInteger(key, defaultValue);
+        } catch (SecurityException se) {
+            if (LOGGER.isLoggable(Level.CONFIG)) {
+                LOGGER.log(Level.CONFIG, "Cannot read ''{0}'' property, using defaults.", key);
+            }
+            return defaultValue;
+        }
+    }
+
+    /**
+     * Creates daemon threads that don't hold on to the context class loader
+     * of the application that happened to trigger their creation.
+     */
+    private static final class DaemonThreadFactory implements ThreadFactory {
+        private final AtomicInteger threadNumber = new AtomicInteger(1);
+        private final String namePrefix;
+
+        DaemonThreadFactory(String namePrefix) {
+            this.namePrefix = namePrefix;
+        }
+
+        @Override
+        public Thread newThread(Runnable r) {
+            Thread t = new Thread(r, namePrefix + threadNumber.getAndIncrement());
+            t.setDaemon(true);
+            t.setContextClassLoader(null);
+            return t;
+        }
+    }
+}
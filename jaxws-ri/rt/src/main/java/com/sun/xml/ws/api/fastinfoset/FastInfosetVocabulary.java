@@ -0,0 +1,443 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2017 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * http://glassfish.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package com.sun.xml.ws.api.fastinfoset;
+
+import com.sun.istack.NotNull;
+import com.sun.xml.ws.api.SOAPVersion;
+import com.sun.xml.ws.api.model.wsdl.WSDLBoundOperation;
+import com.sun.xml.ws.api.model.wsdl.WSDLBoundPortType;
+import com.sun.xml.ws.api.model.wsdl.WSDLDescriptorKind;
+import com.sun.xml.ws.api.model.wsdl.WSDLMessage;
+import com.sun.xml.ws.api.model.wsdl.WSDLModel;
+import com.sun.xml.ws.api.model.wsdl.WSDLPart;
+import com.sun.xml.ws.api.model.wsdl.WSDLPartDescriptor;
+import com.sun.xml.ws.api.streaming.XMLStreamReaderFactory;
+import org.xml.sax.EntityResolver;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+
+import javax.jws.soap.SOAPBinding;
+import javax.xml.XMLConstants;
+import javax.xml.namespace.QName;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.IOException;
+import java.io.UnsupportedEncodingException;
+import java.net.URL;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * The names declared by a Web service's WSDL and schema documents, used as an
+ * external Fast Infoset vocabulary that both the client and the service start from.
+ *
+ * <p>
+ * The vocabulary only depends on the WSDL model and the schema declarations,
+ * and its URI is a digest of its content. So a client and a service that read
+ * the same metadata derive the same vocabulary, and a peer that derived a
+ * different one fails to resolve the URI instead of decoding the wrong names.
+ *
+ * @see FastInfosetVocabularyFeature
+ */
+public final class FastInfosetVocabulary {
+    /**
+     * Prefix of the vocabulary URIs, followed by the first 64 bits of the SHA-1
+     * digest of the names, hex encoded. The URI is kept short because every
+     * document that references the vocabulary carries it.
+     */
+    public static final String URI_PREFIX = "urn:jaxws:fi:";
+
+    private static final int DIGEST_LENGTH = 8;
+
+    private final String uri;
+    private final List<String> prefixes;
+    private final List<String> namespaceNames;
+    private final List<String> localNames;
+    private final List<QName> elementNames;
+    private final List<QName> attributeNames;
+
+    private FastInfosetVocabulary(Builder builder) {
+        this.prefixes = freeze(builder.prefixes);
+        this.namespaceNames = freeze(builder.namespaceNames);
+        this.localNames = freeze(builder.localNames);
+        this.elementNames = freeze(builder.elementNames);
+        this.attributeNames = freeze(builder.attributeNames);
+        this.uri = URI_PREFIX + digest();
+    }
+
+    /**
+     * The URI that identifies this vocabulary in Fast Infoset documents.
+     */
+    public @NotNull String getURI() {
+        return uri;
+    }
+
+    public @NotNull List<String> getPrefixes() {
+        return prefixes;
+    }
+
+    public @NotNull List<String> getNamespaceNames() {
+        return namespaceNames;
+    }
+
+    public @NotNull List<String> getLocalNames() {
+        return localNames;
+    }
+
+    public @NotNull List<QName> getElementNames() {
+        return elementNames;
+    }
+
+    public @NotNull List<QName> getAttributeNames() {
+        return attributeNames;
+    }
+
+    @Override
+    public String toString() {
+        return uri;
+    }
+
+    private String digest() {
+        StringBuilder sb = new StringBuilder();
+        for (String s : prefixes) sb.append("p:").append(s).append('\n');
+        for (String s : namespaceNames) sb.append("n:").append(s).append('\n');
+        for (String s : localNames) sb.append("l:").append(s).append('\n');
+        for (QName q : elementNames) sb.append("e:").append(q.getPrefix()).append(':').append(q).append('\n');
+        for (QName q : attributeNames) sb.append("a:").append(q.getPrefix()).append(':').append(q).append('\n');
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-1").digest(sb.toString().getBytes("UTF-8"));
+            StringBuilder hex = new StringBuilder(DIGEST_LENGTH * 2);
+            for (int i = 0; i < DIGEST_LENGTH; i++) {
+                byte b = digest[i];
+                hex.append(Character.forDigit((b >> 4) & 0xf, 16)).append(Character.forDigit(b & 0xf, 16));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new AssertionError(e);
+        } catch (UnsupportedEncodingException e) {
+            throw new AssertionError(e);
+        }
+    }
+
+    private static <T> List<T> freeze(Set<T> set) {
+        return Collections.unmodifiableList(new ArrayList<T>(set));
+    }
+
+    private static final Comparator<QName> QNAME_ORDER = new Comparator<QName>() {
+        public int compare(QName q1, QName q2) {
+            int r = q1.getNamespaceURI().compareTo(q2.getNamespaceURI());
+            if (r == 0) {
+                r = q1.getLocalPart().compareTo(q2.getLocalPart());
+            }
+            if (r == 0) {
+                r = q1.getPrefix().compareTo(q2.getPrefix());
+            }
+            return r;
+        }
+    };
+
+    private static final String NS_WSDL = "http://schemas.xmlsoap.org/wsdl/";
+
+    /**
+     * Collects the names of a WSDL and its schemas.
+     *
+     * <p>
+     * The names are kept sorted, so the resulting vocabulary does not depend on
+     * the order in which they are added. The SOAP envelope names are always
+     * part of the vocabulary.
+     */
+    public static final class Builder {
+        private final Set<String> prefixes = new TreeSet<String>();
+        private final Set<String> namespaceNames = new TreeSet<String>();
+        private final Set<String> localNames = new TreeSet<String>();
+        private final Set<QName> elementNames = new TreeSet<QName>(QNAME_ORDER);
+        private final Set<QName> attributeNames = new TreeSet<QName>(QNAME_ORDER);
+
+        public Builder() {
+            // the prefix used by the JAX-WS runtime when writing the envelope
+            String s11 = SOAPVersion.SOAP_11.nsUri;
+            for (String name : new String[] {"Envelope", "Header", "Body", "Fault"}) {
+                addElement(new QName(s11, name, "S"));
+            }
+            for (String name : new String[] {"faultcode", "faultstring", "faultactor", "detail"}) {
+                addElement(new QName(name));
+            }
+            for (String name : new String[] {"mustUnderstand", "actor", "encodingStyle"}) {
+                addAttribute(new QName(s11, name, "S"));
+            }
+            String s12 = SOAPVersion.SOAP_12.nsUri;
+            for (String name : new String[] {"Envelope", "Header", "Body", "Fault", "Code", "Value",
+                    "Subcode", "Reason", "Text", "Node", "Role", "Detail"}) {
+                addElement(new QName(s12, name, "S"));
+            }
+            for (String name : new String[] {"mustUnderstand", "role", "relay", "encodingStyle"}) {
+                addAttribute(new QName(s12, name, "S"));
+            }
+            addAttribute(new QName(XMLConstants.W3C_XML_SCHEMA_INSTANCE_NS_URI, "type", "xsi"));
+            addAttribute(new QName(XMLConstants.W3C_XML_SCHEMA_INSTANCE_NS_URI, "nil", "xsi"));
+        }
+
+        public Builder addElement(QName name) {
+            elementNames.add(name);
+            addName(name);
+            return this;
+        }
+
+        public Builder addAttribute(QName name) {
+            attributeNames.add(name);
+            addName(name);
+            return this;
+        }
+
+        private void addName(QName name) {
+            if (name.getPrefix().length() > 0) {
+                prefixes.add(name.getPrefix());
+            }
+            if (name.getNamespaceURI().length() > 0) {
+                namespaceNames.add(name.getNamespaceURI());
+            }
+            localNames.add(name.getLocalPart());
+        }
+
+        /**
+         * Adds the names declared by a parsed WSDL and the WSDLs it imports:
+         * the elements of the message parts, and the rpc/literal wrappers and
+         * accessors.
+         *
+         * <p>
+         * The prefixes of the WSDL documents are not part of the vocabulary,
+         * so it doesn't depend on how the documents were written out.
+         */
+        public Builder add(WSDLModel model) {
+            for (WSDLMessage message : model.getMessages().values()) {
+                for (WSDLPart part : message.parts()) {
+                    WSDLPartDescriptor descriptor = part.getDescriptor();
+                    if (descriptor != null && descriptor.type() == WSDLDescriptorKind.ELEMENT) {
+                        QName name = descriptor.name();
+                        addElement(new QName(name.getNamespaceURI(), name.getLocalPart()));
+                    } else {
+                        // rpc/literal accessors are unqualified
+                        addElement(new QName(part.getName()));
+                    }
+                }
+            }
+            for (WSDLBoundPortType binding : model.getBindings().values()) {
+                if (binding.getStyle() != SOAPBinding.Style.RPC) {
+                    continue;
+                }
+                for (WSDLBoundOperation operation : binding.getBindingOperations()) {
+                    // rpc/literal wrapper elements
+                    String name = operation.getName().getLocalPart();
+                    addElement(new QName(operation.getRequestNamespace(), name));
+                    addElement(new QName(operation.getResponseNamespace(), name + "Response"));
+                }
+            }
+            return this;
+        }
+
+        /**
+         * Adds the element and attribute names declared by the schemas of a
+         * WSDL or schema document, nested declarations included.
+         *
+         * <p>
+         * Imported documents are not followed, the caller is expected to
+         * add every document of the metadata.
+         *
+         * @param reader positioned at the start of the document
+         */
+        public Builder add(XMLStreamReader reader) throws XMLStreamException {
+            scan(reader, null);
+            return this;
+        }
+
+        /**
+         * Adds the element and attribute names declared by the schemas of a
+         * WSDL or schema document, and of the documents it imports or includes.
+         * The documents are read through the resolver, like the WSDL parser
+         * reads them.
+         */
+        public Builder add(URL location, EntityResolver resolver) throws IOException, XMLStreamException, SAXException {
+            Set<String> visited = new HashSet<String>();
+            LinkedList<URL> pending = new LinkedList<URL>();
+            pending.add(location);
+            while (!pending.isEmpty()) {
+                URL url = pending.removeFirst();
+                String systemId = url.toExternalForm();
+                if (!visited.add(systemId)) {
+                    continue;
+                }
+                InputSource source = resolver.resolveEntity(null, systemId);
+                if (source == null) {
+                    source = new InputSource(systemId);
+                } else if (source.getSystemId() == null) {
+                    source.setSystemId(systemId);
+                }
+                // relative imports are resolved against the document actually read
+                URL base = new URL(source.getSystemId());
+                if (source.getByteStream() == null && source.getCharacterStream() == null) {
+                    source.setByteStream(base.openStream());
+                }
+                List<String> imports = new ArrayList<String>();
+                try {
+                    XMLStreamReader reader = XMLStreamReaderFactory.create(source, true);
+                    try {
+                        scan(reader, imports);
+                    } finally {
+                        XMLStreamReaderFactory.recycle(reader);
+                    }
+                } finally {
+                    close(source);
+                }
+                for (String i : imports) {
+                    pending.add(new URL(base, i));
+                }
+            }
+            return this;
+        }
+
+        public FastInfosetVocabulary build() {
+            return new FastInfosetVocabulary(this);
+        }
+
+        private void scan(XMLStreamReader reader, List<String> imports) throws XMLStreamException {
+            List<QName> path = new ArrayList<QName>();
+            SchemaScope schema = null;
+            while (reader.hasNext()) {
+                int event = reader.next();
+                if (event == XMLStreamConstants.START_ELEMENT) {
+                    QName name = reader.getName();
+                    QName parent = path.isEmpty() ? null : path.get(path.size() - 1);
+                    path.add(name);
+                    String ns = name.getNamespaceURI();
+                    String local = name.getLocalPart();
+                    if (XMLConstants.W3C_XML_SCHEMA_NS_URI.equals(ns)) {
+                        if (local.equals("schema")) {
+                            schema = new SchemaScope(schema, path.size(), reader);
+                            if (schema.targetNamespace.length() > 0) {
+                                namespaceNames.add(schema.targetNamespace);
+                            }
+                        } else if (schema != null && (local.equals("element") || local.equals("attribute"))) {
+                            String n = attribute(reader, "name");
+                            if (n != null) {
+                                boolean element = local.equals("element");
+                                boolean global = parent != null && parent.getLocalPart().equals("schema")
+                                        && XMLConstants.W3C_XML_SCHEMA_NS_URI.equals(parent.getNamespaceURI());
+                                String form = attribute(reader, "form");
+                                boolean qualified = global || (form != null ? form.equals("qualified")
+                                        : (element ? schema.qualifiedElements : schema.qualifiedAttributes));
+                                QName q = new QName(qualified ? schema.targetNamespace : "", n);
+                                if (element) {
+                                    addElement(q);
+                                } else {
+                                    addAttribute(q);
+                                }
+                            }
+                        } else if (imports != null && (local.equals("import") || local.equals("include") || local.equals("redefine"))) {
+                            addImport(imports, attribute(reader, "schemaLocation"));
+                        }
+                    } else if (imports != null && NS_WSDL.equals(ns) && local.equals("import")) {
+                        addImport(imports, attribute(reader, "location"));
+                    }
+                } else if (event == XMLStreamConstants.END_ELEMENT) {
+                    if (schema != null && schema.depth == path.size()) {
+                        schema = schema.parent;
+                    }
+                    path.remove(path.size() - 1);
+                }
+            }
+        }
+
+        private static void close(InputSource source) throws IOException {
+            if (source.getByteStream() != null) {
+                source.getByteStream().close();
+            }
+            if (source.getCharacterStream() != null) {
+                source.getCharacterStream().close();
+            }
+        }
+
+        private static void addImport(List<String> imports, String location) {
+            if (location != null) {
+                imports.add(location);
+            }
+        }
+
+        private static String attribute(XMLStreamReader reader, String name) {
+            String value = reader.getAttributeValue(null, name);
+            if (value != null) {
+                value = value.trim();
+                if (value.length() == 0) {
+                    return null;
+                }
+            }
+            return value;
+        }
+    }
+
+    /**
+     * The {@code xs:schema} element that encloses the current declaration.
+     */
+    private static final class SchemaScope {
+        final SchemaScope parent;
+        final int depth;
+        final String targetNamespace;
+        final boolean qualifiedElements;
+        final boolean qualifiedAttributes;
+
+        SchemaScope(SchemaScope parent, int depth, XMLStreamReader reader) {
+            this.parent = parent;
+            this.depth = depth;
+            String tns = reader.getAttributeValue(null, "targetNamespace");
+            this.targetNamespace = (tns == null) ? "" : tns.trim();
+            this.qualifiedElements = "qualified".equals(reader.getAttributeValue(null, "elementFormDefault"));
+            this.qualifiedAttributes = "qualified".equals(reader.getAttributeValue(null, "attributeFormDefault"));
+        }
+    }
+}
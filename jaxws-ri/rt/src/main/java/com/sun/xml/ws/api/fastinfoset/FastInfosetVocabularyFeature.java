@@ -0,0 +1,142 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2017 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * http://glassfish.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package com.sun.xml.ws.api.fastinfoset;
+
+import com.sun.istack.Nullable;
+import com.sun.xml.ws.api.FeatureConstructor;
+
+import javax.xml.ws.WebServiceFeature;
+
+import org.glassfish.gmbal.ManagedAttribute;
+import org.glassfish.gmbal.ManagedData;
+
+/**
+ * Seeds stateless Fast Infoset documents with an external vocabulary that is
+ * derived from the Web service's WSDL and schema documents.
+ * <p>
+ * Without a vocabulary every Fast Infoset document starts with empty tables,
+ * and spells out each tag and namespace name the first time it occurs. With
+ * this feature both sides start from the names of the metadata: the message
+ * parts and rpc/literal wrappers of the WSDL, and the elements and attributes
+ * declared by its schemas, nested declarations included. The vocabulary is
+ * shared read-only by all the codecs.
+ * <ul>
+ *  <li> On a Web service, the vocabulary is derived from the endpoint's
+ *       WSDL model and metadata documents at deployment time, and advertised
+ *       to clients by a policy assertion in the generated WSDL. Responses only
+ *       reference the vocabulary when the request did.
+ *  <li> On a client, the vocabulary is derived once per service from the
+ *       WSDL model the service parsed, and from the schemas of the WSDL, read
+ *       through the service's catalog resolver. This feature is enabled by the
+ *       service's policy, or can be passed explicitly when the service is
+ *       known to use the vocabulary.
+ * </ul>
+ * <p>
+ * This feature has no effect unless Fast Infoset is used, see
+ * {@link FastInfosetFeature}.
+ *
+ * @see FastInfosetVocabulary
+ */
+@ManagedData
+public class FastInfosetVocabularyFeature extends WebServiceFeature {
+    /**
+     * Constant value identifying the {@link FastInfosetVocabularyFeature}
+     */
+    public static final String ID = "http://java.sun.com/xml/ns/jaxws/fastinfoset/vocabulary";
+
+    private volatile FastInfosetVocabulary vocabulary;
+
+    /**
+     * Create a {@link FastInfosetVocabularyFeature}. The instance created will be enabled,
+     * and will use the vocabulary derived from the WSDL.
+     */
+    public FastInfosetVocabularyFeature() {
+        this.enabled = true;
+    }
+
+    /**
+     * Create a {@link FastInfosetVocabularyFeature}
+     *
+     * @param enabled specifies whether this feature should
+     *                be enabled or not.
+     */
+    @FeatureConstructor({"enabled"})
+    public FastInfosetVocabularyFeature(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    /**
+     * Create an enabled {@link FastInfosetVocabularyFeature} that uses the given
+     * vocabulary rather than deriving one from the WSDL.
+     */
+    public FastInfosetVocabularyFeature(FastInfosetVocabulary vocabulary) {
+        this.enabled = true;
+        this.vocabulary = vocabulary;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @ManagedAttribute
+    public String getID() {
+        return ID;
+    }
+
+    /**
+     * The vocabulary, or null if it is not derived yet.
+     */
+    public @Nullable FastInfosetVocabulary getVocabulary() {
+        return vocabulary;
+    }
+
+    public void setVocabulary(FastInfosetVocabulary vocabulary) {
+        this.vocabulary = vocabulary;
+    }
+
+    /**
+     * The URI of the vocabulary, or null if it is not derived yet.
+     */
+    @ManagedAttribute
+    public String getVocabularyURI() {
+        FastInfosetVocabulary v = vocabulary;
+        return (v == null) ? null : v.getURI();
+    }
+}
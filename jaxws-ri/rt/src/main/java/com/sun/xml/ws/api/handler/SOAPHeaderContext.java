@@ -0,0 +1,77 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2017 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * http://glassfish.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package com.sun.xml.ws.api.handler;
+
+import com.sun.istack.Nullable;
+import com.sun.xml.ws.api.message.MessageHeaders;
+
+import javax.xml.ws.handler.soap.SOAPMessageContext;
+
+/**
+ * The <code>SOAPHeaderContext</code> interface extends
+ * <code>SOAPMessageContext</code> to give <code>SOAPHandler</code>s access to
+ * the headers of the RI's <code>Message</code>.
+ *
+ * <p>
+ * Headers obtained this way are read from the message as they are, without
+ * building a SAAJ <code>SOAPMessage</code>, so a handler that only needs a
+ * couple of headers doesn't pay for a DOM of the whole envelope.
+ * The contexts passed to <code>SOAPHandler</code>s by the RI implement this
+ * interface.
+ *
+ * @see HeaderOnlyHandler
+ */
+public interface SOAPHeaderContext extends SOAPMessageContext {
+    /**
+     * Gets the headers of the message in this message context.
+     *
+     * <p>
+     * Headers added or removed through the returned object are part of the
+     * message passed on by the handler chain. If the handler already changed
+     * the message obtained from {@link #getMessage()}, those changes are put
+     * back on the message first, and the <code>SOAPMessage</code> has to be
+     * obtained again to make further changes through SAAJ.
+     *
+     * @return The headers of the contained message; returns <code>null</code>
+     *         if no message is present in this message context
+     */
+    public @Nullable MessageHeaders getMessageHeaders();
+}
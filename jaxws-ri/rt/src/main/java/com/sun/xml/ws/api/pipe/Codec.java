@@ -147,8 +147,13 @@ public interface Codec {
      * that writes to NIO {@link ByteBuffer}.
      *
      * <p>
-     * TODO: for the convenience of implementation, write
-     * an adapter that wraps {@link WritableByteChannel} to {@link OutputStream}.
+     * The channel is expected to be in blocking mode, and it is not closed
+     * by this method. Implementations can use
+     * {@link com.sun.xml.ws.util.ChannelOutputStream}, which buffers the
+     * encoded bytes and hands them to the channel with gathering writes.
+     *
+     * @throws javax.xml.ws.WebServiceException
+     *      if the channel throws {@link IOException}.
      */
     ContentType encode( Packet packet, WritableByteChannel buffer );
 
@@ -238,8 +243,18 @@ public interface Codec {
     void decode( InputStream in, String contentType, Packet response ) throws IOException;
 
     /**
+     * The version of {@link #decode(InputStream, String, Packet)}
+     * that reads from NIO {@link ReadableByteChannel}.
+     *
+     * <p>
+     * The channel is expected to be in blocking mode, and it is not closed
+     * by this method. Implementations can use
+     * {@link com.sun.xml.ws.util.ChannelInputStream}, as the parsers underneath
+     * the codecs of this runtime, including the MIME multipart parser, read
+     * from streams.
      *
-     * @see #decode(InputStream, String, Packet)
+     * @throws javax.xml.ws.WebServiceException
+     *      if the channel throws {@link IOException}.
      */
     void decode( ReadableByteChannel in, String contentType, Packet response );
 
@@ -48,11 +48,16 @@ import java.util.concurrent.atomic.AtomicInteger;
 import com.sun.xml.ws.api.message.Packet;
 import com.sun.xml.ws.api.server.Container;
 import com.sun.xml.ws.api.server.ContainerResolver;
+import com.sun.xml.ws.util.VirtualThreads;
 
 /**
  * Collection of {@link Fiber}s.
  * Owns an {@link Executor} to run them.
  *
+ * <p>
+ * When no {@link Executor} is given, a pool of daemon threads is used, or
+ * virtual threads if {@link VirtualThreads#isEnabled() enabled}.
+ *
  * @author Kohsuke Kawaguchi
  * @author Jitendra Kotamraju
  */
@@ -88,14 +93,39 @@ public class Engine {
     }
 
     void addRunnable(Fiber fiber) {
-        if(threadPool==null) {
+        execute(fiber);
+    }
+
+    /**
+     * Runs a task with the {@link Executor} of this engine, the one that runs
+     * the fibers. Transports can use it to hand the processing of a request
+     * over from their I/O threads.
+     */
+    public void execute(Runnable task) {
+        // threadPool is volatile, read it once as setExecutor may change it meanwhile
+        Executor ex = threadPool;
+        if(ex==null) {
             synchronized(this) {
-                threadPool = wrap(Executors.newCachedThreadPool(new DaemonThreadFactory()));
+                ex = threadPool;
+                if(ex==null) {
+                    ex = wrap(createDefaultExecutor());
+                    threadPool = ex;
+                }
             }
         }
-        threadPool.execute(fiber);
+        ex.execute(task);
     }
     
+    private static Executor createDefaultExecutor() {
+        if (VirtualThreads.isEnabled()) {
+            Executor ex = VirtualThreads.newVirtualThreadPerTaskExecutor("jaxws-engine-virtual-");
+            if (ex != null) {
+                return ex;
+            }
+        }
+        return Executors.newCachedThreadPool(new DaemonThreadFactory());
+    }
+
     private Executor wrap(Executor ex) {
         return ContainerResolver.getDefault().wrapExecutor(container, ex);
     }
@@ -273,6 +273,11 @@ public final class Fiber implements Runnable, Cancelable, ComponentRegistry {
     /**
      * Replace uses of synchronized(this) with this lock so that we can control 
      * unlocking for resume use cases
+     *
+     * <p>
+     * A thread blocked in {@link #runSync(Tube, Packet)} waits on {@link #condition},
+     * so a virtual thread is unmounted from its carrier while it waits. The monitor
+     * of this fiber is only held for short field updates, never while blocking.
      */
     private final ReentrantLock lock = new ReentrantLock();
     private final Condition condition = lock.newCondition();
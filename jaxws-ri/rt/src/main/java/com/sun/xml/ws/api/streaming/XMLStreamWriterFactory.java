@@ -118,6 +118,7 @@ public abstract class XMLStreamWriterFactory {
             }
             if (f == null)
                 f = new Default(xof);
+            f.builtIn = true;
     
             if (LOGGER.isLoggable(Level.FINE)) {
                 LOGGER.log(Level.FINE, "XMLStreamWriterFactory instance is = {0}", f);
@@ -126,6 +127,11 @@ public abstract class XMLStreamWriterFactory {
         }
     };
 
+    /**
+     * True if this instance is the one the JAX-WS RI created for itself.
+     */
+    private boolean builtIn;
+
     /**
      * See {@link #create(OutputStream)} for the contract.
      * This method may be invoked concurrently.
@@ -190,6 +196,15 @@ public abstract class XMLStreamWriterFactory {
         return writerFactory.get();
     }
 
+    /**
+     * True unless the singleton instance was replaced with {@link #set(XMLStreamWriterFactory)}.
+     * Code that writes XML bytes on its own, without an {@link XMLStreamWriter}, must only
+     * do so in that case, so that an installed factory sees all the output.
+     */
+    public static boolean isDefault() {
+        return get().builtIn;
+    }
+
     /**
      * Overrides the singleton {@link XMLStreamWriterFactory} instance that
      * the JAX-WS RI uses.
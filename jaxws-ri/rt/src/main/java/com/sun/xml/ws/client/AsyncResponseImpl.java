@@ -42,12 +42,16 @@ package com.sun.xml.ws.client;
 
 import com.sun.istack.Nullable;
 import com.sun.xml.ws.api.Cancelable;
+import com.sun.xml.ws.api.client.CompletableResponse;
 import com.sun.xml.ws.util.CompletedFuture;
 
 import javax.xml.ws.AsyncHandler;
 import javax.xml.ws.Response;
 import javax.xml.ws.WebServiceException;
 import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.FutureTask;
 
 /**
@@ -55,9 +59,13 @@ import java.util.concurrent.FutureTask;
  * request to Fiber and returns. When the Fiber finishes the execution, it sets
  * response in the {@link FutureTask}
  *
+ * <p>
+ * The {@link #toCompletableFuture() CompletableFuture view} is completed
+ * by the same thread, once the {@link FutureTask} is done.
+ *
  * @author Jitendra Kotamraju
  */
-public final class AsyncResponseImpl<T> extends FutureTask<T> implements Response<T>, ResponseContextReceiver {
+public final class AsyncResponseImpl<T> extends FutureTask<T> implements CompletableResponse<T>, ResponseContextReceiver {
 
     /**
      * Optional {@link AsyncHandler} that gets invoked
@@ -66,7 +74,8 @@ public final class AsyncResponseImpl<T> extends FutureTask<T> implements Respons
     private final AsyncHandler<T> handler;
     private ResponseContext responseContext;
     private final Runnable callable;
-    private Cancelable cancelable;
+    private volatile Cancelable cancelable;
+    private volatile ResponseFuture completableFuture;
 
     /**
      *
@@ -150,4 +159,59 @@ public final class AsyncResponseImpl<T> extends FutureTask<T> implements Respons
     		cancelable.cancel(mayInterruptIfRunning);
     	return super.cancel(mayInterruptIfRunning);
     }
+
+    public CompletableFuture<T> toCompletableFuture() {
+        ResponseFuture f = completableFuture;
+        if (f == null) {
+            synchronized (this) {
+                f = completableFuture;
+                if (f == null) {
+                    completableFuture = f = new ResponseFuture();
+                }
+            }
+            // done() may have run before the future was there
+            if (isDone()) {
+                f.complete();
+            }
+        }
+        return f;
+    }
+
+    @Override
+    protected void done() {
+        ResponseFuture f = completableFuture;
+        if (f != null) {
+            f.complete();
+        }
+    }
+
+    /**
+     * {@link CompletableFuture} view of this response. Cancelling it
+     * cancels the invocation.
+     */
+    private final class ResponseFuture extends CompletableFuture<T> {
+
+        /**
+         * Copies the outcome of the {@link FutureTask}, which is done.
+         */
+        void complete() {
+            try {
+                complete(AsyncResponseImpl.this.get());
+            } catch (ExecutionException e) {
+                completeExceptionally(e.getCause());
+            } catch (CancellationException e) {
+                super.cancel(false);
+            } catch (InterruptedException e) {
+                // cannot happen, the task is done
+                Thread.currentThread().interrupt();
+                completeExceptionally(e);
+            }
+        }
+
+        @Override
+        public boolean cancel(boolean mayInterruptIfRunning) {
+            AsyncResponseImpl.this.cancel(mayInterruptIfRunning);
+            return isCancelled();
+        }
+    }
 }
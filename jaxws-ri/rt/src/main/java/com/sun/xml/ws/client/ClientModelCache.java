@@ -0,0 +1,453 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2017 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * http://glassfish.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package com.sun.xml.ws.client;
+
+import com.sun.istack.NotNull;
+import com.sun.istack.Nullable;
+import com.sun.xml.ws.api.model.SEIModel;
+import com.sun.xml.ws.api.model.wsdl.WSDLModel;
+import com.sun.xml.ws.api.model.wsdl.WSDLPort;
+import com.sun.xml.ws.api.server.Container;
+import com.sun.xml.ws.developer.MemberSubmissionAddressingFeature;
+
+import javax.xml.namespace.QName;
+import javax.xml.transform.Source;
+import javax.xml.transform.stream.StreamSource;
+import javax.xml.ws.WebServiceFeature;
+import javax.xml.ws.soap.AddressingFeature;
+import javax.xml.ws.soap.MTOMFeature;
+import java.io.File;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.net.URI;
+import java.net.URL;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Process-wide cache of the parsed {@link WSDLModel}s and the {@link SEIModel}s
+ * built by {@link WSServiceDelegate}, so that creating a {@link javax.xml.ws.Service}
+ * and its ports for the same WSDL and SEI again doesn't parse the WSDL and
+ * build the runtime model (JAXB context included) every time.
+ *
+ * <p>
+ * The cache is disabled by default. It is enabled by setting the
+ * {@code com.sun.xml.ws.client.ClientModelCache.size} system property, or by
+ * calling {@link #setMaximumSize(int)}, with the maximum number of models kept
+ * in each of the two caches; the least recently used models are dropped
+ * beyond that.
+ *
+ * <p>
+ * WSDL models are keyed by the WSDL location (and the modification time for
+ * {@code file:} locations), the service class, the context class loader and
+ * the container. WSDL documents that are given without a system id are never
+ * cached. SEI models are keyed by the SEI, the service and port names,
+ * the cached {@link WSDLPort} and the features passed to {@code getPort}.
+ * Models are only shared when no feature carries configuration
+ * that can't be compared by value, such as the factory of
+ * {@link com.sun.xml.ws.developer.UsesJAXBContextFeature} or the metadata of
+ * {@link com.oracle.webservices.api.databinding.ExternalMetadataFeature}.
+ *
+ * <p>
+ * The cached models keep their class loaders reachable, so containers should
+ * call {@link #evict(ClassLoader)} when an application is undeployed.
+ *
+ * <p>
+ * <b>THIS CLASS IS EXPERIMENTAL AND IS SUBJECT TO CHANGE WITHOUT NOTICE IN FUTURE.</b>
+ */
+public final class ClientModelCache {
+
+    private static final Logger LOGGER = Logger.getLogger(ClientModelCache.class.getName());
+
+    private static final int DEFAULT_SIZE;
+
+    static {
+        String name = ClientModelCache.class.getName() + ".size";
+        int size = 0;
+        try {
+            size = Integer.getInteger(name, 0);
+        } catch (SecurityException se) {
+            if (LOGGER.isLoggable(Level.CONFIG)) {
+                LOGGER.log(Level.CONFIG, "Cannot read ''{0}'' property, using defaults.", name);
+            }
+        }
+        DEFAULT_SIZE = Math.max(size, 0);
+    }
+
+    private static final Cache<WSDLKey, WSDLModel> WSDL_MODELS = new Cache<WSDLKey, WSDLModel>(DEFAULT_SIZE);
+    private static final Cache<SEIKey, SEIModel> SEI_MODELS = new Cache<SEIKey, SEIModel>(DEFAULT_SIZE);
+
+    private ClientModelCache() {
+    }
+
+    /**
+     * True if the models are cached.
+     */
+    public static boolean isEnabled() {
+        return WSDL_MODELS.size > 0;
+    }
+
+    public static int getMaximumSize() {
+        return WSDL_MODELS.size;
+    }
+
+    /**
+     * Sets the maximum number of models kept in each of the caches, which
+     * overrides the system property. 0 disables the cache.
+     */
+    public static void setMaximumSize(int size) {
+        if (size < 0) {
+            throw new IllegalArgumentException("size must not be negative: " + size);
+        }
+        WSDL_MODELS.resize(size);
+        SEI_MODELS.resize(size);
+    }
+
+    /**
+     * Drops the models whose classes or WSDL were loaded by the given class loader
+     * or by one of its descendants.
+     */
+    public static void evict(@NotNull ClassLoader loader) {
+        int n = WSDL_MODELS.evict(loader) + SEI_MODELS.evict(loader);
+        if (n > 0 && LOGGER.isLoggable(Level.FINE)) {
+            LOGGER.log(Level.FINE, "Evicted {0} cached client models of {1}", new Object[] {n, loader});
+        }
+    }
+
+    /**
+     * Drops all the cached models.
+     */
+    public static void clear() {
+        WSDL_MODELS.clear();
+        SEI_MODELS.clear();
+    }
+
+    public static long getWSDLModelHitCount() {
+        return WSDL_MODELS.hits.get();
+    }
+
+    public static long getWSDLModelMissCount() {
+        return WSDL_MODELS.misses.get();
+    }
+
+    public static long getSEIModelHitCount() {
+        return SEI_MODELS.hits.get();
+    }
+
+    public static long getSEIModelMissCount() {
+        return SEI_MODELS.misses.get();
+    }
+
+    /**
+     * Creates the key of a WSDL model.
+     *
+     * @return null if the WSDL model can't be cached
+     */
+    /*package*/ static @Nullable WSDLKey wsdlKey(@NotNull WSServiceDelegate delegate, @Nullable URL url, @NotNull Source wsdl,
+                                                 @Nullable Class serviceClass, @NotNull Container container) {
+        if (!isEnabled() || url == null || !(wsdl instanceof StreamSource)) {
+            return null;
+        }
+        StreamSource ss = (StreamSource) wsdl;
+        if (ss.getInputStream() != null || ss.getReader() != null) {
+            return null;
+        }
+        long lastModified = 0;
+        if ("file".equals(url.getProtocol())) {
+            try {
+                lastModified = new File(new URI(url.toExternalForm())).lastModified();
+            } catch (Exception e) {
+                return null;
+            }
+        }
+        ClassLoader loader = Thread.currentThread().getContextClassLoader();
+        if (loader == null && serviceClass != null) {
+            loader = serviceClass.getClassLoader();
+        }
+        // every delegate gets its own ClientContainer, they are all equivalent
+        Container c = (container instanceof ClientContainer) ? null : container;
+        return new WSDLKey(url.toExternalForm(), lastModified, serviceClass, delegate.getClass(), loader, c);
+    }
+
+    /**
+     * Creates the key of an SEI model.
+     *
+     * @return null if the SEI model can't be cached
+     */
+    /*package*/ static @Nullable SEIKey seiKey(@NotNull QName serviceName, @NotNull QName portName, @NotNull Class portInterface,
+                                               @NotNull WSDLPort wsdlPort, @Nullable URL wsdlURL, Iterable<WebServiceFeature> features) {
+        if (!isEnabled()) {
+            return null;
+        }
+        StringBuilder signature = new StringBuilder();
+        for (WebServiceFeature f : features) {
+            signature.append(f.getID()).append('=').append(f.isEnabled());
+            if (f instanceof MTOMFeature) {
+                signature.append(',').append(((MTOMFeature) f).getThreshold());
+            } else if (f instanceof AddressingFeature) {
+                AddressingFeature af = (AddressingFeature) f;
+                signature.append(',').append(af.isRequired()).append(',').append(af.getResponses());
+            } else if (f instanceof MemberSubmissionAddressingFeature) {
+                MemberSubmissionAddressingFeature af = (MemberSubmissionAddressingFeature) f;
+                signature.append(',').append(af.isRequired()).append(',').append(af.getValidation());
+            } else if (HAS_STATE.get(f.getClass())) {
+                // a JAXBContextFactory, a metadata reader and the like can't be compared by value
+                return null;
+            }
+            signature.append(';');
+        }
+        return new SEIKey(serviceName, portName, portInterface, wsdlPort,
+                wsdlURL == null ? null : wsdlURL.toExternalForm(), signature.toString());
+    }
+
+    /**
+     * Tells if a feature class has configuration besides the enabled flag of
+     * {@link WebServiceFeature}, which the SEI key can't capture.
+     */
+    private static final ClassValue<Boolean> HAS_STATE = new ClassValue<Boolean>() {
+        @Override
+        protected Boolean computeValue(Class<?> type) {
+            for (Class<?> c = type; c != WebServiceFeature.class && c != null; c = c.getSuperclass()) {
+                for (Field field : c.getDeclaredFields()) {
+                    if (!Modifier.isStatic(field.getModifiers())) {
+                        return true;
+                    }
+                }
+            }
+            return false;
+        }
+    };
+
+    /*package*/ static @Nullable WSDLModel getWSDLModel(@NotNull WSDLKey key) {
+        return WSDL_MODELS.get(key);
+    }
+
+    /**
+     * @return the model to use, which is the one cached meanwhile by another thread, if any
+     */
+    /*package*/ static @NotNull WSDLModel putWSDLModel(@NotNull WSDLKey key, @NotNull WSDLModel model) {
+        return WSDL_MODELS.put(key, model);
+    }
+
+    /*package*/ static @Nullable SEIModel getSEIModel(@NotNull SEIKey key) {
+        return SEI_MODELS.get(key);
+    }
+
+    /**
+     * @return the model to use, which is the one cached meanwhile by another thread, if any
+     */
+    /*package*/ static @NotNull SEIModel putSEIModel(@NotNull SEIKey key, @NotNull SEIModel model) {
+        return SEI_MODELS.put(key, model);
+    }
+
+    private static boolean isSameOrDescendant(ClassLoader cl, ClassLoader loader) {
+        for (; cl != null; cl = cl.getParent()) {
+            if (cl == loader) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean isLoadedBy(Class c, ClassLoader loader) {
+        return c != null && isSameOrDescendant(c.getClassLoader(), loader);
+    }
+
+    private static boolean equal(Object o1, Object o2) {
+        return (o1 == null) ? o2 == null : o1.equals(o2);
+    }
+
+    private static int hash(Object o) {
+        return (o == null) ? 0 : o.hashCode();
+    }
+
+    private interface Key {
+        boolean belongsTo(ClassLoader loader);
+    }
+
+    /**
+     * Bounded LRU map with hit/miss counters. Models are built outside of
+     * the lock, so two threads may build the same model, and the first one
+     * that is put wins.
+     */
+    private static final class Cache<K extends Key, V> {
+        private final Map<K, V> map;
+        volatile int size;
+        final AtomicLong hits = new AtomicLong();
+        final AtomicLong misses = new AtomicLong();
+
+        Cache(int size) {
+            this.size = size;
+            map = new LinkedHashMap<K, V>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+                    return size() > Cache.this.size;
+                }
+            };
+        }
+
+        synchronized void resize(int size) {
+            this.size = size;
+            Iterator<K> it = map.keySet().iterator();
+            for (int n = map.size(); n > size; n--) {
+                it.next();
+                it.remove();
+            }
+        }
+
+        synchronized V get(K key) {
+            V v = map.get(key);
+            if (v == null) {
+                misses.incrementAndGet();
+            } else {
+                hits.incrementAndGet();
+            }
+            return v;
+        }
+
+        synchronized V put(K key, V value) {
+            V v = map.get(key);
+            if (v != null) {
+                return v;
+            }
+            if (size > 0) {
+                map.put(key, value);
+            }
+            return value;
+        }
+
+        synchronized int evict(ClassLoader loader) {
+            int n = 0;
+            Iterator<K> it = map.keySet().iterator();
+            while (it.hasNext()) {
+                if (it.next().belongsTo(loader)) {
+                    it.remove();
+                    n++;
+                }
+            }
+            return n;
+        }
+
+        synchronized void clear() {
+            map.clear();
+        }
+    }
+
+    /*package*/ static final class WSDLKey implements Key {
+        private final String location;
+        private final long lastModified;
+        private final Class serviceClass;
+        private final Class delegateClass;
+        private final ClassLoader loader;
+        private final Container container;
+
+        WSDLKey(String location, long lastModified, Class serviceClass, Class delegateClass, ClassLoader loader, Container container) {
+            this.location = location;
+            this.lastModified = lastModified;
+            this.serviceClass = serviceClass;
+            this.delegateClass = delegateClass;
+            this.loader = loader;
+            this.container = container;
+        }
+
+        public boolean belongsTo(ClassLoader l) {
+            return isSameOrDescendant(loader, l) || isLoadedBy(serviceClass, l) || isLoadedBy(delegateClass, l);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof WSDLKey)) {
+                return false;
+            }
+            WSDLKey that = (WSDLKey) o;
+            return location.equals(that.location) && lastModified == that.lastModified
+                    && serviceClass == that.serviceClass && delegateClass == that.delegateClass
+                    && loader == that.loader && container == that.container;
+        }
+
+        @Override
+        public int hashCode() {
+            return location.hashCode() * 31 + hash(serviceClass);
+        }
+    }
+
+    /*package*/ static final class SEIKey implements Key {
+        private final QName serviceName;
+        private final QName portName;
+        private final Class portInterface;
+        private final WSDLPort wsdlPort;
+        private final String wsdlLocation;
+        private final String features;
+
+        SEIKey(QName serviceName, QName portName, Class portInterface, WSDLPort wsdlPort, String wsdlLocation, String features) {
+            this.serviceName = serviceName;
+            this.portName = portName;
+            this.portInterface = portInterface;
+            this.wsdlPort = wsdlPort;
+            this.wsdlLocation = wsdlLocation;
+            this.features = features;
+        }
+
+        public boolean belongsTo(ClassLoader l) {
+            return isLoadedBy(portInterface, l);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof SEIKey)) {
+                return false;
+            }
+            SEIKey that = (SEIKey) o;
+            return portInterface == that.portInterface && wsdlPort == that.wsdlPort
+                    && serviceName.equals(that.serviceName) && portName.equals(that.portName)
+                    && equal(wsdlLocation, that.wsdlLocation) && features.equals(that.features);
+        }
+
+        @Override
+        public int hashCode() {
+            return portInterface.hashCode() * 31 + portName.hashCode();
+        }
+    }
+}
@@ -111,6 +111,11 @@ public class ClientSchemaValidationTube extends AbstractSchemaValidationTube {
         return noValidation;
     }
 
+    @Override
+    protected Schema getSchema() {
+        return schema;
+    }
+
     protected ClientSchemaValidationTube(ClientSchemaValidationTube that, TubeCloner cloner) {
         super(that,cloner);
         this.port = that.port;
@@ -142,7 +147,7 @@ public class ClientSchemaValidationTube extends AbstractSchemaValidationTube {
             return super.processResponse(response);
         }
         try {
-            doProcess(response);
+            doProcessInbound(response);
         } catch(SAXException se) {
             throw new WebServiceException(se);
         }
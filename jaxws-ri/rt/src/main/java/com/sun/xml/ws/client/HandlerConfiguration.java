@@ -40,6 +40,7 @@
 
 package com.sun.xml.ws.client;
 
+import com.sun.xml.ws.api.handler.HeaderOnlyHandler;
 import com.sun.xml.ws.api.handler.MessageHandler;
 import com.sun.xml.ws.handler.HandlerException;
 
@@ -70,6 +71,7 @@ public class HandlerConfiguration {
     private final List<SOAPHandler> soapHandlers;
     private final List<MessageHandler> messageHandlers;
     private final Set<QName> handlerKnownHeaders;
+    private final boolean headerOnlySoapHandlers;
 
     /**
      * @param roles               This contains the roles assumed by the Binding implementation.
@@ -82,12 +84,14 @@ public class HandlerConfiguration {
         soapHandlers = new ArrayList<SOAPHandler>();
         messageHandlers = new ArrayList<MessageHandler>();
         Set<QName> modHandlerKnownHeaders = new HashSet<QName>();
+        boolean headerOnly = true;
 
         for (Handler handler : handlerChain) {
             if (handler instanceof LogicalHandler) {
                 logicalHandlers.add((LogicalHandler) handler);
             } else if (handler instanceof SOAPHandler) {
                 soapHandlers.add((SOAPHandler) handler);
+                headerOnly &= handler instanceof HeaderOnlyHandler;
                 Set<QName> headers = ((SOAPHandler<?>) handler).getHeaders();
                 if (headers != null) {
                     modHandlerKnownHeaders.addAll(headers);
@@ -105,6 +109,7 @@ public class HandlerConfiguration {
         }
         
         handlerKnownHeaders = Collections.unmodifiableSet(modHandlerKnownHeaders);
+        headerOnlySoapHandlers = headerOnly && !soapHandlers.isEmpty();
     }
 
     /**
@@ -119,6 +124,7 @@ public class HandlerConfiguration {
         this.soapHandlers = oldConfig.soapHandlers;
         this.messageHandlers = oldConfig.messageHandlers;
         this.handlerKnownHeaders = oldConfig.handlerKnownHeaders;
+        this.headerOnlySoapHandlers = oldConfig.headerOnlySoapHandlers;
     }
 
     public Set<String> getRoles() {
@@ -152,4 +158,13 @@ public class HandlerConfiguration {
         return handlerKnownHeaders;
     }
 
+    /**
+     * @return true if there are soap handlers, and all of them are
+     *         {@link HeaderOnlyHandler}s, so the SOAP body never needs to be
+     *         materialized for them
+     */
+    public boolean isHeaderOnlySoapHandlers() {
+        return headerOnlySoapHandlers;
+    }
+
 }
@@ -48,6 +48,7 @@ import com.sun.xml.ws.api.WSService;
 import com.sun.xml.ws.api.policy.PolicyResolverFactory;
 import com.sun.xml.ws.api.policy.PolicyResolver;
 import com.sun.xml.ws.api.client.WSPortInfo;
+import com.sun.xml.ws.api.fastinfoset.FastInfosetVocabularyFeature;
 import com.sun.xml.ws.api.model.wsdl.WSDLPort;
 import com.sun.xml.ws.binding.BindingImpl;
 import com.sun.xml.ws.binding.WebServiceFeatureList;
@@ -66,6 +67,7 @@ import javax.xml.ws.WebServiceFeature;
  * @author JAXWS Development Team
  */
 public class PortInfo implements WSPortInfo {
+
     private final @NotNull WSServiceDelegate owner;
 
     public final @NotNull QName portName;
@@ -157,12 +159,31 @@ public class PortInfo implements WSPortInfo {
 
         // merge features from interceptor
         webServiceFeatures.mergeFeatures(owner.serviceInterceptor.preCreateBinding(this, portInterface, webServiceFeatures), false);
+        deriveFastInfosetVocabulary(webServiceFeatures);
 
         BindingImpl bindingImpl = BindingImpl.create(bindingId, webServiceFeatures.toArray());
         owner.getHandlerConfigurator().configureHandlers(this,bindingImpl);
         return bindingImpl;
     }
 
+    /**
+     * Sets the Fast Infoset vocabulary of the service's WSDL model, if the
+     * {@link FastInfosetVocabularyFeature} is enabled and doesn't carry one already.
+     * The service derives the same vocabulary from its metadata.
+     */
+    private void deriveFastInfosetVocabulary(WebServiceFeatureList webServiceFeatures) {
+        FastInfosetVocabularyFeature vocabularyFeature = webServiceFeatures.get(FastInfosetVocabularyFeature.class);
+        if (vocabularyFeature == null || !vocabularyFeature.isEnabled()) {
+            return;
+        }
+        // the feature may come from the WSDL model, which is shared by the ports
+        synchronized (vocabularyFeature) {
+            if (vocabularyFeature.getVocabulary() == null) {
+                vocabularyFeature.setVocabulary(owner.getFastInfosetVocabulary());
+            }
+        }
+    }
+
     //This method is used for Dispatch client only
     private WSDLPort getPortModel(WSServiceDelegate owner, QName portName) {
 
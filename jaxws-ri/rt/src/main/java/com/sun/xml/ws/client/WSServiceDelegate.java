@@ -55,6 +55,7 @@ import com.sun.xml.ws.api.client.ServiceInterceptorFactory;
 import com.sun.xml.ws.api.databinding.DatabindingConfig;
 import com.sun.xml.ws.api.databinding.DatabindingFactory;
 import com.sun.xml.ws.api.databinding.MetadataReader;
+import com.sun.xml.ws.api.fastinfoset.FastInfosetVocabulary;
 import com.sun.xml.ws.api.model.SEIModel;
 import com.sun.xml.ws.api.model.wsdl.WSDLModel;
 import com.sun.xml.ws.api.model.wsdl.WSDLPort;
@@ -116,6 +117,8 @@ import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.Executor;
 import java.util.concurrent.ThreadFactory;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 
 import static com.sun.xml.ws.util.xml.XmlUtil.createDefaultCatalogResolver;
 
@@ -149,6 +152,8 @@ import static com.sun.xml.ws.util.xml.XmlUtil.createDefaultCatalogResolver;
  * @since JAX-WS 2.0
  */
 public class WSServiceDelegate extends WSService {
+    private static final Logger LOGGER = Logger.getLogger(WSServiceDelegate.class.getName());
+
     /**
      * All ports.
      * <p>
@@ -203,6 +208,16 @@ public class WSServiceDelegate extends WSService {
      */
     /*package*/ final @NotNull ServiceInterceptor serviceInterceptor;
     private URL wsdlURL;
+    /**
+     * True if {@link #wsdlService} is shared through the {@link ClientModelCache},
+     * so that the SEI models built against it can be shared too.
+     */
+    private boolean sharedWSDLModel;
+    /**
+     * Fast Infoset vocabulary derived from the WSDL model of {@link #wsdlService},
+     * computed on first use.
+     */
+    private FastInfosetVocabulary fastInfosetVocabulary; // guarded by this
 
     public WSServiceDelegate(URL wsdlDocumentLocation, QName serviceName, Class<? extends Service> serviceClass, WebServiceFeature... features) {
         this(wsdlDocumentLocation, serviceName, serviceClass, new WebServiceFeatureList(features));
@@ -319,7 +334,7 @@ public class WSServiceDelegate extends WSService {
 	        if (wsdl != null) {
 	            try {
 	                URL url = wsdl.getSystemId()==null ? null : JAXWSUtils.getEncodedURL(wsdl.getSystemId());
-	                WSDLModel model = parseWSDL(url, wsdl, serviceClass);
+	                WSDLModel model = getWSDLModel(url, wsdl, serviceClass);
 	                service = model.getService(this.serviceName);
 	                if (service == null)
 	                    throw new WebServiceException(
@@ -353,6 +368,22 @@ public class WSServiceDelegate extends WSService {
 
     }
 
+    /**
+     * Gets the {@link WSDLModel} from the {@link ClientModelCache}, or parses the WSDL.
+     */
+    private WSDLModel getWSDLModel(URL wsdlDocumentLocation, Source wsdlSource, Class serviceClass) {
+        ClientModelCache.WSDLKey key = ClientModelCache.wsdlKey(this, wsdlDocumentLocation, wsdlSource, serviceClass, container);
+        if (key == null) {
+            return parseWSDL(wsdlDocumentLocation, wsdlSource, serviceClass);
+        }
+        WSDLModel model = ClientModelCache.getWSDLModel(key);
+        if (model == null) {
+            model = ClientModelCache.putWSDLModel(key, parseWSDL(wsdlDocumentLocation, wsdlSource, serviceClass));
+        }
+        sharedWSDLModel = true;
+        return model;
+    }
+
     /**
      * Parses the WSDL and builds {@link com.sun.xml.ws.api.model.wsdl.WSDLModel}.
      * @param wsdlDocumentLocation
@@ -758,7 +789,7 @@ public class WSServiceDelegate extends WSService {
 
         try {
             URL url = wsdl.getSystemId() == null ? null : new URL(wsdl.getSystemId());
-            WSDLModel model = parseWSDL(url, wsdl, sei);
+            WSDLModel model = getWSDLModel(url, wsdl, sei);
             service = model.getService(this.serviceName);
             if (service == null)
                 throw new WebServiceException(
@@ -794,6 +825,34 @@ public class WSServiceDelegate extends WSService {
         }
     }
 
+    /**
+     * The Fast Infoset vocabulary of the WSDL model and its schemas, shared by
+     * all the ports of this service, or null if the service has no WSDL or its
+     * schemas can't be read.
+     *
+     * <p>
+     * The WSDL parser doesn't keep the schemas, so they are read once more,
+     * through the same catalog resolver.
+     */
+    /*package*/ synchronized @Nullable FastInfosetVocabulary getFastInfosetVocabulary() {
+        if (fastInfosetVocabulary == null && wsdlService != null) {
+            URL wsdl = getWSDLDocumentLocation();
+            try {
+                fastInfosetVocabulary = new FastInfosetVocabulary.Builder()
+                        .add(wsdlService.getParent())
+                        .add(wsdl, createCatalogResolver())
+                        .build();
+            } catch (IOException e) {
+                LOGGER.log(Level.WARNING, "Cannot derive the Fast Infoset vocabulary from " + wsdl, e);
+            } catch (XMLStreamException e) {
+                LOGGER.log(Level.WARNING, "Cannot derive the Fast Infoset vocabulary from " + wsdl, e);
+            } catch (SAXException e) {
+                LOGGER.log(Level.WARNING, "Cannot derive the Fast Infoset vocabulary from " + wsdl, e);
+            }
+        }
+        return fastInfosetVocabulary;
+    }
+
     private <T> T createEndpointIFBaseProxy(@Nullable WSEndpointReference epr, QName portName, Class<T> portInterface,
                                             WebServiceFeatureList webServiceFeatures, SEIPortInfo eif) {
         //fail if service doesnt have WSDL
@@ -896,7 +955,20 @@ public class WSServiceDelegate extends WSService {
 
     private SEIPortInfo createSEIPortInfo(QName portName, Class portInterface, WebServiceFeatureList features) {
         WSDLPort wsdlPort = getPortModel(wsdlService, portName);
-        SEIModel model = buildRuntimeModel(serviceName, portName, portInterface, wsdlPort, features);
+        SEIModel model = null;
+        ClientModelCache.SEIKey key = null;
+        if (sharedWSDLModel && getClass() == WSServiceDelegate.class && !useOwnSEIModel(features)) {
+            key = ClientModelCache.seiKey(serviceName, portName, portInterface, wsdlPort, wsdlURL, features);
+        }
+        if (key != null) {
+            model = ClientModelCache.getSEIModel(key);
+        }
+        if (model == null) {
+            model = buildRuntimeModel(serviceName, portName, portInterface, wsdlPort, features);
+            if (key != null) {
+                model = ClientModelCache.putSEIModel(key, model);
+            }
+        }
 		
         return new SEIPortInfo(this, portInterface, (SOAPSEIModel) model, wsdlPort);
     }
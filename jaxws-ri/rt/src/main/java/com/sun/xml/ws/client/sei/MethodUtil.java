@@ -40,6 +40,8 @@
 
 package com.sun.xml.ws.client.sei;
 
+import com.sun.xml.ws.util.MethodHandleInvoker;
+
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.util.logging.Level;
@@ -56,6 +58,12 @@ class MethodUtil {
     private static final Logger LOGGER = Logger.getLogger(MethodUtil.class.getName());
 
     static Object invoke(Object target, Method method, Object[] args) throws IllegalAccessException, InvocationTargetException {
+        // public methods are invoked through a cached method handle, no reflection involved
+        MethodHandleInvoker invoker = MethodHandleInvoker.get(method);
+        if (invoker != null) {
+            return invoker.invoke(target, args);
+        }
+
         // com.sun.xml.ws.util.MethodUtil.invoke(method, owner, args)
         if (LOGGER.isLoggable(Level.FINE)) {
             LOGGER.log(Level.FINE, "Invoking method using com.sun.xml.ws.util.MethodUtil");
@@ -63,6 +63,7 @@ import com.sun.xml.ws.client.Stub;
 import com.sun.xml.ws.client.WSServiceDelegate;
 import com.sun.xml.ws.model.JavaMethodImpl;
 import com.sun.xml.ws.model.SOAPSEIModel;
+import com.sun.xml.ws.util.MethodHandleInvoker;
 import com.sun.xml.ws.wsdl.OperationDispatcher;
 
 import javax.xml.namespace.QName;
@@ -72,6 +73,7 @@ import java.lang.reflect.Method;
 import java.lang.reflect.Modifier;
 import java.lang.reflect.Proxy;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.Map;
 
 /**
@@ -152,16 +154,42 @@ public final class SEIStub extends Stub implements InvocationHandler {
      */
     private final Map<Method, MethodHandler> methodHandlers = new HashMap<Method, MethodHandler>();
 
+    /**
+     * {@link #methodHandlers} keyed by the {@link Method} instances the proxy passes in.
+     * A proxy class always passes the same instances, so an identity lookup suffices
+     * after the first call. Copied on write, as it only grows for the first calls.
+     */
+    private volatile Map<Method, MethodHandler> proxyMethodHandlers = new IdentityHashMap<Method, MethodHandler>();
+
+    private MethodHandler getMethodHandler(Method method) {
+        MethodHandler handler = proxyMethodHandlers.get(method);
+        if (handler == null) {
+            handler = methodHandlers.get(method);
+            if (handler != null) {
+                synchronized (this) {
+                    Map<Method, MethodHandler> handlers = new IdentityHashMap<Method, MethodHandler>(proxyMethodHandlers);
+                    handlers.put(method, handler);
+                    proxyMethodHandlers = handlers;
+                }
+            }
+        }
+        return handler;
+    }
+
     public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
         validateInputs(proxy, method);
         Container old = ContainerResolver.getDefault().enterContainer(owner.getContainer());
         try {
-            MethodHandler handler = methodHandlers.get(method);
+            MethodHandler handler = getMethodHandler(method);
             if (handler != null) {
                 return handler.invoke(proxy, args);
             } else {
                 // we handle the other method invocations by ourselves
                 try {
+                    MethodHandleInvoker invoker = MethodHandleInvoker.get(method);
+                    if (invoker != null) {
+                        return invoker.invoke(this, args);
+                    }
                     return method.invoke(this, args);
                 } catch (IllegalAccessException e) {
                     // impossible
@@ -0,0 +1,98 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2017 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * http://glassfish.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package com.sun.xml.ws.developer;
+
+import javax.xml.ws.spi.WebServiceFeatureAnnotation;
+import java.lang.annotation.*;
+
+/**
+ * Limits the number of requests that an endpoint processes concurrently.
+ *
+ * <p>
+ * Requests beyond {@link #maxInFlight()} wait in a bounded queue. Requests that
+ * find the queue full, or that wait for longer than {@link #queueTimeout()},
+ * are rejected with HTTP 503 before their body is read.
+ *
+ * <p>
+ * for e.g.: To process at most 100 requests at a time
+ *
+ * <pre>
+ * &#64;WebService
+ * &#64;AdmissionControl(maxInFlight=100)
+ * public class HelloService {
+ * }
+ * </pre>
+ *
+ * @see AdmissionControlFeature
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.TYPE)
+@Documented
+@WebServiceFeatureAnnotation(id = AdmissionControlFeature.ID, bean = AdmissionControlFeature.class)
+public @interface AdmissionControl {
+
+    /**
+     * Maximum number of requests processed at the same time.
+     */
+    int maxInFlight() default 200;
+
+    /**
+     * Maximum number of requests waiting for a slot. 0 rejects requests
+     * as soon as {@link #maxInFlight()} requests are in flight.
+     */
+    int maxQueued() default 100;
+
+    /**
+     * Time (in milliseconds) a request waits for a slot before it is rejected.
+     */
+    long queueTimeout() default 1000L;
+
+    /**
+     * Lowers the limit below {@link #maxInFlight()} when the latency of the
+     * endpoint grows, and raises it back as the latency recovers.
+     */
+    boolean adaptive() default false;
+
+    /**
+     * Sends a SOAP fault with the 503 response. Otherwise the response has no body.
+     */
+    boolean rejectWithFault() default false;
+}
@@ -0,0 +1,173 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2017 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * http://glassfish.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package com.sun.xml.ws.developer;
+
+import com.sun.xml.ws.api.FeatureConstructor;
+
+import javax.xml.ws.WebServiceFeature;
+
+import org.glassfish.gmbal.ManagedAttribute;
+import org.glassfish.gmbal.ManagedData;
+
+/**
+ * Endpoint needs to be created with this feature to limit the number of requests
+ * it processes concurrently.
+ *
+ * <p>
+ * Requests beyond {@link #getMaxInFlight() maxInFlight} wait in a bounded queue.
+ * Requests that find the queue full, or that wait for longer than
+ * {@link #getQueueTimeout() queueTimeout}, are rejected with HTTP 503 before their
+ * body is read, so that a traffic spike doesn't fill the heap with decoded messages.
+ *
+ * <pre>
+ * for e.g.: To process at most 100 requests at a time, with up to 50 waiting requests
+ * <p>
+ *
+ * AdmissionControlFeature feature = new AdmissionControlFeature();
+ * feature.setMaxInFlight(100);
+ * feature.setMaxQueued(50);
+ *
+ * Endpoint.create(new HelloService(), feature);
+ *
+ * </pre>
+ *
+ * @see AdmissionControl
+ */
+@ManagedData
+public final class AdmissionControlFeature extends WebServiceFeature {
+    /**
+     * Constant value identifying the {@link AdmissionControl} feature.
+     */
+    public static final String ID = "http://jax-ws.java.net/features/admission-control";
+
+    private int maxInFlight = 200;
+    private int maxQueued = 100;
+    private long queueTimeout = 1000L;
+    private boolean adaptive;
+    private boolean rejectWithFault;
+
+    public AdmissionControlFeature() {
+        this.enabled = true;
+    }
+
+    @FeatureConstructor({"maxInFlight", "maxQueued", "queueTimeout", "adaptive", "rejectWithFault"})
+    public AdmissionControlFeature(int maxInFlight, int maxQueued, long queueTimeout,
+                                   boolean adaptive, boolean rejectWithFault) {
+        this.enabled = true;
+        setMaxInFlight(maxInFlight);
+        setMaxQueued(maxQueued);
+        setQueueTimeout(queueTimeout);
+        this.adaptive = adaptive;
+        this.rejectWithFault = rejectWithFault;
+    }
+
+    @ManagedAttribute
+    public String getID() {
+        return ID;
+    }
+
+    /**
+     * Maximum number of requests processed at the same time.
+     */
+    @ManagedAttribute
+    public int getMaxInFlight() {
+        return maxInFlight;
+    }
+
+    public void setMaxInFlight(int maxInFlight) {
+        if (maxInFlight <= 0) {
+            throw new IllegalArgumentException("maxInFlight must be positive: " + maxInFlight);
+        }
+        this.maxInFlight = maxInFlight;
+    }
+
+    /**
+     * Maximum number of requests waiting for a slot.
+     */
+    @ManagedAttribute
+    public int getMaxQueued() {
+        return maxQueued;
+    }
+
+    public void setMaxQueued(int maxQueued) {
+        if (maxQueued < 0) {
+            throw new IllegalArgumentException("maxQueued must not be negative: " + maxQueued);
+        }
+        this.maxQueued = maxQueued;
+    }
+
+    /**
+     * Time (in milliseconds) a request waits for a slot before it is rejected.
+     */
+    @ManagedAttribute
+    public long getQueueTimeout() {
+        return queueTimeout;
+    }
+
+    public void setQueueTimeout(long queueTimeout) {
+        this.queueTimeout = queueTimeout;
+    }
+
+    /**
+     * If true, the limit is lowered below {@link #getMaxInFlight() maxInFlight} when
+     * the latency of the endpoint grows, and raised back as the latency recovers.
+     */
+    @ManagedAttribute
+    public boolean isAdaptive() {
+        return adaptive;
+    }
+
+    public void setAdaptive(boolean adaptive) {
+        this.adaptive = adaptive;
+    }
+
+    /**
+     * If true, rejected requests get a SOAP fault along with the 503 status.
+     */
+    @ManagedAttribute
+    public boolean isRejectWithFault() {
+        return rejectWithFault;
+    }
+
+    public void setRejectWithFault(boolean rejectWithFault) {
+        this.rejectWithFault = rejectWithFault;
+    }
+}
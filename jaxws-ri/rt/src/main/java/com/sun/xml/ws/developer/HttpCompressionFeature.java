@@ -0,0 +1,121 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2017 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * http://glassfish.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package com.sun.xml.ws.developer;
+
+import com.sun.xml.ws.api.FeatureConstructor;
+
+import javax.xml.ws.WebServiceFeature;
+
+import org.glassfish.gmbal.ManagedAttribute;
+import org.glassfish.gmbal.ManagedData;
+
+/**
+ * Endpoint needs to be created with this feature to compress its HTTP responses.
+ *
+ * <p>
+ * A response is compressed with gzip or deflate when the {@code Accept-Encoding}
+ * header of the request allows it, and the response has at least
+ * {@link #getMinSize() minSize} bytes. The response is compressed while it is
+ * written, it is not buffered beyond the first {@code minSize} bytes.
+ *
+ * <p>
+ * The feature also lets the endpoint accept requests compressed with gzip or
+ * deflate. Without it, a request whose {@code Content-Encoding} header is
+ * anything but {@code identity} is rejected with 415 (Unsupported Media Type)
+ * before its body is read; so is a request in any other coding, such as
+ * {@code br}, even with the feature.
+ * The size of a decompressed request is limited, see
+ * {@link com.sun.xml.ws.transport.http.HttpAdapter#maxDecodedRequestSize}.
+ * On the client side, see
+ * {@link HttpConfigFeature#setAcceptCompressedResponses(boolean)}.
+ *
+ * <pre>
+ * for e.g.: To compress the responses that are bigger than 4KB
+ * <p>
+ *
+ * HttpCompressionFeature feature = new HttpCompressionFeature();
+ * feature.setMinSize(4096);
+ *
+ * Endpoint.create(new HelloService(), feature);
+ *
+ * </pre>
+ *
+ * @see HttpCompression
+ */
+@ManagedData
+public final class HttpCompressionFeature extends WebServiceFeature {
+    /**
+     * Constant value identifying the {@link HttpCompression} feature.
+     */
+    public static final String ID = "http://jax-ws.java.net/features/http-compression";
+
+    private int minSize = 1024;
+
+    public HttpCompressionFeature() {
+        this.enabled = true;
+    }
+
+    @FeatureConstructor({"minSize"})
+    public HttpCompressionFeature(int minSize) {
+        this.enabled = true;
+        setMinSize(minSize);
+    }
+
+    @ManagedAttribute
+    public String getID() {
+        return ID;
+    }
+
+    /**
+     * Responses smaller than this (in bytes) are sent uncompressed.
+     */
+    @ManagedAttribute
+    public int getMinSize() {
+        return minSize;
+    }
+
+    public void setMinSize(int minSize) {
+        if (minSize < 0) {
+            throw new IllegalArgumentException("minSize must not be negative: " + minSize);
+        }
+        this.minSize = minSize;
+    }
+}
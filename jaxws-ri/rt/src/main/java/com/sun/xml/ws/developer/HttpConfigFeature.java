@@ -40,10 +40,14 @@
 
 package com.sun.xml.ws.developer;
 
+import com.sun.xml.ws.transport.http.client.ConcurrentCookieStore;
+
 import javax.xml.ws.WebServiceException;
 import javax.xml.ws.WebServiceFeature;
 import java.lang.reflect.Constructor;
 import java.net.CookieHandler;
+import java.net.CookieManager;
+import java.net.CookiePolicy;
 
 /**
  * A proxy's HTTP configuration (e.g cookie handling) can be configured using
@@ -98,11 +102,23 @@ public final class HttpConfigFeature extends WebServiceFeature {
     }
 
     private final CookieHandler cookieJar;      // shared object among the tubes
+    private boolean acceptCompressedResponses;
 
     public HttpConfigFeature() {
         this(getInternalCookieHandler());
     }
 
+    /**
+     * Creates the feature with a cookie handler that keeps at most
+     * <code>maxCookies</code> cookies in a {@link ConcurrentCookieStore}.
+     * Use it when the feature is shared by many proxies, for e.g. to keep
+     * sticky sessions with many endpoints.
+     */
+    public HttpConfigFeature(int maxCookies) {
+        // ACCEPT_ALL, same as the default cookie handler
+        this(new CookieManager(new ConcurrentCookieStore(maxCookies), CookiePolicy.ACCEPT_ALL));
+    }
+
     public HttpConfigFeature(CookieHandler cookieJar) {
         this.enabled = true;
         this.cookieJar = cookieJar;
@@ -124,4 +140,17 @@ public final class HttpConfigFeature extends WebServiceFeature {
         return cookieJar;
     }
 
+    /**
+     * If true, requests carry an {@code Accept-Encoding: gzip, deflate} header,
+     * unless the application sets its own. Off by default. Gzip and deflate
+     * responses are decoded either way.
+     */
+    public boolean isAcceptCompressedResponses() {
+        return acceptCompressedResponses;
+    }
+
+    public void setAcceptCompressedResponses(boolean acceptCompressedResponses) {
+        this.acceptCompressedResponses = acceptCompressedResponses;
+    }
+
 }
@@ -97,6 +97,26 @@ public interface JAXWSProperties {
      */
     public static final String HTTP_CLIENT_STREAMING_CHUNK_SIZE = "com.sun.xml.ws.transport.http.client.streaming.chunk.size";
 
+    /**
+     * Set this property on the {@link BindingProvider#getRequestContext()} to
+     * stream the request body to the connection while it is being encoded.
+     * Requests up to the threshold (in bytes) are sent with
+     * {@link HttpURLConnection#setFixedLengthStreamingMode(long)}, larger
+     * requests switch to {@link HttpURLConnection#setChunkedStreamingMode(int)}
+     * once the threshold is reached. So the encoded request is not copied
+     * again by {@link HttpURLConnection}.
+     *
+     *<p>
+     * int threshold = ...;
+     * Map<String, Object> ctxt = ((BindingProvider)proxy).getRequestContext();
+     * ctxt.put(HTTP_CLIENT_STREAMING_THRESHOLD, threshold);
+     *
+     * <p>
+     * Note that streamed requests cannot be resent by {@link HttpURLConnection}
+     * for authentication challenges or redirects.
+     */
+    public static final String HTTP_CLIENT_STREAMING_THRESHOLD = "com.sun.xml.ws.transport.http.client.streaming.threshold";
+
 
     /**
      * Set this property on the {@link BindingProvider#getRequestContext()} to
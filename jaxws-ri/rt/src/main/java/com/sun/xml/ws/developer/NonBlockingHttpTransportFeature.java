@@ -0,0 +1,136 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2017 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * http://glassfish.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package com.sun.xml.ws.developer;
+
+import javax.xml.ws.WebServiceFeature;
+
+import org.glassfish.gmbal.ManagedAttribute;
+import org.glassfish.gmbal.ManagedData;
+
+/**
+ * Proxy or {@link javax.xml.ws.Dispatch} needs to be created with this feature
+ * to send HTTP requests over a non-blocking HTTP/1.1 client instead of
+ * {@link java.net.HttpURLConnection}.
+ *
+ * <p>
+ * With this feature, the transport tube suspends the {@link com.sun.xml.ws.api.pipe.Fiber}
+ * while the request is in flight, and the fiber is resumed once the
+ * response has been read. So asynchronous invocations don't hold a thread for
+ * the round trip. Connections are kept alive and pooled per endpoint
+ * (host and port) and per configuration: ports that reach the same endpoint
+ * with the same {@link #getMaxConnectionsPerEndpoint() maxConnectionsPerEndpoint}
+ * and {@link #getKeepAliveTimeout() keepAliveTimeout} share a pool, while a port
+ * configured differently gets a pool of its own, with its own limits. So the
+ * limit on the connections to a backend applies per configuration.
+ *
+ * <pre>
+ * for e.g.: To use at most 50 connections to any one endpoint
+ * <p>
+ *
+ * NonBlockingHttpTransportFeature feature = new NonBlockingHttpTransportFeature();
+ * feature.setMaxConnectionsPerEndpoint(50);
+ *
+ * proxy = HelloService().getHelloPort(feature);
+ *
+ * </pre>
+ *
+ * <p>
+ * Requests that the non-blocking transport cannot handle (https, requests
+ * going through a proxy, or streaming requests configured with
+ * {@link JAXWSProperties#HTTP_CLIENT_STREAMING_CHUNK_SIZE}) are sent with
+ * the regular blocking HTTP transport.
+ *
+ * <p>
+ * <b>THIS feature IS EXPERIMENTAL AND IS SUBJECT TO CHANGE WITHOUT NOTICE IN FUTURE.</b>
+ */
+@ManagedData
+public final class NonBlockingHttpTransportFeature extends WebServiceFeature {
+    /**
+     * Constant value identifying the {@link NonBlockingHttpTransportFeature} feature.
+     */
+    public static final String ID = "http://jax-ws.java.net/features/http-non-blocking-transport";
+
+    private int maxConnectionsPerEndpoint = 20;
+    private long keepAliveTimeout = 60000L;
+
+    public NonBlockingHttpTransportFeature() {
+        this.enabled = true;
+    }
+
+    public NonBlockingHttpTransportFeature(boolean enabled, int maxConnectionsPerEndpoint, long keepAliveTimeout) {
+        this.enabled = enabled;
+        setMaxConnectionsPerEndpoint(maxConnectionsPerEndpoint);
+        setKeepAliveTimeout(keepAliveTimeout);
+    }
+
+    @ManagedAttribute
+    public String getID() {
+        return ID;
+    }
+
+    /**
+     * Maximum number of connections that are opened to one endpoint. Requests
+     * beyond that wait until a connection is returned to the pool.
+     */
+    @ManagedAttribute
+    public int getMaxConnectionsPerEndpoint() {
+        return maxConnectionsPerEndpoint;
+    }
+
+    public void setMaxConnectionsPerEndpoint(int maxConnectionsPerEndpoint) {
+        if (maxConnectionsPerEndpoint <= 0) {
+            throw new IllegalArgumentException("maxConnectionsPerEndpoint must be positive: " + maxConnectionsPerEndpoint);
+        }
+        this.maxConnectionsPerEndpoint = maxConnectionsPerEndpoint;
+    }
+
+    /**
+     * Time (in milliseconds) after which an idle pooled connection is closed.
+     */
+    @ManagedAttribute
+    public long getKeepAliveTimeout() {
+        return keepAliveTimeout;
+    }
+
+    public void setKeepAliveTimeout(long keepAliveTimeout) {
+        this.keepAliveTimeout = keepAliveTimeout;
+    }
+}
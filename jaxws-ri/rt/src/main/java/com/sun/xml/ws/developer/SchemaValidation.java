@@ -101,6 +101,14 @@ public @interface SchemaValidation {
      */
     boolean outbound() default true;
 
+    /**
+     * Validates inbound messages while they are read, instead of validating
+     * a copy of each message upfront.
+     *
+     * @see SchemaValidationFeature#isStreaming()
+     */
+    boolean streaming() default false;
+
     /**
      * Does validation for bound headers in a SOAP message.
      *
@@ -65,6 +65,7 @@ public class SchemaValidationFeature extends WebServiceFeature {
     private final Class<? extends ValidationErrorHandler> clazz;
     private final boolean inbound;
     private final boolean outbound;
+    private final boolean streaming;
 
     public SchemaValidationFeature() {
         this(true, true, DraconianValidationErrorHandler.class);
@@ -88,11 +89,16 @@ public class SchemaValidationFeature extends WebServiceFeature {
     /**
      * @since JAX-WS RI 2.2.2
      */
-    @FeatureConstructor({"inbound", "outbound", "handler"})
     public SchemaValidationFeature(boolean inbound, boolean outbound, Class<? extends ValidationErrorHandler> clazz) {
+        this(inbound, outbound, false, clazz);
+    }
+
+    @FeatureConstructor({"inbound", "outbound", "streaming", "handler"})
+    public SchemaValidationFeature(boolean inbound, boolean outbound, boolean streaming, Class<? extends ValidationErrorHandler> clazz) {
         this.enabled = true;
         this.inbound = inbound;
         this.outbound = outbound;
+        this.streaming = streaming;
         this.clazz = clazz;
     }
 
@@ -129,4 +135,18 @@ public class SchemaValidationFeature extends WebServiceFeature {
     public boolean isOutbound() {
         return outbound;
     }
+
+    /**
+     * Inbound messages are validated while the databinding reads them,
+     * instead of validating a copy of the message upfront. So large messages
+     * are neither buffered nor parsed twice.
+     *
+     * <p>
+     * With this mode, an invalid inbound message is only detected when its
+     * payload is read, and the error is reported as an unmarshalling error.
+     */
+    @ManagedAttribute
+    public boolean isStreaming() {
+        return streaming;
+    }
 }
@@ -0,0 +1,261 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2017 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * http://glassfish.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package com.sun.xml.ws.encoding;
+
+import com.sun.xml.ws.api.SOAPVersion;
+import com.sun.xml.ws.api.message.Header;
+import com.sun.xml.ws.api.message.MessageHeaders;
+import com.sun.xml.ws.message.RelatesToHeader;
+import com.sun.xml.ws.message.StringHeader;
+import com.sun.xml.ws.message.jaxb.JAXBMessage;
+
+import javax.xml.XMLConstants;
+import javax.xml.namespace.NamespaceContext;
+import javax.xml.namespace.QName;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Writes a {@link JAXBMessage} envelope as UTF-8 bytes, without going through
+ * an {@link javax.xml.stream.XMLStreamWriter}.
+ *
+ * <p>
+ * The envelope and body tags are written from bytes computed once per
+ * {@link SOAPVersion}, {@link StringHeader}s (such as the addressing headers)
+ * from tag bytes cached per header name, and the payload is marshalled by
+ * JAXB straight to the stream. Messages with other kinds of headers, or
+ * whose payload cannot be marshalled to a stream, are not handled here.
+ *
+ * @see StreamSOAPCodec
+ */
+final class DirectEnvelopeWriter {
+
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
+    private static final byte[] XML_DECLARATION = bytes("<?xml version='1.0' encoding='UTF-8'?>");
+
+    private static final int MAX_CACHED_TAGS = 256;
+
+    private static final Map<SOAPVersion, Envelope> ENVELOPES = new EnumMap<SOAPVersion, Envelope>(SOAPVersion.class);
+
+    static {
+        for (SOAPVersion sv : SOAPVersion.values()) {
+            ENVELOPES.put(sv, new Envelope(sv));
+        }
+    }
+
+    private static final Map<QName, Tag> TAGS = new ConcurrentHashMap<QName, Tag>();
+
+    private DirectEnvelopeWriter() {
+    }
+
+    /**
+     * Writes the whole envelope of the message, if the message can be written this way.
+     *
+     * @return
+     *      false if nothing was written, and the message needs to be written
+     *      through an {@link javax.xml.stream.XMLStreamWriter}.
+     */
+    static boolean write(JAXBMessage message, OutputStream out) throws IOException {
+        if (!message.supportsPayloadOutputStream()) {
+            return false;
+        }
+        List<Header> headers = null;
+        if (message.hasHeaders()) {
+            MessageHeaders mh = message.getHeaders();
+            headers = mh.asList();
+            for (Header h : headers) {
+                if (h.getClass() != StringHeader.class && h.getClass() != RelatesToHeader.class) {
+                    return false;
+                }
+            }
+        }
+
+        Envelope env = ENVELOPES.get(message.getSOAPVersion());
+        out.write(XML_DECLARATION);
+        out.write(env.start);
+        if (headers != null && !headers.isEmpty()) {
+            out.write(env.headerStart);
+            for (Header h : headers) {
+                writeHeader((StringHeader) h, out);
+            }
+            out.write(env.headerEnd);
+        }
+        out.write(env.bodyStart);
+        message.writePayloadTo(out, env.namespaceContext);
+        out.write(env.end);
+        return true;
+    }
+
+    /**
+     * Writes the same as {@link StringHeader#writeTo(javax.xml.stream.XMLStreamWriter)}
+     * and {@link RelatesToHeader#writeTo(javax.xml.stream.XMLStreamWriter)}.
+     */
+    private static void writeHeader(StringHeader h, OutputStream out) throws IOException {
+        Tag tag = getTag(h.getNamespaceURI(), h.getLocalPart());
+        out.write(tag.start);
+        if (h instanceof RelatesToHeader) {
+            String type = ((RelatesToHeader) h).getType();
+            if (type != null) {
+                out.write(bytes(" type=\"" + escape(type, true) + '"'));
+            }
+        } else {
+            for (SOAPVersion sv : SOAPVersion.values()) {
+                String mu = h.getAttribute(sv.nsUri, "mustUnderstand");
+                if (mu != null) {
+                    out.write(bytes(" xmlns:S=\"" + sv.nsUri + "\" S:mustUnderstand=\"" + mu + '"'));
+                    break;
+                }
+            }
+        }
+        out.write('>');
+        out.write(bytes(escape(h.getStringContent(), false)));
+        out.write(tag.end);
+    }
+
+    private static Tag getTag(String nsUri, String localName) {
+        QName name = new QName(nsUri, localName);
+        Tag tag = TAGS.get(name);
+        if (tag == null) {
+            tag = new Tag(nsUri, localName);
+            if (TAGS.size() < MAX_CACHED_TAGS) {
+                TAGS.put(name, tag);
+            }
+        }
+        return tag;
+    }
+
+    static String escape(String s, boolean attribute) {
+        StringBuilder sb = null;
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            String r;
+            switch (c) {
+                case '&': r = "&amp;"; break;
+                case '<': r = "&lt;"; break;
+                case '>': r = "&gt;"; break;
+                case '"': r = attribute ? "&quot;" : null; break;
+                case '\r': r = "&#xD;"; break;
+                default: r = null;
+            }
+            if (r != null) {
+                if (sb == null) {
+                    sb = new StringBuilder(s.length() + 16).append(s, 0, i);
+                }
+                sb.append(r);
+            } else if (sb != null) {
+                sb.append(c);
+            }
+        }
+        return sb == null ? s : sb.toString();
+    }
+
+    private static byte[] bytes(String s) {
+        return s.getBytes(UTF8);
+    }
+
+    /**
+     * Encoded envelope tags of one {@link SOAPVersion}.
+     */
+    private static final class Envelope {
+        final byte[] start;
+        final byte[] headerStart = bytes("<S:Header>");
+        final byte[] headerEnd = bytes("</S:Header>");
+        final byte[] bodyStart = bytes("<S:Body>");
+        final byte[] end = bytes("</S:Body></S:Envelope>");
+        /**
+         * Namespaces in scope of the payload, so that JAXB doesn't redeclare them.
+         */
+        final NamespaceContext namespaceContext;
+
+        Envelope(final SOAPVersion sv) {
+            start = bytes("<S:Envelope xmlns:S=\"" + sv.nsUri + "\">");
+            namespaceContext = new NamespaceContext() {
+                public String getNamespaceURI(String prefix) {
+                    if ("S".equals(prefix)) {
+                        return sv.nsUri;
+                    }
+                    if (XMLConstants.XML_NS_PREFIX.equals(prefix)) {
+                        return XMLConstants.XML_NS_URI;
+                    }
+                    return XMLConstants.NULL_NS_URI;
+                }
+
+                public String getPrefix(String namespaceURI) {
+                    if (sv.nsUri.equals(namespaceURI)) {
+                        return "S";
+                    }
+                    if (XMLConstants.XML_NS_URI.equals(namespaceURI)) {
+                        return XMLConstants.XML_NS_PREFIX;
+                    }
+                    return null;
+                }
+
+                public Iterator getPrefixes(String namespaceURI) {
+                    String prefix = getPrefix(namespaceURI);
+                    return prefix == null
+                            ? Collections.emptyList().iterator()
+                            : Collections.singletonList(prefix).iterator();
+                }
+            };
+        }
+    }
+
+    /**
+     * Encoded tags of a header, without the attributes.
+     */
+    private static final class Tag {
+        final byte[] start;
+        final byte[] end;
+
+        Tag(String nsUri, String localName) {
+            start = bytes('<' + localName + " xmlns=\"" + escape(nsUri, true) + '"');
+            end = bytes("</" + localName + '>');
+        }
+    }
+}
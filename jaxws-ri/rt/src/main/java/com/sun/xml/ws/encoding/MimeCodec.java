@@ -49,14 +49,19 @@ import com.sun.xml.ws.api.message.Packet;
 import com.sun.xml.ws.api.pipe.Codec;
 import com.sun.xml.ws.api.pipe.ContentType;
 import com.sun.xml.ws.developer.StreamingAttachmentFeature;
+import com.sun.xml.ws.util.ChannelInputStream;
+import com.sun.xml.ws.util.ChannelOutputStream;
 
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
 import java.util.Iterator;
 import java.util.UUID;
 
+import javax.xml.ws.WebServiceException;
+
 /**
  * {@link Codec}s that uses the MIME multipart as the underlying format.
  *
@@ -195,8 +200,25 @@ abstract class MimeCodec implements Codec {
         decode(parser,packet);
     }
 
+    public ContentType encode(Packet packet, WritableByteChannel buffer) {
+        ChannelOutputStream out = new ChannelOutputStream(buffer);
+        try {
+            ContentType ct = encode(packet, out);
+            out.flush();
+            return ct;
+        } catch (IOException e) {
+            throw new WebServiceException(e);
+        }
+    }
+
     public void decode(ReadableByteChannel in, String contentType, Packet packet) {
-        throw new UnsupportedOperationException();
+        // MimeMultipartParser only reads from a stream, so the channel is adapted
+        try {
+            MimeMultipartParser parser = new MimeMultipartParser(new ChannelInputStream(in), contentType, features.get(StreamingAttachmentFeature.class));
+            decode(parser,packet);
+        } catch (IOException e) {
+            throw new WebServiceException(e);
+        }
     }
 
     /**
@@ -68,6 +68,8 @@ import org.jvnet.staxex.XMLStreamReaderEx;
 import org.jvnet.staxex.XMLStreamWriterEx;
 
 import javax.activation.DataHandler;
+import javax.activation.DataSource;
+import javax.activation.FileDataSource;
 import javax.xml.namespace.NamespaceContext;
 import javax.xml.stream.XMLStreamConstants;
 import javax.xml.stream.XMLStreamException;
@@ -77,10 +79,10 @@ import javax.xml.ws.WebServiceException;
 import javax.xml.ws.soap.MTOMFeature;
 import javax.xml.bind.attachment.AttachmentMarshaller;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.OutputStream;
 import java.io.UnsupportedEncodingException;
 import java.net.URLDecoder;
-import java.nio.channels.WritableByteChannel;
 import java.nio.charset.Charset;
 import java.util.ArrayList;
 import java.util.Iterator;
@@ -177,8 +179,7 @@ public class MtomCodec extends MimeCodec {
                 String actionParameter = getActionParameter(packet, version);
                 String soapXopContentType = getSOAPXopContentType(encoding, version, actionParameter);
 
-                writeln("--"+boundary, out);
-                writeMimeHeaders(soapXopContentType, rootId, out);
+                writePartHeader(boundary, soapXopContentType, rootId, out);
 
                 //mtom attachments that need to be written after the root part
                 List<ByteArrayBuffer> mtomAttachments = new ArrayList<ByteArrayBuffer>();
@@ -187,8 +188,10 @@ public class MtomCodec extends MimeCodec {
 
                 packet.getMessage().writeTo(writer);
                 XMLStreamWriterFactory.recycle(writer);
-                writeln(out);
+                out.write(CRLF);
 
+                // each part is released once it's written, so that the
+                // attachment data doesn't stay reachable for the whole encode
                 for(ByteArrayBuffer bos : mtomAttachments){
                     bos.write(out);
                 }
@@ -199,8 +202,7 @@ public class MtomCodec extends MimeCodec {
                         out, boundary);
 
                 //write out the end boundary
-                writeAsAscii("--"+boundary, out);
-                writeAsAscii("--", out);
+                writeAscii(new StringBuilder(boundary.length() + 4).append("--").append(boundary).append("--"), out);
 
             } catch (XMLStreamException e) {
                 throw new WebServiceException(e);
@@ -220,10 +222,22 @@ public class MtomCodec extends MimeCodec {
         return (version == SOAPVersion.SOAP_11) ? "" : createActionParameter(packet);
     }
 
+    /**
+     * An MTOM attachment part that is written after the root part.
+     *
+     * <p>
+     * The data is written straight from the caller's array or
+     * {@link DataHandler}, and the reference to it is dropped once
+     * the part has been written.
+     */
     public static class ByteArrayBuffer{
         final String contentId;
 
-        private final DataHandler dh;
+        private DataHandler dh;
+        private byte[] data;
+        private int start;
+        private int len;
+        private final String contentType;
         private final String boundary;
      
         ByteArrayBuffer(@NotNull DataHandler dh, String b) {
@@ -235,26 +249,116 @@ public class MtomCodec extends MimeCodec {
                     cid = sdh.getHrefCid();
             }
             this.contentId = cid != null ? cid : encodeCid();
+            this.contentType = null;
+            boundary = b;
+        }
+
+        ByteArrayBuffer(@NotNull byte[] data, int start, int len, String contentType, String b) {
+            this.data = data;
+            this.start = start;
+            this.len = len;
+            this.contentId = encodeCid();
+            this.contentType = (contentType != null) ? contentType : "application/octet-stream";
             boundary = b;
         }
 
         public void write(OutputStream os) throws IOException {
             //build attachment frame
-            writeln("--"+boundary, os);
-            writeMimeHeaders(dh.getContentType(), contentId, os);
-            dh.writeTo(os);
-            writeln(os);
+            if (data != null) {
+                writePartHeader(boundary, contentType, contentId, os);
+                os.write(data, start, len);
+            } else {
+                writePartHeader(boundary, dh.getContentType(), contentId, os);
+                dh.writeTo(os);
+            }
+            os.write(CRLF);
+            data = null;
+            dh = null;
         }
     }
 
+    private static final byte[] CRLF = {'\r', '\n'};
+
     public static void writeMimeHeaders(String contentType, String contentId, OutputStream out) throws IOException {
+        StringBuilder sb = new StringBuilder(128);
+        appendMimeHeaders(sb, contentType, contentId);
+        writeAscii(sb, out);
+    }
+
+    /**
+     * Writes the boundary and the MIME headers of a part with a single write.
+     */
+    private static void writePartHeader(String boundary, String contentType, String contentId, OutputStream out) throws IOException {
+        StringBuilder sb = new StringBuilder(boundary.length() + 128);
+        sb.append("--").append(boundary).append("\r\n");
+        appendMimeHeaders(sb, contentType, contentId);
+        writeAscii(sb, out);
+    }
+
+    private static void appendMimeHeaders(StringBuilder sb, String contentType, String contentId) {
         String cid = contentId;
         if(cid != null && cid.length() >0 && cid.charAt(0) != '<')
             cid = '<' + cid + '>';
-        writeln("Content-Id: " + cid, out);
-        writeln("Content-Type: " + contentType, out);
-        writeln("Content-Transfer-Encoding: binary", out);
-        writeln(out);
+        sb.append("Content-Id: ").append(cid).append("\r\n");
+        sb.append("Content-Type: ").append(contentType).append("\r\n");
+        sb.append("Content-Transfer-Encoding: binary\r\n");
+        sb.append("\r\n");
+    }
+
+    private static void writeAscii(CharSequence s, OutputStream out) throws IOException {
+        int len = s.length();
+        byte[] b = new byte[len];
+        for (int i = 0; i < len; i++) {
+            b[i] = (byte) s.charAt(i);
+        }
+        out.write(b);
+    }
+
+    /**
+     * Gets the data of a {@link DataHandler} that is to be inlined as base64,
+     * because it is smaller than the MTOM threshold.
+     *
+     * <p>
+     * Only data handlers whose size is known upfront are considered,
+     * since reading the data just to find its size would be expensive.
+     *
+     * @return null if the data is to be sent as an attachment
+     */
+    private static byte[] getInlineData(DataHandler dh, MTOMFeature mtomFeature) {
+        int threshold = mtomFeature.getThreshold();
+        if (threshold <= 0 || (dh instanceof StreamingDataHandler && ((StreamingDataHandler) dh).getHrefCid() != null)) {
+            return null;
+        }
+        long size = -1;
+        DataSource ds = dh.getDataSource();
+        if (ds instanceof ByteArrayDataSource) {
+            size = ((ByteArrayDataSource) ds).getLength();
+        } else if (ds instanceof FileDataSource) {
+            size = ((FileDataSource) ds).getFile().length();
+        }
+        if (size < 0 || size >= threshold) {
+            return null;
+        }
+        try {
+            InputStream in = dh.getInputStream();
+            try {
+                byte[] b = new byte[(int) size];
+                int n = 0;
+                while (n < b.length) {
+                    int r = in.read(b, n, b.length - n);
+                    if (r < 0) {
+                        break;
+                    }
+                    n += r;
+                }
+                // the size may have changed since it was checked
+                return (n == b.length && in.read() < 0) ? b : null;
+            } finally {
+                in.close();
+            }
+        } catch (IOException e) {
+            throw new WebServiceException(e);
+        }
     }
 
     // Compiler warning for not calling close, but cannot call close,
@@ -274,18 +378,12 @@ public class MtomCodec extends MimeCodec {
             }
 
             // build attachment frame
-            writeln("--" + boundary, out);
-            writeMimeHeaders(att.getContentType(), att.getContentId(), out);
+            writePartHeader(boundary, att.getContentType(), att.getContentId(), out);
             att.writeTo(out);
-            writeln(out); // write \r\n
+            out.write(CRLF);
         }
     }
 
-    @Override
-    public ContentType encode(Packet packet, WritableByteChannel buffer) {
-        throw new UnsupportedOperationException();
-    }
-
     @Override
     public MtomCodec copy() {
         return new MtomCodec(version, (StreamSOAPCodec)codec.copy(), features);
@@ -366,13 +464,16 @@ public class MtomCodec extends MimeCodec {
                 writeCharacters(DatatypeConverterImpl._printBase64Binary(data, start, len));
                 return;
             }
-            ByteArrayBuffer bab = new ByteArrayBuffer(new DataHandler(new ByteArrayDataSource(data, start, len, contentType)), boundary);
-            writeBinary(bab);
+            writeBinary(new ByteArrayBuffer(data, start, len, contentType, boundary));
         }
 
         @Override
         public void writeBinary(DataHandler dataHandler) throws XMLStreamException {
-            // TODO how do we check threshold and if less inline the data
+            byte[] inline = getInlineData(dataHandler, myMtomFeature);
+            if (inline != null) {
+                writeCharacters(DatatypeConverterImpl._printBase64Binary(inline));
+                return;
+            }
             writeBinary(new ByteArrayBuffer(dataHandler, boundary));
         }
 
@@ -433,8 +534,11 @@ public class MtomCodec extends MimeCodec {
 
                 @Override
                 public String addMtomAttachment(DataHandler data, String elementNamespace, String elementLocalName) {
-                    // Should we do the threshold processing on DataHandler ? But that would be
-                    // expensive as DataHolder need to read the data again from its source
+                    // the threshold is only checked when the size is known upfront, as
+                    // DataHolder would otherwise need to read the data again from its source
+                    if (getInlineData(data, myMtomFeature) != null) {
+                        return null;                // JAXB inlines the attachment data
+                    }
                     ByteArrayBuffer bab = new ByteArrayBuffer(data, boundary);
                     mtomAttachments.add(bab);
                     return "cid:"+bab.contentId;
@@ -446,7 +550,7 @@ public class MtomCodec extends MimeCodec {
                     if (myMtomFeature.getThreshold() > length) {
                         return null;                // JAXB inlines the attachment data
                     }
-                    ByteArrayBuffer bab = new ByteArrayBuffer(new DataHandler(new ByteArrayDataSource(data, offset, length, mimeType)), boundary);
+                    ByteArrayBuffer bab = new ByteArrayBuffer(data, offset, length, mimeType, boundary);
                     mtomAttachments.add(bab);
                     return "cid:"+bab.contentId;
                 }
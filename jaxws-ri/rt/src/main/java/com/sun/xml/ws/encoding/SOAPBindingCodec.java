@@ -44,6 +44,7 @@ import com.sun.xml.ws.api.SOAPVersion;
 import com.sun.xml.ws.api.WSFeatureList;
 import com.sun.xml.ws.api.client.SelectOptimalEncodingFeature;
 import com.sun.xml.ws.api.fastinfoset.FastInfosetFeature;
+import com.sun.xml.ws.api.fastinfoset.FastInfosetVocabularyFeature;
 import com.sun.xml.ws.api.message.Message;
 import com.sun.xml.ws.api.message.Packet;
 import com.sun.xml.ws.api.message.ExceptionHasMessage;
@@ -180,7 +181,7 @@ public class SOAPBindingCodec extends MimeCodec implements com.sun.xml.ws.api.pi
         WebServiceFeature fi = features.get(FastInfosetFeature.class);
         isFastInfosetDisabled = (fi != null && !fi.isEnabled());
         if (!isFastInfosetDisabled) {
-            fiSoapCodec = getFICodec(xmlSoapCodec, version);
+            fiSoapCodec = getFICodec(xmlSoapCodec, version, features.get(FastInfosetVocabularyFeature.class));
             if (fiSoapCodec != null) {
                 fiMimeType = fiSoapCodec.getMimeType();
                 fiSwaCodec = new SwACodec(version, features, fiSoapCodec);
@@ -324,15 +325,15 @@ public class SOAPBindingCodec extends MimeCodec implements com.sun.xml.ws.api.pi
 
     public void decode(ReadableByteChannel in, String contentType, Packet packet) {
         if (contentType == null) {
-            throw new UnsupportedMediaException();
+            contentType = xmlMimeType;
         }
-
+        packet.setContentType(new ContentTypeImpl(contentType));
         preDecode(packet);
         try {
             if(isMultipartRelated(contentType))
                 super.decode(in, contentType, packet);
             else if(isFastInfoset(contentType)) {
-                if (packet.contentNegotiation == ContentNegotiation.none)
+                if (!ignoreContentNegotiationProperty && packet.contentNegotiation == ContentNegotiation.none)
                     throw noFastInfosetForDecoding();
 
                 useFastInfosetForEncoding = true;
@@ -486,9 +487,13 @@ public class SOAPBindingCodec extends MimeCodec implements com.sun.xml.ws.api.pi
     /**
      * Obtain an FI SOAP codec instance using reflection.
      */
-    private static Codec getFICodec(StreamSOAPCodec soapCodec, SOAPVersion version) {
+    private static Codec getFICodec(StreamSOAPCodec soapCodec, SOAPVersion version, FastInfosetVocabularyFeature vocabulary) {
         try {
             Class c = Class.forName("com.sun.xml.ws.encoding.fastinfoset.FastInfosetStreamSOAPCodec");
+            if (vocabulary != null && vocabulary.isEnabled()) {
+                Method m = c.getMethod("create", StreamSOAPCodec.class, SOAPVersion.class, FastInfosetVocabularyFeature.class);
+                return (Codec)m.invoke(null, soapCodec, version, vocabulary);
+            }
             Method m = c.getMethod("create", StreamSOAPCodec.class, SOAPVersion.class);
             return (Codec)m.invoke(null, soapCodec, version);
         } catch (Exception e) {
@@ -62,10 +62,13 @@ import com.sun.xml.ws.api.pipe.ContentType;
 import com.sun.xml.ws.api.streaming.XMLStreamWriterFactory;
 import com.sun.xml.ws.developer.SerializationFeature;
 import com.sun.xml.ws.message.AttachmentSetImpl;
+import com.sun.xml.ws.message.jaxb.JAXBMessage;
 import com.sun.xml.ws.message.stream.StreamMessage;
 import com.sun.xml.ws.protocol.soap.VersionMismatchException;
 import com.sun.xml.ws.server.UnsupportedMediaException;
 import com.sun.xml.ws.streaming.XMLStreamReaderUtil;
+import com.sun.xml.ws.util.ChannelInputStream;
+import com.sun.xml.ws.util.ChannelOutputStream;
 import com.sun.xml.ws.util.ServiceFinder;
 
 import javax.xml.stream.XMLStreamConstants;
@@ -82,6 +85,8 @@ import java.nio.charset.Charset;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 
 /**
  * A stream SOAP codec.
@@ -105,6 +110,31 @@ public abstract class StreamSOAPCodec implements com.sun.xml.ws.api.pipe.StreamS
     // it will stored in the packet.invocationProperties
     private final static String DECODED_MESSAGE_CHARSET = "decodedMessageCharset";
 
+    private static final Logger LOGGER = Logger.getLogger(StreamSOAPCodec.class.getName());
+
+    /**
+     * Whether {@link JAXBMessage}s are written by {@link DirectEnvelopeWriter}.
+     * Even then, they are written with an {@link XMLStreamWriter} when an application
+     * installed its own {@link XMLStreamWriterFactory}.
+     */
+    private static final boolean DIRECT_WRITE;
+
+    static {
+        boolean b = true;
+        try {
+            String s = System.getProperty(StreamSOAPCodec.class.getName() + ".directWrite");
+            if (s != null) {
+                b = Boolean.parseBoolean(s);
+            }
+        } catch (SecurityException se) {
+            if (LOGGER.isLoggable(Level.CONFIG)) {
+                LOGGER.log(Level.CONFIG, "Cannot read ''{0}'' property, using defaults.",
+                        new Object[] {StreamSOAPCodec.class.getName() + ".directWrite"});
+            }
+        }
+        DIRECT_WRITE = b;
+    }
+
     /*package*/ StreamSOAPCodec(SOAPVersion soapVersion) {
         this(soapVersion, null);
     }
@@ -139,6 +169,9 @@ public abstract class StreamSOAPCodec implements com.sun.xml.ws.api.pipe.StreamS
         if (packet.getMessage() != null) {
             String encoding = getPacketEncoding(packet);
             packet.invocationProperties.remove(DECODED_MESSAGE_CHARSET);
+            if (writeDirect(packet.getInternalMessage(), encoding, out)) {
+                return getContentType(packet);
+            }
             XMLStreamWriter writer = XMLStreamWriterFactory.create(out, encoding);
             try {
                 packet.getMessage().writeTo(writer);
@@ -151,13 +184,37 @@ public abstract class StreamSOAPCodec implements com.sun.xml.ws.api.pipe.StreamS
         return getContentType(packet);
     }
 
+    /**
+     * Writes the message bytes without an {@link XMLStreamWriter} when it is
+     * a {@link JAXBMessage} that {@link DirectEnvelopeWriter} can handle, and
+     * the {@link XMLStreamWriterFactory} is the default one.
+     */
+    private static boolean writeDirect(Message message, String encoding, OutputStream out) {
+        if (!DIRECT_WRITE || !(message instanceof JAXBMessage)
+                || !SOAPBindingCodec.UTF8_ENCODING.equalsIgnoreCase(encoding)
+                || !XMLStreamWriterFactory.isDefault()) {
+            return false;
+        }
+        try {
+            return DirectEnvelopeWriter.write((JAXBMessage) message, out);
+        } catch (IOException e) {
+            throw new WebServiceException(e);
+        }
+    }
+
     protected abstract ContentType getContentType(Packet packet);
 
     protected abstract String getDefaultContentType();
 
     public ContentType encode(Packet packet, WritableByteChannel buffer) {
-        //TODO: not yet implemented
-        throw new UnsupportedOperationException();
+        ChannelOutputStream out = new ChannelOutputStream(buffer);
+        try {
+            ContentType ct = encode(packet, out);
+            out.flush();
+            return ct;
+        } catch (IOException e) {
+            throw new WebServiceException(e);
+        }
     }
 
     protected abstract List<String> getExpectedContentTypes();
@@ -222,7 +279,7 @@ public abstract class StreamSOAPCodec implements com.sun.xml.ws.api.pipe.StreamS
     }
 
     public void decode(ReadableByteChannel in, String contentType, Packet packet ) {
-        throw new UnsupportedOperationException();
+        decode(in, contentType, packet, new AttachmentSetImpl());
     }
 
     public final StreamSOAPCodec copy() {
@@ -249,8 +306,12 @@ public abstract class StreamSOAPCodec implements com.sun.xml.ws.api.pipe.StreamS
         packet.setMessage(streamDecoder.decode(in, charset, att, soapVersion));
     }
 
-    public void decode(ReadableByteChannel in, String contentType, Packet response, AttachmentSet att ) {
-        throw new UnsupportedOperationException();
+    public void decode(ReadableByteChannel in, String contentType, Packet packet, AttachmentSet att ) {
+        try {
+            decode(new ChannelInputStream(in), contentType, packet, att);
+        } catch (IOException e) {
+            throw new WebServiceException(e);
+        }
     }
 
     /*
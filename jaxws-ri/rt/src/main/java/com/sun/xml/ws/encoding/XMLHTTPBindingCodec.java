@@ -53,6 +53,7 @@ import com.sun.xml.ws.encoding.xml.XMLMessage.UnknownContent;
 import com.sun.xml.ws.encoding.xml.XMLMessage.XMLMultiPart;
 import com.sun.xml.ws.resources.StreamingMessages;
 import com.sun.xml.ws.util.ByteArrayBuffer;
+import com.sun.xml.ws.util.ChannelInputStream;
 
 import javax.activation.DataSource;
 import javax.xml.ws.WebServiceException;
@@ -61,7 +62,7 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.lang.reflect.Method;
-import java.nio.channels.WritableByteChannel;
+import java.nio.channels.ReadableByteChannel;
 import java.util.StringTokenizer;
 
 /**
@@ -166,8 +167,13 @@ public final class XMLHTTPBindingCodec extends MimeCodec {
     }
 
     @Override
-    public ContentType encode(Packet packet, WritableByteChannel buffer) {
-        throw new UnsupportedOperationException();
+    public void decode(ReadableByteChannel in, String contentType, Packet packet) {
+        // multipart content is not parsed here, but kept as XMLMultiPart
+        try {
+            decode(new ChannelInputStream(in), contentType, packet);
+        } catch (IOException e) {
+            throw new WebServiceException(e);
+        }
     }
 
     @Override
@@ -54,13 +54,14 @@ import static com.sun.xml.ws.encoding.policy.EncodingConstants.*;
  */
 public class EncodingPolicyValidator implements PolicyAssertionValidator {
 
-    private static final ArrayList<QName> serverSideSupportedAssertions = new ArrayList<QName>(3);
-    private static final ArrayList<QName> clientSideSupportedAssertions = new ArrayList<QName>(4);
+    private static final ArrayList<QName> serverSideSupportedAssertions = new ArrayList<QName>(4);
+    private static final ArrayList<QName> clientSideSupportedAssertions = new ArrayList<QName>(5);
     
     static {
         serverSideSupportedAssertions.add(OPTIMIZED_MIME_SERIALIZATION_ASSERTION);
         serverSideSupportedAssertions.add(UTF816FFFE_CHARACTER_ENCODING_ASSERTION);
         serverSideSupportedAssertions.add(OPTIMIZED_FI_SERIALIZATION_ASSERTION);
+        serverSideSupportedAssertions.add(FI_VOCABULARY_ASSERTION);
         
         clientSideSupportedAssertions.add(SELECT_OPTIMAL_ENCODING_ASSERTION);
         clientSideSupportedAssertions.addAll(serverSideSupportedAssertions);
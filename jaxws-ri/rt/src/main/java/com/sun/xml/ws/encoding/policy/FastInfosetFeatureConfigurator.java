@@ -41,6 +41,7 @@
 package com.sun.xml.ws.encoding.policy;
 
 import com.sun.xml.ws.api.fastinfoset.FastInfosetFeature;
+import com.sun.xml.ws.api.fastinfoset.FastInfosetVocabularyFeature;
 import com.sun.xml.ws.policy.AssertionSet;
 import com.sun.xml.ws.policy.Policy;
 import com.sun.xml.ws.policy.PolicyAssertion;
@@ -54,6 +55,7 @@ import java.util.Iterator;
 import java.util.LinkedList;
 import javax.xml.namespace.QName;
 
+import static com.sun.xml.ws.encoding.policy.EncodingConstants.FI_VOCABULARY_ASSERTION;
 import static com.sun.xml.ws.encoding.policy.EncodingConstants.OPTIMIZED_FI_SERIALIZATION_ASSERTION;
 import javax.xml.ws.WebServiceFeature;
 
@@ -70,6 +72,8 @@ public class FastInfosetFeatureConfigurator implements PolicyFeatureConfigurator
     /**
      * Process FastInfoset policy assertions.
      *
+     * The vocabulary assertion enables the {@link FastInfosetVocabularyFeature}.
+     *
      * @param key Key to identify the endpoint scope.
      * @param policyMap the policy map.
      * @throws PolicyException If retrieving the policy triggered an exception.
@@ -78,7 +82,7 @@ public class FastInfosetFeatureConfigurator implements PolicyFeatureConfigurator
         final Collection<WebServiceFeature> features = new LinkedList<WebServiceFeature>();
         if ((key != null) && (policyMap != null)) {
             Policy policy = policyMap.getEndpointEffectivePolicy(key);
-            if (null!=policy && policy.contains(OPTIMIZED_FI_SERIALIZATION_ASSERTION)) {
+            if (null!=policy && (policy.contains(OPTIMIZED_FI_SERIALIZATION_ASSERTION) || policy.contains(FI_VOCABULARY_ASSERTION))) {
                 Iterator <AssertionSet> assertions = policy.iterator();
                 while(assertions.hasNext()){
                     AssertionSet assertionSet = assertions.next();
@@ -89,6 +93,9 @@ public class FastInfosetFeatureConfigurator implements PolicyFeatureConfigurator
                             String value = assertion.getAttributeValue(enabled);
                             boolean isFastInfosetEnabled = Boolean.valueOf(value.trim());
                             features.add(new FastInfosetFeature(isFastInfosetEnabled));
+                        } else if (FI_VOCABULARY_ASSERTION.equals(assertion.getName())) {
+                            // the vocabulary itself is derived from the WSDL when the binding is created
+                            features.add(new FastInfosetVocabularyFeature());
                         } // end-if non optional fast infoset assertion found
                     } // next assertion
                 } // next alternative
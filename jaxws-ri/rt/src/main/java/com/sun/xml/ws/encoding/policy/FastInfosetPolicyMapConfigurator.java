@@ -0,0 +1,126 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2017 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * http://glassfish.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package com.sun.xml.ws.encoding.policy;
+
+import static com.sun.xml.ws.encoding.policy.EncodingConstants.FI_VOCABULARY_ASSERTION;
+import com.sun.xml.ws.api.WSBinding;
+import com.sun.xml.ws.api.fastinfoset.FastInfosetVocabularyFeature;
+import com.sun.xml.ws.api.model.SEIModel;
+import com.sun.xml.ws.policy.AssertionSet;
+import com.sun.xml.ws.policy.Policy;
+import com.sun.xml.ws.policy.PolicyAssertion;
+import com.sun.xml.ws.policy.PolicyException;
+import com.sun.xml.ws.policy.PolicyMap;
+import com.sun.xml.ws.policy.PolicySubject;
+import com.sun.xml.ws.policy.jaxws.spi.PolicyMapConfigurator;
+import com.sun.xml.ws.policy.privateutil.PolicyLogger;
+import com.sun.xml.ws.policy.sourcemodel.AssertionData;
+import com.sun.xml.ws.policy.subject.WsdlBindingSubject;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.logging.Level;
+import javax.xml.namespace.QName;
+
+/**
+ * Generate a Fast Infoset vocabulary policy if the {@link FastInfosetVocabularyFeature}
+ * was enabled, so that clients know they can derive the vocabulary from the WSDL.
+ */
+public class FastInfosetPolicyMapConfigurator implements PolicyMapConfigurator {
+
+    private static final PolicyLogger LOGGER = PolicyLogger.getLogger(FastInfosetPolicyMapConfigurator.class);
+
+    static class VocabularyAssertion extends PolicyAssertion {
+
+        private static final AssertionData vocabularyData;
+        static {
+            vocabularyData = AssertionData.createAssertionData(FI_VOCABULARY_ASSERTION);
+            // the service still accepts documents that don't reference the vocabulary
+            vocabularyData.setOptionalAttribute(true);
+        }
+
+        VocabularyAssertion() {
+            super(vocabularyData, null, null);
+        }
+    }
+
+    /**
+     * Generates a Fast Infoset vocabulary policy if the vocabulary feature is enabled.
+     */
+    public Collection<PolicySubject> update(PolicyMap policyMap, SEIModel model, WSBinding wsBinding) throws PolicyException {
+        LOGGER.entering(policyMap, model, wsBinding);
+
+        Collection<PolicySubject> subjects = new ArrayList<PolicySubject>();
+        if (policyMap != null) {
+            final FastInfosetVocabularyFeature vocabularyFeature = wsBinding.getFeature(FastInfosetVocabularyFeature.class);
+            if (LOGGER.isLoggable(Level.FINEST)) {
+                LOGGER.finest("vocabularyFeature = " + vocabularyFeature);
+            }
+            if ((vocabularyFeature != null) && vocabularyFeature.isEnabled()) {
+                final QName bindingName = model.getBoundPortTypeName();
+                final WsdlBindingSubject wsdlSubject = WsdlBindingSubject.createBindingSubject(bindingName);
+                final Policy vocabularyPolicy = createVocabularyPolicy(bindingName);
+                subjects.add(new PolicySubject(wsdlSubject, vocabularyPolicy));
+                if (LOGGER.isLoggable(Level.FINEST)) {
+                    LOGGER.fine("Added Fast Infoset vocabulary policy with ID \"" + vocabularyPolicy.getIdOrName() + "\" to binding element \"" + bindingName + "\"");
+                }
+            }
+        } // endif policy map not null
+
+        LOGGER.exiting(subjects);
+        return subjects;
+    }
+
+    /**
+     * Create a policy with a Fast Infoset vocabulary assertion.
+     *
+     * @param bindingName The binding element name. Used to generate a (locally) unique ID for the policy.
+     * @return The policy.
+     */
+    private Policy createVocabularyPolicy(final QName bindingName) {
+        ArrayList<AssertionSet> assertionSets = new ArrayList<AssertionSet>(1);
+        ArrayList<PolicyAssertion> assertions = new ArrayList<PolicyAssertion>(1);
+        assertions.add(new VocabularyAssertion());
+        assertionSets.add(AssertionSet.createAssertionSet(assertions));
+        return Policy.createPolicy(null, bindingName.getLocalPart() + "_FastInfosetVocabulary_Policy", assertionSets);
+    }
+
+}
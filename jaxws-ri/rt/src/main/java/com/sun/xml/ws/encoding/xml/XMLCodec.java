@@ -48,6 +48,8 @@ import com.sun.xml.ws.api.streaming.XMLStreamWriterFactory;
 import com.sun.xml.ws.api.WSBinding;
 import com.sun.xml.ws.api.WSFeatureList;
 import com.sun.xml.ws.encoding.ContentTypeImpl;
+import com.sun.xml.ws.util.ChannelInputStream;
+import com.sun.xml.ws.util.ChannelOutputStream;
 
 import javax.xml.stream.XMLStreamException;
 import javax.xml.stream.XMLStreamWriter;
@@ -108,8 +110,14 @@ public final class XMLCodec implements Codec {
     }
 
     public ContentType encode(Packet packet, WritableByteChannel buffer) {
-        //TODO: not yet implemented
-        throw new UnsupportedOperationException();
+        ChannelOutputStream out = new ChannelOutputStream(buffer);
+        try {
+            ContentType ct = encode(packet, out);
+            out.flush();
+            return ct;
+        } catch (IOException e) {
+            throw new WebServiceException(e);
+        }
     }
 
     public Codec copy() {
@@ -122,7 +130,10 @@ public final class XMLCodec implements Codec {
     }
 
     public void decode(ReadableByteChannel in, String contentType, Packet packet) {
-        // TODO
-        throw new UnsupportedOperationException();
+        try {
+            decode(new ChannelInputStream(in), contentType, packet);
+        } catch (IOException e) {
+            throw new WebServiceException(e);
+        }
     }    
 }
@@ -67,6 +67,7 @@ import java.util.Map.Entry;
 public class ClientSOAPHandlerTube extends HandlerTube {
 
     private Set<String> roles;
+    private boolean headerOnly;
 
     /**
      * Creates a new instance of SOAPHandlerTube
@@ -113,13 +114,14 @@ public class ClientSOAPHandlerTube extends HandlerTube {
 	            handlers.addAll(soapSnapShot);
 	            roles = new HashSet<String>();
 	            roles.addAll(handlerConfig.getRoles());
+	            headerOnly = handlerConfig.isHeaderOnlySoapHandlers();
 	            processor = new SOAPHandlerProcessor(true, this, getBinding(), handlers);
 	        }
     	}
     }
 
     MessageUpdatableContext getContext(Packet packet) {
-        SOAPMessageContextImpl context = new SOAPMessageContextImpl(getBinding(), packet,roles);
+        SOAPMessageContextImpl context = new SOAPMessageContextImpl(getBinding(), packet, roles, headerOnly);
         return context;
     }
 
@@ -39,21 +39,31 @@
  */
 
 package com.sun.xml.ws.handler;
+import com.sun.xml.ws.api.handler.SOAPHeaderContext;
 import com.sun.xml.ws.api.message.Header;
 import com.sun.xml.ws.api.message.Message;
+import com.sun.xml.ws.api.message.MessageHeaders;
 import com.sun.xml.ws.api.message.Packet;
 import com.sun.xml.ws.api.message.saaj.SAAJFactory;
 import com.sun.xml.ws.api.WSBinding;
 import com.sun.xml.ws.api.SOAPVersion;
+import com.sun.xml.ws.message.saaj.SAAJHeader;
 
 import javax.xml.bind.JAXBContext;
 import javax.xml.namespace.QName;
+import javax.xml.soap.SOAPBody;
 import javax.xml.soap.SOAPException;
+import javax.xml.soap.SOAPHeader;
+import javax.xml.soap.SOAPHeaderElement;
 import javax.xml.soap.SOAPMessage;
 import javax.xml.ws.WebServiceException;
 import javax.xml.ws.handler.soap.SOAPMessageContext;
 
+import org.w3c.dom.NamedNodeMap;
+import org.w3c.dom.Node;
+
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Set;
@@ -62,27 +72,65 @@ import java.util.Set;
  * Implementation of {@link SOAPMessageContext}. This class is used at runtime
  * to pass to the handlers for processing soap messages.
  *
+ * <p>
+ * The SAAJ message is only built when a handler asks for it. Headers are
+ * available through {@link #getMessageHeaders()} and
+ * {@link #getHeaders(QName, JAXBContext, boolean)} without SAAJ. If all
+ * the handlers are {@link com.sun.xml.ws.api.handler.HeaderOnlyHandler}s,
+ * the SAAJ message only carries the headers, and the body of the message is
+ * never read. The headers are only written back to the message if a handler
+ * changed them.
+ *
  * @see MessageContextImpl
  *
  * @author WS Development Team
  */
-public class SOAPMessageContextImpl extends MessageUpdatableContext implements SOAPMessageContext {
+public class SOAPMessageContextImpl extends MessageUpdatableContext implements SOAPHeaderContext {
 
     private Set<String> roles;
     private SOAPMessage soapMsg = null;
     private WSBinding binding;
+    private final boolean headerOnly;
+    /**
+     * True if the handler set its own SAAJ message, which then replaces
+     * the whole message even in the header-only mode.
+     */
+    private boolean messageReplaced;
+    /**
+     * Content of the SAAJ headers as they were read in the header-only mode,
+     * see {@link #describeHeaders(SOAPMessage)}.
+     */
+    private String headersRead;
 
     public SOAPMessageContextImpl(WSBinding binding, Packet packet,Set<String> roles) {
+        this(binding, packet, roles, false);
+    }
+
+    /**
+     * @param headerOnly
+     *      true if the handlers only access the SOAP headers, see
+     *      {@link com.sun.xml.ws.client.HandlerConfiguration#isHeaderOnlySoapHandlers()}
+     */
+    public SOAPMessageContextImpl(WSBinding binding, Packet packet, Set<String> roles, boolean headerOnly) {
         super(packet);
         this.binding = binding;
         this.roles = roles;
+        this.headerOnly = headerOnly;
     }
 
     public SOAPMessage getMessage() {
         if(soapMsg == null) {
             try {
             	Message m = packet.getMessage();
-            	soapMsg = m != null ? m.readAsSOAPMessage() : null;
+            	if (m == null) {
+            	    return null;
+            	}
+            	if (headerOnly) {
+            	    soapMsg = readHeadersAsSOAPMessage(m);
+            	    headersRead = describeHeaders(soapMsg);
+            	} else {
+            	    soapMsg = m.readAsSOAPMessage();
+            	}
             } catch (SOAPException e) {
                 throw new WebServiceException(e);
             }
@@ -93,6 +141,7 @@ public class SOAPMessageContextImpl extends MessageUpdatableContext implements S
     public void setMessage(SOAPMessage soapMsg) {
         try {
             this.soapMsg = soapMsg;
+            messageReplaced = soapMsg != null;
         } catch(Exception e) {
             throw new WebServiceException(e);
         }
@@ -102,6 +151,7 @@ public class SOAPMessageContextImpl extends MessageUpdatableContext implements S
         if(newMessage != null) {
             packet.setMessage(newMessage);
             soapMsg = null;
+            messageReplaced = false;
         }
     }
     
@@ -109,9 +159,114 @@ public class SOAPMessageContextImpl extends MessageUpdatableContext implements S
         //Check if SOAPMessage has changed, if so construct new one,
         // Packet are handled through MessageContext
         if(soapMsg != null) {
-            packet.setMessage(SAAJFactory.create(soapMsg));
+            if (headerOnly && !messageReplaced) {
+                try {
+                    updateHeaders();
+                } catch (SOAPException e) {
+                    throw new WebServiceException(e);
+                }
+            } else {
+                packet.setMessage(SAAJFactory.create(soapMsg));
+            }
             soapMsg = null;
+            messageReplaced = false;
+        }
+    }
+
+    /**
+     * Puts the changes of the header-only SAAJ message back into the message.
+     */
+    private void updateHeaders() throws SOAPException {
+        Message m = packet.getMessage();
+        SOAPBody body = soapMsg.getSOAPBody();
+        if (body != null && body.hasChildNodes()) {
+            // the handler wrote a body although it never saw the real one
+            if (m.hasPayload() || !m.getAttachments().isEmpty()) {
+                throw new WebServiceException("A HeaderOnlyHandler cannot change the body of a message");
+            }
+            packet.setMessage(SAAJFactory.create(soapMsg));
+            return;
+        }
+        if (!describeHeaders(soapMsg).equals(headersRead)) {
+            replaceHeaders(m.getHeaders(), soapMsg);
+        }
+    }
+
+    public MessageHeaders getMessageHeaders() {
+        Message m = getPacketMessage();
+        return m != null ? m.getHeaders() : null;
+    }
+
+    /**
+     * Creates a SAAJ message that has the headers of the given message,
+     * and an empty body.
+     */
+    private SOAPMessage readHeadersAsSOAPMessage(Message m) throws SOAPException {
+        SOAPMessage msg = binding.getSOAPVersion().getMessageFactory().createMessage();
+        if (m.hasHeaders()) {
+            Iterator<Header> itr = m.getHeaders().getHeaders();
+            while (itr.hasNext()) {
+                itr.next().writeTo(msg);
+            }
+        }
+        return msg;
+    }
+
+    /**
+     * Replaces the headers of the message with the ones of the header-only
+     * SAAJ message. Headers that were understood stay understood.
+     */
+    private static void replaceHeaders(MessageHeaders headers, SOAPMessage msg) throws SOAPException {
+        Set<QName> understood = new HashSet<QName>();
+        for (Header h : new ArrayList<Header>(headers.asList())) {
+            if (headers.isUnderstood(h)) {
+                understood.add(new QName(h.getNamespaceURI(), h.getLocalPart()));
+            }
+            headers.remove(h.getNamespaceURI(), h.getLocalPart());
+        }
+        SOAPHeader soapHeader = msg.getSOAPHeader();
+        if (soapHeader != null) {
+            Iterator<?> itr = soapHeader.examineAllHeaderElements();
+            while (itr.hasNext()) {
+                headers.add(new SAAJHeader((SOAPHeaderElement) itr.next()));
+            }
+        }
+        for (QName name : understood) {
+            headers.understood(name);
+        }
+    }
+
+    /**
+     * Describes the names, attributes and text of the SAAJ headers, so that
+     * changes can be detected without a copy of the DOM.
+     */
+    private static String describeHeaders(SOAPMessage msg) throws SOAPException {
+        StringBuilder sb = new StringBuilder();
+        SOAPHeader soapHeader = msg.getSOAPHeader();
+        if (soapHeader != null) {
+            describe(soapHeader, sb);
+        }
+        return sb.toString();
+    }
+
+    private static void describe(Node node, StringBuilder sb) {
+        sb.append('<').append(node.getNodeType()).append(' ')
+                .append(node.getNamespaceURI()).append(' ').append(node.getNodeName());
+        if (node.getNodeType() == Node.ELEMENT_NODE) {
+            NamedNodeMap attrs = node.getAttributes();
+            for (int i = 0; i < attrs.getLength(); i++) {
+                Node attr = attrs.item(i);
+                sb.append(' ').append(attr.getNamespaceURI()).append(' ').append(attr.getNodeName())
+                        .append("='").append(attr.getNodeValue()).append('\'');
+            }
+        } else {
+            sb.append(' ').append(node.getNodeValue());
+        }
+        sb.append('>');
+        for (Node child = node.getFirstChild(); child != null; child = child.getNextSibling()) {
+            describe(child, sb);
         }
+        sb.append("</>");
     }
 
     public Object[] getHeaders(QName header, JAXBContext jaxbContext, boolean allRoles) {
@@ -66,6 +66,7 @@ import java.util.*;
 public class ServerSOAPHandlerTube extends HandlerTube {
 
     private Set<String> roles;
+    private boolean headerOnly;
 
     /**
      * Creates a new instance of SOAPHandlerTube
@@ -99,6 +100,7 @@ public class ServerSOAPHandlerTube extends HandlerTube {
         super(that, cloner);
         this.handlers = that.handlers;
         this.roles = that.roles;
+        this.headerOnly = that.headerOnly;
     }
 
 
@@ -114,6 +116,7 @@ public class ServerSOAPHandlerTube extends HandlerTube {
             handlers.addAll(soapSnapShot);
             roles = new HashSet<String>();
             roles.addAll(handlerConfig.getRoles());
+            headerOnly = handlerConfig.isHeaderOnlySoapHandlers();
         }
     }
 
@@ -126,7 +129,7 @@ public class ServerSOAPHandlerTube extends HandlerTube {
             processor = new SOAPHandlerProcessor(false, this, getBinding(), handlers);
     }
     MessageUpdatableContext getContext(Packet packet) {
-        SOAPMessageContextImpl context = new SOAPMessageContextImpl(getBinding(), packet,roles);
+        SOAPMessageContextImpl context = new SOAPMessageContextImpl(getBinding(), packet, roles, headerOnly);
         return context;
     }
 
@@ -108,6 +108,11 @@ public class StringHeader extends AbstractHeaderImpl {
         return null;
     }
 
+    @Override
+    public String getStringContent() {
+        return value;
+    }
+
     public XMLStreamReader readHeader() throws XMLStreamException {
         MutableXMLStreamBuffer buf = new MutableXMLStreamBuffer();
         XMLStreamWriter w = buf.createFromXMLStreamWriter();
@@ -77,6 +77,7 @@ import javax.xml.bind.Unmarshaller;
 import javax.xml.bind.attachment.AttachmentMarshaller;
 import javax.xml.bind.annotation.XmlRootElement;
 import javax.xml.bind.util.JAXBResult;
+import javax.xml.namespace.NamespaceContext;
 import javax.xml.namespace.QName;
 import javax.xml.stream.XMLStreamException;
 import javax.xml.stream.XMLStreamReader;
@@ -425,6 +426,30 @@ public final class JAXBMessage extends AbstractMessageImpl implements StreamingS
         }
     }
 
+    /**
+     * Checks if {@link #writePayloadTo(OutputStream, NamespaceContext)} can be used,
+     * i.e. the payload can be marshalled straight to a stream.
+     */
+    public boolean supportsPayloadOutputStream() {
+        return rawContext == null && bridge.supportOutputStream();
+    }
+
+    /**
+     * Marshals the payload to the stream in UTF-8, without an {@link XMLStreamWriter}.
+     *
+     * @param nsContext
+     *      namespaces that are in scope where the payload is written.
+     * @see #supportsPayloadOutputStream()
+     */
+    public void writePayloadTo(OutputStream os, NamespaceContext nsContext) {
+        try {
+            bridge.marshal(jaxbObject, os, nsContext, new AttachmentMarshallerImpl(attachmentSet));
+        } catch (JAXBException e) {
+            // bug 6449684, spec 4.3.4
+            throw new WebServiceException(e);
+        }
+    }
+
     @Override
     public Message copy() {
         return new JAXBMessage(this).copyFrom(this);
@@ -62,6 +62,7 @@ import com.sun.xml.ws.message.AttachmentUnmarshallerImpl;
 import com.sun.xml.ws.protocol.soap.VersionMismatchException;
 import com.sun.xml.ws.spi.db.XMLBridge;
 import com.sun.xml.ws.streaming.XMLStreamReaderUtil;
+import com.sun.xml.ws.util.Pool;
 import com.sun.xml.ws.util.xml.DummyLocation;
 import com.sun.xml.ws.util.xml.StAXSource;
 import com.sun.xml.ws.util.xml.XMLReaderComposite;
@@ -89,6 +90,9 @@ import java.util.Enumeration;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 
 /**
  * {@link Message} implementation backed by {@link XMLStreamReader}.
@@ -97,6 +101,37 @@ import java.util.Map;
  * at the start of the envelope element.
  */
 public class StreamMessage extends AbstractMessageImpl implements StreamingSOAP {
+
+    private static final Logger LOGGER = Logger.getLogger(StreamMessage.class.getName());
+
+    /**
+     * If true, the buffers that cache SOAP headers are taken from {@link #HEADER_BUFFERS},
+     * and go back to it once the message is consumed, see {@link #retainHeaderBuffer()}.
+     * Off by default, as it is only safe if no {@link Header} of a message is read after
+     * the message is consumed.
+     */
+    private static final boolean RECYCLE_HEADER_BUFFERS;
+
+    static {
+        String name = StreamMessage.class.getName() + ".recycleHeaderBuffers";
+        boolean recycle = false;
+        try {
+            recycle = Boolean.getBoolean(name);
+        } catch (SecurityException se) {
+            if (LOGGER.isLoggable(Level.CONFIG)) {
+                LOGGER.log(Level.CONFIG, "Cannot read ''{0}'' property, using defaults.", name);
+            }
+        }
+        RECYCLE_HEADER_BUFFERS = recycle;
+    }
+
+    private static final Pool<MutableXMLStreamBuffer> HEADER_BUFFERS = new Pool<MutableXMLStreamBuffer>() {
+        @Override
+        protected MutableXMLStreamBuffer create() {
+            return new MutableXMLStreamBuffer();
+        }
+    };
+
     /**
      * The reader will be positioned at
      * the first child of the SOAP body
@@ -129,6 +164,22 @@ public class StreamMessage extends AbstractMessageImpl implements StreamingSOAP
     private Throwable consumedAt;
 
     private XMLStreamReader envelopeReader;
+
+    /**
+     * Buffer that caches the SOAP headers, if it is taken from {@link #HEADER_BUFFERS}.
+     * It is shared with the copies of this message.
+     */
+    private @Nullable HeaderBuffer headerBuffer;
+
+    /**
+     * True once this message gave up its reference to {@link #headerBuffer}.
+     */
+    private boolean headerBufferReleased;
+
+    /**
+     * References taken by {@link #retainHeaderBuffer()} before the headers were read.
+     */
+    private int pendingHeaderBufferRetains;
     
     public StreamMessage(SOAPVersion v) {
         super(v);
@@ -284,6 +335,7 @@ public class StreamMessage extends AbstractMessageImpl implements StreamingSOAP
     public Source readPayloadAsSource() {
         if(hasPayload()) {
             assert unconsumed();
+            releaseOwnHeaderBuffer();
             return new StAXSource(reader, true, getInscopeNamespaces());
         } else
             return null;
@@ -332,6 +384,7 @@ public class StreamMessage extends AbstractMessageImpl implements StreamingSOAP
             XMLStreamReaderUtil.readRest(reader);
             XMLStreamReaderUtil.close(reader);
             XMLStreamReaderFactory.recycle(reader);
+            releaseOwnHeaderBuffer();
         }
     }
     /** @deprecated */
@@ -344,6 +397,7 @@ public class StreamMessage extends AbstractMessageImpl implements StreamingSOAP
         XMLStreamReaderUtil.readRest(reader);
         XMLStreamReaderUtil.close(reader);
         XMLStreamReaderFactory.recycle(reader);
+        releaseOwnHeaderBuffer();
         return r;
     }
 
@@ -356,6 +410,7 @@ public class StreamMessage extends AbstractMessageImpl implements StreamingSOAP
         XMLStreamReaderUtil.readRest(reader);
         XMLStreamReaderUtil.close(reader);
         XMLStreamReaderFactory.recycle(reader);
+        releaseOwnHeaderBuffer();
         return r;
     } 
 
@@ -365,6 +420,7 @@ public class StreamMessage extends AbstractMessageImpl implements StreamingSOAP
         XMLStreamReaderUtil.readRest(reader);
         XMLStreamReaderUtil.close(reader);
         XMLStreamReaderFactory.recycle(reader);
+        releaseOwnHeaderBuffer();
     }
 
     public XMLStreamReader readPayload() {
@@ -372,6 +428,7 @@ public class StreamMessage extends AbstractMessageImpl implements StreamingSOAP
             return null;
         // TODO: What about access at and beyond </soap:Body>
         assert unconsumed();
+        releaseOwnHeaderBuffer();
         return this.reader;
     }
 
@@ -420,6 +477,7 @@ public class StreamMessage extends AbstractMessageImpl implements StreamingSOAP
         XMLStreamReaderUtil.readRest(reader);
         XMLStreamReaderUtil.close(reader);
         XMLStreamReaderFactory.recycle(reader);
+        releaseOwnHeaderBuffer();
     }
 
     private boolean isBodyElement(String name, String nsUri) {
@@ -511,6 +569,7 @@ public class StreamMessage extends AbstractMessageImpl implements StreamingSOAP
             XMLStreamReaderUtil.readRest(reader);
             XMLStreamReaderUtil.close(reader);
             XMLStreamReaderFactory.recycle(reader);
+            releaseOwnHeaderBuffer();
         } catch (XMLStreamException e) {
             Location loc = e.getLocation();
             if(loc==null)   loc = DummyLocation.INSTANCE;
@@ -571,7 +630,13 @@ public class StreamMessage extends AbstractMessageImpl implements StreamingSOAP
             proceedToRootElement(reader);
             proceedToRootElement(clone);
 
-            return new StreamMessage(envelopeTag, headerTag, attachmentSet, HeaderList.copy(headers), bodyPrologue, bodyTag, bodyEpilogue, clone, soapVersion).copyFrom(this);
+            StreamMessage copy = new StreamMessage(envelopeTag, headerTag, attachmentSet, HeaderList.copy(headers), bodyPrologue, bodyTag, bodyEpilogue, clone, soapVersion);
+            if (headerBuffer != null) {
+                // the copy shares the headers, and so the buffer behind them
+                headerBuffer.retain();
+                copy.headerBuffer = headerBuffer;
+            }
+            return copy.copyFrom(this);
         } catch (XMLStreamException e) {
             throw new WebServiceException("Failed to copy a message",e);
         }
@@ -716,7 +781,12 @@ public class StreamMessage extends AbstractMessageImpl implements StreamingSOAP
                 try {
                     // Cache SOAP header blocks
                     StreamHeaderDecoder headerDecoder = SOAPVersion.SOAP_11.equals(soapVersion) ? SOAP11StreamHeaderDecoder : SOAP12StreamHeaderDecoder;
-                    cacheHeaders(reader, namespaces, headers, headerDecoder);
+                    XMLStreamBuffer buffer = cacheHeaders(reader, namespaces, headers, headerDecoder);
+                    if (RECYCLE_HEADER_BUFFERS) {
+                        message.headerBuffer = new HeaderBuffer((MutableXMLStreamBuffer) buffer,
+                                1 + message.pendingHeaderBufferRetains);
+                        message.pendingHeaderBufferRetains = 0;
+                    }
                 } catch (XMLStreamException e) {
                     // TODO need to throw more meaningful exception
                     throw new WebServiceException(e);
@@ -778,13 +848,85 @@ public class StreamMessage extends AbstractMessageImpl implements StreamingSOAP
     }
 
     private static MutableXMLStreamBuffer createXMLStreamBuffer() {
-        // TODO: Decode should own one MutableXMLStreamBuffer for reuse
-        // since it is more efficient. ISSUE: possible issue with
-        // lifetime of information in the buffer if accessed beyond
-        // the pipe line.
-        return new MutableXMLStreamBuffer();
+        // Reusing buffers is more efficient, but the information in the buffer
+        // must not be accessed once the message is consumed. So it is opt-in, see
+        // retainHeaderBuffer()
+        return RECYCLE_HEADER_BUFFERS ? HEADER_BUFFERS.take() : new MutableXMLStreamBuffer();
     }
-    
+
+    /**
+     * Keeps the buffer that caches the SOAP headers of this message out of the pool
+     * until {@link #releaseHeaderBuffer()} is called, even if the message is consumed
+     * in the meantime.
+     *
+     * <p>
+     * A server transport retains the buffer of a request for the whole exchange, since
+     * the headers of a request are still read after its payload, e.g. to address the
+     * response. Does nothing unless the
+     * {@code com.sun.xml.ws.message.stream.StreamMessage.recycleHeaderBuffers}
+     * system property is set.
+     */
+    public void retainHeaderBuffer() {
+        if (headerBuffer != null) {
+            headerBuffer.retain();
+        } else if (RECYCLE_HEADER_BUFFERS && envelopeReader != null) {
+            // the headers are not read yet
+            pendingHeaderBufferRetains++;
+        }
+    }
+
+    /**
+     * Gives up a reference taken by {@link #retainHeaderBuffer()}. The buffer goes back
+     * to the pool once this message and its copies are consumed and no reference is left.
+     * Neither the headers of this message nor those of its copies can be used afterwards.
+     */
+    public void releaseHeaderBuffer() {
+        if (headerBuffer != null) {
+            headerBuffer.release();
+        } else if (pendingHeaderBufferRetains > 0) {
+            pendingHeaderBufferRetains--;
+        }
+    }
+
+    /**
+     * Gives up the reference of this message itself, once its payload is consumed.
+     */
+    private void releaseOwnHeaderBuffer() {
+        if (headerBuffer != null && !headerBufferReleased) {
+            headerBufferReleased = true;
+            headerBuffer.release();
+        }
+    }
+
+    /*package*/ @Nullable MutableXMLStreamBuffer getHeaderBuffer() {
+        return headerBuffer == null ? null : headerBuffer.buffer;
+    }
+
+    /**
+     * A buffer of {@link #HEADER_BUFFERS} that is shared by a message and its copies,
+     * with the count of references to it.
+     */
+    private static final class HeaderBuffer {
+        final MutableXMLStreamBuffer buffer;
+        private final AtomicInteger references;
+
+        HeaderBuffer(MutableXMLStreamBuffer buffer, int references) {
+            this.buffer = buffer;
+            this.references = new AtomicInteger(references);
+        }
+
+        void retain() {
+            references.incrementAndGet();
+        }
+
+        void release() {
+            if (references.decrementAndGet() == 0) {
+                buffer.reset();
+                HEADER_BUFFERS.recycle(buffer);
+            }
+        }
+    }
+
     public boolean isPayloadStreamReader() { return true; }
 
     public QName getPayloadQName() {
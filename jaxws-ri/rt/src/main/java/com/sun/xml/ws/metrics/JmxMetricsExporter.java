@@ -0,0 +1,129 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2017 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * http://glassfish.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package com.sun.xml.ws.metrics;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Registers {@link OperationMetrics} as MXBeans with the platform
+ * MBean server, under
+ * <code>com.sun.xml.ws.metrics:type=Operation,side=...,service=...,port=...,operation=...</code>.
+ * The {@link PortMetrics} are registered by {@link #register(PortMetrics)},
+ * under <code>com.sun.xml.ws.metrics:type=Port,side=...,service=...,port=...</code>.
+ */
+final class JmxMetricsExporter implements MetricsExporter {
+
+    private static final Logger LOGGER = Logger.getLogger(JmxMetricsExporter.class.getName());
+
+    public void register(OperationMetrics metrics) {
+        try {
+            register(metrics, objectName(metrics));
+        } catch (JMException e) {
+            LOGGER.log(Level.FINE, "Cannot register MXBean for " + metrics, e);
+        } catch (SecurityException e) {
+            LOGGER.log(Level.FINE, "Cannot register MXBean for " + metrics, e);
+        }
+    }
+
+    public void unregister(OperationMetrics metrics) {
+        try {
+            unregister(objectName(metrics));
+        } catch (JMException e) {
+            LOGGER.log(Level.FINE, "Cannot unregister MXBean for " + metrics, e);
+        } catch (SecurityException e) {
+            LOGGER.log(Level.FINE, "Cannot unregister MXBean for " + metrics, e);
+        }
+    }
+
+    static void register(PortMetrics metrics) {
+        try {
+            register(metrics, objectName(metrics));
+        } catch (JMException e) {
+            LOGGER.log(Level.FINE, "Cannot register MXBean for " + metrics, e);
+        } catch (SecurityException e) {
+            LOGGER.log(Level.FINE, "Cannot register MXBean for " + metrics, e);
+        }
+    }
+
+    static void unregister(PortMetrics metrics) {
+        try {
+            unregister(objectName(metrics));
+        } catch (JMException e) {
+            LOGGER.log(Level.FINE, "Cannot unregister MXBean for " + metrics, e);
+        } catch (SecurityException e) {
+            LOGGER.log(Level.FINE, "Cannot unregister MXBean for " + metrics, e);
+        }
+    }
+
+    private static void register(Object mbean, ObjectName name) throws JMException {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        if (!server.isRegistered(name)) {
+            server.registerMBean(mbean, name);
+        }
+    }
+
+    private static void unregister(ObjectName name) throws JMException {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        if (server.isRegistered(name)) {
+            server.unregisterMBean(name);
+        }
+    }
+
+    static ObjectName objectName(PortMetrics metrics) throws JMException {
+        return new ObjectName("com.sun.xml.ws.metrics:type=Port"
+                + ",side=" + metrics.getSide()
+                + ",service=" + ObjectName.quote(metrics.getServiceName())
+                + ",port=" + ObjectName.quote(metrics.getPortName()));
+    }
+
+    static ObjectName objectName(OperationMetrics metrics) throws JMException {
+        return new ObjectName("com.sun.xml.ws.metrics:type=Operation"
+                + ",side=" + metrics.getSide()
+                + ",service=" + ObjectName.quote(metrics.getServiceName())
+                + ",port=" + ObjectName.quote(metrics.getPortName())
+                + ",operation=" + ObjectName.quote(metrics.getOperationName()));
+    }
+}
@@ -0,0 +1,89 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2017 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * http://glassfish.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package com.sun.xml.ws.metrics;
+
+import com.sun.xml.ws.api.FeatureConstructor;
+
+import javax.xml.ws.WebServiceFeature;
+
+import org.glassfish.gmbal.ManagedAttribute;
+import org.glassfish.gmbal.ManagedData;
+
+/**
+ * Enables the {@link MetricsTube} on a client or an endpoint.
+ *
+ * <p>
+ * The tube records per-operation request and error counts, latency
+ * histograms, message sizes and the number of requests in flight. The
+ * metrics are registered as MXBeans (see {@link OperationMetricsMXBean} and
+ * {@link PortMetricsMXBean}), and the operation metrics are handed to the
+ * {@link MetricsExporter}s found on the classpath.
+ *
+ * <pre>
+ * for e.g.: To record the metrics of a client
+ * <p>
+ *
+ * proxy = HelloService().getHelloPort(new MetricsFeature());
+ *
+ * </pre>
+ *
+ * @see Metrics
+ */
+@ManagedData
+public final class MetricsFeature extends WebServiceFeature {
+
+    public static final String ID = "com.sun.xml.ws.metrics.MetricsFeature";
+
+    public MetricsFeature() {
+        this(true);
+    }
+
+    @FeatureConstructor({"enabled"})
+    public MetricsFeature(boolean enabled) {
+        super.enabled = enabled;
+    }
+
+    @Override
+    @ManagedAttribute
+    public String getID() {
+        return ID;
+    }
+}
@@ -0,0 +1,334 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2017 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * http://glassfish.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package com.sun.xml.ws.metrics;
+
+import com.sun.xml.ws.api.message.Message;
+import com.sun.xml.ws.api.message.Packet;
+import com.sun.xml.ws.api.pipe.NextAction;
+import com.sun.xml.ws.api.pipe.Tube;
+import com.sun.xml.ws.api.pipe.TubeCloner;
+import com.sun.xml.ws.api.pipe.helper.AbstractFilterTubeImpl;
+
+import javax.xml.namespace.QName;
+import java.io.FilterInputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Records per-operation request counts, errors, latencies and message sizes
+ * into the {@link OperationMetrics} of the port.
+ *
+ * <p>
+ * The message sizes are counted by the HTTP transports as the messages are
+ * written or read, see {@link #countBytesOut}, {@link #countBytesIn} and
+ * {@link #countRequestBytes}.
+ *
+ * <p>
+ * On the server this tube is the first one to see the request, before the
+ * tubes (such as WS-Addressing) that determine its operation. The operation of
+ * a request is therefore only looked up once the response or the exception
+ * comes back. Meanwhile the request is counted as in flight by the port, see
+ * {@link PortMetricsMXBean#getInFlight()}.
+ *
+ * @see MetricsFeature
+ */
+public final class MetricsTube extends AbstractFilterTubeImpl {
+
+    /**
+     * Invocation properties holding the {@link LongAdder}s the message sizes
+     * are added to.
+     */
+    private static final String BYTES_IN = MetricsTube.class.getName() + ".bytesIn";
+    private static final String BYTES_OUT = MetricsTube.class.getName() + ".bytesOut";
+    /**
+     * Invocation property holding the {@link LongAdder} the size of a server
+     * request is added to, before its operation is known.
+     */
+    private static final String REQUEST_BYTES = MetricsTube.class.getName() + ".requestBytes";
+
+    private final PortMetrics metrics;
+    private final boolean client;
+
+    // state of the exchange in progress. A tube instance only processes one at a time
+    private OperationMetrics current;
+    private Packet request;
+    private long startTime;
+
+    MetricsTube(Tube next, PortMetrics metrics, boolean client) {
+        super(next);
+        this.metrics = metrics;
+        this.client = client;
+    }
+
+    /**
+     * Copy constructor.
+     */
+    private MetricsTube(MetricsTube that, TubeCloner cloner) {
+        super(that, cloner);
+        this.metrics = that.metrics;
+        this.client = that.client;
+    }
+
+    public MetricsTube copy(TubeCloner cloner) {
+        return new MetricsTube(this, cloner);
+    }
+
+    @Override
+    public NextAction processRequest(Packet request) {
+        metrics.started();
+        if (client) {
+            // the stub knows the operation
+            current = metrics.getOperation(operationName(request.getWSDLOperation()));
+            startTime = current.started();
+            request.invocationProperties.put(BYTES_IN, current.bytesIn());
+            request.invocationProperties.put(BYTES_OUT, current.bytesOut());
+        } else {
+            this.request = request;
+            startTime = System.nanoTime();
+        }
+        return super.processRequest(request);
+    }
+
+    @Override
+    public NextAction processResponse(Packet response) {
+        OperationMetrics m = complete(isFault(response));
+        if (m != null) {
+            if (client) {
+                // the counting streams of the transport hold the counters
+                // while the response message is being read
+                response.invocationProperties.remove(BYTES_IN);
+                response.invocationProperties.remove(BYTES_OUT);
+            } else {
+                response.invocationProperties.put(BYTES_OUT, m.bytesOut());
+            }
+        }
+        return super.processResponse(response);
+    }
+
+    @Override
+    public NextAction processException(Throwable t) {
+        complete(true);
+        return super.processException(t);
+    }
+
+    @Override
+    public void preDestroy() {
+        // the stub or the endpoint is closed
+        metrics.dispose();
+        super.preDestroy();
+    }
+
+    private OperationMetrics complete(boolean failed) {
+        if (client) {
+            OperationMetrics m = current;
+            if (m != null) {
+                current = null;
+                metrics.completed();
+                m.completed(startTime, failed);
+            }
+            return m;
+        }
+        Packet r = request;
+        if (r == null) {
+            return null;
+        }
+        request = null;
+        metrics.completed();
+        QName op;
+        try {
+            // known by now, unless the request could not be dispatched
+            op = r.getWSDLOperation();
+        } catch (RuntimeException e) {
+            op = null;
+        }
+        OperationMetrics m = metrics.getOperation(operationName(op));
+        LongAdder requestBytes = counter(r, REQUEST_BYTES);
+        if (requestBytes != null) {
+            m.addBytesIn(requestBytes.sum());
+        }
+        m.recorded(startTime, failed);
+        return m;
+    }
+
+    private static String operationName(QName op) {
+        return (op != null) ? op.getLocalPart() : "";
+    }
+
+    private static boolean isFault(Packet response) {
+        Message m = response.getMessage();
+        return m != null && m.isFault();
+    }
+
+    /**
+     * Used by the transports to count the size of the outbound message of
+     * the packet.
+     *
+     * @return the given stream if the packet doesn't go through a
+     *         {@link MetricsTube}, otherwise a stream that counts the bytes
+     *         written to it
+     */
+    public static OutputStream countBytesOut(Packet packet, OutputStream out) {
+        LongAdder counter = counter(packet, BYTES_OUT);
+        return (out == null || counter == null) ? out : new CountingOutputStream(out, counter);
+    }
+
+    /**
+     * Used by the transports to count the size of the response to the
+     * request packet.
+     *
+     * @return the given stream if the packet doesn't go through a
+     *         {@link MetricsTube}, otherwise a stream that counts the bytes
+     *         read from it
+     */
+    public static InputStream countBytesIn(Packet request, InputStream in) {
+        LongAdder counter = counter(request, BYTES_IN);
+        return (in == null || counter == null) ? in : new CountingInputStream(in, counter);
+    }
+
+    /**
+     * Used by the server transports to count the size of the request as it
+     * is read, before its operation is known.
+     *
+     * @param request
+     *      the request packet the stream is decoded into.
+     * @return a stream that counts the bytes read from it
+     */
+    public static InputStream countRequestBytes(Packet request, InputStream in) {
+        if (in == null) {
+            return in;
+        }
+        LongAdder counter = new LongAdder();
+        request.invocationProperties.put(REQUEST_BYTES, counter);
+        return new CountingInputStream(in, counter);
+    }
+
+    /**
+     * Used by the transports that know the size of the outbound message of
+     * the packet upfront.
+     */
+    public static void addBytesOut(Packet packet, long n) {
+        LongAdder counter = counter(packet, BYTES_OUT);
+        if (counter != null && n > 0) {
+            counter.add(n);
+        }
+    }
+
+    /**
+     * Used by the transports that know the size of the response to the
+     * request packet upfront.
+     */
+    public static void addBytesIn(Packet request, long n) {
+        LongAdder counter = counter(request, BYTES_IN);
+        if (counter != null && n > 0) {
+            counter.add(n);
+        }
+    }
+
+    private static LongAdder counter(Packet packet, String key) {
+        Object counter = packet.invocationProperties.get(key);
+        return (counter instanceof LongAdder) ? (LongAdder) counter : null;
+    }
+
+    private static final class CountingOutputStream extends FilterOutputStream {
+        private final LongAdder counter;
+
+        CountingOutputStream(OutputStream out, LongAdder counter) {
+            super(out);
+            this.counter = counter;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            counter.increment();
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            counter.add(len);
+        }
+    }
+
+    private static final class CountingInputStream extends FilterInputStream {
+        private final LongAdder counter;
+
+        CountingInputStream(InputStream in, LongAdder counter) {
+            super(in);
+            this.counter = counter;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = in.read();
+            if (b != -1) {
+                counter.increment();
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = in.read(b, off, len);
+            if (n > 0) {
+                counter.add(n);
+            }
+            return n;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            long skipped = in.skip(n);
+            if (skipped > 0) {
+                counter.add(skipped);
+            }
+            return skipped;
+        }
+
+        @Override
+        public boolean markSupported() {
+            return false;
+        }
+    }
+}
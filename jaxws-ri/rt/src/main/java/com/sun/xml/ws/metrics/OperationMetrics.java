@@ -0,0 +1,216 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2017 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * http://glassfish.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package com.sun.xml.ws.metrics;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongBinaryOperator;
+
+/**
+ * Counters of one operation of a client or server port.
+ *
+ * <p>
+ * All the counters are striped ({@link LongAdder}), so recording never
+ * blocks and threads hitting the same operation don't contend on a single
+ * memory location. Reading the counters sums the stripes, and is not an
+ * atomic snapshot across the counters.
+ */
+public final class OperationMetrics implements OperationMetricsMXBean {
+
+    private static final long[] LATENCY_BOUNDS_MILLIS = {
+        1, 2, 5, 10, 20, 50, 100, 200, 500, 1000, 2000, 5000, 10000, 30000
+    };
+
+    private final String side;
+    private final String serviceName;
+    private final String portName;
+    private final String operationName;
+
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+    private final LongAdder inFlight = new LongAdder();
+    private final LongAdder bytesIn = new LongAdder();
+    private final LongAdder bytesOut = new LongAdder();
+    private final LongAdder totalLatencyNanos = new LongAdder();
+    private final LongAccumulator maxLatencyNanos = new LongAccumulator(new MaxFunction(), 0L);
+    private final LongAdder[] histogram = new LongAdder[LATENCY_BOUNDS_MILLIS.length + 1];
+
+    OperationMetrics(String side, String serviceName, String portName, String operationName) {
+        this.side = side;
+        this.serviceName = serviceName;
+        this.portName = portName;
+        this.operationName = operationName;
+        for (int i = 0; i < histogram.length; i++) {
+            histogram[i] = new LongAdder();
+        }
+    }
+
+    /**
+     * Records the start of a request.
+     *
+     * @return the start time to pass to {@link #completed}
+     */
+    long started() {
+        inFlight.increment();
+        return System.nanoTime();
+    }
+
+    /**
+     * Records the end of a request that was {@link #started}.
+     */
+    void completed(long startTime, boolean failed) {
+        inFlight.decrement();
+        recorded(startTime, failed);
+    }
+
+    /**
+     * Records a request that was not counted as in flight, because its
+     * operation was only known once it completed.
+     */
+    void recorded(long startTime, boolean failed) {
+        long latency = System.nanoTime() - startTime;
+        requests.increment();
+        if (failed) {
+            errors.increment();
+        }
+        totalLatencyNanos.add(latency);
+        maxLatencyNanos.accumulate(latency);
+        histogram[bucket(TimeUnit.NANOSECONDS.toMillis(latency))].increment();
+    }
+
+    void addBytesIn(long n) {
+        if (n > 0) {
+            bytesIn.add(n);
+        }
+    }
+
+    /**
+     * The inbound message sizes are added to this counter by the transports.
+     */
+    LongAdder bytesIn() {
+        return bytesIn;
+    }
+
+    /**
+     * The outbound message sizes are added to this counter by the transports.
+     */
+    LongAdder bytesOut() {
+        return bytesOut;
+    }
+
+    private static int bucket(long millis) {
+        for (int i = 0; i < LATENCY_BOUNDS_MILLIS.length; i++) {
+            if (millis <= LATENCY_BOUNDS_MILLIS[i]) {
+                return i;
+            }
+        }
+        return LATENCY_BOUNDS_MILLIS.length;
+    }
+
+    public String getSide() {
+        return side;
+    }
+
+    public String getServiceName() {
+        return serviceName;
+    }
+
+    public String getPortName() {
+        return portName;
+    }
+
+    public String getOperationName() {
+        return operationName;
+    }
+
+    public long getRequestCount() {
+        return requests.sum();
+    }
+
+    public long getErrorCount() {
+        return errors.sum();
+    }
+
+    public long getInFlight() {
+        return inFlight.sum();
+    }
+
+    public long getBytesIn() {
+        return bytesIn.sum();
+    }
+
+    public long getBytesOut() {
+        return bytesOut.sum();
+    }
+
+    public double getAverageLatencyMillis() {
+        long count = requests.sum();
+        return (count == 0) ? 0 : totalLatencyNanos.sum() / (count * 1000000.0);
+    }
+
+    public long getMaxLatencyMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(maxLatencyNanos.get());
+    }
+
+    public long[] getLatencyBucketBoundsMillis() {
+        return LATENCY_BOUNDS_MILLIS.clone();
+    }
+
+    public long[] getLatencyHistogram() {
+        long[] counts = new long[histogram.length];
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] = histogram[i].sum();
+        }
+        return counts;
+    }
+
+    @Override
+    public String toString() {
+        return side + ' ' + serviceName + '/' + portName + '/' + operationName;
+    }
+
+    private static final class MaxFunction implements LongBinaryOperator {
+        public long applyAsLong(long left, long right) {
+            return Math.max(left, right);
+        }
+    }
+}
@@ -0,0 +1,97 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2017 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * http://glassfish.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package com.sun.xml.ws.metrics;
+
+/**
+ * JMX view of the {@link OperationMetrics} of one operation.
+ *
+ * <p>
+ * Latencies are measured from the moment the request enters the
+ * {@link MetricsTube} until the response or the exception leaves it.
+ */
+public interface OperationMetricsMXBean {
+    /**
+     * "client" or "server".
+     */
+    String getSide();
+
+    String getServiceName();
+
+    String getPortName();
+
+    /**
+     * Local name of the WSDL operation, or an empty string if the operation
+     * could not be determined for a request.
+     */
+    String getOperationName();
+
+    long getRequestCount();
+
+    /**
+     * Number of requests that completed with a fault or an exception.
+     */
+    long getErrorCount();
+
+    /**
+     * Number of requests currently being processed. Only client requests are
+     * counted, as the operation of a server request is looked up once it completes.
+     * The requests of a server port in flight are counted by
+     * {@link PortMetricsMXBean#getInFlight()}.
+     */
+    long getInFlight();
+
+    long getBytesIn();
+
+    long getBytesOut();
+
+    double getAverageLatencyMillis();
+
+    long getMaxLatencyMillis();
+
+    /**
+     * Upper bounds (inclusive, in milliseconds) of the latency histogram
+     * buckets. The histogram has one more bucket for the latencies above
+     * the last bound.
+     */
+    long[] getLatencyBucketBoundsMillis();
+
+    long[] getLatencyHistogram();
+}
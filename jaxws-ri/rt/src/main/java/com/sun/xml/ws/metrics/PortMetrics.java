@@ -0,0 +1,204 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2017 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * http://glassfish.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package com.sun.xml.ws.metrics;
+
+import com.sun.xml.ws.util.ServiceFinder;
+
+import javax.xml.namespace.QName;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * {@link OperationMetrics} of one client or server port, and the number of
+ * requests of the port in flight.
+ *
+ * <p>
+ * There is one instance per side, service and port in the JVM, so that all
+ * the proxies to a port add to the same counters. Each tubeline that uses the
+ * instance {@link #dispose() releases} it when it's destroyed, and the instance
+ * is dropped once no tubeline uses it.
+ */
+final class PortMetrics implements PortMetricsMXBean {
+
+    private static final Logger LOGGER = Logger.getLogger(PortMetrics.class.getName());
+
+    // guarded by itself
+    private static final Map<String, PortMetrics> PORTS = new HashMap<String, PortMetrics>();
+
+    private static final List<MetricsExporter> EXPORTERS = new ArrayList<MetricsExporter>();
+
+    static {
+        EXPORTERS.add(new JmxMetricsExporter());
+        for (MetricsExporter exporter : ServiceFinder.find(MetricsExporter.class)) {
+            EXPORTERS.add(exporter);
+        }
+    }
+
+    private final String side;
+    private final String serviceName;
+    private final String portName;
+    private final ConcurrentMap<String, OperationMetrics> operations = new ConcurrentHashMap<String, OperationMetrics>();
+    // counted per port, the operation of a server request is only known once it completes
+    private final LongAdder inFlight = new LongAdder();
+    // guarded by PORTS
+    private int references;
+    private volatile boolean disposed;
+
+    private PortMetrics(String side, String serviceName, String portName) {
+        this.side = side;
+        this.serviceName = serviceName;
+        this.portName = portName;
+    }
+
+    /**
+     * Gets the instance of the port, for one more tubeline.
+     */
+    static PortMetrics get(boolean client, QName serviceName, QName portName) {
+        String side = client ? "client" : "server";
+        String service = (serviceName != null) ? serviceName.toString() : "";
+        String port = (portName != null) ? portName.toString() : "";
+        String key = side + ' ' + service + ' ' + port;
+        synchronized (PORTS) {
+            PortMetrics metrics = PORTS.get(key);
+            if (metrics == null) {
+                metrics = new PortMetrics(side, service, port);
+                PORTS.put(key, metrics);
+                JmxMetricsExporter.register(metrics);
+            }
+            metrics.references++;
+            return metrics;
+        }
+    }
+
+    /**
+     * Records the start of a request of the port.
+     */
+    void started() {
+        inFlight.increment();
+    }
+
+    /**
+     * Records the end of a request that was {@link #started}.
+     */
+    void completed() {
+        inFlight.decrement();
+    }
+
+    public String getSide() {
+        return side;
+    }
+
+    public String getServiceName() {
+        return serviceName;
+    }
+
+    public String getPortName() {
+        return portName;
+    }
+
+    public long getInFlight() {
+        return inFlight.sum();
+    }
+
+    @Override
+    public String toString() {
+        return side + ' ' + serviceName + '/' + portName;
+    }
+
+    OperationMetrics getOperation(String operationName) {
+        OperationMetrics metrics = operations.get(operationName);
+        if (metrics == null) {
+            metrics = new OperationMetrics(side, serviceName, portName, operationName);
+            OperationMetrics existing = operations.putIfAbsent(operationName, metrics);
+            if (existing != null) {
+                return existing;
+            }
+            if (disposed) {
+                // a request that was still running, its counters are not exported anymore
+                return metrics;
+            }
+            for (MetricsExporter exporter : EXPORTERS) {
+                try {
+                    exporter.register(metrics);
+                } catch (RuntimeException e) {
+                    LOGGER.log(Level.WARNING, "Cannot register metrics of " + metrics, e);
+                }
+            }
+        }
+        return metrics;
+    }
+
+    /**
+     * Releases the instance for one tubeline. Once no tubeline uses it, the
+     * metrics of all the operations are unregistered, and a new instance is
+     * created if the port is used again.
+     */
+    void dispose() {
+        synchronized (PORTS) {
+            if (references == 0 || --references > 0) {
+                return;
+            }
+            disposed = true;
+            String key = side + ' ' + serviceName + ' ' + portName;
+            if (PORTS.get(key) == this) {
+                PORTS.remove(key);
+            }
+            // under the lock, a new instance of the port registers under the same name
+            JmxMetricsExporter.unregister(this);
+        }
+        for (OperationMetrics metrics : operations.values()) {
+            for (MetricsExporter exporter : EXPORTERS) {
+                try {
+                    exporter.unregister(metrics);
+                } catch (RuntimeException e) {
+                    LOGGER.log(Level.WARNING, "Cannot unregister metrics of " + metrics, e);
+                }
+            }
+        }
+    }
+}
@@ -62,6 +62,7 @@ import com.sun.xml.ws.api.model.wsdl.WSDLService;
 import com.sun.xml.ws.api.policy.ModelGenerator;
 import com.sun.xml.ws.api.wsdl.writer.WSDLGeneratorExtension;
 import com.sun.xml.ws.api.wsdl.writer.WSDLGenExtnContext;
+import com.sun.xml.ws.encoding.policy.FastInfosetPolicyMapConfigurator;
 import com.sun.xml.ws.encoding.policy.MtomPolicyMapConfigurator;
 import com.sun.xml.ws.policy.Policy;
 import com.sun.xml.ws.policy.PolicyConstants;
@@ -471,6 +472,7 @@ public class PolicyWSDLGeneratorExtension extends WSDLGeneratorExtension {
         // Add map configurators that are already built into JAX-WS
         configurators.add(new AddressingPolicyMapConfigurator());
         configurators.add(new MtomPolicyMapConfigurator());
+        configurators.add(new FastInfosetPolicyMapConfigurator());
 
         // Dynamically discover remaining map configurators
         PolicyUtil.addServiceProviders(configurators, PolicyMapConfigurator.class);
@@ -0,0 +1,283 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2017 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * http://glassfish.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package com.sun.xml.ws.server;
+
+import com.sun.istack.NotNull;
+import com.sun.xml.ws.api.Component;
+import com.sun.xml.ws.developer.AdmissionControlFeature;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Limits the number of requests an endpoint processes concurrently,
+ * as configured by {@link AdmissionControlFeature}.
+ *
+ * <p>
+ * A transport calls {@link #tryAcquire()} before it reads a request, and
+ * {@link #release(long)} once the response is sent. When the limit is reached,
+ * requests wait in a bounded queue until a slot is released. Transports that
+ * must not block the calling thread use {@link #tryAcquireNow()} instead, and
+ * reject the request at once when the limit is reached.
+ *
+ * <p>
+ * In adaptive mode the limit moves between 1 and {@code maxInFlight}. The
+ * latency of the requests is averaged over windows of {@value #WINDOW} requests.
+ * The limit is lowered by 10% whenever a window is more than twice as slow as the
+ * fastest window seen, and raised by one otherwise.
+ *
+ * <p>
+ * The endpoint makes it available to the transports with
+ * {@link com.sun.xml.ws.api.server.WSEndpoint#getSPI(Class)}.
+ */
+public final class AdmissionController implements Component {
+
+    private static final int WINDOW = 100;
+
+    /**
+     * The fastest window is forgotten after this many windows, so that the
+     * baseline follows lasting changes in the latency of the endpoint.
+     */
+    private static final int BASELINE_WINDOWS = 50;
+
+    private final int maxInFlight;
+    private final int maxQueued;
+    private final long queueTimeout;
+    private final boolean adaptive;
+    private final boolean rejectWithFault;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition available = lock.newCondition();
+
+    // all guarded by lock
+    private int limit;
+    private int inFlight;
+    private int waiting;
+    private long accepted;
+    private long rejected;
+
+    private int samples;
+    private long windowLatency;
+    private long baselineLatency = Long.MAX_VALUE;
+    private int baselineAge;
+
+    public AdmissionController(@NotNull AdmissionControlFeature feature) {
+        this.maxInFlight = feature.getMaxInFlight();
+        this.maxQueued = feature.getMaxQueued();
+        this.queueTimeout = TimeUnit.MILLISECONDS.toNanos(feature.getQueueTimeout());
+        this.adaptive = feature.isAdaptive();
+        this.rejectWithFault = feature.isRejectWithFault();
+        this.limit = maxInFlight;
+    }
+
+    /**
+     * Takes a slot for a request, waiting in the queue if necessary.
+     *
+     * @return
+     *      false if the request is rejected. Otherwise {@link #release(long)}
+     *      must be called once the request is done.
+     */
+    public boolean tryAcquire() {
+        lock.lock();
+        try {
+            if (inFlight < limit) {
+                inFlight++;
+                accepted++;
+                return true;
+            }
+            if (waiting >= maxQueued) {
+                rejected++;
+                return false;
+            }
+            waiting++;
+            try {
+                long nanos = queueTimeout;
+                while (inFlight >= limit) {
+                    if (nanos <= 0) {
+                        rejected++;
+                        return false;
+                    }
+                    nanos = available.awaitNanos(nanos);
+                }
+                inFlight++;
+                accepted++;
+                return true;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                rejected++;
+                return false;
+            } finally {
+                waiting--;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Takes a slot for a request if one is free, without waiting in the queue.
+     *
+     * @return
+     *      false if the request is rejected. Otherwise {@link #release(long)}
+     *      must be called once the request is done.
+     */
+    public boolean tryAcquireNow() {
+        lock.lock();
+        try {
+            if (inFlight < limit) {
+                inFlight++;
+                accepted++;
+                return true;
+            }
+            rejected++;
+            return false;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Releases the slot of a request.
+     *
+     * @param startNanos
+     *      {@link System#nanoTime()} when the request arrived.
+     */
+    public void release(long startNanos) {
+        long latency = System.nanoTime() - startNanos;
+        lock.lock();
+        try {
+            inFlight--;
+            if (adaptive) {
+                sample(latency);
+            }
+            if (inFlight < limit) {
+                available.signal();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void sample(long latency) {
+        windowLatency += latency;
+        if (++samples < WINDOW) {
+            return;
+        }
+        long average = windowLatency / samples;
+        samples = 0;
+        windowLatency = 0;
+        if (++baselineAge > BASELINE_WINDOWS) {
+            baselineLatency = average;
+            baselineAge = 0;
+        } else if (average < baselineLatency) {
+            baselineLatency = average;
+        }
+        if (average > 2 * baselineLatency) {
+            limit = Math.max(1, limit * 9 / 10);
+        } else if (limit < maxInFlight) {
+            limit++;
+            available.signal();
+        }
+    }
+
+    /**
+     * True if rejected requests get a SOAP fault with the 503 status.
+     */
+    public boolean isRejectWithFault() {
+        return rejectWithFault;
+    }
+
+    /**
+     * Current limit of concurrent requests.
+     */
+    public int getLimit() {
+        lock.lock();
+        try {
+            return limit;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getInFlight() {
+        lock.lock();
+        try {
+            return inFlight;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getQueued() {
+        lock.lock();
+        try {
+            return waiting;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long getAcceptedCount() {
+        lock.lock();
+        try {
+            return accepted;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long getRejectedCount() {
+        lock.lock();
+        try {
+            return rejected;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public <S> S getSPI(Class<S> spiType) {
+        if (spiType == AdmissionController.class) {
+            return spiType.cast(this);
+        }
+        return null;
+    }
+}
@@ -50,6 +50,8 @@ import com.sun.xml.ws.api.databinding.DatabindingConfig;
 import com.sun.xml.ws.api.databinding.DatabindingFactory;
 import com.sun.xml.ws.api.databinding.MetadataReader;
 import com.sun.xml.ws.api.databinding.WSDLGenInfo;
+import com.sun.xml.ws.api.fastinfoset.FastInfosetVocabulary;
+import com.sun.xml.ws.api.fastinfoset.FastInfosetVocabularyFeature;
 import com.sun.xml.ws.api.model.SEIModel;
 import com.sun.xml.ws.api.model.wsdl.WSDLModel;
 import com.sun.xml.ws.api.model.wsdl.WSDLPort;
@@ -73,6 +75,9 @@ import com.sun.xml.ws.binding.BindingImpl;
 import com.sun.xml.ws.binding.SOAPBindingImpl;
 import com.sun.xml.ws.binding.WebServiceFeatureList;
 import com.sun.xml.ws.model.AbstractSEIModelImpl;
+import com.sun.xml.ws.model.CheckedExceptionImpl;
+import com.sun.xml.ws.model.JavaMethodImpl;
+import com.sun.xml.ws.model.ParameterImpl;
 import com.sun.xml.ws.model.ReflectAnnotationReader;
 import com.sun.xml.ws.model.RuntimeModeler;
 import com.sun.xml.ws.model.SOAPSEIModel;
@@ -114,6 +119,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.NoSuchElementException;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Level;
 import java.util.logging.Logger;
 
 /**
@@ -328,6 +334,9 @@ public class EndpointFactory {
         }
         
         ServiceDefinitionImpl serviceDefiniton = (primaryDoc != null) ? new ServiceDefinitionImpl(docList, primaryDoc) : null;
+        if (wsdlPort != null) {
+            deriveFastInfosetVocabulary(features, wsdlPort, docList);
+        }
 
         return create(serviceName, portName, binding, container, seiModel, wsdlPort, implType, serviceDefiniton, 
         		terminal, isTransportSynchronous, policyMap);
@@ -350,6 +359,41 @@ public class EndpointFactory {
                                                               final Invoker invoker, final Container container) {
     	return ProviderInvokerTube.create(implType, binding, invoker, container);
     }   
+    /**
+     * Derives the Fast Infoset vocabulary from the endpoint's WSDL model and the
+     * schemas of its metadata, if the {@link FastInfosetVocabularyFeature} is
+     * enabled and doesn't carry one already. Clients derive the same vocabulary
+     * from the published documents.
+     */
+    private static void deriveFastInfosetVocabulary(WebServiceFeatureList features, WSDLPort wsdlPort,
+                                                    Collection<SDDocumentImpl> docList) {
+        FastInfosetVocabularyFeature vocabularyFeature = features.get(FastInfosetVocabularyFeature.class);
+        if (vocabularyFeature == null || !vocabularyFeature.isEnabled() || vocabularyFeature.getVocabulary() != null) {
+            return;
+        }
+        FastInfosetVocabulary.Builder builder = new FastInfosetVocabulary.Builder().add(wsdlPort.getOwner().getParent());
+        try {
+            for (SDDocumentImpl doc : docList) {
+                XMLStreamReader reader = doc.read();
+                try {
+                    builder.add(reader);
+                } finally {
+                    reader.close();
+                }
+            }
+        } catch (IOException e) {
+            logger.log(Level.WARNING, "Cannot derive the Fast Infoset vocabulary from the metadata", e);
+            return;
+        } catch (XMLStreamException e) {
+            logger.log(Level.WARNING, "Cannot derive the Fast Infoset vocabulary from the metadata", e);
+            return;
+        }
+        vocabularyFeature.setVocabulary(builder.build());
+        if (logger.isLoggable(Level.FINE)) {
+            logger.log(Level.FINE, "Derived the Fast Infoset vocabulary {0}", vocabularyFeature.getVocabularyURI());
+        }
+    }
+
     /**
      * Goes through the original metadata documents and collects the required ones.
      * This done traversing from primary WSDL and its imports until it builds a
@@ -681,17 +725,80 @@ public class EndpointFactory {
 
         // Generate WSDL and schema documents using runtime model
         WSDLGenResolver wsdlResolver = new WSDLGenResolver(docs,seiModel.getServiceQName(),seiModel.getPortTypeName());
+        WSDLGeneratorExtension[] extensions = ServiceFinder.find(WSDLGeneratorExtension.class).toArray();
+
+        String snapshotKey = null;
+        String fingerprint = null;
+        if (ModelSnapshot.isEnabled()) {
+            snapshotKey = "wsdl:" + implType.getName() + ':' + seiModel.getServiceQName() + ':' + seiModel.getPortName();
+            fingerprint = getWSDLFingerprint(binding, seiModel, docs, implType, extensions);
+            Map<String, byte[]> generated = ModelSnapshot.load(snapshotKey, fingerprint);
+            if (generated != null) {
+                logger.log(Level.FINE, "Using the WSDL of {0} from the model snapshot", implType.getName());
+                try {
+                    return wsdlResolver.restoreDocs(generated);
+                } catch (XMLStreamException e) {
+                    logger.log(Level.WARNING, "Cannot restore the generated WSDL of " + implType.getName(), e);
+                    wsdlResolver = new WSDLGenResolver(docs,seiModel.getServiceQName(),seiModel.getPortTypeName());
+                }
+            }
+        }
+
         WSDLGenInfo wsdlGenInfo = new WSDLGenInfo(); 
         wsdlGenInfo.setWsdlResolver(wsdlResolver);
         wsdlGenInfo.setContainer(container);
-        wsdlGenInfo.setExtensions(ServiceFinder.find(WSDLGeneratorExtension.class).toArray());
+        wsdlGenInfo.setExtensions(extensions);
         wsdlGenInfo.setInlineSchemas(false);
         wsdlGenInfo.setSecureXmlProcessingDisabled(isSecureXmlProcessingDisabled(binding.getFeatures()));
         seiModel.getDatabinding().generateWSDL(wsdlGenInfo);
 //        WSDLGenerator wsdlGen = new WSDLGenerator(seiModel, wsdlResolver, binding, container, implType, false,
 //                ServiceFinder.find(WSDLGeneratorExtension.class).toArray());
 //        wsdlGen.doGeneration();
-        return wsdlResolver.updateDocs();
+        SDDocumentImpl primary = wsdlResolver.updateDocs();
+        if (fingerprint != null) {
+            try {
+                ModelSnapshot.store(snapshotKey, fingerprint, wsdlResolver.getGeneratedDocs());
+            } catch (XMLStreamException e) {
+                logger.log(Level.WARNING, "Cannot store the generated WSDL of " + implType.getName(), e);
+            }
+        }
+        return primary;
+    }
+
+    /**
+     * Fingerprint of everything the generated WSDL depends on: the classes
+     * of the endpoint, the binding and its features, the generator
+     * extensions and the metadata documents that are not generated.
+     */
+    private static String getWSDLFingerprint(WSBinding binding, AbstractSEIModelImpl seiModel, Collection<SDDocumentImpl> docs,
+                                             Class implType, WSDLGeneratorExtension[] extensions) {
+        List<java.lang.reflect.Type> classes = new ArrayList<java.lang.reflect.Type>();
+        classes.add(implType);
+        classes.add(seiModel.getContractClass());
+        for (JavaMethodImpl jm : seiModel.getJavaMethods()) {
+            for (ParameterImpl p : jm.getRequestParameters()) {
+                classes.add(p.getTypeInfo().type);
+            }
+            for (ParameterImpl p : jm.getResponseParameters()) {
+                classes.add(p.getTypeInfo().type);
+            }
+            for (CheckedExceptionImpl ce : jm.getCheckedExceptions()) {
+                classes.add(ce.getExceptionClass());
+            }
+        }
+
+        List<String> inputs = new ArrayList<String>();
+        inputs.add(binding.getBindingId().toString());
+        for (WebServiceFeature f : binding.getFeatures()) {
+            inputs.add(ModelSnapshot.describe(f));
+        }
+        for (WSDLGeneratorExtension ext : extensions) {
+            inputs.add(ext.getClass().getName());
+        }
+        for (SDDocumentImpl doc : docs) {
+            inputs.add(doc.getURL().toExternalForm() + '=' + ModelSnapshot.fingerprint(doc));
+        }
+        return ModelSnapshot.fingerprint(classes, inputs);
     }
 
     private static boolean isSecureXmlProcessingDisabled(WSFeatureList featureList) {
@@ -0,0 +1,400 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2017 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * http://glassfish.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package com.sun.xml.ws.server;
+
+import com.sun.istack.Nullable;
+import com.sun.xml.ws.util.ByteArrayBuffer;
+import com.sun.xml.ws.util.RuntimeVersion;
+
+import javax.xml.bind.annotation.XmlSeeAlso;
+import javax.xml.ws.WebServiceFeature;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Field;
+import java.lang.reflect.GenericArrayType;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.lang.reflect.TypeVariable;
+import java.lang.reflect.WildcardType;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Persisted results of expensive endpoint deployment steps, so that they can
+ * be reused when the same application is started again.
+ *
+ * <p>
+ * The snapshot is kept in the directory given by the
+ * {@code com.sun.xml.ws.server.ModelSnapshot.dir} system property, and is
+ * disabled when the property is not set. The directory is filled on the
+ * first start. It can also be filled at build time, by deploying the
+ * application once, and shipped with the application.
+ *
+ * <p>
+ * Every entry is stored with a fingerprint of everything it was computed
+ * from, and is only reused when the fingerprint is unchanged. For classes,
+ * the fingerprint covers the class files of all the application classes
+ * that are reachable from the endpoint. Other inputs, such as policy
+ * configuration files, are not tracked; the directory needs to be cleared
+ * when they change.
+ *
+ * @see EndpointFactory
+ */
+final class ModelSnapshot {
+
+    private static final Logger LOGGER = Logger.getLogger(ModelSnapshot.class.getName());
+
+    private static final int MAGIC = 0x4a575353;    // JWSS
+
+    private static volatile File dir;
+
+    static {
+        String dir = null;
+        try {
+            dir = System.getProperty(ModelSnapshot.class.getName() + ".dir");
+        } catch (SecurityException se) {
+            if (LOGGER.isLoggable(Level.CONFIG)) {
+                LOGGER.log(Level.CONFIG, "Cannot read ''{0}'' property, using defaults.",
+                        new Object[] {ModelSnapshot.class.getName() + ".dir"});
+            }
+        }
+        ModelSnapshot.dir = (dir != null && dir.length() > 0) ? new File(dir) : null;
+    }
+
+    private ModelSnapshot() {}
+
+    static boolean isEnabled() {
+        return dir != null;
+    }
+
+    /**
+     * Changes the snapshot directory. Used by tests.
+     *
+     * @param dir null to disable the snapshot
+     */
+    static void setDir(@Nullable File dir) {
+        ModelSnapshot.dir = dir;
+    }
+
+    /**
+     * Loads the entries that were stored under the given key.
+     *
+     * @return null if there are no entries, or they were computed from
+     *         something else than what the fingerprint describes
+     */
+    static @Nullable Map<String, byte[]> load(String key, String fingerprint) {
+        File file = getFile(key);
+        DataInputStream in = null;
+        try {
+            in = new DataInputStream(new FileInputStream(file));
+            if (in.readInt() != MAGIC || !key.equals(in.readUTF()) || !fingerprint.equals(in.readUTF())) {
+                LOGGER.log(Level.FINE, "Snapshot {0} is out of date", file);
+                return null;
+            }
+            int size = in.readInt();
+            Map<String, byte[]> entries = new LinkedHashMap<String, byte[]>();
+            for (int i = 0; i < size; i++) {
+                String name = in.readUTF();
+                byte[] data = new byte[in.readInt()];
+                in.readFully(data);
+                entries.put(name, data);
+            }
+            return entries;
+        } catch (FileNotFoundException e) {
+            return null;
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Cannot read snapshot " + file, e);
+            return null;
+        } finally {
+            close(in);
+        }
+    }
+
+    /**
+     * Stores the entries under the given key. Failures are only logged,
+     * since the snapshot is merely an optimization.
+     */
+    static void store(String key, String fingerprint, Map<String, byte[]> entries) {
+        File file = getFile(key);
+        File tmp = null;
+        DataOutputStream out = null;
+        try {
+            File dir = file.getParentFile();
+            if (!dir.isDirectory() && !dir.mkdirs() && !dir.isDirectory()) {
+                throw new IOException("Cannot create directory " + dir);
+            }
+            // written to a temporary file first, so that concurrent
+            // deployments never see a partially written snapshot
+            tmp = File.createTempFile(file.getName(), ".tmp", file.getParentFile());
+            out = new DataOutputStream(new FileOutputStream(tmp));
+            out.writeInt(MAGIC);
+            out.writeUTF(key);
+            out.writeUTF(fingerprint);
+            out.writeInt(entries.size());
+            for (Map.Entry<String, byte[]> e : entries.entrySet()) {
+                out.writeUTF(e.getKey());
+                out.writeInt(e.getValue().length);
+                out.write(e.getValue());
+            }
+            out.close();
+            out = null;
+            if (!tmp.renameTo(file)) {
+                file.delete();
+                if (!tmp.renameTo(file)) {
+                    throw new IOException("Cannot rename " + tmp + " to " + file);
+                }
+            }
+            tmp = null;
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Cannot write snapshot " + file, e);
+        } finally {
+            close(out);
+            if (tmp != null) {
+                tmp.delete();
+            }
+        }
+    }
+
+    /**
+     * Computes a fingerprint of the given classes, every application class
+     * reachable from them through the type hierarchy, fields, methods and
+     * {@link XmlSeeAlso}, and of the other given inputs.
+     */
+    static String fingerprint(Collection<? extends Type> roots, Collection<String> inputs) {
+        MessageDigest md = newDigest();
+        update(md, RuntimeVersion.VERSION.toString());
+        for (String input : inputs) {
+            update(md, input);
+        }
+
+        Set<Type> visited = new HashSet<Type>();
+        ArrayDeque<Type> queue = new ArrayDeque<Type>(roots);
+        while (!queue.isEmpty()) {
+            Type t = queue.poll();
+            if (t == null || !visited.add(t)) {
+                continue;
+            }
+            if (t instanceof ParameterizedType) {
+                ParameterizedType pt = (ParameterizedType) t;
+                queue.add(pt.getRawType());
+                for (Type arg : pt.getActualTypeArguments()) {
+                    queue.add(arg);
+                }
+            } else if (t instanceof GenericArrayType) {
+                queue.add(((GenericArrayType) t).getGenericComponentType());
+            } else if (t instanceof WildcardType) {
+                WildcardType wt = (WildcardType) t;
+                add(queue, wt.getUpperBounds());
+                add(queue, wt.getLowerBounds());
+            } else if (t instanceof TypeVariable) {
+                add(queue, ((TypeVariable<?>) t).getBounds());
+            } else if (t instanceof Class) {
+                Class<?> c = (Class<?>) t;
+                if (c.isArray()) {
+                    queue.add(c.getComponentType());
+                } else if (isApplicationClass(c)) {
+                    update(md, c.getName());
+                    updateClassFile(md, c);
+                    queue.add(c.getGenericSuperclass());
+                    add(queue, c.getGenericInterfaces());
+                    for (Field f : c.getDeclaredFields()) {
+                        if (!Modifier.isStatic(f.getModifiers())) {
+                            queue.add(f.getGenericType());
+                        }
+                    }
+                    for (Method m : c.getDeclaredMethods()) {
+                        queue.add(m.getGenericReturnType());
+                        add(queue, m.getGenericParameterTypes());
+                        add(queue, m.getGenericExceptionTypes());
+                    }
+                    XmlSeeAlso seeAlso = c.getAnnotation(XmlSeeAlso.class);
+                    if (seeAlso != null) {
+                        add(queue, seeAlso.value());
+                    }
+                }
+            }
+        }
+        return toHex(md.digest());
+    }
+
+    /**
+     * Computes a fingerprint of the content of a metadata document, so that
+     * a document that is changed in place invalidates the snapshot.
+     */
+    static String fingerprint(SDDocumentImpl doc) {
+        MessageDigest md = newDigest();
+        ByteArrayBuffer content = new ByteArrayBuffer();
+        try {
+            doc.writeTo(content);
+            md.update(content.getRawData(), 0, content.size());
+        } catch (IOException e) {
+            // then the content isn't fingerprinted
+            update(md, "unreadable:" + e);
+        }
+        return toHex(md.digest());
+    }
+
+    /**
+     * Describes a feature by its type and its simple bean properties,
+     * in the order of their names.
+     */
+    static String describe(WebServiceFeature feature) {
+        StringBuilder sb = new StringBuilder(feature.getClass().getName());
+        // getMethods() returns the methods in no particular order
+        Method[] methods = feature.getClass().getMethods();
+        Arrays.sort(methods, new Comparator<Method>() {
+            @Override
+            public int compare(Method m1, Method m2) {
+                return m1.getName().compareTo(m2.getName());
+            }
+        });
+        for (Method m : methods) {
+            if (m.getParameterTypes().length == 0 && m.getDeclaringClass() != Object.class
+                    && (m.getName().startsWith("get") || m.getName().startsWith("is"))) {
+                Class<?> type = m.getReturnType();
+                if (type.isPrimitive() || type.isEnum() || type == String.class) {
+                    try {
+                        sb.append(';').append(m.getName()).append('=').append(m.invoke(feature));
+                    } catch (Exception e) {
+                        // not a simple property. Intentionally left empty
+                    }
+                }
+            }
+        }
+        return sb.toString();
+    }
+
+    private static boolean isApplicationClass(Class<?> c) {
+        if (c.isPrimitive() || c.getClassLoader() == null) {
+            return false;
+        }
+        String name = c.getName();
+        return !name.startsWith("java.") && !name.startsWith("javax.");
+    }
+
+    private static void updateClassFile(MessageDigest md, Class<?> c) {
+        String name = c.getName();
+        InputStream in = c.getClassLoader().getResourceAsStream(name.replace('.', '/') + ".class");
+        if (in == null) {
+            // generated classes, such as wrapper beans, are derived from
+            // the classes they are generated for
+            return;
+        }
+        try {
+            byte[] buf = new byte[8192];
+            int len;
+            while ((len = in.read(buf)) >= 0) {
+                md.update(buf, 0, len);
+            }
+        } catch (IOException e) {
+            // then the class isn't fingerprinted
+            update(md, "unreadable:" + e);
+        } finally {
+            close(in);
+        }
+    }
+
+    private static void add(ArrayDeque<Type> queue, Type[] types) {
+        for (Type t : types) {
+            queue.add(t);
+        }
+    }
+
+    private static void update(MessageDigest md, String s) {
+        try {
+            md.update(s.getBytes("UTF-8"));
+            md.update((byte) 0);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-1");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static File getFile(String key) {
+        MessageDigest md = newDigest();
+        update(md, key);
+        return new File(dir, toHex(md.digest()) + ".snapshot");
+    }
+
+    private static String toHex(byte[] b) {
+        StringBuilder sb = new StringBuilder(b.length * 2);
+        for (byte x : b) {
+            sb.append(Character.forDigit((x >> 4) & 0xf, 16)).append(Character.forDigit(x & 0xf, 16));
+        }
+        return sb.toString();
+    }
+
+    private static void close(Closeable c) {
+        if (c != null) {
+            try {
+                c.close();
+            } catch (IOException e) {
+                // Nothing much can be done. Intentionally left empty
+            }
+        }
+    }
+}
@@ -78,6 +78,12 @@ public class ServerSchemaValidationTube extends AbstractSchemaValidationTube {
     private final SEIModel seiModel;
     private final WSDLPort wsdlPort;
 
+    /**
+     * The request whose message is validated while the next tubes read it,
+     * in the streaming mode. Its validation errors come back as exceptions.
+     */
+    private Packet streamingRequest;
+
     public ServerSchemaValidationTube(WSEndpoint endpoint, WSBinding binding,
             SEIModel seiModel, WSDLPort wsdlPort, Tube next) {
         super(binding, next);
@@ -116,29 +122,54 @@ public class ServerSchemaValidationTube extends AbstractSchemaValidationTube {
         return noValidation;
     }
 
+    @Override
+    protected Schema getSchema() {
+        return schema;
+    }
+
     @Override
     public NextAction processRequest(Packet request) {
         if (isNoValidation() || !feature.isInbound() || !request.getMessage().hasPayload() || request.getMessage().isFault()) {
             return super.processRequest(request);
         }
         try {
-            doProcess(request);
+            doProcessInbound(request);
         } catch(SAXException se) {
-            LOGGER.log(Level.WARNING, "Client Request doesn't pass Service's Schema Validation", se);
-            // Client request is invalid. So sending specific fault code
-            // Also converting this to fault message so that handlers may get
-            // to see the message.
-            SOAPVersion soapVersion = binding.getSOAPVersion();
-            Message faultMsg = SOAPFaultBuilder.createSOAPFaultMessage(
-                    soapVersion, null, se, soapVersion.faultCodeClient);
-            return doReturnWith(request.createServerResponse(faultMsg,
-                    wsdlPort, seiModel, binding));
+            return doReturnWith(createValidationFault(request, se));
+        }
+        if (feature.isStreaming()) {
+            streamingRequest = request;
         }
         return super.processRequest(request);
     }
 
+    @Override
+    public NextAction processException(Throwable t) {
+        Packet request = streamingRequest;
+        streamingRequest = null;
+        SAXException se = getStreamingValidationError(t);
+        if (request != null && se != null) {
+            // same fault as in the default mode
+            return doReturnWith(createValidationFault(request, se));
+        }
+        return super.processException(t);
+    }
+
+    private Packet createValidationFault(Packet request, SAXException se) {
+        LOGGER.log(Level.WARNING, "Client Request doesn't pass Service's Schema Validation", se);
+        // Client request is invalid. So sending specific fault code
+        // Also converting this to fault message so that handlers may get
+        // to see the message.
+        SOAPVersion soapVersion = binding.getSOAPVersion();
+        Message faultMsg = SOAPFaultBuilder.createSOAPFaultMessage(
+                soapVersion, null, se, soapVersion.faultCodeClient);
+        return request.createServerResponse(faultMsg,
+                wsdlPort, seiModel, binding);
+    }
+
     @Override
     public NextAction processResponse(Packet response) {
+        streamingRequest = null;
         if (isNoValidation() || !feature.isOutbound() || response.getMessage() == null || !response.getMessage().hasPayload() || response.getMessage().isFault()) {
             return super.processResponse(response);
         }
@@ -45,17 +45,25 @@ import com.sun.xml.stream.buffer.MutableXMLStreamBuffer;
 import com.sun.xml.stream.buffer.XMLStreamBufferResult;
 import com.sun.xml.ws.api.server.SDDocument;
 import com.sun.xml.ws.api.server.SDDocumentSource;
+import com.sun.xml.ws.api.streaming.XMLStreamReaderFactory;
+import com.sun.xml.ws.api.streaming.XMLStreamWriterFactory;
 
 import javax.xml.namespace.QName;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import javax.xml.stream.XMLStreamWriter;
 import javax.xml.transform.Result;
 import javax.xml.ws.Holder;
 import javax.xml.ws.WebServiceException;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.net.URL;
 import java.net.MalformedURLException;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -69,6 +77,7 @@ final class WSDLGenResolver implements com.oracle.webservices.api.databinding.WS
     
     private final Collection<SDDocumentImpl> docs;
     private final List<SDDocumentSource> newDocs = new ArrayList<SDDocumentSource>();
+    private final Map<SDDocumentSource, MutableXMLStreamBuffer> buffers = new HashMap<SDDocumentSource, MutableXMLStreamBuffer>();
     private SDDocumentSource concreteWsdlSource;
     
     private SDDocumentImpl abstractWsdl;
@@ -116,6 +125,7 @@ final class WSDLGenResolver implements com.oracle.webservices.api.databinding.WS
         xsb.setSystemId(url.toExternalForm());
         concreteWsdlSource = SDDocumentSource.create(url,xsb);
         newDocs.add(concreteWsdlSource);
+        buffers.put(concreteWsdlSource, xsb);
         XMLStreamBufferResult r = new XMLStreamBufferResult(xsb);
         r.setSystemId(filename);
         return r;
@@ -156,6 +166,7 @@ final class WSDLGenResolver implements com.oracle.webservices.api.databinding.WS
         xsb.setSystemId(url.toExternalForm());
         SDDocumentSource abstractWsdlSource = SDDocumentSource.create(url,xsb);
         newDocs.add(abstractWsdlSource);
+        buffers.put(abstractWsdlSource, xsb);
         XMLStreamBufferResult r = new XMLStreamBufferResult(xsb);
         r.setSystemId(filename.value);
         return r;
@@ -185,6 +196,7 @@ final class WSDLGenResolver implements com.oracle.webservices.api.databinding.WS
         xsb.setSystemId(url.toExternalForm());
         SDDocumentSource sd = SDDocumentSource.create(url,xsb);
         newDocs.add(sd);
+        buffers.put(sd, xsb);
 
         XMLStreamBufferResult r = new XMLStreamBufferResult(xsb);
         r.setSystemId(filename.value);
@@ -209,5 +221,67 @@ final class WSDLGenResolver implements com.oracle.webservices.api.databinding.WS
         }
         return concreteWsdl;
     }
-    
+
+    /**
+     * Serializes the generated documents, so that they can be restored
+     * with {@link #restoreDocs(Map)}. The concrete WSDL comes first.
+     */
+    public Map<String, byte[]> getGeneratedDocs() throws XMLStreamException {
+        Map<String, byte[]> generated = new LinkedHashMap<String, byte[]>();
+        if (concreteWsdlSource != null) {
+            generated.put(concreteWsdlSource.getSystemId().toExternalForm(), serialize(concreteWsdlSource));
+        }
+        for (SDDocumentSource doc : newDocs) {
+            if (doc != concreteWsdlSource) {
+                generated.put(doc.getSystemId().toExternalForm(), serialize(doc));
+            }
+        }
+        return generated;
+    }
+
+    /**
+     * Uses previously generated documents instead of generating them, and
+     * updates the original docs like {@link #updateDocs()}.
+     *
+     * @param generated
+     *      documents from {@link #getGeneratedDocs()}
+     * @return the primary WSDL
+     */
+    public SDDocumentImpl restoreDocs(Map<String, byte[]> generated) throws XMLStreamException {
+        for (Map.Entry<String, byte[]> e : generated.entrySet()) {
+            URL url;
+            try {
+                url = new URL(e.getKey());
+            } catch (MalformedURLException ex) {
+                throw new WebServiceException(ex);
+            }
+            MutableXMLStreamBuffer xsb = new MutableXMLStreamBuffer();
+            XMLStreamReader reader = XMLStreamReaderFactory.create(e.getKey(), new ByteArrayInputStream(e.getValue()), true);
+            try {
+                xsb.createFromXMLStreamReader(reader);
+            } finally {
+                XMLStreamReaderFactory.recycle(reader);
+            }
+            xsb.setSystemId(e.getKey());
+            SDDocumentSource doc = SDDocumentSource.create(url, xsb);
+            if (concreteWsdlSource == null) {
+                concreteWsdlSource = doc;
+            }
+            newDocs.add(doc);
+            buffers.put(doc, xsb);
+        }
+        return updateDocs();
+    }
+
+    private byte[] serialize(SDDocumentSource doc) throws XMLStreamException {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        XMLStreamWriter writer = XMLStreamWriterFactory.create(baos);
+        try {
+            buffers.get(doc).writeToXMLStreamWriter(writer, true);
+            writer.flush();
+        } finally {
+            XMLStreamWriterFactory.recycle(writer);
+        }
+        return baos.toByteArray();
+    }
 }
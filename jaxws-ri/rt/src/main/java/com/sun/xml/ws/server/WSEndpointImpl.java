@@ -51,6 +51,7 @@ import com.sun.xml.ws.api.ComponentsFeature;
 import com.sun.xml.ws.api.SOAPVersion;
 import com.sun.xml.ws.api.WSBinding;
 import com.sun.xml.ws.api.addressing.AddressingVersion;
+import com.sun.xml.ws.api.addressing.ReplyTransportCache;
 import com.sun.xml.ws.api.addressing.WSEndpointReference;
 import com.sun.xml.ws.api.message.Message;
 import com.sun.xml.ws.api.message.Packet;
@@ -59,6 +60,7 @@ import com.sun.xml.ws.api.model.wsdl.WSDLPort;
 import com.sun.xml.ws.api.pipe.*;
 import com.sun.xml.ws.api.server.*;
 import com.sun.xml.ws.binding.BindingImpl;
+import com.sun.xml.ws.developer.AdmissionControlFeature;
 import com.sun.xml.ws.fault.SOAPFaultBuilder;
 import com.sun.xml.ws.model.wsdl.WSDLDirectProperties;
 import com.sun.xml.ws.model.wsdl.WSDLPortProperties;
@@ -95,6 +97,25 @@ import javax.management.ObjectName;
 public /*final*/ class WSEndpointImpl<T> extends WSEndpoint<T> implements LazyMOMProvider.WSEndpointScopeChangeListener {
         
     private static final Logger logger = Logger.getLogger(com.sun.xml.ws.util.Constants.LoggingDomain + ".server.endpoint");
+
+    /**
+     * Number of tubelines that are cloned when the endpoint is created, so that
+     * the first requests don't have to clone them.
+     */
+    private static final int TUBE_POOL_WARM_UP;
+
+    static {
+        int warmUp = 0;
+        try {
+            warmUp = Integer.getInteger(WSEndpointImpl.class.getName() + ".tubePoolWarmUp", 0);
+        } catch (SecurityException se) {
+            if (logger.isLoggable(Level.CONFIG)) {
+                logger.log(Level.CONFIG, "Cannot read ''{0}'' property, using defaults.",
+                        WSEndpointImpl.class.getName() + ".tubePoolWarmUp");
+            }
+        }
+        TUBE_POOL_WARM_UP = warmUp;
+    }
     
     private final @NotNull QName serviceName;
     private final @NotNull QName portName;
@@ -202,6 +223,8 @@ public /*final*/ class WSEndpointImpl<T> extends WSEndpoint<T> implements LazyMO
 
         tubePool = new TubePool(masterTubeline);
         terminalTube.setEndpoint(this);
+        tubePool.warmUp(TUBE_POOL_WARM_UP);
+        initAdmissionControl();
         engine = new Engine(toString(), container);
         wsdlProperties = (port == null) ? new WSDLDirectProperties(serviceName, portName, seiModel) : new WSDLPortProperties(port, seiModel);
 
@@ -237,6 +260,16 @@ public /*final*/ class WSEndpointImpl<T> extends WSEndpoint<T> implements LazyMO
         }
   }
 
+  /**
+   * Makes the {@link AdmissionController} available to the transports
+   * when {@link AdmissionControlFeature} is enabled.
+   */
+  private void initAdmissionControl() {
+    if (binding.isFeatureEnabled(AdmissionControlFeature.class)) {
+        componentRegistry.add(new AdmissionController(binding.getFeature(AdmissionControlFeature.class)));
+    }
+  }
+
   protected ServerTubeAssemblerContext createServerTubeAssemblerContext(
             EndpointAwareTube terminalTube, boolean isSynchronous) {
     ServerTubeAssemblerContext ctx = new ServerPipeAssemblerContext(
@@ -268,10 +301,20 @@ public /*final*/ class WSEndpointImpl<T> extends WSEndpoint<T> implements LazyMO
                 seiModel, port, this, null /* not known */, false);
 
                 tubePool = new TubePool(masterTubeline);
+                tubePool.warmUp(TUBE_POOL_WARM_UP);
+                initAdmissionControl();
                 engine = new Engine(toString(), container);
                 wsdlProperties = (port == null) ? new WSDLDirectProperties(serviceName, portName, seiModel) : new WSDLPortProperties(port, seiModel);
   }
 
+    /**
+     * Pool of tubelines that process the requests of this endpoint.
+     * Its counters tell how often a tubeline had to be cloned.
+     */
+    public @NotNull Pool<Tube> getTubePool() {
+        return tubePool;
+    }
+
     public Collection<WSEndpointReference.EPRExtension> getEndpointReferenceExtensions() {
         return endpointReferenceExtensions.values();
     }
@@ -457,6 +500,13 @@ public /*final*/ class WSEndpointImpl<T> extends WSEndpoint<T> implements LazyMO
                     break;
                 }
             }
+            // reply delivery threads and transports, which the endpoint owns
+            for (Component c : componentRegistry) {
+                ReplyTransportCache cache = c.getSPI(ReplyTransportCache.class);
+                if (cache != null) {
+                    cache.close();
+                }
+            }
             closeManagedObjectManager();
             LazyMOMProvider.INSTANCE.unregisterEndpoint(this);
         }
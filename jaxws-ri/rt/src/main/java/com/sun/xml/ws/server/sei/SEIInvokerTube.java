@@ -49,7 +49,9 @@ import com.sun.xml.ws.api.pipe.NextAction;
 import com.sun.xml.ws.api.server.Invoker;
 import com.sun.xml.ws.client.sei.MethodHandler;
 import com.sun.xml.ws.model.AbstractSEIModelImpl;
+import com.sun.xml.ws.model.JavaMethodImpl;
 import com.sun.xml.ws.server.InvokerTube;
+import com.sun.xml.ws.util.MethodHandleInvoker;
 import com.sun.xml.ws.wsdl.DispatchException;
 import java.lang.reflect.InvocationTargetException;
 
@@ -71,6 +73,10 @@ public class SEIInvokerTube extends InvokerTube {
         super(invoker);
         this.binding = binding;
         this.model = model;
+        // create the method handles at deployment, rather than on the first requests
+        for (JavaMethodImpl m : model.getJavaMethods()) {
+            MethodHandleInvoker.get(m.getMethod());
+        }
     }
 
     /**
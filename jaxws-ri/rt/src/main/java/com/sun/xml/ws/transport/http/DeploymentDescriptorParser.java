@@ -47,6 +47,7 @@ import com.sun.xml.ws.api.BindingID;
 import com.sun.xml.ws.api.WSBinding;
 import com.sun.xml.ws.api.databinding.MetadataReader;
 import com.sun.xml.ws.api.server.Container;
+import com.sun.xml.ws.api.server.ContainerResolver;
 import com.sun.xml.ws.api.server.SDDocumentSource;
 import com.sun.xml.ws.api.server.WSEndpoint;
 import com.sun.xml.ws.api.streaming.XMLStreamReaderFactory;
@@ -87,6 +88,12 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -133,11 +140,41 @@ public class DeploymentDescriptorParser<A> {
 
     private static final Logger logger = Logger.getLogger(com.sun.xml.ws.util.Constants.LoggingDomain + ".server.http");
 
+    /**
+     * Number of threads that create the endpoints of a deployment descriptor.
+     * Endpoints are created one after another on the calling thread by default.
+     *
+     * <p>
+     * If the {@link Container} provides an {@link Executor}, the endpoints are
+     * created by it, and it bounds the concurrency. Otherwise they are created
+     * on threads of a private pool, which get the context class loader and
+     * the {@link Container} of the deploying thread, but no other invocation
+     * context of the application server, such as the security or naming
+     * context. Use more than one thread then only if the endpoint classes and
+     * their handlers don't depend on such context when they are created.
+     */
+    private static final int PARALLELISM;
+
+    static {
+        int parallelism = 1;
+        try {
+            parallelism = Integer.getInteger(DeploymentDescriptorParser.class.getName() + ".parallelism", 1);
+        } catch (SecurityException se) {
+            if (logger.isLoggable(Level.CONFIG)) {
+                logger.log(Level.CONFIG, "Cannot read ''{0}'' property, using defaults.",
+                        new Object[] {DeploymentDescriptorParser.class.getName() + ".parallelism"});
+            }
+        }
+        PARALLELISM = parallelism;
+    }
+
     private final Container container;
     private final ClassLoader classLoader;
     private final ResourceLoader loader;
     private final AdapterFactory<A> adapterFactory;
 
+    /*package*/ int parallelism = PARALLELISM;
+
     /**
      * Endpoint names that are declared.
      * Used to catch double definitions.
@@ -232,7 +269,7 @@ public class DeploymentDescriptorParser<A> {
             failWithFullName("runtime.parser.invalidElement", reader);
         }
 
-        List<A> adapters = new ArrayList<A>();
+        List<Deployment> deployments = new ArrayList<Deployment>();
 
         Attributes attrs = XMLStreamReaderUtil.getAttributes(reader);
         String version = getMandatoryNonEmptyAttribute(reader, attrs, ATTR_VERSION);
@@ -300,18 +337,125 @@ public class DeploymentDescriptorParser<A> {
                 EndpointFactory.verifyImplementorClass(implementorClass, metadataReader);
                 SDDocumentSource primaryWSDL = getPrimaryWSDL(reader, attrs, implementorClass, metadataReader);
 
-                WSEndpoint<?> endpoint = WSEndpoint.create(
-                        implementorClass, !handlersSetInDD,
-                        null,
-                        serviceName, portName, container, binding,
-                        primaryWSDL, docs.values(), createEntityResolver(), false
-                );
-                adapters.add(adapterFactory.createAdapter(name, urlPattern, endpoint));
+                deployments.add(new Deployment(name, urlPattern, implementorClass, !handlersSetInDD,
+                        serviceName, portName, binding, primaryWSDL, createEntityResolver()));
             } else {
                 failWithLocalName("runtime.parser.invalidElement", reader);
             }
         }
-        return adapters;
+        return createAdapters(deployments);
+    }
+
+    /**
+     * Creates the endpoints, concurrently if so configured, and then
+     * the adapters in the order the endpoints are declared.
+     */
+    private List<A> createAdapters(List<Deployment> deployments) {
+        List<A> adapters = new ArrayList<A>(deployments.size());
+        if (parallelism <= 1 || deployments.size() <= 1) {
+            for (Deployment d : deployments) {
+                adapters.add(adapterFactory.createAdapter(d.name, d.urlPattern, d.call()));
+            }
+            return adapters;
+        }
+
+        Executor executor = (container != null) ? container.getSPI(Executor.class) : null;
+        ForkJoinPool pool = null;
+        if (executor == null) {
+            pool = new ForkJoinPool(Math.min(parallelism, deployments.size()));
+            executor = pool;
+        }
+        try {
+            List<Future<WSEndpoint<?>>> endpoints = new ArrayList<Future<WSEndpoint<?>>>(deployments.size());
+            for (Deployment d : deployments) {
+                FutureTask<WSEndpoint<?>> task = new FutureTask<WSEndpoint<?>>(d);
+                executor.execute(task);
+                endpoints.add(task);
+            }
+            for (int i = 0; i < deployments.size(); i++) {
+                Deployment d = deployments.get(i);
+                adapters.add(adapterFactory.createAdapter(d.name, d.urlPattern, endpoints.get(i).get()));
+            }
+            return adapters;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new WebServiceException(e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new WebServiceException(cause);
+        } finally {
+            if (pool != null) {
+                pool.shutdownNow();
+            }
+        }
+    }
+
+    /**
+     * An endpoint declared in the deployment descriptor, that is yet to be created.
+     *
+     * <p>
+     * When endpoints are created concurrently, the worker thread gets
+     * the context class loader and the container of the deploying thread.
+     */
+    private final class Deployment implements Callable<WSEndpoint<?>> {
+        final String name;
+        final String urlPattern;
+        private final Class<?> implementorClass;
+        private final boolean processHandlerAnnotation;
+        private final QName serviceName;
+        private final QName portName;
+        private final WSBinding binding;
+        private final SDDocumentSource primaryWSDL;
+        private final EntityResolver resolver;
+        private final Thread deployer = Thread.currentThread();
+
+        Deployment(String name, String urlPattern, Class<?> implementorClass, boolean processHandlerAnnotation,
+                   QName serviceName, QName portName, WSBinding binding,
+                   SDDocumentSource primaryWSDL, EntityResolver resolver) {
+            this.name = name;
+            this.urlPattern = urlPattern;
+            this.implementorClass = implementorClass;
+            this.processHandlerAnnotation = processHandlerAnnotation;
+            this.serviceName = serviceName;
+            this.portName = portName;
+            this.binding = binding;
+            this.primaryWSDL = primaryWSDL;
+            this.resolver = resolver;
+        }
+
+        @Override
+        public WSEndpoint<?> call() {
+            Thread thread = Thread.currentThread();
+            if (thread == deployer) {
+                return create();
+            }
+            ClassLoader oldCl = thread.getContextClassLoader();
+            Container old = (container != null) ? ContainerResolver.getDefault().enterContainer(container) : null;
+            try {
+                thread.setContextClassLoader(deployer.getContextClassLoader());
+                return create();
+            } finally {
+                thread.setContextClassLoader(oldCl);
+                if (container != null) {
+                    ContainerResolver.getDefault().exitContainer(old);
+                }
+            }
+        }
+
+        private WSEndpoint<?> create() {
+            return WSEndpoint.create(
+                    implementorClass, processHandlerAnnotation,
+                    null,
+                    serviceName, portName, container, binding,
+                    primaryWSDL, docs.values(), resolver, false
+            );
+        }
     }
 
     /**
@@ -47,15 +47,25 @@ import java.io.OutputStream;
 import java.io.OutputStreamWriter;
 import java.io.PrintWriter;
 import java.net.HttpURLConnection;
+import java.text.DateFormat;
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
 import java.util.AbstractMap;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Date;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
+import java.util.TimeZone;
 import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.zip.CRC32;
+import java.util.zip.GZIPOutputStream;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -69,6 +79,7 @@ import com.sun.istack.Nullable;
 import com.sun.xml.ws.api.Component;
 import com.sun.xml.ws.api.EndpointAddress;
 import com.sun.xml.ws.api.SOAPVersion;
+import com.sun.xml.ws.api.WSBinding;
 import com.sun.xml.ws.api.addressing.AddressingVersion;
 import com.sun.xml.ws.api.addressing.NonAnonymousResponseProcessor;
 import com.sun.xml.ws.api.ha.HaInfo;
@@ -88,8 +99,14 @@ import com.sun.xml.ws.api.server.ServiceDefinition;
 import com.sun.xml.ws.api.server.TransportBackChannel;
 import com.sun.xml.ws.api.server.WSEndpoint;
 import com.sun.xml.ws.api.server.WebServiceContextDelegate;
+import com.sun.xml.ws.developer.HttpCompressionFeature;
 import com.sun.xml.ws.fault.SOAPFaultBuilder;
+import com.sun.xml.ws.message.stream.StreamMessage;
+import com.sun.xml.ws.metrics.MetricsFeature;
+import com.sun.xml.ws.metrics.MetricsTube;
+import com.sun.xml.ws.resources.ServerMessages;
 import com.sun.xml.ws.resources.WsservletMessages;
+import com.sun.xml.ws.server.AdmissionController;
 import com.sun.xml.ws.server.UnsupportedMediaException;
 import com.sun.xml.ws.util.ByteArrayBuffer;
 import com.sun.xml.ws.util.Pool;
@@ -130,6 +147,31 @@ public class HttpAdapter extends Adapter<HttpAdapter.HttpToolkit> {
      */
     private ServiceDefinition serviceDefinition = null;
 
+    /**
+     * Documents served by {@link #publishWSDL(WSHTTPConnection)}, as they were
+     * patched for a base address. Keyed by the query string and the base address.
+     */
+    private final Map<String, PublishedDocument> publishedDocs = // guarded by itself
+            new PublishedDocumentCache<String, PublishedDocument>(MAX_PUBLISHED_DOCS);
+
+    /**
+     * Limits the concurrent requests of the endpoint, null when the
+     * endpoint doesn't use {@link com.sun.xml.ws.developer.AdmissionControlFeature}.
+     */
+    private final AdmissionController admissionController;
+
+    /**
+     * Minimum size of the responses that are compressed, -1 when the
+     * endpoint doesn't use {@link HttpCompressionFeature}.
+     */
+    private final int compressionMinSize;
+
+    /**
+     * True when the endpoint uses {@link MetricsFeature}, whose tube needs
+     * the size of the requests as they are read.
+     */
+    private final boolean countRequestBytes;
+
     public final HttpAdapterList<? extends HttpAdapter> owner;
 
     /**
@@ -172,6 +214,11 @@ public class HttpAdapter extends Adapter<HttpAdapter.HttpToolkit> {
         super(endpoint);
         this.owner = owner;
         this.urlPattern = urlPattern;
+        this.admissionController = (AdmissionController) endpoint.getSPI(AdmissionController.class);
+        WSBinding binding = endpoint.getBinding();
+        this.compressionMinSize = binding.isFeatureEnabled(HttpCompressionFeature.class)
+                ? binding.getFeature(HttpCompressionFeature.class).getMinSize() : -1;
+        this.countRequestBytes = binding.isFeatureEnabled(MetricsFeature.class);
 
         initWSDLMap(endpoint.getServiceDefinition());
     }
@@ -192,6 +239,9 @@ public class HttpAdapter extends Adapter<HttpAdapter.HttpToolkit> {
      */
     public final void initWSDLMap(final ServiceDefinition serviceDefinition) {
         this.serviceDefinition = serviceDefinition;
+        synchronized (publishedDocs) {
+            publishedDocs.clear();
+        }
         if(serviceDefinition==null) {
             wsdls = Collections.emptyMap();
             revWsdls = Collections.emptyMap();
@@ -414,6 +464,11 @@ public class HttpAdapter extends Adapter<HttpAdapter.HttpToolkit> {
             return;
         }
 
+        final long start = System.nanoTime();
+        if (admissionController != null && !admissionController.tryAcquire()) {
+            writeServerBusy(connection);
+            return;
+        }
         // Make sure the Toolkit is recycled by the same pool instance from which it was taken
         final Pool<HttpToolkit> currentPool = getPool();
         // normal request handling
@@ -422,6 +477,9 @@ public class HttpAdapter extends Adapter<HttpAdapter.HttpToolkit> {
             tk.handle(connection);
         } finally {
             currentPool.recycle(tk);
+            if (admissionController != null) {
+                admissionController.release(start);
+            }
         }
     }
 
@@ -478,11 +536,18 @@ public class HttpAdapter extends Adapter<HttpAdapter.HttpToolkit> {
      * @throws IOException
      *         ExceptionHasMessage exception that contains particular fault message
      *         UnsupportedMediaException to indicate to send 415 error code
+     *         HttpContentEncoding.StatusException when the body can't be decompressed
      */
     private Packet decodePacket(@NotNull WSHTTPConnection con, @NotNull Codec codec) throws IOException {
         String ct = con.getRequestHeader("Content-Type");
-        InputStream in = con.getInput();
         Packet packet = new Packet();
+        InputStream raw = con.getInput();
+        if (countRequestBytes) {
+            // as read from the connection, the operation is only known later
+            raw = MetricsTube.countRequestBytes(packet, raw);
+        }
+        InputStream in = HttpContentEncoding.decodeRequest(con.getRequestHeader("Content-Encoding"),
+                compressionMinSize >= 0, maxDecodedRequestSize, raw);
         packet.soapAction = fixQuotesAroundSoapAction(con.getRequestHeader("SOAPAction"));
         packet.wasTransportSecure = con.isSecure();
         packet.acceptableMimeTypes = con.getRequestHeader("Accept");
@@ -500,7 +565,17 @@ public class HttpAdapter extends Adapter<HttpAdapter.HttpToolkit> {
             dump(buf, "HTTP request", con.getRequestHeaders());
             in = buf.newInputStream();
         }
-        codec.decode(in, ct, packet);
+        try {
+            codec.decode(in, ct, packet);
+        } catch (RuntimeException e) {
+            // a codec that reads eagerly wraps the errors of a compressed body
+            for (Throwable t = e.getCause(); t != null; t = t.getCause()) {
+                if (t instanceof HttpContentEncoding.StatusException) {
+                    throw (HttpContentEncoding.StatusException) t;
+                }
+            }
+            throw e;
+        }
         return packet;
     }
 
@@ -584,7 +659,7 @@ public class HttpAdapter extends Adapter<HttpAdapter.HttpToolkit> {
                 if (con.getStatus() == 0) {
                     con.setStatus(WSHTTPConnection.ONEWAY);
                 }
-                OutputStream os = con.getProtocol().contains("1.1") ? con.getOutput() : new Http10OutputStream(con);
+                OutputStream os = MetricsTube.countBytesOut(packet, con.getProtocol().contains("1.1") ? con.getOutput() : new Http10OutputStream(con));
                 if (dump || LOGGER.isLoggable(Level.FINER)) {
                     ByteArrayBuffer buf = new ByteArrayBuffer();
                     codec.encode(packet, buf);
@@ -626,7 +701,7 @@ public class HttpAdapter extends Adapter<HttpAdapter.HttpToolkit> {
             ContentType contentType = codec.getStaticContentType(packet);
             if (contentType != null) {
                 con.setContentTypeResponseHeader(contentType.getContentType());
-                OutputStream os = con.getProtocol().contains("1.1") ? con.getOutput() : new Http10OutputStream(con);
+                OutputStream os = openResponse(packet, con, true);
                 if (dump || LOGGER.isLoggable(Level.FINER)) {
                     ByteArrayBuffer buf = new ByteArrayBuffer();
                     codec.encode(packet, buf);
@@ -644,13 +719,58 @@ public class HttpAdapter extends Adapter<HttpAdapter.HttpToolkit> {
                 if (dump || LOGGER.isLoggable(Level.FINER)) {
                     dump(buf, "HTTP response " + con.getStatus(), con.getResponseHeaders());
                 }
-                OutputStream os = con.getOutput();
+                OutputStream os = openResponse(packet, con, false);
                 buf.writeTo(os);
                 os.close();
             }
         }
     }
 
+    /**
+     * Opens the stream for the response body. The body is compressed when the
+     * endpoint uses {@link HttpCompressionFeature} and the client accepts it.
+     *
+     * @param http10
+     *      if the body needs to be buffered to send its length to HTTP/1.0 clients
+     */
+    private OutputStream openResponse(final Packet packet, final WSHTTPConnection con, final boolean http10) throws IOException {
+        String coding = null;
+        if (compressionMinSize >= 0) {
+            Map<String, List<String>> headers = con.getResponseHeaders();
+            if (getHeader(headers, "Vary") == null) {
+                con.setResponseHeader("Vary", "Accept-Encoding");
+            }
+            // the application may have encoded the body itself
+            if (getHeader(headers, "Content-Encoding") == null) {
+                coding = HttpContentEncoding.negotiate(con.getRequestHeader("Accept-Encoding"));
+            }
+        }
+        if (coding == null) {
+            return openRawResponse(packet, con, http10);
+        }
+        return new HttpContentEncoding.CompressingOutputStream(con, coding, compressionMinSize) {
+            @Override
+            protected OutputStream open() throws IOException {
+                return openRawResponse(packet, con, http10);
+            }
+        };
+    }
+
+    private static OutputStream openRawResponse(Packet packet, WSHTTPConnection con, boolean http10) throws IOException {
+        return MetricsTube.countBytesOut(packet, http10 && !con.getProtocol().contains("1.1") ? new Http10OutputStream(con) : con.getOutput());
+    }
+
+    private static @Nullable List<String> getHeader(@Nullable Map<String, List<String>> headers, String name) {
+        if (headers != null) {
+            for (Entry<String, List<String>> e : headers.entrySet()) {
+                if (name.equalsIgnoreCase(e.getKey())) {
+                    return e.getValue();
+                }
+            }
+        }
+        return null;
+    }
+
     /*
      * GlassFish Load-balancer plugin always add a header proxy-jroute on
      * request being send from load-balancer plugin to server
@@ -704,50 +824,115 @@ public class HttpAdapter extends Adapter<HttpAdapter.HttpToolkit> {
                 callback.onCompletion();
                 return;
             }
-            final Pool<HttpToolkit> currentPool = getPool();
-            final HttpToolkit tk = currentPool.take();
-            final Packet request;
+            final long start = System.nanoTime();
+            if (admitAsync(con, callback)) {
+                dispatchAsync(con, callback, start);
+            }
+    }
 
+    /**
+     * Admits an asynchronous request to the endpoint, without waiting for a slot of its
+     * {@link com.sun.xml.ws.developer.AdmissionControlFeature}. Transports that admit a
+     * request on the container's thread and process it on another thread use this with
+     * {@link #dispatchAsync(WSHTTPConnection, CompletionCallback, long)}.
+     *
+     * @return
+     *      false if the endpoint is busy. The request has then been rejected,
+     *      and the callback notified.
+     */
+    protected final boolean admitAsync(final WSHTTPConnection con, final CompletionCallback callback) throws IOException {
+            // the container's thread must not wait in the admission queue
+            if (admissionController != null && !admissionController.tryAcquireNow()) {
+                try {
+                    writeServerBusy(con);
+                } finally {
+                    callback.onCompletion();
+                }
+                return false;
+            }
+            return true;
+    }
+
+    /**
+     * Decodes, processes and encodes a request that was admitted with
+     * {@link #admitAsync(WSHTTPConnection, CompletionCallback)}. Its admission is
+     * released once the response is encoded, or if the request can't be dispatched.
+     *
+     * @param start
+     *      {@link System#nanoTime()} when the request was admitted.
+     */
+    protected final void dispatchAsync(final WSHTTPConnection con, final CompletionCallback callback, final long start) throws IOException {
+            // released exactly once, by the completion callback once the
+            // request is dispatched, or below if it never gets that far
+            final AtomicBoolean admitted = new AtomicBoolean(true);
+            boolean dispatched = false;
             try {
+                final Pool<HttpToolkit> currentPool = getPool();
+                final HttpToolkit tk = currentPool.take();
+                final Packet request;
 
-                request = decodePacket(con, tk.codec);
-            } catch (ExceptionHasMessage e) {
-                LOGGER.log(Level.SEVERE, e.getMessage(), e);
-                Packet response = new Packet();
-                response.setMessage(e.getFaultMessage());
-                encodePacket(response, con, tk.codec);
-                currentPool.recycle(tk);
-                con.close();
-                callback.onCompletion();
-                return;
-            } catch (UnsupportedMediaException e) {
-                LOGGER.log(Level.SEVERE, e.getMessage(), e);
-                Packet response = new Packet();
-                con.setStatus(WSHTTPConnection.UNSUPPORTED_MEDIA);
-                encodePacket(response, con, tk.codec);
-                currentPool.recycle(tk);
-                con.close();
-                callback.onCompletion();
-                return;
-            }
+                try {
 
-            endpoint.process(request, new WSEndpoint.CompletionCallback() {
-                @Override
-                public void onCompletion(@NotNull Packet response) {
-                    try {
+                    request = decodePacket(con, tk.codec);
+                } catch (ExceptionHasMessage e) {
+                    LOGGER.log(Level.SEVERE, e.getMessage(), e);
+                    Packet response = new Packet();
+                    response.setMessage(e.getFaultMessage());
+                    encodePacket(response, con, tk.codec);
+                    currentPool.recycle(tk);
+                    releaseAdmission(start, admitted);
+                    con.close();
+                    callback.onCompletion();
+                    return;
+                } catch (UnsupportedMediaException e) {
+                    LOGGER.log(Level.SEVERE, e.getMessage(), e);
+                    Packet response = new Packet();
+                    con.setStatus(WSHTTPConnection.UNSUPPORTED_MEDIA);
+                    encodePacket(response, con, tk.codec);
+                    currentPool.recycle(tk);
+                    releaseAdmission(start, admitted);
+                    con.close();
+                    callback.onCompletion();
+                    return;
+                } catch (HttpContentEncoding.StatusException e) {
+                    LOGGER.log(Level.FINE, e.getMessage(), e);
+                    Packet response = new Packet();
+                    con.setStatus(e.status);
+                    encodePacket(response, con, tk.codec);
+                    currentPool.recycle(tk);
+                    releaseAdmission(start, admitted);
+                    con.close();
+                    callback.onCompletion();
+                    return;
+                }
+
+                final Message requestMessage = request.getMessage();
+                retainRequest(requestMessage);
+                endpoint.process(request, new WSEndpoint.CompletionCallback() {
+                    @Override
+                    public void onCompletion(@NotNull Packet response) {
                         try {
-                            encodePacket(response, con, tk.codec);
-                        } catch (IOException ioe) {
-                            LOGGER.log(Level.SEVERE, ioe.getMessage(), ioe);
-                        }
-                        currentPool.recycle(tk);
-                    } finally {
-                        con.close();
-                        callback.onCompletion();
+                            try {
+                                encodePacket(response, con, tk.codec);
+                                releaseRequest(requestMessage);
+                            } catch (IOException ioe) {
+                                LOGGER.log(Level.SEVERE, ioe.getMessage(), ioe);
+                            }
+                            currentPool.recycle(tk);
+                        } finally {
+                            releaseAdmission(start, admitted);
+                            con.close();
+                            callback.onCompletion();
 
+                        }
                     }
+                },null);
+                dispatched = true;
+            } finally {
+                if (!dispatched) {
+                    releaseAdmission(start, admitted);
                 }
-            },null);
+            }
 
     }
 
@@ -847,8 +1032,11 @@ public class HttpAdapter extends Adapter<HttpAdapter.HttpToolkit> {
             try {
                 boolean invoke = false;
                 Packet packet;
+                Message requestMessage = null;
                 try {
                     packet = decodePacket(con, codec);
+                    requestMessage = packet.getMessage();
+                    retainRequest(requestMessage);
                     invoke = true;
                 } catch(Exception e) {
                     packet = new Packet();
@@ -858,6 +1046,9 @@ public class HttpAdapter extends Adapter<HttpAdapter.HttpToolkit> {
                     } else if (e instanceof UnsupportedMediaException) {
                         LOGGER.log(Level.SEVERE, e.getMessage(), e);
                         con.setStatus(WSHTTPConnection.UNSUPPORTED_MEDIA);
+                    } else if (e instanceof HttpContentEncoding.StatusException) {
+                        LOGGER.log(Level.FINE, e.getMessage(), e);
+                        con.setStatus(((HttpContentEncoding.StatusException) e).status);
                     } else {
                         LOGGER.log(Level.SEVERE, e.getMessage(), e);
                         con.setStatus(HttpURLConnection.HTTP_INTERNAL_ERROR);
@@ -876,6 +1067,7 @@ public class HttpAdapter extends Adapter<HttpAdapter.HttpToolkit> {
                     }
                 }
                 encodePacket(packet, con, codec);
+                releaseRequest(requestMessage);
             } finally {
                 if (!con.isClosed()) {
                     if (LOGGER.isLoggable(Level.FINE)) {
@@ -887,6 +1079,26 @@ public class HttpAdapter extends Adapter<HttpAdapter.HttpToolkit> {
         }
     }
 
+    /**
+     * The headers of a request are read until the response is sent, e.g. to
+     * address it, so their buffer stays out of the pool for the whole exchange.
+     */
+    private static void retainRequest(@Nullable Message requestMessage) {
+        if (requestMessage instanceof StreamMessage) {
+            ((StreamMessage) requestMessage).retainHeaderBuffer();
+        }
+    }
+
+    /**
+     * Once the response is sent, the buffers of the request message can be
+     * reused for other requests.
+     */
+    private static void releaseRequest(@Nullable Message requestMessage) {
+        if (requestMessage instanceof StreamMessage) {
+            ((StreamMessage) requestMessage).releaseHeaderBuffer();
+        }
+    }
+
     /**
      * Returns true if the given query string is for metadata request.
      *
@@ -920,16 +1132,168 @@ public class HttpAdapter extends Adapter<HttpAdapter.HttpToolkit> {
             return;
         }
 
+        if (!cachePublishedDocuments) {
+            con.setStatus(HttpURLConnection.HTTP_OK);
+            con.setContentTypeResponseHeader("text/xml;charset=utf-8");
+
+            OutputStream os = con.getProtocol().contains("1.1") ? con.getOutput() : new Http10OutputStream(con);
+
+            PortAddressResolver portAddressResolver = getPortAddressResolver(con.getBaseAddress());
+            DocumentAddressResolver resolver = getDocumentAddressResolver(portAddressResolver);
+
+            doc.writeTo(portAddressResolver, resolver, os);
+            os.close();
+            return;
+        }
+
+        PublishedDocument published = getPublishedDocument(con.getQueryString(), doc, con.getBaseAddress());
+        boolean gzip = acceptsGzip(con.getRequestHeader("Accept-Encoding"));
+        String etag = gzip ? published.gzipETag : published.etag;
+        con.setResponseHeader("ETag", etag);
+        con.setResponseHeader("Last-Modified", published.lastModified);
+        con.setResponseHeader("Vary", "Accept-Encoding");
+        if (published.isNotModified(con, etag)) {
+            con.setStatus(HttpURLConnection.HTTP_NOT_MODIFIED);
+            con.getOutput().close();
+            return;
+        }
+
         con.setStatus(HttpURLConnection.HTTP_OK);
         con.setContentTypeResponseHeader("text/xml;charset=utf-8");
+        byte[] body;
+        if (gzip) {
+            body = published.getGzipped();
+            con.setResponseHeader("Content-Encoding", "gzip");
+        } else {
+            body = published.body;
+        }
+        con.setContentLengthResponseHeader(body.length);
+        OutputStream os = con.getOutput();
+        os.write(body);
+        os.close();
+    }
 
-        OutputStream os = con.getProtocol().contains("1.1") ? con.getOutput() : new Http10OutputStream(con);
+    /**
+     * Gets the document as it is published at the base address, patching
+     * it only the first time.
+     */
+    private PublishedDocument getPublishedDocument(String queryString, SDDocument doc, String baseAddress) throws IOException {
+        String key = queryString + ' ' + baseAddress;
+        PublishedDocument published;
+        synchronized (publishedDocs) {
+            published = publishedDocs.get(key);
+        }
+        if (published == null) {
+            PortAddressResolver portAddressResolver = getPortAddressResolver(baseAddress);
+            DocumentAddressResolver resolver = getDocumentAddressResolver(portAddressResolver);
+            ByteArrayBuffer buf = new ByteArrayBuffer();
+            doc.writeTo(portAddressResolver, resolver, buf);
+            published = new PublishedDocument(buf.toByteArray());
+            synchronized (publishedDocs) {
+                publishedDocs.put(key, published);
+            }
+        }
+        return published;
+    }
 
-        PortAddressResolver portAddressResolver = getPortAddressResolver(con.getBaseAddress());
-        DocumentAddressResolver resolver = getDocumentAddressResolver(portAddressResolver);
+    /**
+     * Keeps the most recently used documents. The base address comes from the
+     * request, so arbitrary Host headers must not grow the cache without bounds,
+     * nor evict the documents of the addresses that are actually in use.
+     */
+    /*package*/ static final class PublishedDocumentCache<K, V> extends LinkedHashMap<K, V> {
+        private final int maxSize;
 
-        doc.writeTo(portAddressResolver, resolver, os);
-        os.close();
+        PublishedDocumentCache(int maxSize) {
+            super(16, 0.75f, true);
+            this.maxSize = maxSize;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+            return size() > maxSize;
+        }
+    }
+
+    /**
+     * Checks if the value of an Accept-Encoding header allows gzip.
+     */
+    static boolean acceptsGzip(@Nullable String acceptEncoding) {
+        return HttpContentEncoding.accepts(acceptEncoding, "gzip");
+    }
+
+    /**
+     * A metadata document, as it is published at a base address.
+     */
+    private static final class PublishedDocument {
+        final byte[] body;
+        final String etag;
+        final String gzipETag;
+        final String lastModified;
+        private final long lastModifiedTime;
+        private volatile byte[] gzipped;
+
+        PublishedDocument(byte[] body) {
+            this.body = body;
+            CRC32 crc = new CRC32();
+            crc.update(body, 0, body.length);
+            String hash = Long.toHexString(crc.getValue()) + '-' + Integer.toHexString(body.length);
+            this.etag = "\"" + hash + "\"";
+            this.gzipETag = "\"" + hash + "-gzip\"";
+            // HTTP dates have a precision of seconds
+            this.lastModifiedTime = System.currentTimeMillis() / 1000 * 1000;
+            this.lastModified = createHttpDateFormat().format(new Date(lastModifiedTime));
+        }
+
+        byte[] getGzipped() throws IOException {
+            byte[] b = gzipped;
+            if (b == null) {
+                ByteArrayBuffer buf = new ByteArrayBuffer();
+                GZIPOutputStream out = new GZIPOutputStream(buf);
+                out.write(body);
+                out.close();
+                gzipped = b = buf.toByteArray();
+            }
+            return b;
+        }
+
+        /**
+         * Evaluates the conditional request headers. If-None-Match takes
+         * precedence over If-Modified-Since.
+         */
+        boolean isNotModified(WSHTTPConnection con, String etag) {
+            String ifNoneMatch = con.getRequestHeader("If-None-Match");
+            if (ifNoneMatch != null) {
+                for (String tag : ifNoneMatch.split(",")) {
+                    tag = tag.trim();
+                    if (tag.startsWith("W/")) {
+                        tag = tag.substring(2);
+                    }
+                    if (tag.equals("*") || tag.equals(etag)) {
+                        return true;
+                    }
+                }
+                return false;
+            }
+            String ifModifiedSince = con.getRequestHeader("If-Modified-Since");
+            if (ifModifiedSince != null) {
+                if (ifModifiedSince.equals(lastModified)) {
+                    return true;
+                }
+                try {
+                    return createHttpDateFormat().parse(ifModifiedSince).getTime() >= lastModifiedTime;
+                } catch (ParseException e) {
+                    return false;
+                }
+            }
+            return false;
+        }
+
+        private static DateFormat createHttpDateFormat() {
+            SimpleDateFormat format = new SimpleDateFormat("EEE, dd MMM yyyy HH:mm:ss zzz", Locale.US);
+            format.setTimeZone(TimeZone.getTimeZone("GMT"));
+            return format;
+        }
     }
 
     public PortAddressResolver getPortAddressResolver(String baseAddress) {
@@ -987,6 +1351,41 @@ public class HttpAdapter extends Adapter<HttpAdapter.HttpToolkit> {
         out.close();
     }
 
+    private void releaseAdmission(long start) {
+        if (admissionController != null) {
+            admissionController.release(start);
+        }
+    }
+
+    private void releaseAdmission(long start, AtomicBoolean admitted) {
+        if (admitted.compareAndSet(true, false)) {
+            releaseAdmission(start);
+        }
+    }
+
+    /**
+     * Rejects a request with 503, without reading its body.
+     */
+    private void writeServerBusy(WSHTTPConnection con) throws IOException {
+        LOGGER.log(Level.FINE, "Endpoint {0} is busy, rejecting the request", endpoint.getServiceName());
+        con.setStatus(HttpURLConnection.HTTP_UNAVAILABLE);
+        SOAPVersion soapVersion = endpoint.getBinding().getSOAPVersion();
+        if (admissionController.isRejectWithFault() && soapVersion != null) {
+            final Pool<HttpToolkit> currentPool = getPool();
+            final HttpToolkit tk = currentPool.take();
+            try {
+                Message fault = SOAPFaultBuilder.createSOAPFaultMessage(soapVersion,
+                        ServerMessages.SERVER_BUSY(endpoint.getServiceName()), soapVersion.faultCodeServer);
+                encodePacket(new Packet(fault), con, tk.codec);
+            } finally {
+                currentPool.recycle(tk);
+            }
+        } else {
+            con.getOutput().close();
+        }
+        con.close();
+    }
+
     private void writeInternalServerError(WSHTTPConnection con) throws IOException {
         con.setStatus(HttpURLConnection.HTTP_INTERNAL_ERROR);
         con.getOutput().close();        // Sets the status code
@@ -1121,6 +1520,23 @@ public class HttpAdapter extends Adapter<HttpAdapter.HttpToolkit> {
 
     public static volatile boolean publishStatusPage = true;
 
+    /**
+     * Whether the metadata documents are patched once per base address, and
+     * served from memory afterwards.
+     */
+    public static volatile boolean cachePublishedDocuments = true;
+
+    private static final int MAX_PUBLISHED_DOCS = 256;
+
+    /**
+     * Maximum size in bytes of a compressed request once it is decompressed.
+     * Larger requests fail with 413 (Request Entity Too Large), or with a fault
+     * when the excess is only read while the message is processed.
+     * Set with the {@code com.sun.xml.ws.transport.http.HttpAdapter.maxDecodedRequestSize}
+     * system property, 16MB by default.
+     */
+    public static volatile long maxDecodedRequestSize = 16L * 1024 * 1024;
+
     public static synchronized void setPublishStatus(boolean publish) {
         publishStatusPage = publish;
     }
@@ -1152,6 +1568,24 @@ public class HttpAdapter extends Adapter<HttpAdapter.HttpToolkit> {
                         new Object[] {HttpAdapter.class.getName() + ".publishStatusPage"});
             }
         }
+        try {
+            maxDecodedRequestSize = Long.getLong(HttpAdapter.class.getName() + ".maxDecodedRequestSize", maxDecodedRequestSize);
+        } catch (SecurityException se) {
+            if (LOGGER.isLoggable(Level.CONFIG)) {
+                LOGGER.log(Level.CONFIG, "Cannot read ''{0}'' property, using defaults.",
+                        new Object[] {HttpAdapter.class.getName() + ".maxDecodedRequestSize"});
+            }
+        }
+        try {
+            if (System.getProperty(HttpAdapter.class.getName() + ".cachePublishedDocuments") != null) {
+                cachePublishedDocuments = Boolean.getBoolean(HttpAdapter.class.getName() + ".cachePublishedDocuments");
+            }
+        } catch (SecurityException se) {
+            if (LOGGER.isLoggable(Level.CONFIG)) {
+                LOGGER.log(Level.CONFIG, "Cannot read ''{0}'' property, using defaults.",
+                        new Object[] {HttpAdapter.class.getName() + ".cachePublishedDocuments"});
+            }
+        }
     }
 
     public static void setDump(boolean dumpMessages) {
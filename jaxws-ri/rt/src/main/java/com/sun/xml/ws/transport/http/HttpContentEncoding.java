@@ -0,0 +1,350 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2017 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * http://glassfish.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package com.sun.xml.ws.transport.http;
+
+import com.sun.istack.NotNull;
+import com.sun.istack.Nullable;
+import com.sun.xml.ws.util.ByteArrayBuffer;
+
+import java.io.BufferedOutputStream;
+import java.io.EOFException;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.InflaterInputStream;
+import java.util.zip.ZipException;
+
+/**
+ * HTTP content codings (gzip and deflate) as used by the server and client transports.
+ */
+public final class HttpContentEncoding {
+
+    /**
+     * Value of the {@code Accept-Encoding} header sent by clients that accept
+     * compressed responses.
+     */
+    public static final String ACCEPT_ENCODING = "gzip, deflate";
+
+    private static final int BUFFER_SIZE = 8192;
+
+    private HttpContentEncoding() {
+    }
+
+    /**
+     * Decodes a message body with the given {@code Content-Encoding}.
+     *
+     * @return
+     *      the stream itself if no decoding is needed, or the coding is unknown.
+     */
+    public static @NotNull InputStream decode(@Nullable String contentEncoding, @NotNull InputStream in) throws IOException {
+        if (contentEncoding == null) {
+            return in;
+        }
+        String coding = contentEncoding.trim();
+        if (coding.equalsIgnoreCase("gzip") || coding.equalsIgnoreCase("x-gzip")) {
+            return new GZIPInputStream(in, BUFFER_SIZE);
+        }
+        if (coding.equalsIgnoreCase("deflate")) {
+            return new InflaterInputStream(in);
+        }
+        return in;
+    }
+
+    /**
+     * Decodes the body of a request received by an endpoint.
+     *
+     * @param enabled
+     *      whether the endpoint accepts compressed requests.
+     * @param maxSize
+     *      maximum number of bytes the decoded body may have.
+     * @throws StatusException
+     *      415 when the coding isn't supported or enabled, 400 when the compressed
+     *      data is malformed, 413 when the decoded body is larger than {@code maxSize}.
+     *      Errors found while the body is read are reported by the returned stream.
+     */
+    static @NotNull InputStream decodeRequest(@Nullable String contentEncoding, boolean enabled,
+                                              long maxSize, @NotNull InputStream in) throws IOException {
+        if (contentEncoding == null) {
+            return in;
+        }
+        String coding = contentEncoding.trim();
+        if (coding.length() == 0 || coding.equalsIgnoreCase("identity")) {
+            return in;
+        }
+        boolean gzip = coding.equalsIgnoreCase("gzip") || coding.equalsIgnoreCase("x-gzip");
+        if (!enabled || !gzip && !coding.equalsIgnoreCase("deflate")) {
+            throw new StatusException(HttpURLConnection.HTTP_UNSUPPORTED_TYPE,
+                    "Unsupported Content-Encoding: " + coding);
+        }
+        InputStream decoded;
+        if (gzip) {
+            try {
+                // reads the gzip header
+                decoded = new GZIPInputStream(in, BUFFER_SIZE);
+            } catch (ZipException e) {
+                throw malformed(e);
+            } catch (EOFException e) {
+                throw malformed(e);
+            }
+        } else {
+            decoded = new InflaterInputStream(in);
+        }
+        return new DecodedInputStream(decoded, maxSize);
+    }
+
+    private static StatusException malformed(IOException cause) {
+        StatusException e = new StatusException(HttpURLConnection.HTTP_BAD_REQUEST,
+                "Malformed compressed request: " + cause.getMessage());
+        e.initCause(cause);
+        return e;
+    }
+
+    /**
+     * A request that can't be decoded, with the HTTP status to respond with.
+     */
+    static final class StatusException extends IOException {
+        final int status;
+
+        StatusException(int status, String message) {
+            super(message);
+            this.status = status;
+        }
+    }
+
+    /**
+     * Decoded request body, which fails once more than {@code maxSize} bytes are read.
+     */
+    private static final class DecodedInputStream extends FilterInputStream {
+        private final long maxSize;
+        private long count;
+
+        DecodedInputStream(InputStream in, long maxSize) {
+            super(in);
+            this.maxSize = maxSize;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b;
+            try {
+                b = in.read();
+            } catch (ZipException e) {
+                throw malformed(e);
+            }
+            if (b != -1) {
+                count(1);
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n;
+            try {
+                n = in.read(b, off, len);
+            } catch (ZipException e) {
+                throw malformed(e);
+            }
+            if (n > 0) {
+                count(n);
+            }
+            return n;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            long skipped = in.skip(n);
+            count(skipped);
+            return skipped;
+        }
+
+        @Override
+        public boolean markSupported() {
+            return false;
+        }
+
+        private void count(long n) throws StatusException {
+            count += n;
+            if (count > maxSize) {
+                throw new StatusException(HttpURLConnection.HTTP_ENTITY_TOO_LARGE,
+                        "Decompressed request exceeds " + maxSize + " bytes");
+            }
+        }
+    }
+
+    /**
+     * Chooses the coding of a response, gzip being preferred over deflate.
+     *
+     * @return
+     *      "gzip", "deflate", or null if the client accepts neither.
+     */
+    static @Nullable String negotiate(@Nullable String acceptEncoding) {
+        if (accepts(acceptEncoding, "gzip")) {
+            return "gzip";
+        }
+        if (accepts(acceptEncoding, "deflate")) {
+            return "deflate";
+        }
+        return null;
+    }
+
+    /**
+     * Checks if the value of an Accept-Encoding header allows the coding,
+     * either by name (or its "x-" alias) or by the "*" wildcard.
+     */
+    static boolean accepts(@Nullable String acceptEncoding, @NotNull String coding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        boolean wildcard = false;
+        for (String entry : acceptEncoding.split(",")) {
+            String[] params = entry.split(";");
+            String name = params[0].trim();
+            boolean named = name.equalsIgnoreCase(coding) || name.equalsIgnoreCase("x-" + coding);
+            if (named || name.equals("*")) {
+                boolean allowed = true;
+                for (int i = 1; i < params.length; i++) {
+                    String param = params[i].trim();
+                    if (param.startsWith("q=")) {
+                        try {
+                            allowed = Float.parseFloat(param.substring(2)) > 0;
+                        } catch (NumberFormatException e) {
+                            allowed = false;
+                        }
+                    }
+                }
+                if (named) {
+                    return allowed;
+                }
+                wildcard = allowed;
+            }
+        }
+        return wildcard;
+    }
+
+    /**
+     * Response body that is compressed once it reaches a minimum size.
+     *
+     * <p>
+     * The first {@code minSize} bytes are buffered. If the body is closed
+     * before that, it is sent as is. Otherwise the {@code Content-Encoding}
+     * response header is set and the rest of the body is compressed as it
+     * is written. The underlying stream is only opened then, so that the
+     * header can still be set.
+     */
+    static abstract class CompressingOutputStream extends OutputStream {
+        private final WSHTTPConnection con;
+        private final String coding;
+        private final int minSize;
+        private ByteArrayBuffer head = new ByteArrayBuffer();
+        private OutputStream out;
+
+        CompressingOutputStream(@NotNull WSHTTPConnection con, @NotNull String coding, int minSize) {
+            this.con = con;
+            this.coding = coding;
+            this.minSize = minSize;
+        }
+
+        /**
+         * Opens the stream the (compressed) body is written to.
+         */
+        protected abstract OutputStream open() throws IOException;
+
+        @Override
+        public void write(int b) throws IOException {
+            if (out != null) {
+                out.write(b);
+            } else {
+                head.write(b);
+                if (head.size() >= minSize) {
+                    start(true);
+                }
+            }
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            if (out != null) {
+                out.write(b, off, len);
+            } else {
+                head.write(b, off, len);
+                if (head.size() >= minSize) {
+                    start(true);
+                }
+            }
+        }
+
+        @Override
+        public void flush() throws IOException {
+            // flushing the head would commit the response before the coding is known
+            if (out != null) {
+                out.flush();
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (out == null) {
+                start(false);
+            }
+            out.close();
+        }
+
+        private void start(boolean compress) throws IOException {
+            if (compress) {
+                con.setResponseHeader("Content-Encoding", coding);
+                OutputStream os = open();
+                out = coding.equals("gzip")
+                        ? new GZIPOutputStream(os, BUFFER_SIZE)
+                        : new DeflaterOutputStream(new BufferedOutputStream(os, BUFFER_SIZE));
+            } else {
+                out = open();
+            }
+            head.writeTo(out);
+            head = null;
+        }
+    }
+}
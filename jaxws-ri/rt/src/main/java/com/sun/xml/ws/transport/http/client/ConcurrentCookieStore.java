@@ -0,0 +1,385 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2017 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * http://glassfish.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package com.sun.xml.ws.transport.http.client;
+
+import java.net.CookieStore;
+import java.net.HttpCookie;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A {@link CookieStore} for a cookie handler that is shared by many clients,
+ * see {@link com.sun.xml.ws.developer.HttpConfigFeature#HttpConfigFeature(int)}.
+ *
+ * <p>
+ * Cookies are indexed by their domain, and each domain is locked
+ * separately, so requests to different hosts don't contend. Looking up the
+ * cookies for a request only visits the domains the host belongs to, and
+ * not the whole store. Expired cookies are dropped as they are found, and
+ * by a sweep of the whole store at most once a minute. When the store holds
+ * more than <code>maxCookies</code> cookies, the cookies that were added
+ * first are evicted.
+ *
+ * <p>
+ * As with the JDK's store, the {@link java.net.CookieManager} that uses this
+ * store checks the path, secure and port attributes of the cookies.
+ */
+public final class ConcurrentCookieStore implements CookieStore {
+
+    private static final long SWEEP_INTERVAL = TimeUnit.MINUTES.toNanos(1);
+
+    private final int maxCookies;
+    private final ConcurrentMap<String, Domain> domains = new ConcurrentHashMap<String, Domain>();
+    /**
+     * Cookies in the order they were added, for eviction. Removed cookies
+     * stay in the queue until they are polled, or the queue is purged.
+     */
+    private final ConcurrentLinkedQueue<StoredCookie> order = new ConcurrentLinkedQueue<StoredCookie>();
+    private final AtomicInteger size = new AtomicInteger();
+    private final AtomicInteger removedInOrder = new AtomicInteger();
+    private final AtomicLong lastSweep = new AtomicLong(System.nanoTime());
+
+    /**
+     * @param maxCookies
+     *      maximum number of cookies kept by the store
+     */
+    public ConcurrentCookieStore(int maxCookies) {
+        if (maxCookies <= 0) {
+            throw new IllegalArgumentException("maxCookies must be positive: " + maxCookies);
+        }
+        this.maxCookies = maxCookies;
+    }
+
+    public void add(URI uri, HttpCookie cookie) {
+        if (cookie == null) {
+            throw new NullPointerException("cookie is null");
+        }
+        String key = (cookie.getDomain() != null) ? domainKey(cookie.getDomain()) : hostKey(uri);
+        StoredCookie entry = new StoredCookie(effectiveURI(uri), cookie, key);
+        while (true) {
+            Domain domain = domains.get(key);
+            if (domain == null) {
+                domain = new Domain();
+                Domain existing = domains.putIfAbsent(key, domain);
+                if (existing != null) {
+                    domain = existing;
+                }
+            }
+            synchronized (domain) {
+                if (domain.discarded) {
+                    continue;               // removed by a sweep, try again
+                }
+                removeEqual(domain, cookie);
+                // add new cookie if it has a non-zero max-age
+                if (cookie.getMaxAge() != 0) {
+                    domain.entries.add(entry);
+                    size.incrementAndGet();
+                    order.add(entry);
+                }
+            }
+            break;
+        }
+        sweepIfDue();
+        evict();
+    }
+
+    public List<HttpCookie> get(URI uri) {
+        if (uri == null) {
+            throw new NullPointerException("uri is null");
+        }
+        List<HttpCookie> cookies = new ArrayList<HttpCookie>();
+        String host = uri.getHost();
+        if (host == null) {
+            return cookies;
+        }
+        host = host.toLowerCase(Locale.ENGLISH);
+        // the host, and each of its parent domains
+        for (int i = -1; i != host.length(); i = nextDot(host, i)) {
+            collect(host.substring(i + 1), host, cookies);
+        }
+        if (host.indexOf('.') == -1) {
+            // CookieManager sets the domain of the cookies from such hosts to host.local
+            collect(host + ".local", host, cookies);
+        }
+        return cookies;
+    }
+
+    public List<HttpCookie> getCookies() {
+        List<HttpCookie> cookies = new ArrayList<HttpCookie>();
+        for (Domain domain : domains.values()) {
+            synchronized (domain) {
+                Iterator<StoredCookie> it = domain.entries.iterator();
+                while (it.hasNext()) {
+                    StoredCookie e = it.next();
+                    if (e.cookie.hasExpired()) {
+                        remove(it, e);
+                    } else {
+                        cookies.add(e.cookie);
+                    }
+                }
+            }
+        }
+        return cookies;
+    }
+
+    public List<URI> getURIs() {
+        Set<URI> uris = new LinkedHashSet<URI>();
+        for (Domain domain : domains.values()) {
+            synchronized (domain) {
+                for (StoredCookie e : domain.entries) {
+                    if (e.uri != null) {
+                        uris.add(e.uri);
+                    }
+                }
+            }
+        }
+        return new ArrayList<URI>(uris);
+    }
+
+    public boolean remove(URI uri, HttpCookie cookie) {
+        if (cookie == null) {
+            throw new NullPointerException("cookie is null");
+        }
+        String key = (cookie.getDomain() != null) ? domainKey(cookie.getDomain()) : hostKey(uri);
+        Domain domain = domains.get(key);
+        if (domain == null) {
+            return false;
+        }
+        synchronized (domain) {
+            return removeEqual(domain, cookie);
+        }
+    }
+
+    public boolean removeAll() {
+        boolean removed = false;
+        for (Domain domain : domains.values()) {
+            synchronized (domain) {
+                Iterator<StoredCookie> it = domain.entries.iterator();
+                while (it.hasNext()) {
+                    remove(it, it.next());
+                    removed = true;
+                }
+            }
+        }
+        return removed;
+    }
+
+    /**
+     * Number of cookies in the store, including the expired cookies that
+     * were not dropped yet.
+     */
+    int size() {
+        return size.get();
+    }
+
+    private void collect(String key, String host, List<HttpCookie> cookies) {
+        Domain domain = domains.get(key);
+        if (domain == null) {
+            return;
+        }
+        synchronized (domain) {
+            Iterator<StoredCookie> it = domain.entries.iterator();
+            while (it.hasNext()) {
+                StoredCookie e = it.next();
+                if (e.cookie.hasExpired()) {
+                    remove(it, e);
+                } else if (domainMatches(e.cookie, key, host)) {
+                    cookies.add(e.cookie);
+                }
+            }
+        }
+    }
+
+    private static boolean domainMatches(HttpCookie cookie, String key, String host) {
+        if (cookie.getDomain() == null || host.equals(key)) {
+            return true;
+        }
+        if (cookie.getVersion() == 0) {
+            // Netscape cookies apply to the sub-domains
+            return host.endsWith("." + key) || key.equals(host + ".local");
+        }
+        return HttpCookie.domainMatches(cookie.getDomain(), host);
+    }
+
+    private boolean removeEqual(Domain domain, HttpCookie cookie) {
+        Iterator<StoredCookie> it = domain.entries.iterator();
+        while (it.hasNext()) {
+            StoredCookie e = it.next();
+            if (e.cookie.equals(cookie)) {
+                remove(it, e);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Removes the entry from its domain. Must be called with the domain locked.
+     */
+    private void remove(Iterator<StoredCookie> it, StoredCookie e) {
+        it.remove();
+        e.removed = true;
+        size.decrementAndGet();
+        removedInOrder.incrementAndGet();
+    }
+
+    private void sweepIfDue() {
+        long last = lastSweep.get();
+        long now = System.nanoTime();
+        if (now - last < SWEEP_INTERVAL || !lastSweep.compareAndSet(last, now)) {
+            return;
+        }
+        for (Map.Entry<String, Domain> d : domains.entrySet()) {
+            Domain domain = d.getValue();
+            synchronized (domain) {
+                Iterator<StoredCookie> it = domain.entries.iterator();
+                while (it.hasNext()) {
+                    StoredCookie e = it.next();
+                    if (e.cookie.hasExpired()) {
+                        remove(it, e);
+                    }
+                }
+                if (domain.entries.isEmpty()) {
+                    domain.discarded = true;
+                    domains.remove(d.getKey(), domain);
+                }
+            }
+        }
+    }
+
+    private void evict() {
+        while (size.get() > maxCookies) {
+            StoredCookie e = order.poll();
+            if (e == null) {
+                break;
+            }
+            if (e.removed) {
+                removedInOrder.decrementAndGet();
+                continue;
+            }
+            Domain domain = domains.get(e.domainKey);
+            if (domain != null) {
+                synchronized (domain) {
+                    Iterator<StoredCookie> it = domain.entries.iterator();
+                    while (it.hasNext()) {
+                        if (it.next() == e) {
+                            remove(it, e);
+                            // this entry is not in the queue anymore
+                            removedInOrder.decrementAndGet();
+                            break;
+                        }
+                    }
+                }
+            }
+        }
+        // replaced and expired cookies are left in the queue, purge them
+        // once they outnumber the live cookies
+        if (removedInOrder.get() > Math.max(maxCookies, size.get())) {
+            Iterator<StoredCookie> it = order.iterator();
+            while (it.hasNext()) {
+                if (it.next().removed) {
+                    it.remove();
+                    removedInOrder.decrementAndGet();
+                }
+            }
+        }
+    }
+
+    private static int nextDot(String host, int from) {
+        int i = host.indexOf('.', from + 1);
+        return (i == -1) ? host.length() : i;
+    }
+
+    private static String domainKey(String domain) {
+        domain = domain.toLowerCase(Locale.ENGLISH);
+        return domain.startsWith(".") ? domain.substring(1) : domain;
+    }
+
+    private static String hostKey(URI uri) {
+        String host = (uri != null) ? uri.getHost() : null;
+        return (host != null) ? host.toLowerCase(Locale.ENGLISH) : "";
+    }
+
+    private static URI effectiveURI(URI uri) {
+        if (uri == null) {
+            return null;
+        }
+        try {
+            return new URI("http", uri.getHost(), null, null, null);
+        } catch (URISyntaxException e) {
+            return uri;
+        }
+    }
+
+    /**
+     * Cookies of one domain. Guarded by its own lock.
+     */
+    private static final class Domain {
+        final List<StoredCookie> entries = new ArrayList<StoredCookie>(4);
+        boolean discarded;
+    }
+
+    private static final class StoredCookie {
+        final URI uri;
+        final HttpCookie cookie;
+        final String domainKey;
+        volatile boolean removed;
+
+        StoredCookie(URI uri, HttpCookie cookie, String domainKey) {
+            this.uri = uri;
+            this.cookie = cookie;
+            this.domainKey = domainKey;
+        }
+    }
+}
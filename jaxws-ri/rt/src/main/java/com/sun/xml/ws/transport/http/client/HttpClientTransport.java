@@ -47,7 +47,9 @@ import static com.sun.xml.ws.client.BindingProviderProperties.*;
 import com.sun.xml.ws.client.ClientTransportException;
 import com.sun.xml.ws.resources.ClientMessages;
 import com.sun.xml.ws.transport.Headers;
+import com.sun.xml.ws.transport.http.HttpContentEncoding;
 import com.sun.xml.ws.developer.JAXWSProperties;
+import com.sun.xml.ws.metrics.MetricsTube;
 import com.sun.istack.Nullable;
 import com.sun.istack.NotNull;
 
@@ -68,7 +70,6 @@ import java.net.HttpURLConnection;
 import java.util.List;
 import java.util.Map;
 import java.util.zip.GZIPOutputStream;
-import java.util.zip.GZIPInputStream;
 
 /**
  *
@@ -98,7 +99,8 @@ public class HttpClientTransport {
     private HttpURLConnection httpConnection = null;
     private final EndpointAddress endpoint;
     private final Packet context;
-    private final Integer chunkSize;
+    private Integer chunkSize;
+    private long fixedContentLength = -1;
 
 
     public HttpClientTransport(@NotNull Packet packet, @NotNull Map<String,List<String>> reqHeaders) {
@@ -108,6 +110,22 @@ public class HttpClientTransport {
         chunkSize = (Integer)context.invocationProperties.get(JAXWSProperties.HTTP_CLIENT_STREAMING_CHUNK_SIZE);
     }
 
+    /*
+     * Streams the request body in chunks of the given size. Must be called
+     * before {@link #getOutput()}.
+     */
+    void setChunkedStreamingMode(int chunkSize) {
+        this.chunkSize = chunkSize;
+    }
+
+    /*
+     * Streams the request body of the given length without buffering it in
+     * {@link HttpURLConnection}. Must be called before {@link #getOutput()}.
+     */
+    void setFixedLengthStreamingMode(long contentLength) {
+        this.fixedContentLength = contentLength;
+    }
+
     /*
      * Prepare the stream for HTTP request
      */
@@ -120,9 +138,9 @@ public class HttpClientTransport {
                 if (chunkSize != null) {
                     outputStream = new WSChunkedOuputStream(outputStream, chunkSize);
                 }
-                List<String> contentEncoding = reqHeaders.get("Content-Encoding");
+                outputStream = MetricsTube.countBytesOut(context, outputStream);
                 // TODO need to find out correct encoding based on q value - RFC 2616
-                if (contentEncoding != null && contentEncoding.get(0).contains("gzip")) {
+                if (isGzipRequest()) {
                     outputStream = new GZIPOutputStream(outputStream);
                 }
             }
@@ -152,10 +170,8 @@ public class HttpClientTransport {
         try {
             in = readResponse();
             if (in != null) {
-                String contentEncoding = httpConnection.getContentEncoding();
-                if (contentEncoding != null && contentEncoding.contains("gzip")) {
-                    in = new GZIPInputStream(in);
-                }
+                in = MetricsTube.countBytesIn(context, in);
+                in = HttpContentEncoding.decode(httpConnection.getContentEncoding(), in);
             }
         } catch (IOException e) {
             throw new ClientTransportException(ClientMessages.localizableHTTP_STATUS_CODE(statusCode, statusMessage), e);
@@ -294,9 +310,11 @@ public class HttpClientTransport {
             httpConnection.setConnectTimeout(connectTimeout);
         }
 
-        Integer chunkSize = (Integer)context.invocationProperties.get(JAXWSProperties.HTTP_CLIENT_STREAMING_CHUNK_SIZE);
         if (chunkSize != null) {
             httpConnection.setChunkedStreamingMode(chunkSize);
+        } else if (fixedContentLength >= 0 && requiresOutputStream() && !isGzipRequest()) {
+            // gzip changes the length of the body, so it cannot be used then
+            httpConnection.setFixedLengthStreamingMode(fixedContentLength);
         }
 
         // set the properties on HttpURLConnection
@@ -308,6 +326,11 @@ public class HttpClientTransport {
         }
     }
 
+    private boolean isGzipRequest() {
+        List<String> contentEncoding = reqHeaders.get("Content-Encoding");
+        return contentEncoding != null && contentEncoding.get(0).contains("gzip");
+    }
+
     boolean isSecure() {
         return https;
     }
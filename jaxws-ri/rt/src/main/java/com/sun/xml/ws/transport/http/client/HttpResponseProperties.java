@@ -58,19 +58,33 @@ import java.util.Map;
 final class HttpResponseProperties extends BasePropertySet {
 
     private final HttpClientTransport deferedCon;
+    private final int responseCode;
+    private final Map<String, List<String>> responseHeaders;
 
     public HttpResponseProperties(@NotNull HttpClientTransport con) {
         this.deferedCon = con;
+        this.responseCode = 0;
+        this.responseHeaders = null;
+    }
+
+    /**
+     * For transports that already have the complete response at hand,
+     * like {@link NonBlockingHttpTransportPipe}.
+     */
+    HttpResponseProperties(int responseCode, @NotNull Map<String, List<String>> responseHeaders) {
+        this.deferedCon = null;
+        this.responseCode = responseCode;
+        this.responseHeaders = responseHeaders;
     }
 
     @Property(MessageContext.HTTP_RESPONSE_HEADERS)
     public Map<String, List<String>> getResponseHeaders() {
-        return deferedCon.getHeaders();
+        return (deferedCon != null) ? deferedCon.getHeaders() : responseHeaders;
     }
 
     @Property(MessageContext.HTTP_RESPONSE_CODE)
     public int getResponseCode() {
-        return deferedCon.statusCode;
+        return (deferedCon != null) ? deferedCon.statusCode : responseCode;
     }
 
     @Override
@@ -49,10 +49,12 @@ import com.sun.xml.ws.api.pipe.*;
 import com.sun.xml.ws.api.pipe.helper.AbstractTubeImpl;
 import com.sun.xml.ws.client.ClientTransportException;
 import com.sun.xml.ws.developer.HttpConfigFeature;
+import com.sun.xml.ws.developer.JAXWSProperties;
 import com.sun.xml.ws.resources.ClientMessages;
 import com.sun.xml.ws.resources.WsservletMessages;
 import com.sun.xml.ws.transport.Headers;
 import com.sun.xml.ws.transport.http.HttpAdapter;
+import com.sun.xml.ws.transport.http.HttpContentEncoding;
 import com.sun.xml.ws.util.ByteArrayBuffer;
 import com.sun.xml.ws.util.RuntimeVersion;
 import com.sun.xml.ws.util.StreamUtils;
@@ -89,10 +91,23 @@ public class HttpTransportPipe extends AbstractTubeImpl {
      */
     public static boolean dump;
 
-    private final Codec codec;
-    private final WSBinding binding;
+    /*package*/ final Codec codec;
+    /*package*/ final WSBinding binding;
     private final CookieHandler cookieJar;      // shared object among the tubes
+    private final boolean acceptCompressedResponses;
     private final boolean sticky;
+    private ByteArrayBuffer requestBuffer;      // reused for encoding requests
+
+    /**
+     * Request buffers that grew beyond this size are not reused.
+     */
+    private static final int MAX_REUSABLE_BUFFER_SIZE;
+
+    /**
+     * Chunk size used once a request crosses
+     * {@link JAXWSProperties#HTTP_CLIENT_STREAMING_THRESHOLD}.
+     */
+    private static final int STREAMING_CHUNK_SIZE = 8192;
 
     static {
         boolean b;
@@ -102,6 +117,14 @@ public class HttpTransportPipe extends AbstractTubeImpl {
             b = false;
         }
         dump = b;
+
+        int size;
+        try {
+            size = Integer.getInteger(HttpTransportPipe.class.getName()+".maxReusableBufferSize", 64*1024);
+        } catch( Throwable t ) {
+            size = 64*1024;
+        }
+        MAX_REUSABLE_BUFFER_SIZE = size;
     }
 
     public HttpTransportPipe(Codec codec, WSBinding binding) {
@@ -113,6 +136,7 @@ public class HttpTransportPipe extends AbstractTubeImpl {
             configFeature = new HttpConfigFeature();
         }
         this.cookieJar = configFeature.getCookieHandler();
+        this.acceptCompressedResponses = configFeature.isAcceptCompressedResponses();
     }
 
     private static boolean isSticky(WSBinding binding) {
@@ -130,7 +154,7 @@ public class HttpTransportPipe extends AbstractTubeImpl {
     /*
      * Copy constructor for {@link Tube#copy(TubeCloner)}.
      */
-    private HttpTransportPipe(HttpTransportPipe that, TubeCloner cloner) {
+    protected HttpTransportPipe(HttpTransportPipe that, TubeCloner cloner) {
         this(that.codec.copy(), that.binding);
         cloner.add(that,this);
     }
@@ -158,66 +182,59 @@ public class HttpTransportPipe extends AbstractTubeImpl {
     public Packet process(Packet request) {
         HttpClientTransport con;
         try {
-            // get transport headers from message
-            Map<String, List<String>> reqHeaders = new Headers();
-            @SuppressWarnings("unchecked")
-            Map<String, List<String>> userHeaders = (Map<String, List<String>>) request.invocationProperties.get(MessageContext.HTTP_REQUEST_HEADERS);
-            boolean addUserAgent = true;
-            if (userHeaders != null) {
-                // userHeaders may not be modifiable like SingletonMap, just copy them
-                reqHeaders.putAll(userHeaders);
-                // application wants to use its own User-Agent header
-                if (userHeaders.get("User-Agent") != null) {
-                    addUserAgent = false;
-                }
-            }
-            if (addUserAgent) {
-                reqHeaders.put("User-Agent", USER_AGENT);
-            }
-
-            addBasicAuth(request, reqHeaders);
-            addCookies(request, reqHeaders);
+            Map<String, List<String>> reqHeaders = createRequestHeaders(request);
 
             con = getTransport(request, reqHeaders);
             request.addSatellite(new HttpResponseProperties(con));
 
+            Integer threshold = (Integer) request.invocationProperties.get(JAXWSProperties.HTTP_CLIENT_STREAMING_THRESHOLD);
+            boolean streaming = threshold != null
+                    && request.invocationProperties.get(JAXWSProperties.HTTP_CLIENT_STREAMING_CHUNK_SIZE) == null;
+
             ContentType ct = codec.getStaticContentType(request);
             if (ct == null) {
-                ByteArrayBuffer buf = new ByteArrayBuffer();
-
-                ct = codec.encode(request, buf);
-                // data size is available, set it as Content-Length
-                reqHeaders.put("Content-Length", Collections.singletonList(Integer.toString(buf.size())));
-                reqHeaders.put("Content-Type", Collections.singletonList(ct.getContentType()));
-                if (ct.getAcceptHeader() != null) {
-                    reqHeaders.put("Accept", Collections.singletonList(ct.getAcceptHeader()));
-                }
-                if (binding instanceof SOAPBinding) {
-                    writeSOAPAction(reqHeaders, ct.getSOAPActionHeader());
-                }
+                ByteArrayBuffer buf = getRequestBuffer();
+                try {
+                    ct = codec.encode(request, buf);
+                    // data size is available, set it as Content-Length
+                    reqHeaders.put("Content-Length", Collections.singletonList(Integer.toString(buf.size())));
+                    addContentTypeHeaders(reqHeaders, ct);
+
+                    if (dump || LOGGER.isLoggable(Level.FINER)) {
+                        dump(buf, "HTTP request", reqHeaders);
+                    }
 
-                if (dump || LOGGER.isLoggable(Level.FINER)) {
-                    dump(buf, "HTTP request", reqHeaders);
+                    if (streaming) {
+                        con.setFixedLengthStreamingMode(buf.size());
+                    }
+                    buf.writeTo(con.getOutput());
+                } finally {
+                    releaseRequestBuffer(buf);
                 }
-
-                buf.writeTo(con.getOutput());
             } else {
                 // Set static Content-Type
-                reqHeaders.put("Content-Type", Collections.singletonList(ct.getContentType()));
-                if (ct.getAcceptHeader() != null) {
-                    reqHeaders.put("Accept", Collections.singletonList(ct.getAcceptHeader()));
-                }
-                if (binding instanceof SOAPBinding) {
-                    writeSOAPAction(reqHeaders, ct.getSOAPActionHeader());
-                }
+                addContentTypeHeaders(reqHeaders, ct);
 
                 if(dump || LOGGER.isLoggable(Level.FINER)) {
-                    ByteArrayBuffer buf = new ByteArrayBuffer();
-                    codec.encode(request, buf);
-                    dump(buf, "HTTP request - "+request.endpointAddress, reqHeaders);
-                    OutputStream out = con.getOutput();
-                    if (out != null) {
-                        buf.writeTo(out);
+                    ByteArrayBuffer buf = getRequestBuffer();
+                    try {
+                        codec.encode(request, buf);
+                        dump(buf, "HTTP request - "+request.endpointAddress, reqHeaders);
+                        OutputStream out = con.getOutput();
+                        if (out != null) {
+                            buf.writeTo(out);
+                        }
+                    } finally {
+                        releaseRequestBuffer(buf);
+                    }
+                } else if (streaming) {
+                    ByteArrayBuffer buf = getRequestBuffer();
+                    try {
+                        ThresholdOutputStream out = new ThresholdOutputStream(con, buf, threshold);
+                        codec.encode(request, out);
+                        out.finish();
+                    } finally {
+                        releaseRequestBuffer(buf);
                     }
                 } else {
                     OutputStream os = con.getOutput();
@@ -237,9 +254,77 @@ public class HttpTransportPipe extends AbstractTubeImpl {
         }
     }
 
+    /**
+     * Returns the buffer for encoding a request. The buffer is reused
+     * across the requests that go through this tube, as long as it stays
+     * small. A tube instance is only used by one fiber at a time.
+     */
+    private ByteArrayBuffer getRequestBuffer() {
+        ByteArrayBuffer buf = requestBuffer;
+        if (buf == null) {
+            return new ByteArrayBuffer();
+        }
+        requestBuffer = null;
+        return buf;
+    }
+
+    private void releaseRequestBuffer(ByteArrayBuffer buf) {
+        if (buf.size() <= MAX_REUSABLE_BUFFER_SIZE) {
+            buf.reset();
+            requestBuffer = buf;
+        }
+    }
+
+    /**
+     * Creates the transport headers for the request, from the user headers
+     * plus the User-Agent, Accept-Encoding, basic authentication and cookie headers.
+     */
+    /*package*/ Map<String, List<String>> createRequestHeaders(Packet request) throws IOException {
+        // get transport headers from message
+        Map<String, List<String>> reqHeaders = new Headers();
+        @SuppressWarnings("unchecked")
+        Map<String, List<String>> userHeaders = (Map<String, List<String>>) request.invocationProperties.get(MessageContext.HTTP_REQUEST_HEADERS);
+        boolean addUserAgent = true;
+        boolean addAcceptEncoding = acceptCompressedResponses;
+        if (userHeaders != null) {
+            // userHeaders may not be modifiable like SingletonMap, just copy them
+            reqHeaders.putAll(userHeaders);
+            // application wants to use its own User-Agent header
+            if (userHeaders.get("User-Agent") != null) {
+                addUserAgent = false;
+            }
+            if (reqHeaders.get("Accept-Encoding") != null) {
+                addAcceptEncoding = false;
+            }
+        }
+        if (addUserAgent) {
+            reqHeaders.put("User-Agent", USER_AGENT);
+        }
+        if (addAcceptEncoding) {
+            reqHeaders.put("Accept-Encoding", Collections.singletonList(HttpContentEncoding.ACCEPT_ENCODING));
+        }
+
+        addBasicAuth(request, reqHeaders);
+        addCookies(request, reqHeaders);
+        return reqHeaders;
+    }
+
+    /**
+     * Sets Content-Type, Accept and SOAPAction headers for the given content type.
+     */
+    /*package*/ void addContentTypeHeaders(Map<String, List<String>> reqHeaders, ContentType ct) {
+        reqHeaders.put("Content-Type", Collections.singletonList(ct.getContentType()));
+        if (ct.getAcceptHeader() != null) {
+            reqHeaders.put("Accept", Collections.singletonList(ct.getAcceptHeader()));
+        }
+        if (binding instanceof SOAPBinding) {
+            writeSOAPAction(reqHeaders, ct.getSOAPActionHeader());
+        }
+    }
+
     private Packet createResponsePacket(Packet request, HttpClientTransport con) throws IOException {
         con.readResponseCodeAndMessage();   // throws IOE
-        recordCookies(request, con);
+        recordCookies(request, con.getHeaders());
 
         InputStream responseStream = con.getInput();
         if (dump || LOGGER.isLoggable(Level.FINER)) {
@@ -271,7 +356,7 @@ public class HttpTransportPipe extends AbstractTubeImpl {
 
         // Allows only certain http status codes for a binding. For all
         // other status codes, throws exception
-        checkStatusCode(responseStream, con); // throws ClientTransportException
+        checkStatusCode(responseStream, con.statusCode, con.statusMessage); // throws ClientTransportException
         //To avoid zero-length chunk for One-Way
         if (cl ==-1 && con.statusCode == 202 && "Accepted".equals(con.statusMessage) && responseStream != null) {
             ByteArrayBuffer buf = new ByteArrayBuffer();
@@ -300,9 +385,7 @@ public class HttpTransportPipe extends AbstractTubeImpl {
      *
      * For all other status codes, it throws an exception
      */
-    private void checkStatusCode(InputStream in, HttpClientTransport con) throws IOException {
-        int statusCode = con.statusCode;
-        String statusMessage = con.statusMessage;
+    /*package*/ void checkStatusCode(InputStream in, int statusCode, String statusMessage) throws IOException {
         // SOAP1.1 and SOAP1.2 differ here
         if (binding instanceof SOAPBinding) {
             if (binding.getSOAPVersion() == SOAPVersion.SOAP_12) {
@@ -382,14 +465,14 @@ public class HttpTransportPipe extends AbstractTubeImpl {
         }
     }
 
-    private void recordCookies(Packet context, HttpClientTransport con) throws IOException {
+    /*package*/ void recordCookies(Packet context, Map<String, List<String>> responseHeaders) throws IOException {
         Boolean shouldMaintainSessionProperty =
                 (Boolean) context.invocationProperties.get(BindingProvider.SESSION_MAINTAIN_PROPERTY);
         if (shouldMaintainSessionProperty != null && !shouldMaintainSessionProperty) {
             return;         // explicitly turned off
         }
         if (sticky || (shouldMaintainSessionProperty != null && shouldMaintainSessionProperty)) {
-            cookieJar.put(context.endpointAddress.getURI(), con.getHeaders());
+            cookieJar.put(context.endpointAddress.getURI(), responseHeaders);
         }
     }
 
@@ -434,7 +517,88 @@ public class HttpTransportPipe extends AbstractTubeImpl {
     }
 
 
-    private void dump(ByteArrayBuffer buf, String caption, Map<String, List<String>> headers) throws IOException {
+    /**
+     * Buffers the encoded request until it crosses the threshold, and then
+     * streams it to the connection with chunked transfer encoding. If the
+     * threshold is never crossed, the request is sent with a Content-Length.
+     */
+    private static final class ThresholdOutputStream extends OutputStream {
+        private final HttpClientTransport con;
+        private final ByteArrayBuffer buf;
+        private final int threshold;
+        private OutputStream out;       // connection's stream, once the threshold is crossed
+        private boolean streaming;
+
+        ThresholdOutputStream(HttpClientTransport con, ByteArrayBuffer buf, int threshold) {
+            this.con = con;
+            this.buf = buf;
+            this.threshold = threshold;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            if (!streaming && buf.size() + 1 > threshold) {
+                startStreaming();
+            }
+            if (streaming) {
+                if (out != null) {
+                    out.write(b);
+                }
+            } else {
+                buf.write(b);
+            }
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            if (!streaming && buf.size() + len > threshold) {
+                startStreaming();
+            }
+            if (streaming) {
+                if (out != null) {
+                    out.write(b, off, len);
+                }
+            } else {
+                buf.write(b, off, len);
+            }
+        }
+
+        @Override
+        public void flush() throws IOException {
+            if (out != null) {
+                out.flush();
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            // connection's stream is closed by HttpClientTransport.closeOutput()
+        }
+
+        private void startStreaming() throws IOException {
+            streaming = true;
+            con.setChunkedStreamingMode(STREAMING_CHUNK_SIZE);
+            out = con.getOutput();
+            if (out != null) {
+                buf.writeTo(out);
+            }
+        }
+
+        /**
+         * Sends the buffered request, if the threshold wasn't crossed.
+         */
+        void finish() throws IOException {
+            if (!streaming) {
+                con.setFixedLengthStreamingMode(buf.size());
+                out = con.getOutput();
+                if (out != null) {
+                    buf.writeTo(out);
+                }
+            }
+        }
+    }
+
+    /*package*/ void dump(ByteArrayBuffer buf, String caption, Map<String, List<String>> headers) throws IOException {
         ByteArrayOutputStream baos = new ByteArrayOutputStream();
         PrintWriter pw = new PrintWriter(baos, true);
         pw.println("---["+caption +"]---");
@@ -0,0 +1,520 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2017 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * http://glassfish.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package com.sun.xml.ws.transport.http.client;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.SocketTimeoutException;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Non-blocking HTTP/1.1 client used by {@link NonBlockingHttpTransportPipe}.
+ *
+ * <p>
+ * A single daemon I/O thread drives a {@link Selector} for all the connections.
+ * Connections are kept alive and pooled per endpoint (host and port) and
+ * per pool configuration: exchanges sent with a different {@code maxConnections}
+ * or {@code keepAliveTimeout} to the same endpoint use a pool of their own, so
+ * each configuration keeps its own limits. Exchanges that cannot get a
+ * connection wait in their pool's queue until one is released.
+ *
+ * <p>
+ * The I/O thread stops once it had no connection for {@link #IDLE_SHUTDOWN}
+ * milliseconds, or when {@link #shutdown()} is called, and a new one is started
+ * by the next {@link #send}. So the thread doesn't outlive the applications
+ * that use it.
+ *
+ * <p>
+ * All the connection and pool state is only touched by the I/O thread.
+ * Other threads hand over exchanges through {@link #send}.
+ */
+final class NioHttpClient implements Runnable {
+
+    private static final Logger LOGGER = Logger.getLogger(NioHttpClient.class.getName());
+
+    /**
+     * How often (in milliseconds) timeouts and idle connections are checked.
+     */
+    private static final long SWEEP_INTERVAL = 250L;
+
+    /**
+     * How long (in milliseconds) the I/O thread runs without any connection
+     * before it stops.
+     */
+    static final long IDLE_SHUTDOWN = 30000L;
+
+    private static NioHttpClient instance; // guarded by NioHttpClient.class
+
+    static synchronized NioHttpClient getInstance() throws IOException {
+        if (instance == null) {
+            instance = new NioHttpClient();
+        }
+        return instance;
+    }
+
+    /**
+     * Stops the I/O thread. The exchanges in flight fail, and the connections
+     * are closed. A later {@link #send} starts a new I/O thread.
+     */
+    static void shutdown() {
+        NioHttpClient client;
+        synchronized (NioHttpClient.class) {
+            client = instance;
+            if (client == null) {
+                return;
+            }
+            instance = null;
+            client.stopped = true;
+            client.selector.wakeup();
+        }
+    }
+
+    private final Selector selector;
+    private final Thread thread;
+    private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<Runnable>();
+    // only accessed by the I/O thread
+    private final Map<String, EndpointPool> pools = new HashMap<String, EndpointPool>();
+    private final ByteBuffer readBuffer = ByteBuffer.allocate(64 * 1024);
+    private long lastSweep;
+    private long idleSince;
+    // set under the NioHttpClient.class lock, after which no task is added
+    private volatile boolean stopped;
+
+    private NioHttpClient() throws IOException {
+        selector = Selector.open();
+        thread = new Thread(this, "jaxws-nio-http-client");
+        thread.setDaemon(true);
+        // the thread is shared, it must not keep an application's classes reachable
+        thread.setContextClassLoader(null);
+        thread.start();
+    }
+
+    /**
+     * Sends the request of the exchange. The exchange's callback is notified
+     * on the I/O thread once the response is read, or the exchange failed.
+     *
+     * <p>
+     * The exchange uses the pool of its endpoint and configuration, which is
+     * created with the given limits on first use.
+     */
+    void send(final NioHttpExchange exchange, final int maxConnections, final long keepAliveTimeout) throws IOException {
+        synchronized (NioHttpClient.class) {
+            if (stopped) {
+                // the I/O thread stopped after this instance was obtained
+                getInstance().send(exchange, maxConnections, keepAliveTimeout);
+                return;
+            }
+            tasks.add(new Runnable() {
+                @Override
+                public void run() {
+                    if (stopped) {
+                        exchange.failed(new IOException("The HTTP client is shut down"));
+                        return;
+                    }
+                    String key = exchange.host + ':' + exchange.port + '/' + maxConnections + '/' + keepAliveTimeout;
+                    EndpointPool pool = pools.get(key);
+                    if (pool == null) {
+                        pool = new EndpointPool(exchange.host, exchange.port, maxConnections, keepAliveTimeout);
+                        pools.put(key, pool);
+                    }
+                    pool.execute(exchange);
+                }
+            });
+            // under the lock, the selector is not closed yet
+            selector.wakeup();
+        }
+    }
+
+    /**
+     * Whether the I/O thread of this client is still running.
+     */
+    /*package*/ boolean isRunning() {
+        return thread.isAlive();
+    }
+
+    @Override
+    public void run() {
+        idleSince = System.currentTimeMillis();
+        while (true) {
+            try {
+                Runnable task;
+                while ((task = tasks.poll()) != null) {
+                    task.run();
+                }
+                if (stopped) {
+                    close(new IOException("The HTTP client is shut down"));
+                    return;
+                }
+                selector.select(SWEEP_INTERVAL);
+                Iterator<SelectionKey> it = selector.selectedKeys().iterator();
+                while (it.hasNext()) {
+                    SelectionKey key = it.next();
+                    it.remove();
+                    if (key.isValid()) {
+                        ((Connection) key.attachment()).handle(key);
+                    }
+                }
+                sweep();
+                if (isIdle()) {
+                    close(null);
+                    return;
+                }
+            } catch (Throwable t) {
+                LOGGER.log(Level.WARNING, "Unexpected exception in the HTTP client I/O thread", t);
+            }
+        }
+    }
+
+    /**
+     * Decides whether the I/O thread stops because it had no connection for
+     * {@link #IDLE_SHUTDOWN}. Once it does, {@link #send} hands exchanges to a
+     * new instance.
+     */
+    private boolean isIdle() {
+        long now = System.currentTimeMillis();
+        if (!selector.keys().isEmpty()) {
+            idleSince = now;
+            return false;
+        }
+        if (now - idleSince < IDLE_SHUTDOWN) {
+            return false;
+        }
+        synchronized (NioHttpClient.class) {
+            if (!tasks.isEmpty()) {
+                return false;
+            }
+            stopped = true;
+            if (instance == this) {
+                instance = null;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Fails the exchanges of the pools, closes the connections and the selector.
+     */
+    private void close(IOException failure) {
+        // the exchanges added while the thread was stopping fail
+        Runnable task;
+        while ((task = tasks.poll()) != null) {
+            task.run();
+        }
+        for (EndpointPool pool : pools.values()) {
+            NioHttpExchange ex;
+            while ((ex = pool.pending.poll()) != null) {
+                ex.failed(failure);
+            }
+        }
+        for (SelectionKey key : new ArrayList<SelectionKey>(selector.keys())) {
+            Connection c = (Connection) key.attachment();
+            NioHttpExchange ex = c.exchange;
+            c.exchange = null;
+            c.close();
+            if (ex != null) {
+                ex.failed(failure);
+            }
+        }
+        pools.clear();
+        synchronized (NioHttpClient.class) {
+            try {
+                selector.close();
+            } catch (IOException e) {
+                // Nothing much can be done. Intentionally left empty
+            }
+        }
+    }
+
+    /**
+     * Fails exchanges whose timeout elapsed, and closes connections that were
+     * idle for longer than the keep-alive timeout.
+     */
+    private void sweep() {
+        long now = System.currentTimeMillis();
+        if (now - lastSweep < SWEEP_INTERVAL) {
+            return;
+        }
+        lastSweep = now;
+        for (SelectionKey key : new ArrayList<SelectionKey>(selector.keys())) {
+            Connection c = (Connection) key.attachment();
+            if (c.exchange != null) {
+                if (c.exchange.deadline != 0 && now > c.exchange.deadline) {
+                    c.fail(new SocketTimeoutException("Timed out waiting for " + c.pool.host + ":" + c.pool.port));
+                }
+            } else if (now - c.idleSince > c.pool.keepAliveTimeout) {
+                c.close();
+            }
+        }
+        for (EndpointPool pool : pools.values()) {
+            Iterator<NioHttpExchange> it = pool.pending.iterator();
+            while (it.hasNext()) {
+                NioHttpExchange ex = it.next();
+                if (ex.deadline != 0 && now > ex.deadline) {
+                    it.remove();
+                    ex.failed(new SocketTimeoutException("Timed out waiting for a connection to " + pool.host + ":" + pool.port));
+                }
+            }
+        }
+    }
+
+    private static long deadline(long timeout) {
+        return (timeout > 0) ? System.currentTimeMillis() + timeout : 0;
+    }
+
+    /**
+     * Keep-alive connections to one endpoint.
+     */
+    private final class EndpointPool {
+        final String host;
+        final int port;
+        final int maxConnections;
+        final long keepAliveTimeout;
+        // most recently used first, so that extra connections can expire
+        final ArrayDeque<Connection> idle = new ArrayDeque<Connection>();
+        final Queue<NioHttpExchange> pending = new ArrayDeque<NioHttpExchange>();
+        int open;
+
+        EndpointPool(String host, int port, int maxConnections, long keepAliveTimeout) {
+            this.host = host;
+            this.port = port;
+            this.maxConnections = maxConnections;
+            this.keepAliveTimeout = keepAliveTimeout;
+        }
+
+        void execute(NioHttpExchange exchange) {
+            exchange.prepare();
+            Connection c;
+            while ((c = idle.pollFirst()) != null) {
+                if (c.channel.isOpen()) {
+                    c.start(exchange);
+                    return;
+                }
+            }
+            if (open < maxConnections) {
+                connect(exchange);
+            } else {
+                exchange.deadline = deadline(exchange.connectTimeout);
+                pending.add(exchange);
+            }
+        }
+
+        void connect(NioHttpExchange exchange) {
+            Connection c;
+            try {
+                c = new Connection(this);
+            } catch (IOException e) {
+                exchange.failed(e);
+                return;
+            }
+            open++;
+            c.connect(exchange);
+        }
+
+        void release(Connection c) {
+            NioHttpExchange next = pending.poll();
+            if (next != null) {
+                c.start(next);
+            } else {
+                c.idleSince = System.currentTimeMillis();
+                idle.addFirst(c);
+            }
+        }
+
+        void closed(Connection c) {
+            idle.remove(c);
+            open--;
+            NioHttpExchange next = pending.poll();
+            if (next != null) {
+                connect(next);
+            }
+        }
+    }
+
+    /**
+     * One keep-alive connection. It carries at most one exchange at a time.
+     */
+    private final class Connection {
+        final EndpointPool pool;
+        final SocketChannel channel;
+        SelectionKey key;
+        NioHttpExchange exchange;
+        boolean reused;
+        boolean closed;
+        long idleSince;
+
+        Connection(EndpointPool pool) throws IOException {
+            this.pool = pool;
+            this.channel = SocketChannel.open();
+            channel.configureBlocking(false);
+            channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+        }
+
+        void connect(NioHttpExchange ex) {
+            exchange = ex;
+            ex.deadline = deadline(ex.connectTimeout);
+            try {
+                key = channel.register(selector, 0, this);
+                if (channel.connect(new InetSocketAddress(pool.host, pool.port))) {
+                    write();
+                } else {
+                    key.interestOps(SelectionKey.OP_CONNECT);
+                }
+            } catch (IOException e) {
+                fail(e);
+            }
+        }
+
+        void start(NioHttpExchange ex) {
+            exchange = ex;
+            reused = true;
+            try {
+                write();
+            } catch (IOException e) {
+                fail(e);
+            }
+        }
+
+        void handle(SelectionKey key) {
+            try {
+                if (key.isConnectable()) {
+                    if (channel.finishConnect()) {
+                        write();
+                    }
+                } else if (key.isWritable()) {
+                    write();
+                } else if (key.isReadable()) {
+                    read();
+                }
+            } catch (IOException e) {
+                fail(e);
+            }
+        }
+
+        private void write() throws IOException {
+            channel.write(exchange.requestBuffers);
+            if (exchange.isRequestWritten()) {
+                exchange.deadline = deadline(exchange.readTimeout);
+                key.interestOps(SelectionKey.OP_READ);
+            } else {
+                key.interestOps(SelectionKey.OP_WRITE);
+            }
+        }
+
+        private void read() throws IOException {
+            readBuffer.clear();
+            int n = channel.read(readBuffer);
+            if (exchange == null) {
+                // idle connection is closed by the server, or unexpected data
+                close();
+                return;
+            }
+            if (n < 0) {
+                if (exchange.endOfStream()) {
+                    complete(false);
+                }
+                return;
+            }
+            readBuffer.flip();
+            if (exchange.consume(readBuffer)) {
+                complete(exchange.isKeepAlive() && !readBuffer.hasRemaining());
+            }
+        }
+
+        private void complete(boolean reusable) {
+            NioHttpExchange ex = exchange;
+            exchange = null;
+            if (reusable) {
+                pool.release(this);
+            } else {
+                close();
+            }
+            ex.succeeded();
+        }
+
+        void fail(IOException e) {
+            NioHttpExchange ex = exchange;
+            exchange = null;
+            close();
+            if (ex == null) {
+                return;
+            }
+            if (reused && !ex.retried && !ex.isRequestWritten() && !ex.hasReceivedData()
+                    && !(e instanceof SocketTimeoutException)) {
+                // pooled connection went stale while it was idle, try once more.
+                // Once the whole request is on the wire the server may have acted
+                // on it, so a fully written request is never sent a second time.
+                if (LOGGER.isLoggable(Level.FINE)) {
+                    LOGGER.log(Level.FINE, "Retrying request on a new connection to " + pool.host + ":" + pool.port, e);
+                }
+                ex.retried = true;
+                pool.execute(ex);
+            } else {
+                ex.failed(e);
+            }
+        }
+
+        void close() {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            try {
+                channel.close();
+            } catch (IOException e) {
+                // Nothing much can be done. Intentionally left empty
+            }
+            pool.closed(this);
+        }
+    }
+}
@@ -0,0 +1,383 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2017 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * http://glassfish.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package com.sun.xml.ws.transport.http.client;
+
+import com.sun.xml.ws.transport.Headers;
+import com.sun.xml.ws.util.ByteArrayBuffer;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * One HTTP/1.1 request/response exchange carried out by {@link NioHttpClient}.
+ *
+ * <p>
+ * The request is fully serialized upfront (head and body), and the response
+ * is parsed incrementally as bytes arrive from the channel. All the parsing
+ * methods are invoked by the client's I/O thread only.
+ */
+final class NioHttpExchange {
+
+    private static final Logger LOGGER = Logger.getLogger(NioHttpExchange.class.getName());
+
+    /**
+     * Notified on the I/O thread once the exchange completes.
+     */
+    interface Callback {
+        void onResponse(NioHttpExchange exchange);
+        void onFailure(IOException e);
+    }
+
+    // response parser states
+    private static final int STATUS_LINE = 0;
+    private static final int HEADERS = 1;
+    private static final int FIXED_BODY = 2;
+    private static final int CHUNK_SIZE = 3;
+    private static final int CHUNK_DATA = 4;
+    private static final int CHUNK_END = 5;
+    private static final int TRAILERS = 6;
+    private static final int EOF_BODY = 7;
+    private static final int DONE = 8;
+
+    private static final int MAX_LINE_LENGTH = 64 * 1024;
+
+    final String host;
+    final int port;
+    /**
+     * Timeouts in milliseconds, 0 means no timeout.
+     */
+    final long connectTimeout;
+    final long readTimeout;
+
+    private final byte[] head;
+    private final ByteArrayBuffer body;
+    private final boolean headRequest;
+    private final Callback callback;
+
+    /*package*/ ByteBuffer[] requestBuffers;
+    /*package*/ long deadline;
+    /*package*/ boolean retried;
+
+    private int state;
+    private final StringBuilder line = new StringBuilder();
+    private long remaining;
+    private boolean receivedData;
+
+    private int statusCode;
+    private String statusMessage;
+    private boolean keepAlive;
+    private Headers responseHeaders;
+    private ByteArrayBuffer responseBody;
+
+    NioHttpExchange(String host, int port, byte[] head, ByteArrayBuffer body, boolean headRequest,
+                    long connectTimeout, long readTimeout, Callback callback) {
+        this.host = host;
+        this.port = port;
+        this.head = head;
+        this.body = body;
+        this.headRequest = headRequest;
+        this.connectTimeout = connectTimeout;
+        this.readTimeout = readTimeout;
+        this.callback = callback;
+    }
+
+    /**
+     * (Re)initializes request buffers and response state so that the
+     * exchange can be written to a connection.
+     */
+    void prepare() {
+        ByteBuffer headBuffer = ByteBuffer.wrap(head);
+        requestBuffers = (body == null)
+                ? new ByteBuffer[] {headBuffer}
+                : new ByteBuffer[] {headBuffer, ByteBuffer.wrap(body.getRawData(), 0, body.size())};
+        state = STATUS_LINE;
+        line.setLength(0);
+        remaining = 0;
+        receivedData = false;
+        keepAlive = false;
+        responseHeaders = new Headers();
+        responseBody = new ByteArrayBuffer();
+    }
+
+    /**
+     * True once the last byte of the request has been handed to the channel.
+     * A fully written request is never retried, because the server may already
+     * have processed it.
+     */
+    boolean isRequestWritten() {
+        return !requestBuffers[requestBuffers.length - 1].hasRemaining();
+    }
+
+    /**
+     * True if any byte of the response has been received. A request is only
+     * retried on another connection when it was not fully written and no
+     * response data was received.
+     */
+    boolean hasReceivedData() {
+        return receivedData;
+    }
+
+    /**
+     * True if the connection can be reused for another exchange after
+     * this one completes.
+     */
+    boolean isKeepAlive() {
+        return keepAlive;
+    }
+
+    int getStatusCode() {
+        return statusCode;
+    }
+
+    String getStatusMessage() {
+        return statusMessage;
+    }
+
+    Map<String, List<String>> getResponseHeaders() {
+        return responseHeaders;
+    }
+
+    ByteArrayBuffer getResponseBody() {
+        return responseBody;
+    }
+
+    /**
+     * Parses the bytes that are available in the buffer.
+     *
+     * @return true if the response is complete
+     */
+    boolean consume(ByteBuffer in) throws IOException {
+        if (in.hasRemaining()) {
+            receivedData = true;
+        }
+        while (in.hasRemaining() && state != DONE) {
+            switch (state) {
+                case STATUS_LINE:
+                case HEADERS:
+                case CHUNK_SIZE:
+                case CHUNK_END:
+                case TRAILERS:
+                    if (!readLine(in)) {
+                        return false;
+                    }
+                    String l = line.toString();
+                    line.setLength(0);
+                    processLine(l);
+                    break;
+                case FIXED_BODY:
+                case CHUNK_DATA:
+                    int n = (int) Math.min(remaining, in.remaining());
+                    copy(in, n);
+                    remaining -= n;
+                    if (remaining == 0) {
+                        state = (state == FIXED_BODY) ? DONE : CHUNK_END;
+                    }
+                    break;
+                case EOF_BODY:
+                    copy(in, in.remaining());
+                    break;
+                default:
+                    throw new AssertionError(state);
+            }
+        }
+        return state == DONE;
+    }
+
+    /**
+     * Invoked when the server closes the connection.
+     *
+     * @return true if the response is complete, i.e. its body is delimited
+     *         by the end of the stream
+     */
+    boolean endOfStream() throws IOException {
+        if (state == EOF_BODY) {
+            state = DONE;
+            return true;
+        }
+        throw new EOFException("Connection closed by " + host + ":" + port + " before the response was complete");
+    }
+
+    void succeeded() {
+        try {
+            callback.onResponse(this);
+        } catch (Throwable t) {
+            LOGGER.log(Level.WARNING, "Exception in the response callback", t);
+        }
+    }
+
+    void failed(IOException e) {
+        try {
+            callback.onFailure(e);
+        } catch (Throwable t) {
+            LOGGER.log(Level.WARNING, "Exception in the response callback", t);
+        }
+    }
+
+    private boolean readLine(ByteBuffer in) throws IOException {
+        while (in.hasRemaining()) {
+            char c = (char) (in.get() & 0xff);
+            if (c == '\n') {
+                return true;
+            }
+            if (c != '\r') {
+                if (line.length() >= MAX_LINE_LENGTH) {
+                    throw new IOException("HTTP response line is too long");
+                }
+                line.append(c);
+            }
+        }
+        return false;
+    }
+
+    private void copy(ByteBuffer in, int n) {
+        if (in.hasArray()) {
+            responseBody.write(in.array(), in.arrayOffset() + in.position(), n);
+            in.position(in.position() + n);
+        } else {
+            byte[] b = new byte[n];
+            in.get(b);
+            responseBody.write(b, 0, n);
+        }
+    }
+
+    private void processLine(String l) throws IOException {
+        switch (state) {
+            case STATUS_LINE:
+                if (l.length() > 0) {       // tolerate stray CRLF before the status line
+                    parseStatusLine(l);
+                    state = HEADERS;
+                }
+                break;
+            case HEADERS:
+                if (l.length() == 0) {
+                    endOfHeaders();
+                } else {
+                    int colon = l.indexOf(':');
+                    if (colon <= 0) {
+                        throw new IOException("Invalid HTTP response header: " + l);
+                    }
+                    responseHeaders.add(l.substring(0, colon).trim(), l.substring(colon + 1).trim());
+                }
+                break;
+            case CHUNK_SIZE:
+                int semi = l.indexOf(';');
+                String size = (semi < 0 ? l : l.substring(0, semi)).trim();
+                try {
+                    remaining = Long.parseLong(size, 16);
+                } catch (NumberFormatException e) {
+                    throw new IOException("Invalid chunk size: " + l);
+                }
+                state = (remaining == 0) ? TRAILERS : CHUNK_DATA;
+                break;
+            case CHUNK_END:
+                state = CHUNK_SIZE;
+                break;
+            case TRAILERS:
+                if (l.length() == 0) {
+                    state = DONE;
+                }
+                break;
+            default:
+                throw new AssertionError(state);
+        }
+    }
+
+    private void parseStatusLine(String l) throws IOException {
+        // HTTP/1.1 200 OK
+        int sp1 = l.indexOf(' ');
+        if (sp1 < 0 || !l.startsWith("HTTP/")) {
+            throw new IOException("Invalid HTTP status line: " + l);
+        }
+        int sp2 = l.indexOf(' ', sp1 + 1);
+        try {
+            statusCode = Integer.parseInt(sp2 < 0 ? l.substring(sp1 + 1) : l.substring(sp1 + 1, sp2));
+        } catch (NumberFormatException e) {
+            throw new IOException("Invalid HTTP status line: " + l);
+        }
+        statusMessage = (sp2 < 0) ? "" : l.substring(sp2 + 1);
+        keepAlive = !l.startsWith("HTTP/1.0");
+    }
+
+    private void endOfHeaders() throws IOException {
+        if (statusCode / 100 == 1) {
+            // 100 Continue etc. The actual response follows.
+            responseHeaders.clear();
+            state = STATUS_LINE;
+            return;
+        }
+        String connection = responseHeaders.getFirst("Connection");
+        if (connection != null) {
+            if (connection.equalsIgnoreCase("close")) {
+                keepAlive = false;
+            } else if (connection.equalsIgnoreCase("keep-alive")) {
+                keepAlive = true;
+            }
+        }
+        if (headRequest || statusCode == 204 || statusCode == 304) {
+            state = DONE;
+            return;
+        }
+        String te = responseHeaders.getFirst("Transfer-Encoding");
+        if (te != null && te.toLowerCase().contains("chunked")) {
+            state = CHUNK_SIZE;
+            return;
+        }
+        String cl = responseHeaders.getFirst("Content-Length");
+        if (cl != null) {
+            try {
+                remaining = Long.parseLong(cl.trim());
+            } catch (NumberFormatException e) {
+                throw new IOException("Invalid Content-Length: " + cl);
+            }
+            state = (remaining == 0) ? DONE : FIXED_BODY;
+            return;
+        }
+        // body is delimited by the end of the stream
+        keepAlive = false;
+        state = EOF_BODY;
+    }
+
+}
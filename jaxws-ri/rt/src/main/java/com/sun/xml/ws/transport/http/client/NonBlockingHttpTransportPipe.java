@@ -0,0 +1,335 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2017 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * http://glassfish.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package com.sun.xml.ws.transport.http.client;
+
+import com.sun.istack.NotNull;
+import com.sun.xml.ws.api.WSBinding;
+import com.sun.xml.ws.api.message.Packet;
+import com.sun.xml.ws.api.pipe.Codec;
+import com.sun.xml.ws.api.pipe.ContentType;
+import com.sun.xml.ws.api.pipe.Fiber;
+import com.sun.xml.ws.api.pipe.NextAction;
+import com.sun.xml.ws.api.pipe.Tube;
+import com.sun.xml.ws.api.pipe.TubeCloner;
+import com.sun.xml.ws.client.BindingProviderProperties;
+import com.sun.xml.ws.client.ClientTransportException;
+import com.sun.xml.ws.developer.JAXWSProperties;
+import com.sun.xml.ws.developer.NonBlockingHttpTransportFeature;
+import com.sun.xml.ws.resources.ClientMessages;
+import com.sun.xml.ws.metrics.MetricsTube;
+import com.sun.xml.ws.transport.http.HttpContentEncoding;
+import com.sun.xml.ws.util.ByteArrayBuffer;
+
+import javax.xml.ws.WebServiceException;
+import javax.xml.ws.handler.MessageContext;
+import javax.xml.ws.soap.SOAPBinding;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.Proxy;
+import java.net.ProxySelector;
+import java.net.URI;
+import java.nio.charset.Charset;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * {@link Tube} that sends a request to a remote HTTP server without blocking
+ * the calling thread.
+ *
+ * <p>
+ * The request is handed to the shared {@link NioHttpClient} and the
+ * {@link Fiber} is suspended. When the response is read, the fiber is
+ * resumed, and the response is decoded in {@link #processResponse(Packet)}
+ * on the fiber's thread.
+ *
+ * <p>
+ * Requests that need features of {@link java.net.HttpURLConnection} (https,
+ * proxies, streaming) are processed by {@link HttpTransportPipe} as before.
+ *
+ * @see NonBlockingHttpTransportFeature
+ */
+public class NonBlockingHttpTransportPipe extends HttpTransportPipe {
+
+    private static final Logger LOGGER = Logger.getLogger(NonBlockingHttpTransportPipe.class.getName());
+    private static final Charset ISO_8859_1 = Charset.forName("ISO-8859-1");
+
+    private final NonBlockingHttpTransportFeature feature;
+
+    /**
+     * Exchange of the request this tube is suspended on. A tube instance
+     * is only used by one fiber at a time.
+     */
+    private NioHttpExchange exchange;
+
+    public NonBlockingHttpTransportPipe(Codec codec, WSBinding binding) {
+        super(codec, binding);
+        NonBlockingHttpTransportFeature f = binding.getFeature(NonBlockingHttpTransportFeature.class);
+        this.feature = (f != null) ? f : new NonBlockingHttpTransportFeature();
+    }
+
+    /*
+     * Copy constructor for {@link Tube#copy(TubeCloner)}.
+     */
+    private NonBlockingHttpTransportPipe(NonBlockingHttpTransportPipe that, TubeCloner cloner) {
+        super(that, cloner);
+        this.feature = that.feature;
+    }
+
+    /**
+     * Stops the shared non-blocking HTTP client if the JAX-WS runtime was loaded
+     * by the given class loader or by one of its descendants, that is when the
+     * application being undeployed bundles the runtime. The exchanges in flight
+     * fail. A runtime shared by several applications keeps its client, whose
+     * I/O thread stops by itself once it has no connection left.
+     */
+    public static void shutdown(@NotNull ClassLoader loader) {
+        for (ClassLoader cl = NioHttpClient.class.getClassLoader(); cl != null; cl = cl.getParent()) {
+            if (cl == loader) {
+                NioHttpClient.shutdown();
+                return;
+            }
+        }
+    }
+
+    @Override
+    public NextAction processRequest(@NotNull final Packet request) {
+        if (!isNonBlocking(request)) {
+            return super.processRequest(request);
+        }
+        try {
+            Map<String, List<String>> reqHeaders = createRequestHeaders(request);
+            String method = (String) request.invocationProperties.get(MessageContext.HTTP_REQUEST_METHOD);
+            if (method == null) {
+                method = "POST";
+            }
+
+            ByteArrayBuffer body = null;
+            if (!(method.equalsIgnoreCase("GET") || method.equalsIgnoreCase("HEAD") || method.equalsIgnoreCase("DELETE"))) {
+                // Calling getStaticContentType sets some internal state in the codec
+                ContentType ct = codec.getStaticContentType(request);
+                body = new ByteArrayBuffer();
+                ContentType encoded = codec.encode(request, body);
+                addContentTypeHeaders(reqHeaders, (ct != null) ? ct : encoded);
+
+                List<String> contentEncoding = reqHeaders.get("Content-Encoding");
+                if (contentEncoding != null && contentEncoding.get(0).contains("gzip")) {
+                    ByteArrayBuffer gzipped = new ByteArrayBuffer();
+                    GZIPOutputStream out = new GZIPOutputStream(gzipped);
+                    body.writeTo(out);
+                    out.close();
+                    body = gzipped;
+                }
+                MetricsTube.addBytesOut(request, body.size());
+            } else {
+                ContentType ct = codec.getStaticContentType(request);
+                if (ct != null) {
+                    addContentTypeHeaders(reqHeaders, ct);
+                }
+            }
+
+            if (dump || LOGGER.isLoggable(Level.FINER)) {
+                dump((body != null) ? body : new ByteArrayBuffer(), "HTTP request - "+request.endpointAddress, reqHeaders);
+            }
+
+            URI uri = request.endpointAddress.getURI();
+            int port = (uri.getPort() == -1) ? 80 : uri.getPort();
+            final Fiber fiber = Fiber.current();
+            exchange = new NioHttpExchange(uri.getHost(), port,
+                    createRequestHead(method, uri, reqHeaders, body),
+                    body, method.equalsIgnoreCase("HEAD"),
+                    getTimeout(request, JAXWSProperties.CONNECT_TIMEOUT),
+                    getTimeout(request, BindingProviderProperties.REQUEST_TIMEOUT),
+                    new NioHttpExchange.Callback() {
+                        @Override
+                        public void onResponse(NioHttpExchange exchange) {
+                            fiber.resume(request);
+                        }
+
+                        @Override
+                        public void onFailure(IOException e) {
+                            fiber.resume(new ClientTransportException(ClientMessages.localizableHTTP_CLIENT_FAILED(e), e));
+                        }
+                    });
+            NioHttpClient.getInstance().send(exchange, feature.getMaxConnectionsPerEndpoint(), feature.getKeepAliveTimeout());
+            return doSuspend();
+        } catch(WebServiceException wex) {
+            exchange = null;
+            throw wex;
+        } catch(Exception ex) {
+            exchange = null;
+            throw new WebServiceException(ex);
+        }
+    }
+
+    @Override
+    public NextAction processResponse(@NotNull Packet response) {
+        NioHttpExchange ex = exchange;
+        exchange = null;
+        if (ex == null) {
+            return doReturnWith(response);
+        }
+        try {
+            return doReturnWith(createResponsePacket(response, ex));
+        } catch(WebServiceException wex) {
+            throw wex;
+        } catch(Exception e) {
+            throw new WebServiceException(e);
+        }
+    }
+
+    @Override
+    public NextAction processException(@NotNull Throwable t) {
+        exchange = null;
+        return doThrow(t);
+    }
+
+    @Override
+    public NonBlockingHttpTransportPipe copy(TubeCloner cloner) {
+        return new NonBlockingHttpTransportPipe(this, cloner);
+    }
+
+    /**
+     * Only plain http requests that go directly to the server are sent with
+     * the non-blocking client. The fiber is suspended while the request is
+     * in flight, which doesn't make sense for fibers that were started
+     * synchronously on the caller's thread.
+     */
+    private boolean isNonBlocking(Packet request) {
+        if (!feature.isEnabled() || request.endpointAddress == null) {
+            return false;
+        }
+        URI uri = request.endpointAddress.getURI();
+        if (!"http".equalsIgnoreCase(uri.getScheme()) || uri.getHost() == null) {
+            return false;
+        }
+        if (request.invocationProperties.get(JAXWSProperties.HTTP_CLIENT_STREAMING_CHUNK_SIZE) != null) {
+            return false;
+        }
+        Fiber fiber = Fiber.getCurrentIfSet();
+        if (fiber == null || fiber.isStartedSync()) {
+            return false;
+        }
+        ProxySelector selector = ProxySelector.getDefault();
+        if (selector != null) {
+            for (Proxy proxy : selector.select(uri)) {
+                if (proxy.type() != Proxy.Type.DIRECT) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    private static long getTimeout(Packet request, String property) {
+        Integer timeout = (Integer) request.invocationProperties.get(property);
+        return (timeout != null) ? timeout : 0;
+    }
+
+    private static byte[] createRequestHead(String method, URI uri, Map<String, List<String>> reqHeaders, ByteArrayBuffer body) {
+        StringBuilder head = new StringBuilder(256);
+        String path = uri.getRawPath();
+        head.append(method).append(' ').append((path == null || path.length() == 0) ? "/" : path);
+        if (uri.getRawQuery() != null) {
+            head.append('?').append(uri.getRawQuery());
+        }
+        head.append(" HTTP/1.1\r\n");
+        head.append("Host: ").append(uri.getHost());
+        if (uri.getPort() != -1) {
+            head.append(':').append(uri.getPort());
+        }
+        head.append("\r\n");
+        for (Map.Entry<String, List<String>> entry : reqHeaders.entrySet()) {
+            String name = entry.getKey();
+            if (name == null || "Content-Length".equalsIgnoreCase(name) || "Host".equalsIgnoreCase(name)) {
+                continue;
+            }
+            for (String value : entry.getValue()) {
+                head.append(name).append(": ").append(value).append("\r\n");
+            }
+        }
+        if (body != null) {
+            head.append("Content-Length: ").append(body.size()).append("\r\n");
+        }
+        head.append("\r\n");
+        return head.toString().getBytes(ISO_8859_1);
+    }
+
+    private Packet createResponsePacket(Packet request, NioHttpExchange ex) throws IOException {
+        Map<String, List<String>> respHeaders = ex.getResponseHeaders();
+        request.addSatellite(new HttpResponseProperties(ex.getStatusCode(), respHeaders));
+        recordCookies(request, respHeaders);
+
+        ByteArrayBuffer buf = ex.getResponseBody();
+        MetricsTube.addBytesIn(request, buf.size());
+        if (dump || LOGGER.isLoggable(Level.FINER)) {
+            dump(buf, "HTTP response - "+request.endpointAddress+" - "+ex.getStatusCode(), respHeaders);
+        }
+
+        InputStream responseStream = null;
+        if (buf.size() > 0) {
+            responseStream = buf.newInputStream();
+            List<String> contentEncoding = respHeaders.get("Content-Encoding");
+            if (contentEncoding != null) {
+                responseStream = HttpContentEncoding.decode(contentEncoding.get(0), responseStream);
+            }
+        }
+
+        // Allows only certain http status codes for a binding. For all
+        // other status codes, throws exception
+        checkStatusCode(responseStream, ex.getStatusCode(), ex.getStatusMessage()); // throws ClientTransportException
+
+        Packet reply = request.createClientResponse(null);
+        reply.wasTransportSecure = false;
+        if (responseStream != null) {
+            List<String> ctHeader = respHeaders.get("Content-Type");
+            String contentType = (ctHeader != null && !ctHeader.isEmpty()) ? ctHeader.get(0) : null;
+            if (contentType != null && contentType.contains("text/html") && binding instanceof SOAPBinding) {
+                throw new ClientTransportException(ClientMessages.localizableHTTP_STATUS_CODE(ex.getStatusCode(), ex.getStatusMessage()));
+            }
+            codec.decode(responseStream, contentType, reply);
+        }
+        return reply;
+    }
+
+}
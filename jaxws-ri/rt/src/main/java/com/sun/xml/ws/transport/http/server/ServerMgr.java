@@ -43,6 +43,7 @@ package com.sun.xml.ws.transport.http.server;
 import com.sun.net.httpserver.HttpContext;
 import com.sun.net.httpserver.HttpServer;
 import com.sun.xml.ws.server.ServerRtException;
+import com.sun.xml.ws.util.VirtualThreads;
 
 import java.net.InetSocketAddress;
 import java.net.URL;
@@ -113,7 +114,7 @@ final class ServerMgr {
                         }
                         // Creates server with default socket backlog
                         server = HttpServer.create(inetAddress, 0);
-                        server.setExecutor(Executors.newCachedThreadPool());
+                        server.setExecutor(createExecutor());
                         String path = url.toURI().getPath();
                         if (LOGGER.isLoggable(Level.FINE)) {
                             LOGGER.fine("Creating HTTP Context at = "+path);
@@ -155,6 +156,20 @@ final class ServerMgr {
             throw new ServerRtException("server.rt.err",e );
         }
     }
+
+    /*
+     * Creates the executor of a new server. It runs every exchange in a new
+     * virtual thread when virtual threads are enabled.
+     */
+    private static ExecutorService createExecutor() {
+        if (VirtualThreads.isEnabled()) {
+            ExecutorService ex = VirtualThreads.newVirtualThreadPerTaskExecutor("jaxws-http-server-");
+            if (ex != null) {
+                return ex;
+            }
+        }
+        return Executors.newCachedThreadPool();
+    }
     
     /*
      * Removes a context. If the server doesn't have anymore contexts, it
@@ -77,6 +77,13 @@ public final class ByteArrayDataSource implements DataSource {
         return contentType;
     }
 
+    /**
+     * Size of the data in bytes.
+     */
+    public int getLength() {
+        return len;
+    }
+
     public InputStream getInputStream() {
         return new ByteArrayInputStream(buf,start,len);
     }
@@ -0,0 +1,178 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2017 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * http://glassfish.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package com.sun.xml.ws.util;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.GatheringByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * {@link OutputStream} that writes to a {@link WritableByteChannel}.
+ *
+ * <p>
+ * Written bytes are collected in fixed size {@link ByteBuffer} segments,
+ * and the segments are handed to the channel with one gathering write
+ * (when the channel is a {@link GatheringByteChannel}) once enough
+ * data is buffered, or when this stream is flushed. {@link ByteBuffer}s
+ * that already hold the data can be added with {@link #write(ByteBuffer)}
+ * without copying them.
+ *
+ * <p>
+ * The channel is expected to be in blocking mode. Closing this stream
+ * flushes the buffered data but doesn't close the channel, as the channel
+ * is owned by the transport.
+ */
+public final class ChannelOutputStream extends OutputStream {
+
+    private static final int SEGMENT_SIZE = 8192;
+
+    /**
+     * Number of buffered segments that triggers a write to the channel.
+     */
+    private static final int MAX_SEGMENTS = 16;
+
+    private final WritableByteChannel channel;
+
+    // segments to be written, in order
+    private final List<ByteBuffer> segments = new ArrayList<ByteBuffer>();
+    // segments allocated by this stream, reused after each flush
+    private final List<ByteBuffer> owned = new ArrayList<ByteBuffer>();
+    private int used;
+    private ByteBuffer current;
+
+    public ChannelOutputStream(WritableByteChannel channel) {
+        this.channel = channel;
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        if (current == null || !current.hasRemaining()) {
+            nextSegment();
+        }
+        current.put((byte) b);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        while (len > 0) {
+            if (current == null || !current.hasRemaining()) {
+                nextSegment();
+            }
+            int n = Math.min(len, current.remaining());
+            current.put(b, off, n);
+            off += n;
+            len -= n;
+        }
+    }
+
+    /**
+     * Adds the remaining bytes of the given buffer to the stream. The buffer
+     * isn't copied, so it must not be modified until this stream is flushed.
+     */
+    public void write(ByteBuffer buffer) throws IOException {
+        if (!buffer.hasRemaining()) {
+            return;
+        }
+        endSegment();
+        segments.add(buffer);
+        if (segments.size() >= MAX_SEGMENTS) {
+            flush();
+        }
+    }
+
+    @Override
+    public void flush() throws IOException {
+        endSegment();
+        if (segments.isEmpty()) {
+            return;
+        }
+        ByteBuffer[] buffers = segments.toArray(new ByteBuffer[segments.size()]);
+        if (channel instanceof GatheringByteChannel) {
+            GatheringByteChannel gc = (GatheringByteChannel) channel;
+            int first = 0;
+            while (first < buffers.length) {
+                gc.write(buffers, first, buffers.length - first);
+                while (first < buffers.length && !buffers[first].hasRemaining()) {
+                    first++;
+                }
+            }
+        } else {
+            for (ByteBuffer buffer : buffers) {
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+            }
+        }
+        segments.clear();
+        used = 0;
+    }
+
+    @Override
+    public void close() throws IOException {
+        flush();
+    }
+
+    private void nextSegment() throws IOException {
+        endSegment();
+        if (segments.size() >= MAX_SEGMENTS) {
+            flush();
+        }
+        if (used == owned.size()) {
+            owned.add(ByteBuffer.allocate(SEGMENT_SIZE));
+        }
+        current = owned.get(used++);
+        current.clear();
+    }
+
+    private void endSegment() {
+        if (current != null) {
+            current.flip();
+            if (current.hasRemaining()) {
+                segments.add(current);
+            }
+            current = null;
+        }
+    }
+}
@@ -0,0 +1,192 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2017 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * http://glassfish.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package com.sun.xml.ws.util;
+
+import com.sun.istack.Nullable;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Invokes a {@link Method} through a {@link MethodHandle} instead of reflection.
+ *
+ * <p>
+ * The handle is obtained through {@link MethodUtil}'s trampoline, so the method
+ * is called with the same restrictions and on behalf of the same caller as with
+ * {@link MethodUtil#invoke(Method, Object, Object[])}. Methods the trampoline can't
+ * give a handle for, such as static or non-public methods, are not supported,
+ * {@link #get(Method)} returns null for them and callers keep using reflection.
+ *
+ * <p>
+ * The handle is adapted once to take the target and an {@code Object[]} of arguments,
+ * so the JVM checks, unboxes and widens the arguments as {@link Method#invoke} does.
+ * Invokers are created once per {@link Method} and cached with the declaring class,
+ * so they don't keep the class loader of an undeployed application alive.
+ */
+public final class MethodHandleInvoker {
+
+    private static final MethodType GENERIC = MethodType.methodType(Object.class, Object.class, Object[].class);
+
+    private static final Object[] NO_ARGS = new Object[0];
+
+    /**
+     * Wraps what the method throws, to tell it apart from a failed conversion of the arguments.
+     */
+    private static final MethodHandle WRAP_EXCEPTION;
+
+    static {
+        try {
+            WRAP_EXCEPTION = MethodHandles.lookup().findStatic(MethodHandleInvoker.class, "wrapException",
+                    MethodType.methodType(Object.class, Throwable.class));
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    /**
+     * Marks the methods that can't be invoked with a method handle.
+     */
+    private static final MethodHandleInvoker UNSUPPORTED = new MethodHandleInvoker(null);
+
+    private static final ClassValue<ConcurrentMap<Method, MethodHandleInvoker>> CACHE =
+            new ClassValue<ConcurrentMap<Method, MethodHandleInvoker>>() {
+                @Override
+                protected ConcurrentMap<Method, MethodHandleInvoker> computeValue(Class<?> type) {
+                    return new ConcurrentHashMap<Method, MethodHandleInvoker>();
+                }
+            };
+
+    private final MethodHandle handle;
+
+    private MethodHandleInvoker(MethodHandle handle) {
+        this.handle = handle;
+    }
+
+    /**
+     * Gets the invoker of the given instance method.
+     *
+     * @return
+     *      null if the method can't be invoked with a method handle.
+     */
+    public static @Nullable MethodHandleInvoker get(Method method) {
+        ConcurrentMap<Method, MethodHandleInvoker> invokers = CACHE.get(method.getDeclaringClass());
+        MethodHandleInvoker invoker = invokers.get(method);
+        if (invoker == null) {
+            invoker = create(method);
+            MethodHandleInvoker existing = invokers.putIfAbsent(method, invoker);
+            if (existing != null) {
+                invoker = existing;
+            }
+        }
+        return (invoker == UNSUPPORTED) ? null : invoker;
+    }
+
+    private static MethodHandleInvoker create(Method method) {
+        if (Modifier.isStatic(method.getModifiers())) {
+            return UNSUPPORTED;
+        }
+        MethodHandle h;
+        try {
+            h = MethodUtil.unreflect(method).asFixedArity();
+        } catch (IllegalAccessException e) {
+            return UNSUPPORTED;
+        } catch (InvocationTargetException e) {
+            // refused by the trampoline
+            return UNSUPPORTED;
+        }
+        MethodHandle wrap = WRAP_EXCEPTION.asType(MethodType.methodType(h.type().returnType(), Throwable.class));
+        h = MethodHandles.catchException(h, Throwable.class,
+                MethodHandles.dropArguments(wrap, 1, h.type().parameterList()));
+        h = h.asSpreader(Object[].class, method.getParameterTypes().length).asType(GENERIC);
+        return new MethodHandleInvoker(h);
+    }
+
+    /**
+     * Invokes the method on the given object.
+     *
+     * @param args
+     *      arguments of the method, can be null if it has no parameters.
+     * @throws NullPointerException
+     *      if the target is null.
+     * @throws IllegalArgumentException
+     *      if the target is not an instance of the class that declares the method,
+     *      or the arguments don't match the parameters of the method.
+     * @throws InvocationTargetException
+     *      wraps the exception thrown by the method, as {@link Method#invoke} does.
+     */
+    public Object invoke(Object target, Object[] args) throws InvocationTargetException {
+        if (target == null) {
+            throw new NullPointerException();
+        }
+        try {
+            // the arguments must be statically typed as Object[] to match the handle exactly
+            return handle.invokeExact(target, (args != null) ? args : NO_ARGS);
+        } catch (TargetException e) {
+            throw new InvocationTargetException(e.getCause());
+        } catch (Error e) {
+            throw e;
+        } catch (Throwable t) {
+            // the handle failed to convert the target or the arguments
+            throw new IllegalArgumentException(t.getMessage(), t);
+        }
+    }
+
+    private static Object wrapException(Throwable t) {
+        throw new TargetException(t);
+    }
+
+    /**
+     * Carries the exception thrown by the method out of the handle.
+     */
+    private static final class TargetException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        TargetException(Throwable cause) {
+            super(null, cause, false, false);
+        }
+    }
+}
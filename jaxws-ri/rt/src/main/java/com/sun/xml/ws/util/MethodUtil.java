@@ -42,6 +42,8 @@ package com.sun.xml.ws.util;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.lang.reflect.Proxy;
@@ -81,6 +83,13 @@ class Trampoline {
         ensureInvocableMethod(m);
         return m.invoke(obj, params);
     }
+
+    private static MethodHandle unreflect(Method m)
+            throws InvocationTargetException, IllegalAccessException {
+        ensureInvocableMethod(m);
+        // caller sensitive methods see the trampoline as their caller, as with invoke
+        return MethodHandles.lookup().unreflect(m);
+    }
 }
 
 /*
@@ -90,6 +99,7 @@ public final class MethodUtil extends SecureClassLoader {
     private static final String WS_UTIL_PKG = "com.sun.xml.ws.util.";
     private static final String TRAMPOLINE = WS_UTIL_PKG + "Trampoline";
     private static final Method bounce = getTrampoline();
+    private static final Method unreflect = getTrampolineMethod("unreflect");
     private static final int DEFAULT_BUFFER_SIZE = 8192;
     private static final int MAX_BUFFER_SIZE = Integer.MAX_VALUE - 8;
 
@@ -125,6 +135,34 @@ public final class MethodUtil extends SecureClassLoader {
         }
     }
 
+    /*
+     * Gets a method handle of m that is called through the trampoline, the same
+     * way invoke(m, obj, params) calls m.
+     */
+    public static MethodHandle unreflect(Method m)
+            throws InvocationTargetException, IllegalAccessException {
+        if (unreflect == null) {
+            throw new IllegalAccessException("method handles are not available");
+        }
+        try {
+            return (MethodHandle) unreflect.invoke(null, m);
+        } catch (InvocationTargetException ie) {
+            Throwable t = ie.getCause();
+
+            if (t instanceof InvocationTargetException) {
+                throw (InvocationTargetException) t;
+            } else if (t instanceof IllegalAccessException) {
+                throw (IllegalAccessException) t;
+            } else if (t instanceof RuntimeException) {
+                throw (RuntimeException) t;
+            } else if (t instanceof Error) {
+                throw (Error) t;
+            } else {
+                throw new Error("Unexpected invocation error", t);
+            }
+        }
+    }
+
     private static Method getTrampoline() {
         try {
             return AccessController.doPrivileged(
@@ -142,6 +180,25 @@ public final class MethodUtil extends SecureClassLoader {
         }
     }
 
+    /*
+     * Gets another method of the trampoline class the bouncer was loaded with,
+     * null if it's not there.
+     */
+    private static Method getTrampolineMethod(final String name) {
+        try {
+            return AccessController.doPrivileged(
+                    new PrivilegedExceptionAction<Method>() {
+                        public Method run() throws Exception {
+                            Method m = bounce.getDeclaringClass().getDeclaredMethod(name, Method.class);
+                            m.setAccessible(true);
+                            return m;
+                        }
+                    });
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
 
     protected synchronized Class<?> loadClass(String name, boolean resolve)
             throws ClassNotFoundException {
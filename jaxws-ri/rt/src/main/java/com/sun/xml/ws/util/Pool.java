@@ -45,8 +45,12 @@ import com.sun.xml.ws.api.pipe.TubeCloner;
 
 import javax.xml.bind.JAXBContext;
 import javax.xml.bind.JAXBException;
-import java.util.concurrent.ConcurrentLinkedQueue;
-import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 
 /**
  * General-purpose object pool.
@@ -56,16 +60,80 @@ import java.lang.ref.WeakReference;
  * are expensive to create (such as JAXB objects, StAX parsers, {@link Tube} instances.)
  *
  * <p>
- * This class provides a default implementation of such a pool.
+ * This class provides a default implementation of such a pool. Pooled objects
+ * are kept in a number of stripes (one per processor, rounded up to a power of two),
+ * and a thread first looks at its own stripe, so that threads running on different
+ * processors rarely contend with each other. The pool holds at most {@code maxSize}
+ * objects; objects recycled into a full pool are discarded. Objects that stay in the
+ * pool for longer than {@code idleTimeout} are evicted, down to {@code minSize} objects.
  *
- * TODO: improve the implementation
+ * <p>
+ * The defaults can be changed with the {@code com.sun.xml.ws.util.Pool.maxSize},
+ * {@code com.sun.xml.ws.util.Pool.minSize} and {@code com.sun.xml.ws.util.Pool.idleTimeout}
+ * (in milliseconds, 0 disables eviction) system properties.
  *
  * @author Kohsuke Kawaguchi
  */
 public abstract class Pool<T> {
 
-    // volatile since multiple threads may access queue reference
-    private volatile WeakReference<ConcurrentLinkedQueue<T>> queue;
+    private static final Logger LOGGER = Logger.getLogger(Pool.class.getName());
+
+    private static final int DEFAULT_MAX_SIZE = getIntProperty(Pool.class.getName() + ".maxSize", 256);
+    private static final int DEFAULT_MIN_SIZE = getIntProperty(Pool.class.getName() + ".minSize", 0);
+    private static final long DEFAULT_IDLE_TIMEOUT = getIntProperty(Pool.class.getName() + ".idleTimeout", 5 * 60 * 1000);
+
+    private static final int STRIPE_COUNT;
+
+    static {
+        int n = 1;
+        int cpus = Runtime.getRuntime().availableProcessors();
+        while (n < cpus && n < 64) {
+            n <<= 1;
+        }
+        STRIPE_COUNT = n;
+    }
+
+    private final Stripe[] stripes;
+    private final int minSize;
+    private final int maxSize;
+    private final long idleTimeout;
+    private final AtomicLong nextEviction;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder creates = new LongAdder();
+    private final LongAdder discards = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    protected Pool() {
+        this(DEFAULT_MIN_SIZE, DEFAULT_MAX_SIZE, DEFAULT_IDLE_TIMEOUT);
+    }
+
+    /**
+     * @param minSize
+     *      number of objects that are kept in the pool regardless of {@code idleTimeout}.
+     * @param maxSize
+     *      maximum number of objects kept in the pool.
+     * @param idleTimeout
+     *      time in milliseconds after which an unused object is evicted from the pool.
+     *      0 to never evict.
+     */
+    protected Pool(int minSize, int maxSize, long idleTimeout) {
+        if (maxSize <= 0 || minSize < 0 || minSize > maxSize || idleTimeout < 0) {
+            throw new IllegalArgumentException("minSize=" + minSize + ", maxSize=" + maxSize + ", idleTimeout=" + idleTimeout);
+        }
+        this.minSize = minSize;
+        this.maxSize = maxSize;
+        this.idleTimeout = idleTimeout;
+        this.nextEviction = new AtomicLong(System.currentTimeMillis() + idleTimeout);
+
+        int count = Math.min(STRIPE_COUNT, Integer.highestOneBit(maxSize));
+        int capacity = (maxSize + count - 1) / count;
+        stripes = new Stripe[count];
+        for (int i = 0; i < count; i++) {
+            stripes[i] = new Stripe(capacity);
+        }
+    }
 
     /**
      * Gets a new object from the pool.
@@ -77,32 +145,115 @@ public abstract class Pool<T> {
      *      always non-null.
      */
     public final T take() {
-        T t = getQueue().poll();
-        if(t==null)
-            return create();
-        return t;
+        int home = home();
+        for (int i = 0; i < stripes.length; i++) {
+            Object o = stripes[(home + i) & (stripes.length - 1)].pop();
+            if (o != null) {
+                hits.increment();
+                @SuppressWarnings("unchecked")
+                T t = (T) o;
+                return t;
+            }
+        }
+        misses.increment();
+        creates.increment();
+        return create();
     }
 
-    private ConcurrentLinkedQueue<T> getQueue() {
-        WeakReference<ConcurrentLinkedQueue<T>> q = queue;
-        if (q != null) {
-            ConcurrentLinkedQueue<T> d = q.get();
-            if (d != null)
-                return d;
+    /**
+     * Returns an object back to the pool.
+     */
+    public final void recycle(T t) {
+        long now = System.currentTimeMillis();
+        if (!offer(t, now)) {
+            discards.increment();
+            destroy(t);
+        }
+        if (idleTimeout > 0) {
+            long next = nextEviction.get();
+            if (now >= next && nextEviction.compareAndSet(next, now + Math.max(idleTimeout / 2, 1000L))) {
+                evict(now - idleTimeout);
+            }
         }
+    }
 
-        // overwrite the queue
-        ConcurrentLinkedQueue<T> d = new ConcurrentLinkedQueue<T>();
-        queue = new WeakReference<ConcurrentLinkedQueue<T>>(d);
+    /**
+     * Fills the pool upfront, so that the first requests don't pay for
+     * creating the objects.
+     *
+     * @param count
+     *      number of objects the pool should hold. It is capped by the maximum pool size.
+     */
+    public final void warmUp(int count) {
+        long now = System.currentTimeMillis();
+        for (int i = size(); i < Math.min(count, maxSize); i++) {
+            T t = create();
+            creates.increment();
+            if (!offer(t, now)) {
+                discards.increment();
+                destroy(t);
+                break;
+            }
+        }
+    }
 
-        return d;
+    /**
+     * Evicts the objects that were not used for {@code idleTimeout}, keeping
+     * at least {@code minSize} objects in the pool.
+     *
+     * <p>
+     * This is also done periodically as objects are recycled.
+     */
+    public final void evictIdle() {
+        if (idleTimeout > 0) {
+            evict(System.currentTimeMillis() - idleTimeout);
+        }
     }
 
     /**
-     * Returns an object back to the pool.
+     * Number of objects currently in the pool.
      */
-    public final void recycle(T t) {
-        getQueue().offer(t);
+    public final int size() {
+        int size = 0;
+        for (Stripe s : stripes) {
+            size += s.size();
+        }
+        return size;
+    }
+
+    /**
+     * Number of {@link #take()} calls that were served from the pool.
+     */
+    public final long getHitCount() {
+        return hits.sum();
+    }
+
+    /**
+     * Number of {@link #take()} calls that had to create a new object.
+     */
+    public final long getMissCount() {
+        return misses.sum();
+    }
+
+    /**
+     * Number of objects created by this pool, including the ones created by {@link #warmUp(int)}.
+     */
+    public final long getCreateCount() {
+        return creates.sum();
+    }
+
+    /**
+     * Number of recycled objects that were dropped because the pool was full.
+     */
+    public final long getDiscardCount() {
+        return discards.sum();
+    }
+
+    /**
+     * Number of objects evicted because they were idle.
+     */
+    public final long getEvictionCount() {
+        return evictions.sum();
     }
 
     /**
@@ -118,6 +269,121 @@ public abstract class Pool<T> {
      */
     protected abstract T create();
 
+    /**
+     * Releases an object that leaves the pool, because it was evicted
+     * or recycled into a full pool.
+     *
+     * <p>
+     * The default implementation does nothing. Like {@link #create()},
+     * this method may be called by multiple threads concurrently.
+     */
+    protected void destroy(T t) {
+    }
+
+    private boolean offer(T t, long now) {
+        int home = home();
+        for (int i = 0; i < stripes.length; i++) {
+            if (stripes[(home + i) & (stripes.length - 1)].push(t, now)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void evict(long idleSince) {
+        int keep = (minSize + stripes.length - 1) / stripes.length;
+        List<Object> evicted = new ArrayList<Object>();
+        for (Stripe s : stripes) {
+            evictions.add(s.evict(idleSince, keep, evicted));
+        }
+        // outside of the stripe locks, destroy() may take a while
+        for (Object o : evicted) {
+            @SuppressWarnings("unchecked")
+            T t = (T) o;
+            destroy(t);
+        }
+    }
+
+    private int home() {
+        // spread thread ids, as consecutive ids are common
+        long id = Thread.currentThread().getId();
+        int h = (int) (id ^ (id >>> 32)) * 0x9E3779B9;
+        return (h ^ (h >>> 16)) & (stripes.length - 1);
+    }
+
+    private static int getIntProperty(String name, int defaultValue) {
+        try {
+            return Integer.getInteger(name, defaultValue);
+        } catch (SecurityException se) {
+            if (LOGGER.isLoggable(Level.CONFIG)) {
+                LOGGER.log(Level.CONFIG, "Cannot read ''{0}'' property, using defaults.", name);
+            }
+            return defaultValue;
+        }
+    }
+
+    /**
+     * One slot of the pool. A stack, so that the most recently used objects
+     * are handed out first, and the ones at the bottom can become idle.
+     */
+    private static final class Stripe {
+        private final Object[] items;
+        private final long[] lastUsed;
+        private int count;
+
+        Stripe(int capacity) {
+            items = new Object[capacity];
+            lastUsed = new long[capacity];
+        }
+
+        synchronized Object pop() {
+            if (count == 0) {
+                return null;
+            }
+            Object o = items[--count];
+            items[count] = null;
+            return o;
+        }
+
+        synchronized boolean push(Object o, long now) {
+            if (count == items.length) {
+                return false;
+            }
+            items[count] = o;
+            lastUsed[count++] = now;
+            return true;
+        }
+
+        synchronized int size() {
+            return count;
+        }
+
+        /**
+         * Removes objects not used since the given time, oldest first.
+         *
+         * @param evicted
+         *      receives the removed objects
+         * @return the number of removed objects
+         */
+        synchronized int evict(long idleSince, int keep, List<Object> evicted) {
+            int idle = 0;
+            while (idle < count - keep && lastUsed[idle] < idleSince) {
+                idle++;
+            }
+            if (idle > 0) {
+                for (int i = 0; i < idle; i++) {
+                    evicted.add(items[i]);
+                }
+                System.arraycopy(items, idle, items, 0, count - idle);
+                System.arraycopy(lastUsed, idle, lastUsed, 0, count - idle);
+                for (int i = count - idle; i < count; i++) {
+                    items[i] = null;
+                }
+                count -= idle;
+            }
+            return idle;
+        }
+    }
 
     /**
      * JAXB {@link javax.xml.bind.Marshaller} pool.
@@ -163,19 +429,56 @@ public abstract class Pool<T> {
 
     /**
      * {@link Tube} pool.
+     *
+     * <p>
+     * {@link Tube#preDestroy()} is normally called on one copy of a tubeline only,
+     * and copies may share tubes (such as the terminal tube of an endpoint), so
+     * by default the copies that leave the pool are just dropped. Pools of tubelines
+     * whose copies each hold their own resources (such as transport tubes) can
+     * ask for {@link Tube#preDestroy()} to be called on every evicted or discarded copy.
+     * The master is never destroyed by the pool, see {@link #takeMaster()}.
      */
     public static final class TubePool extends Pool<Tube> {
         private final Tube master;
+        private final boolean destroyCopies;
 
         public TubePool(Tube master) {
             this.master = master;
+            this.destroyCopies = false;
             recycle(master);    // we'll use master as a part of the pool, too.
         }
 
+        public TubePool(Tube master, int minSize, int maxSize, long idleTimeout) {
+            this(master, minSize, maxSize, idleTimeout, false);
+        }
+
+        /**
+         * @param destroyCopies
+         *      true to call {@link Tube#preDestroy()} on every copy that is evicted
+         *      from the pool or recycled into a full pool.
+         */
+        public TubePool(Tube master, int minSize, int maxSize, long idleTimeout, boolean destroyCopies) {
+            super(minSize, maxSize, idleTimeout);
+            this.master = master;
+            this.destroyCopies = destroyCopies;
+            recycle(master);
+        }
+
         @Override
         protected Tube create() {
             return TubeCloner.clone(master);
         }
+
+        @Override
+        protected void destroy(Tube tube) {
+            if (destroyCopies && tube != master) {
+                try {
+                    tube.preDestroy();
+                } catch (RuntimeException e) {
+                    LOGGER.log(Level.WARNING, "Failed to destroy a pooled tube", e);
+                }
+            }
+        }
         
         /**
          *
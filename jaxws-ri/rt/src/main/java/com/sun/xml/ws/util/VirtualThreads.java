@@ -0,0 +1,163 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2017 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * http://glassfish.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package com.sun.xml.ws.util;
+
+import com.sun.istack.Nullable;
+
+import java.lang.reflect.Method;
+import java.security.AccessController;
+import java.security.PrivilegedAction;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Runs the runtime's own threads as virtual threads when the JDK supports them.
+ *
+ * <p>
+ * The mode is opt-in, and is enabled with the {@code com.sun.xml.ws.virtualThreads}
+ * system property. Once enabled, the default {@link java.util.concurrent.Executor}s of
+ * {@link com.sun.xml.ws.api.pipe.Engine} (which run fibers on the server side and
+ * asynchronous invocations on the client side), and the one of the built-in HTTP server,
+ * start a new virtual thread for every task instead of using a pool of platform threads.
+ * Executors set by the application or the container are used as is.
+ *
+ * <p>
+ * Virtual threads are only available from Java 21, so they are looked up with reflection.
+ * On older JDKs the property is ignored.
+ */
+public final class VirtualThreads {
+
+    private static final Logger LOGGER = Logger.getLogger(VirtualThreads.class.getName());
+
+    private static final String PROPERTY = "com.sun.xml.ws.virtualThreads";
+
+    /**
+     * {@code Thread.ofVirtual()}, {@code Thread.Builder.name(String, long)},
+     * {@code Thread.Builder.factory()} and {@code Executors.newThreadPerTaskExecutor(ThreadFactory)},
+     * or null if not available.
+     */
+    private static final Method OF_VIRTUAL;
+    private static final Method NAME;
+    private static final Method FACTORY;
+    private static final Method NEW_THREAD_PER_TASK_EXECUTOR;
+
+    private static final boolean enabled;
+
+    static {
+        Method[] methods = AccessController.doPrivileged(new PrivilegedAction<Method[]>() {
+            @Override
+            public Method[] run() {
+                try {
+                    Method ofVirtual = Thread.class.getMethod("ofVirtual");
+                    Class<?> builder = Class.forName("java.lang.Thread$Builder");
+                    return new Method[] {
+                        ofVirtual,
+                        builder.getMethod("name", String.class, long.class),
+                        builder.getMethod("factory"),
+                        Executors.class.getMethod("newThreadPerTaskExecutor", ThreadFactory.class)
+                    };
+                } catch (ClassNotFoundException | NoSuchMethodException e) {
+                    // virtual threads are added in Java SE 21
+                    return null;
+                }
+            }
+        });
+        OF_VIRTUAL = methods != null ? methods[0] : null;
+        NAME = methods != null ? methods[1] : null;
+        FACTORY = methods != null ? methods[2] : null;
+        NEW_THREAD_PER_TASK_EXECUTOR = methods != null ? methods[3] : null;
+
+        boolean requested = false;
+        try {
+            requested = Boolean.getBoolean(PROPERTY);
+        } catch (SecurityException se) {
+            if (LOGGER.isLoggable(Level.CONFIG)) {
+                LOGGER.log(Level.CONFIG, "Cannot read ''{0}'' property, using defaults.", PROPERTY);
+            }
+        }
+        if (requested && OF_VIRTUAL == null) {
+            LOGGER.log(Level.WARNING, "{0} is set, but this JDK doesn''t support virtual threads. Using platform threads.", PROPERTY);
+        }
+        enabled = requested && OF_VIRTUAL != null;
+    }
+
+    private VirtualThreads() {
+    }
+
+    /**
+     * True if the runtime should run its threads as virtual threads.
+     */
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * True if the JDK supports virtual threads.
+     */
+    public static boolean isSupported() {
+        return OF_VIRTUAL != null;
+    }
+
+    /**
+     * Creates an {@link ExecutorService} that starts a new virtual thread for each task.
+     *
+     * @param namePrefix
+     *      prefix of the thread names, followed by a counter.
+     * @return
+     *      null if the JDK doesn't support virtual threads.
+     */
+    public static @Nullable ExecutorService newVirtualThreadPerTaskExecutor(String namePrefix) {
+        if (OF_VIRTUAL == null) {
+            return null;
+        }
+        try {
+            Object builder = NAME.invoke(OF_VIRTUAL.invoke(null), namePrefix, 0L);
+            ThreadFactory factory = (ThreadFactory) FACTORY.invoke(builder);
+            return (ExecutorService) NEW_THREAD_PER_TASK_EXECUTOR.invoke(null, factory);
+        } catch (ReflectiveOperationException e) {
+            LOGGER.log(Level.WARNING, "Cannot create a virtual thread executor. Using platform threads.", e);
+            return null;
+        }
+    }
+}
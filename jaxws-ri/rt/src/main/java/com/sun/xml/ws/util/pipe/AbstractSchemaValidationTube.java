@@ -54,8 +54,10 @@ import com.sun.xml.ws.api.server.SDDocument;
 import com.sun.xml.ws.api.server.SDDocumentSource;
 import com.sun.xml.ws.developer.SchemaValidationFeature;
 import com.sun.xml.ws.developer.ValidationErrorHandler;
+import com.sun.xml.ws.server.DraconianValidationErrorHandler;
 import com.sun.xml.ws.server.SDDocumentImpl;
 import com.sun.xml.ws.util.ByteArrayBuffer;
+import com.sun.xml.ws.util.Pool;
 import com.sun.xml.ws.util.xml.XmlUtil;
 import com.sun.xml.ws.wsdl.SDDocumentResolver;
 import com.sun.xml.ws.wsdl.parser.WSDLConstants;
@@ -73,8 +75,10 @@ import javax.xml.transform.TransformerException;
 import javax.xml.transform.dom.DOMResult;
 import javax.xml.transform.dom.DOMSource;
 import javax.xml.transform.stream.StreamSource;
+import javax.xml.validation.Schema;
 import javax.xml.validation.SchemaFactory;
 import javax.xml.validation.Validator;
+import javax.xml.validation.ValidatorHandler;
 import javax.xml.ws.WebServiceException;
 import java.io.IOException;
 import java.io.InputStream;
@@ -102,12 +106,30 @@ public abstract class AbstractSchemaValidationTube extends AbstractFilterTubeImp
     protected final SchemaValidationFeature feature;
     protected final DocumentAddressResolver resolver = new ValidationDocumentAddressResolver();
     protected final SchemaFactory sf;
+    /**
+     * {@link ValidatorHandler}s for the {@link SchemaValidationFeature#isStreaming() streaming} mode,
+     * shared by all the copies of the tube.
+     */
+    private final Pool<ValidatorHandler> validatorHandlers;
+    /**
+     * Reused for all the messages, if the feature uses {@link DraconianValidationErrorHandler}.
+     * It doesn't look at the packet.
+     */
+    private final ValidationErrorHandler draconianHandler;
 
     public AbstractSchemaValidationTube(WSBinding binding, Tube next) {
         super(next);
         this.binding = binding;
         feature = binding.getFeature(SchemaValidationFeature.class);
         sf = allowExternalAccess(SchemaFactory.newInstance(XMLConstants.W3C_XML_SCHEMA_NS_URI), "all", false);
+        validatorHandlers = new Pool<ValidatorHandler>() {
+            @Override
+            protected ValidatorHandler create() {
+                return getSchema().newValidatorHandler();
+            }
+        };
+        draconianHandler = (feature != null && feature.getErrorHandler() == DraconianValidationErrorHandler.class)
+                ? new DraconianValidationErrorHandler() : null;
     }
 
     protected AbstractSchemaValidationTube(AbstractSchemaValidationTube that, TubeCloner cloner) {
@@ -115,10 +137,22 @@ public abstract class AbstractSchemaValidationTube extends AbstractFilterTubeImp
         this.binding = that.binding;
         this.feature = that.feature;
         this.sf = that.sf;
+        this.validatorHandlers = that.validatorHandlers;
+        this.draconianHandler = that.draconianHandler;
     }
 
     protected abstract Validator getValidator();
 
+    /**
+     * {@link Schema} that is used to validate the messages, for the
+     * {@link SchemaValidationFeature#isStreaming() streaming} mode.
+     *
+     * @return null if the streaming mode isn't supported
+     */
+    protected @Nullable Schema getSchema() {
+        return null;
+    }
+
     protected abstract boolean isNoValidation();
 
     private static class ValidationDocumentAddressResolver implements DocumentAddressResolver {
@@ -557,15 +591,7 @@ public abstract class AbstractSchemaValidationTube extends AbstractFilterTubeImp
 
     protected void doProcess(Packet packet) throws SAXException {
         getValidator().reset();
-        Class<? extends ValidationErrorHandler> handlerClass = feature.getErrorHandler();
-        ValidationErrorHandler handler;
-        try {
-            handler = handlerClass.newInstance();
-        } catch(Exception e) {
-            throw new WebServiceException(e);
-        }
-        handler.setPacket(packet);
-        getValidator().setErrorHandler(handler);
+        getValidator().setErrorHandler(createErrorHandler(packet));
         Message msg = packet.getMessage().copy();
         Source source = msg.readPayloadAsSource();
         try {
@@ -577,6 +603,50 @@ public abstract class AbstractSchemaValidationTube extends AbstractFilterTubeImp
         }
     }
 
+    /**
+     * Validates an inbound message. In the {@link SchemaValidationFeature#isStreaming() streaming}
+     * mode, the message of the packet is replaced with a message that is
+     * validated while it's read. Otherwise, it's validated right away, like
+     * {@link #doProcess(Packet)}.
+     */
+    protected void doProcessInbound(Packet packet) throws SAXException {
+        if (feature.isStreaming() && getSchema() != null) {
+            packet.setMessage(new ValidatingMessage(packet.getMessage(), validatorHandlers, createErrorHandler(packet)));
+        } else {
+            doProcess(packet);
+        }
+    }
+
+    /**
+     * Gets the validation error of a message validated in the
+     * {@link SchemaValidationFeature#isStreaming() streaming} mode, which
+     * is raised by the tubes that read the message.
+     *
+     * @return null if the exception isn't caused by an invalid message
+     */
+    protected static @Nullable SAXException getStreamingValidationError(Throwable t) {
+        for (; t != null; t = t.getCause()) {
+            if (t instanceof StreamingValidationException) {
+                return ((StreamingValidationException) t).getCause();
+            }
+        }
+        return null;
+    }
+
+    private ValidationErrorHandler createErrorHandler(Packet packet) {
+        if (draconianHandler != null) {
+            return draconianHandler;
+        }
+        ValidationErrorHandler handler;
+        try {
+            handler = feature.getErrorHandler().newInstance();
+        } catch(Exception e) {
+            throw new WebServiceException(e);
+        }
+        handler.setPacket(packet);
+        return handler;
+    }
+
     private String getTargetNamespace(DOMSource src) {
         Element elem = (Element)src.getNode();
         return elem.getAttribute("targetNamespace");
@@ -0,0 +1,286 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2017 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * http://glassfish.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package com.sun.xml.ws.util.pipe;
+
+import com.sun.xml.bind.api.Bridge;
+import com.sun.xml.ws.api.message.FilterMessageImpl;
+import com.sun.xml.ws.api.message.Message;
+import com.sun.xml.ws.api.message.Packet;
+import com.sun.xml.ws.api.streaming.XMLStreamReaderFactory;
+import com.sun.xml.ws.message.AttachmentUnmarshallerImpl;
+import com.sun.xml.ws.spi.db.XMLBridge;
+import com.sun.xml.ws.streaming.XMLStreamReaderUtil;
+import com.sun.xml.ws.util.Pool;
+import org.xml.sax.ContentHandler;
+import org.xml.sax.ErrorHandler;
+import org.xml.sax.SAXException;
+
+import javax.xml.bind.JAXBException;
+import javax.xml.bind.Unmarshaller;
+import javax.xml.soap.SOAPException;
+import javax.xml.soap.SOAPMessage;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import javax.xml.stream.XMLStreamWriter;
+import javax.xml.transform.Source;
+import javax.xml.validation.ValidatorHandler;
+import javax.xml.ws.WebServiceException;
+
+/**
+ * {@link Message} whose payload is validated while it's read, so that the
+ * message is neither buffered nor parsed twice for the validation.
+ *
+ * <p>
+ * The payload is validated with {@link ValidatingStreamReader} when it's read
+ * with {@link #readPayload()}, {@link #readPayloadAsJAXB} or {@link #consume()},
+ * which is how the databinding reads messages. Any other access to the message
+ * validates a copy of it first, like {@link AbstractSchemaValidationTube} does
+ * in the default mode.
+ *
+ * <p>
+ * When the payload is invalid, these methods throw a {@link WebServiceException}
+ * caused by the {@link SAXException} of the validator, as the default mode
+ * does, instead of the error of the databinding that was reading the payload.
+ * A consumer that reads the payload with {@link #readPayload()} owns the
+ * reader, and only gets the rest of the payload validated when it reads it or
+ * closes the reader.
+ */
+final class ValidatingMessage extends FilterMessageImpl implements ValidatingStreamReader.Listener {
+
+    private final Message delegate;
+    private final Pool<ValidatorHandler> handlers;
+    private final ErrorHandler errorHandler;
+    private boolean validated;
+    private SAXException failure;
+
+    ValidatingMessage(Message delegate, Pool<ValidatorHandler> handlers, ErrorHandler errorHandler) {
+        super(delegate);
+        this.delegate = delegate;
+        this.handlers = handlers;
+        this.errorHandler = errorHandler;
+    }
+
+    public void failed(SAXException e) {
+        if (failure == null) {
+            failure = e;
+        }
+    }
+
+    public void done(ValidatorHandler handler) {
+        handler.setErrorHandler(null);
+        handlers.recycle(handler);
+    }
+
+    @Override
+    public XMLStreamReader readPayload() throws XMLStreamException {
+        XMLStreamReader reader = delegate.readPayload();
+        if (validated || reader == null) {
+            return reader;
+        }
+        validated = true;
+        return validating(reader);
+    }
+
+    @Override
+    public Object readPayloadAsJAXB(Unmarshaller unmarshaller) throws JAXBException {
+        if (validated || !hasPayload()) {
+            return delegate.readPayloadAsJAXB(unmarshaller);
+        }
+        XMLStreamReader reader = readValidatingPayload();
+        if (hasAttachments()) {
+            unmarshaller.setAttachmentUnmarshaller(new AttachmentUnmarshallerImpl(getAttachments()));
+        }
+        try {
+            return unmarshaller.unmarshal(reader);
+        } catch (JAXBException e) {
+            checkFailure(e);
+            throw e;
+        } finally {
+            unmarshaller.setAttachmentUnmarshaller(null);
+            readRest(reader);
+        }
+    }
+
+    @Override
+    public <T> T readPayloadAsJAXB(Bridge<T> bridge) throws JAXBException {
+        if (validated || !hasPayload()) {
+            return delegate.readPayloadAsJAXB(bridge);
+        }
+        XMLStreamReader reader = readValidatingPayload();
+        try {
+            return bridge.unmarshal(reader, hasAttachments() ? new AttachmentUnmarshallerImpl(getAttachments()) : null);
+        } catch (JAXBException e) {
+            checkFailure(e);
+            throw e;
+        } finally {
+            readRest(reader);
+        }
+    }
+
+    @Override
+    public <T> T readPayloadAsJAXB(XMLBridge<T> bridge) throws JAXBException {
+        if (validated || !hasPayload()) {
+            return delegate.readPayloadAsJAXB(bridge);
+        }
+        XMLStreamReader reader = readValidatingPayload();
+        try {
+            return bridge.unmarshal(reader, hasAttachments() ? new AttachmentUnmarshallerImpl(getAttachments()) : null);
+        } catch (JAXBException e) {
+            checkFailure(e);
+            throw e;
+        } finally {
+            readRest(reader);
+        }
+    }
+
+    @Override
+    public void consume() {
+        if (validated || !hasPayload()) {
+            delegate.consume();
+            return;
+        }
+        readRest(readValidatingPayload());
+    }
+
+    @Override
+    public Source readEnvelopeAsSource() {
+        validateCopy();
+        return delegate.readEnvelopeAsSource();
+    }
+
+    @Override
+    public Source readPayloadAsSource() {
+        validateCopy();
+        return delegate.readPayloadAsSource();
+    }
+
+    @Override
+    public SOAPMessage readAsSOAPMessage() throws SOAPException {
+        validateCopy();
+        return delegate.readAsSOAPMessage();
+    }
+
+    @Override
+    public SOAPMessage readAsSOAPMessage(Packet packet, boolean inbound) throws SOAPException {
+        validateCopy();
+        return delegate.readAsSOAPMessage(packet, inbound);
+    }
+
+    @Override
+    public void writePayloadTo(XMLStreamWriter sw) throws XMLStreamException {
+        validateCopy();
+        delegate.writePayloadTo(sw);
+    }
+
+    @Override
+    public void writeTo(XMLStreamWriter sw) throws XMLStreamException {
+        validateCopy();
+        delegate.writeTo(sw);
+    }
+
+    @Override
+    public void writeTo(ContentHandler contentHandler, ErrorHandler errorHandler) throws SAXException {
+        validateCopy();
+        delegate.writeTo(contentHandler, errorHandler);
+    }
+
+    @Override
+    public Message copy() {
+        validateCopy();
+        return delegate.copy();
+    }
+
+    private XMLStreamReader readValidatingPayload() {
+        try {
+            return readPayload();
+        } catch (XMLStreamException e) {
+            checkFailure(e);
+            throw new WebServiceException(e);
+        }
+    }
+
+    private XMLStreamReader validating(XMLStreamReader reader) throws XMLStreamException {
+        ValidatorHandler handler = handlers.take();
+        handler.setErrorHandler(errorHandler);
+        return new ValidatingStreamReader(reader, handler, this);
+    }
+
+    /**
+     * Validates a copy of the message, for the accesses that don't go through
+     * an {@link XMLStreamReader}.
+     */
+    private void validateCopy() {
+        if (validated || !hasPayload()) {
+            return;
+        }
+        validated = true;
+        try {
+            readRest(validating(delegate.copy().readPayload()));
+        } catch (XMLStreamException e) {
+            checkFailure(e);
+            throw new WebServiceException(e);
+        }
+    }
+
+    private void readRest(XMLStreamReader reader) {
+        try {
+            XMLStreamReaderUtil.readRest(reader);
+            XMLStreamReaderUtil.close(reader);
+        } catch (WebServiceException e) {
+            checkFailure(e);
+            throw e;
+        } finally {
+            XMLStreamReaderFactory.recycle(reader);
+        }
+    }
+
+    /**
+     * Throws the validation error, if the payload turned out to be invalid
+     * while the given error was raised.
+     */
+    private void checkFailure(Exception e) {
+        if (failure != null) {
+            StreamingValidationException x = new StreamingValidationException(failure);
+            x.addSuppressed(e);
+            throw x;
+        }
+    }
+}
@@ -0,0 +1,286 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2017 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * http://glassfish.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package com.sun.xml.ws.util.pipe;
+
+import com.sun.xml.ws.util.xml.XMLStreamReaderFilter;
+import org.xml.sax.Locator;
+import org.xml.sax.SAXException;
+import org.xml.sax.helpers.AttributesImpl;
+import org.xml.sax.helpers.NamespaceSupport;
+
+import javax.xml.XMLConstants;
+import javax.xml.stream.Location;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import javax.xml.validation.ValidatorHandler;
+import java.util.Enumeration;
+
+/**
+ * {@link XMLStreamReader} that validates the payload element while it's
+ * read, by feeding the events the consumer pulls to a {@link ValidatorHandler}.
+ *
+ * <p>
+ * The reader must be positioned at the start of the payload element. Events
+ * after the end of the payload element are not validated. Validation errors
+ * that the error handler reports are thrown as {@link XMLStreamException}s
+ * from {@link #next()}. Closing the reader before the end of the payload
+ * reads and validates the rest of the payload, so that a consumer that stops
+ * early doesn't skip the validation.
+ *
+ * <p>
+ * Namespace declarations of the ancestors (envelope, body) can't be enumerated
+ * with {@link XMLStreamReader}, so the prefixes that the payload uses in element
+ * and attribute names, and in {@code xsi:type} values, are declared to the
+ * validator when they are first used.
+ */
+final class ValidatingStreamReader extends XMLStreamReaderFilter implements Locator {
+
+    /**
+     * Notified once the validation of the payload completed or failed.
+     */
+    interface Listener {
+        /**
+         * Called before {@link #done(ValidatorHandler)} when the payload is invalid.
+         */
+        void failed(SAXException e);
+
+        void done(ValidatorHandler handler);
+    }
+
+    private final ValidatorHandler handler;
+    private final Listener listener;
+    private final NamespaceSupport nss = new NamespaceSupport();
+    private final AttributesImpl attributes = new AttributesImpl();
+    private int depth;
+    private boolean done;
+
+    ValidatingStreamReader(XMLStreamReader core, ValidatorHandler handler, Listener listener) throws XMLStreamException {
+        super(core);
+        this.handler = handler;
+        this.listener = listener;
+        handler.setDocumentLocator(this);
+        try {
+            handler.startDocument();
+        } catch (SAXException e) {
+            listener.failed(e);
+            finish();
+            throw error(e);
+        }
+        validate(core.getEventType());
+    }
+
+    @Override
+    public int next() throws XMLStreamException {
+        int event = super.next();
+        validate(event);
+        return event;
+    }
+
+    // must go through next(), so that all the events are validated
+    @Override
+    public int nextTag() throws XMLStreamException {
+        int event = next();
+        while ((event == CHARACTERS && isWhiteSpace()) || (event == CDATA && isWhiteSpace())
+                || event == SPACE || event == PROCESSING_INSTRUCTION || event == COMMENT) {
+            event = next();
+        }
+        if (event != START_ELEMENT && event != END_ELEMENT) {
+            throw new XMLStreamException("expected start or end tag", getLocation());
+        }
+        return event;
+    }
+
+    @Override
+    public String getElementText() throws XMLStreamException {
+        if (getEventType() != START_ELEMENT) {
+            throw new XMLStreamException("parser must be on START_ELEMENT to read next text", getLocation());
+        }
+        StringBuilder text = new StringBuilder();
+        int event = next();
+        while (event != END_ELEMENT) {
+            if (event == CHARACTERS || event == CDATA || event == SPACE || event == ENTITY_REFERENCE) {
+                text.append(getText());
+            } else if (event != PROCESSING_INSTRUCTION && event != COMMENT) {
+                throw new XMLStreamException("unexpected event while reading element text", getLocation());
+            }
+            event = next();
+        }
+        return text.toString();
+    }
+
+    @Override
+    public void close() throws XMLStreamException {
+        try {
+            while (!done && getEventType() != END_DOCUMENT) {
+                next();
+            }
+        } finally {
+            finish();
+            super.close();
+        }
+    }
+
+    private void validate(int event) throws XMLStreamException {
+        if (done) {
+            return;
+        }
+        try {
+            switch (event) {
+                case START_ELEMENT:
+                    depth++;
+                    startElement();
+                    break;
+                case END_ELEMENT:
+                    endElement();
+                    if (--depth == 0) {
+                        handler.endDocument();
+                        finish();
+                    }
+                    break;
+                case CHARACTERS:
+                case CDATA:
+                case SPACE:
+                    if (depth > 0) {
+                        handler.characters(getTextCharacters(), getTextStart(), getTextLength());
+                    }
+                    break;
+                default:
+                    break;
+            }
+        } catch (SAXException e) {
+            listener.failed(e);
+            finish();
+            throw error(e);
+        }
+    }
+
+    private void startElement() throws SAXException {
+        nss.pushContext();
+        for (int i = 0; i < getNamespaceCount(); i++) {
+            declare(getNamespacePrefix(i), getNamespaceURI(i));
+        }
+        String prefix = fixNull(getPrefix());
+        String uri = fixNull(getNamespaceURI());
+        if (!uri.equals(fixNull(nss.getURI(prefix)))) {
+            declare(prefix, uri);
+        }
+        attributes.clear();
+        for (int i = 0; i < getAttributeCount(); i++) {
+            String aPrefix = fixNull(getAttributePrefix(i));
+            String aUri = fixNull(getAttributeNamespace(i));
+            String aLocal = getAttributeLocalName(i);
+            String value = getAttributeValue(i);
+            if (aPrefix.length() > 0 && nss.getURI(aPrefix) == null) {
+                declare(aPrefix, aUri);
+            }
+            if (XMLConstants.W3C_XML_SCHEMA_INSTANCE_NS_URI.equals(aUri) && "type".equals(aLocal)) {
+                int colon = value.indexOf(':');
+                String vPrefix = (colon < 0) ? "" : value.substring(0, colon).trim();
+                if (nss.getURI(vPrefix) == null) {
+                    String vUri = getNamespaceURI(vPrefix);
+                    if (vUri != null) {
+                        declare(vPrefix, vUri);
+                    }
+                }
+            }
+            attributes.addAttribute(aUri, aLocal, qname(aPrefix, aLocal), "CDATA", value);
+        }
+        handler.startElement(uri, getLocalName(), qname(prefix, getLocalName()), attributes);
+    }
+
+    private void endElement() throws SAXException {
+        handler.endElement(fixNull(getNamespaceURI()), getLocalName(), qname(fixNull(getPrefix()), getLocalName()));
+        Enumeration prefixes = nss.getDeclaredPrefixes();
+        while (prefixes.hasMoreElements()) {
+            handler.endPrefixMapping((String) prefixes.nextElement());
+        }
+        nss.popContext();
+    }
+
+    private void declare(String prefix, String uri) throws SAXException {
+        prefix = fixNull(prefix);
+        uri = fixNull(uri);
+        if (nss.declarePrefix(prefix, uri)) {
+            handler.startPrefixMapping(prefix, uri);
+        }
+    }
+
+    private void finish() {
+        if (!done) {
+            done = true;
+            listener.done(handler);
+        }
+    }
+
+    private XMLStreamException error(SAXException e) {
+        return new XMLStreamException(e.getMessage(), getLocation(), e);
+    }
+
+    private static String fixNull(String s) {
+        return (s == null) ? "" : s;
+    }
+
+    private static String qname(String prefix, String localName) {
+        return (prefix.length() == 0) ? localName : prefix + ':' + localName;
+    }
+
+    // Locator
+
+    public String getPublicId() {
+        Location l = getLocation();
+        return (l == null) ? null : l.getPublicId();
+    }
+
+    public String getSystemId() {
+        Location l = getLocation();
+        return (l == null) ? null : l.getSystemId();
+    }
+
+    public int getLineNumber() {
+        Location l = getLocation();
+        return (l == null) ? -1 : l.getLineNumber();
+    }
+
+    public int getColumnNumber() {
+        Location l = getLocation();
+        return (l == null) ? -1 : l.getColumnNumber();
+    }
+}
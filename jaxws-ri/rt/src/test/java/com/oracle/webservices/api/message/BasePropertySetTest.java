@@ -0,0 +1,159 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2017 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * http://glassfish.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package com.oracle.webservices.api.message;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests the typed property access of {@link BasePropertySet}.
+ */
+public class BasePropertySetTest extends TestCase {
+
+    public static class Props extends BaseDistributedPropertySet {
+        private static final PropertyMap model = parse(Props.class);
+
+        @Property("field")
+        private String field;
+
+        @Property("flag")
+        boolean flag;
+
+        private int number;
+
+        @Property("number")
+        public Integer getNumber() {
+            return number;
+        }
+
+        public void setNumber(Integer number) {
+            this.number = number;
+        }
+
+        @Property("readOnly")
+        public String getReadOnly() {
+            return "ro";
+        }
+
+        @Override
+        protected PropertyMap getPropertyMap() {
+            return model;
+        }
+    }
+
+    public static class FailingProps extends BasePropertySet {
+        private static final PropertyMap model = parse(FailingProps.class);
+
+        @Property("failing")
+        public String getFailing() {
+            throw new IllegalStateException("failing");
+        }
+
+        @Override
+        protected PropertyMap getPropertyMap() {
+            return model;
+        }
+    }
+
+    public void testField() {
+        Props props = new Props();
+        assertNull(props.put("field", "a"));
+        assertEquals("a", props.field);
+        assertEquals("a", props.put("field", "b"));
+        assertEquals("b", props.get("field"));
+        assertEquals("b", props.remove("field"));
+        assertNull(props.field);
+
+        props.put("flag", Boolean.TRUE);
+        assertTrue(props.flag);
+        assertEquals(Boolean.TRUE, props.get("flag"));
+    }
+
+    public void testMethod() {
+        Props props = new Props();
+        props.put("number", 5);
+        assertEquals(5, props.number);
+        assertEquals(5, props.get("number"));
+        assertEquals("ro", props.get("readOnly"));
+        try {
+            props.put("readOnly", "x");
+            fail();
+        } catch (ReadOnlyPropertyException e) {
+            // expected
+        }
+        try {
+            new FailingProps().get("failing");
+            fail();
+        } catch (IllegalStateException e) {
+            assertEquals("failing", e.getMessage());
+        }
+    }
+
+    public void testContainsKey() {
+        Props props = new Props();
+        assertTrue(props.containsKey("field"));
+        assertFalse(props.containsKey("unknown"));
+        props.asMap().remove("field");
+        assertFalse(props.containsKey("field"));
+        assertFalse(new FailingProps().containsKey("unknown"));
+    }
+
+    public void testMapView() {
+        Props props = new Props();
+        props.field = "a";
+        Map<String, Object> map = props.asMap();
+        assertEquals("a", map.get("field"));
+        props.field = "b";
+
+        Map<String, Object> copy = new HashMap<String, Object>();
+        for (Map.Entry<String, Object> e : map.entrySet()) {
+            copy.put(e.getKey(), e.getValue());
+        }
+        assertEquals("b", copy.get("field"));
+        assertEquals(0, copy.get("number"));
+        assertEquals("ro", copy.get("readOnly"));
+
+        map.put("field", "c");
+        assertEquals("c", props.field);
+    }
+}
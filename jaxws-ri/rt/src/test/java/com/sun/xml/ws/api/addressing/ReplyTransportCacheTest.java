@@ -0,0 +1,300 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2017 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * http://glassfish.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package com.sun.xml.ws.api.addressing;
+
+import com.sun.xml.ws.api.BindingID;
+import com.sun.xml.ws.api.Component;
+import com.sun.xml.ws.api.EndpointAddress;
+import com.sun.xml.ws.api.SOAPVersion;
+import com.sun.xml.ws.api.message.Messages;
+import com.sun.xml.ws.api.message.Packet;
+import com.sun.xml.ws.api.pipe.ClientTubeAssemblerContext;
+import com.sun.xml.ws.api.pipe.Fiber;
+import com.sun.xml.ws.api.pipe.NextAction;
+import com.sun.xml.ws.api.pipe.TransportTubeFactory;
+import com.sun.xml.ws.api.pipe.Tube;
+import com.sun.xml.ws.api.pipe.TubeCloner;
+import com.sun.xml.ws.api.pipe.helper.AbstractTubeImpl;
+import com.sun.xml.ws.api.server.Container;
+import com.sun.xml.ws.api.server.WSEndpoint;
+import com.sun.xml.ws.binding.BindingImpl;
+import junit.framework.TestCase;
+import org.xml.sax.EntityResolver;
+
+import javax.jws.WebService;
+import javax.xml.transform.Source;
+import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.stream.StreamResult;
+import javax.xml.transform.stream.StreamSource;
+import javax.xml.ws.WebServiceException;
+import java.io.Closeable;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class ReplyTransportCacheTest extends TestCase {
+
+    private static final String PAYLOAD = "<echo xmlns=\"urn:test\">hello</echo>";
+
+    private final AtomicInteger transports = new AtomicInteger();
+    private final AtomicInteger destroyed = new AtomicInteger();
+    private final AtomicInteger failures = new AtomicInteger();
+    private final List<String> payloads = new CopyOnWriteArrayList<String>();
+    private final List<Thread> threads = new CopyOnWriteArrayList<Thread>();
+    private final List<ClassLoader> loaders = new CopyOnWriteArrayList<ClassLoader>();
+    private Executor containerExecutor;
+    private WSEndpoint<Echo> endpoint;
+
+    @Override
+    protected void setUp() throws Exception {
+        Container container = new Container() {
+            @Override
+            public <S> S getSPI(Class<S> spiType) {
+                if (spiType == TransportTubeFactory.class) {
+                    return spiType.cast(new TransportTubeFactory() {
+                        @Override
+                        public Tube doCreate(ClientTubeAssemblerContext context) {
+                            transports.incrementAndGet();
+                            return new ReplyTube();
+                        }
+                    });
+                }
+                if (spiType == Executor.class) {
+                    return spiType.cast(containerExecutor);
+                }
+                return null;
+            }
+        };
+        endpoint = WSEndpoint.create(Echo.class, false, null, null, null, container,
+                BindingImpl.create(BindingID.SOAP11_HTTP), null, null, (EntityResolver) null, false);
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        endpoint.dispose();
+    }
+
+    public void testTransportsArePooled() throws Exception {
+        ReplyTransportCache cache = ReplyTransportCache.get(endpoint);
+        assertSame(cache, ReplyTransportCache.get(endpoint));
+        for (int i = 0; i < 3; i++) {
+            assertNotNull(deliver(cache, "http://localhost/replies").response);
+        }
+        assertEquals("one transport per reply address", 1, transports.get());
+        assertNotNull(deliver(cache, "http://localhost/other").response);
+        assertEquals(2, transports.get());
+        assertEquals(4, payloads.size());
+    }
+
+    public void testFailedDeliveryIsRetried() throws Exception {
+        failures.set(1);
+        ClassLoader loader = new ClassLoader() {};
+        ClassLoader old = Thread.currentThread().getContextClassLoader();
+        Thread.currentThread().setContextClassLoader(loader);
+        Callback callback;
+        try {
+            callback = deliver(ReplyTransportCache.get(endpoint), "http://localhost/replies");
+        } finally {
+            Thread.currentThread().setContextClassLoader(old);
+        }
+        assertNull(callback.error);
+        assertNotNull(callback.response);
+        assertEquals("the retry must send the whole response again", 2, payloads.size());
+        assertEquals(payloads.get(0), payloads.get(1));
+        assertTrue(payloads.get(1), payloads.get(1).contains("hello"));
+        assertSame("the retry runs with the class loader of the request", loader, loaders.get(1));
+    }
+
+    public void testFailedTransportIsDestroyed() throws Exception {
+        // the master fails first and stays for cloning, then a copy fails
+        failures.set(2);
+        Callback callback = deliver(ReplyTransportCache.get(endpoint), "http://localhost/replies");
+        assertNotNull(callback.response);
+        assertEquals(3, payloads.size());
+        assertEquals("the failed copy", 1, destroyed.get());
+        endpoint.dispose();
+        assertEquals("and the master", 2, destroyed.get());
+    }
+
+    public void testDisposeClosesOnlyOwnComponents() throws Exception {
+        final AtomicInteger closed = new AtomicInteger();
+        endpoint.getComponents().add(new Component() {
+            @Override
+            public <S> S getSPI(Class<S> spiType) {
+                if (spiType == Closeable.class) {
+                    return spiType.cast(new Closeable() {
+                        @Override
+                        public void close() {
+                            closed.incrementAndGet();
+                        }
+                    });
+                }
+                return null;
+            }
+        });
+        assertNotNull(deliver(ReplyTransportCache.get(endpoint), "http://localhost/replies").response);
+        endpoint.dispose();
+        assertEquals(1, destroyed.get());
+        assertEquals("components the endpoint doesn't own are left alone", 0, closed.get());
+    }
+
+    public void testDisposeReleasesThreadsAndTransports() throws Exception {
+        ReplyTransportCache cache = ReplyTransportCache.get(endpoint);
+        assertNotNull(deliver(cache, "http://localhost/replies").response);
+        Thread thread = threads.get(0);
+        assertTrue(thread.getName(), thread.getName().startsWith("jaxws-reply-delivery-"));
+
+        endpoint.dispose();
+        assertEquals(1, destroyed.get());
+        thread.join(5000);
+        assertFalse("delivery threads must stop with the endpoint", thread.isAlive());
+        try {
+            deliver(cache, "http://localhost/replies");
+            fail();
+        } catch (WebServiceException e) {
+            // expected
+        }
+    }
+
+    public void testContainerExecutor() throws Exception {
+        final AtomicInteger executed = new AtomicInteger();
+        containerExecutor = new Executor() {
+            @Override
+            public void execute(Runnable command) {
+                executed.incrementAndGet();
+                new Thread(command, "container").start();
+            }
+        };
+        assertNotNull(deliver(ReplyTransportCache.get(endpoint), "http://localhost/replies").response);
+        assertTrue(executed.get() > 0);
+        assertEquals("container", threads.get(0).getName());
+    }
+
+    private Callback deliver(ReplyTransportCache cache, String address) throws Exception {
+        Packet packet = new Packet(Messages.createUsingPayload(
+                new StreamSource(new StringReader(PAYLOAD)), SOAPVersion.SOAP_11));
+        packet.endpointAddress = EndpointAddress.create(address);
+        Callback callback = new Callback();
+        cache.deliver(packet, callback);
+        assertTrue(callback.done.await(10, TimeUnit.SECONDS));
+        return callback;
+    }
+
+    private static final class Callback implements Fiber.CompletionCallback {
+        final CountDownLatch done = new CountDownLatch(1);
+        volatile Packet response;
+        volatile Throwable error;
+
+        @Override
+        public void onCompletion(Packet response) {
+            this.response = response;
+            done.countDown();
+        }
+
+        @Override
+        public void onCompletion(Throwable error) {
+            this.error = error;
+            done.countDown();
+        }
+    }
+
+    private final class ReplyTube extends AbstractTubeImpl {
+        ReplyTube() {
+        }
+
+        ReplyTube(ReplyTube that, TubeCloner cloner) {
+            super(that, cloner);
+        }
+
+        @Override
+        public NextAction processRequest(Packet request) {
+            threads.add(Thread.currentThread());
+            loaders.add(Thread.currentThread().getContextClassLoader());
+            payloads.add(toString(request.getMessage().readPayloadAsSource()));
+            if (failures.getAndDecrement() > 0) {
+                throw new WebServiceException("connection refused");
+            }
+            return doReturnWith(request.createServerResponse(null, null, null, ""));
+        }
+
+        @Override
+        public NextAction processResponse(Packet response) {
+            return doReturnWith(response);
+        }
+
+        @Override
+        public NextAction processException(Throwable t) {
+            return doThrow(t);
+        }
+
+        @Override
+        public void preDestroy() {
+            destroyed.incrementAndGet();
+        }
+
+        @Override
+        public ReplyTube copy(TubeCloner cloner) {
+            return new ReplyTube(this, cloner);
+        }
+
+        private String toString(Source source) {
+            try {
+                StringWriter w = new StringWriter();
+                TransformerFactory.newInstance().newTransformer().transform(source, new StreamResult(w));
+                return w.toString();
+            } catch (Exception e) {
+                throw new WebServiceException(e);
+            }
+        }
+    }
+
+    @WebService
+    public static class Echo {
+        public String echo(String s) {
+            return s;
+        }
+    }
+}
@@ -0,0 +1,267 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2017 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * http://glassfish.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package com.sun.xml.ws.api.fastinfoset;
+
+import com.sun.xml.ws.api.BindingID;
+import com.sun.xml.ws.api.SOAPVersion;
+import com.sun.xml.ws.api.WSBinding;
+import com.sun.xml.ws.api.server.DocumentAddressResolver;
+import com.sun.xml.ws.api.server.PortAddressResolver;
+import com.sun.xml.ws.api.server.SDDocument;
+import com.sun.xml.ws.api.server.SDDocumentSource;
+import com.sun.xml.ws.api.server.WSEndpoint;
+import com.sun.xml.ws.binding.BindingImpl;
+import junit.framework.TestCase;
+import org.xml.sax.EntityResolver;
+
+import javax.jws.WebService;
+import javax.xml.namespace.QName;
+import javax.xml.transform.Source;
+import javax.xml.ws.BindingProvider;
+import javax.xml.ws.Dispatch;
+import javax.xml.ws.Provider;
+import javax.xml.ws.Service;
+import javax.xml.ws.ServiceMode;
+import javax.xml.ws.WebServiceFeature;
+import javax.xml.ws.WebServiceProvider;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class FastInfosetVocabularyTest extends TestCase {
+
+    private static final String ECHO_NS = "urn:echo";
+
+    private final URL wsdl = resource("EchoService.wsdl");
+    private final URL types = resource("types.xsd");
+    private final URL common = resource("common.xsd");
+
+    /**
+     * The service and the client read the same metadata, and both end up with
+     * the same vocabulary.
+     */
+    public void testServerAndClientDeriveSameVocabulary() throws Exception {
+        WSEndpoint<EchoProvider> endpoint = createEchoEndpoint();
+        try {
+            FastInfosetVocabulary server = endpoint.getBinding().getFeature(FastInfosetVocabularyFeature.class).getVocabulary();
+            assertNotNull(server);
+            FastInfosetVocabulary client = clientVocabulary(Service.create(wsdl, endpoint.getServiceName()));
+            assertNotNull(client);
+            assertEquals(server.getURI(), client.getURI());
+            assertEquals(server.getElementNames(), client.getElementNames());
+        } finally {
+            endpoint.dispose();
+        }
+    }
+
+    public void testVocabularyIsDerivedOncePerService() throws Exception {
+        Service service = Service.create(wsdl, new QName(ECHO_NS, "EchoService"));
+        FastInfosetVocabulary first = clientVocabulary(service);
+        assertNotNull(first);
+        assertSame(first, clientVocabulary(service));
+    }
+
+    public void testNamesOfTheWSDL() throws Exception {
+        WSEndpoint<EchoProvider> endpoint = createEchoEndpoint();
+        try {
+            FastInfosetVocabulary v = new FastInfosetVocabulary.Builder()
+                    .add(endpoint.getPort().getOwner().getParent()).build();
+            assertTrue(v.getURI(), v.getURI().startsWith(FastInfosetVocabulary.URI_PREFIX));
+            List<QName> elements = v.getElementNames();
+            assertTrue(elements.contains(new QName(ECHO_NS, "echo")));
+            assertTrue(elements.contains(new QName(ECHO_NS, "echoResponse")));
+            assertTrue(elements.contains(new QName(SOAPVersion.SOAP_11.nsUri, "Envelope", "S")));
+            assertTrue(v.getNamespaceNames().contains(ECHO_NS));
+            assertFalse("the prefixes of the WSDL are not part of the vocabulary", v.getPrefixes().contains("tns"));
+
+            FastInfosetVocabulary empty = new FastInfosetVocabulary.Builder().build();
+            assertFalse(empty.getElementNames().contains(new QName(ECHO_NS, "echo")));
+            assertFalse("different names must give a different URI", empty.getURI().equals(v.getURI()));
+        } finally {
+            endpoint.dispose();
+        }
+    }
+
+    /**
+     * The names declared inside the schemas, including the imported and
+     * included ones, are part of the vocabulary on both sides.
+     */
+    public void testNamesOfTheSchemas() throws Exception {
+        WSEndpoint<EchoProvider> endpoint = createEchoEndpoint();
+        try {
+            FastInfosetVocabulary server = endpoint.getBinding().getFeature(FastInfosetVocabularyFeature.class).getVocabulary();
+            FastInfosetVocabulary client = clientVocabulary(Service.create(wsdl, endpoint.getServiceName()));
+            for (FastInfosetVocabulary v : new FastInfosetVocabulary[] {server, client}) {
+                List<QName> elements = v.getElementNames();
+                // nested in the inline schema
+                assertTrue(elements.contains(new QName(ECHO_NS, "text")));
+                // imported, and nested in the imported schema
+                assertTrue(elements.contains(new QName("urn:types", "item")));
+                assertTrue(elements.contains(new QName("urn:types", "label")));
+                // included by the imported schema
+                assertTrue(elements.contains(new QName("urn:types", "common")));
+                // local attributes are unqualified by default
+                assertTrue(v.getAttributeNames().contains(new QName("id")));
+                assertTrue(v.getNamespaceNames().contains("urn:types"));
+                assertTrue(v.getLocalNames().contains("label"));
+            }
+            assertEquals(server.getURI(), client.getURI());
+            assertEquals(server.getAttributeNames(), client.getAttributeNames());
+        } finally {
+            endpoint.dispose();
+        }
+    }
+
+    /**
+     * The vocabulary assertion of the generated WSDL enables the feature on the
+     * client, which derives the same vocabulary from the published documents.
+     */
+    public void testPolicyRoundTrip() throws Exception {
+        WSEndpoint<Echo> endpoint = WSEndpoint.create(Echo.class, false, null, null, null, null,
+                BindingImpl.create(BindingID.SOAP11_HTTP, new WebServiceFeature[] {new FastInfosetVocabularyFeature()}),
+                null, null, (EntityResolver) null, false);
+        File dir = File.createTempFile("vocabulary", "");
+        dir.delete();
+        dir.mkdirs();
+        try {
+            FastInfosetVocabulary server = endpoint.getBinding().getFeature(FastInfosetVocabularyFeature.class).getVocabulary();
+            assertNotNull(server);
+            URL published = publish(endpoint, dir);
+
+            QName serviceName = endpoint.getServiceName();
+            Service service = Service.create(published, serviceName);
+            Dispatch<Source> dispatch = service.createDispatch(endpoint.getPortName(), Source.class, Service.Mode.PAYLOAD);
+            WSBinding binding = (WSBinding) ((BindingProvider) dispatch).getBinding();
+            FastInfosetVocabularyFeature feature = binding.getFeature(FastInfosetVocabularyFeature.class);
+            assertNotNull("the policy assertion must enable the feature", feature);
+            assertTrue(feature.isEnabled());
+            assertEquals(server.getURI(), feature.getVocabularyURI());
+        } finally {
+            endpoint.dispose();
+            File[] files = dir.listFiles();
+            if (files != null) {
+                for (File f : files) {
+                    f.delete();
+                }
+            }
+            dir.delete();
+        }
+    }
+
+    /**
+     * Writes the documents of the endpoint the way they are published, and
+     * returns the location of the WSDL.
+     */
+    private static URL publish(WSEndpoint<?> endpoint, File dir) throws IOException {
+        final Map<SDDocument, String> names = new HashMap<SDDocument, String>();
+        for (SDDocument doc : endpoint.getServiceDefinition()) {
+            names.put(doc, "doc" + names.size() + (doc.isWSDL() ? ".wsdl" : ".xsd"));
+        }
+        PortAddressResolver ports = new PortAddressResolver() {
+            @Override
+            public String getAddressFor(QName serviceName, String portName) {
+                return "http://localhost:8080/echo";
+            }
+        };
+        DocumentAddressResolver documents = new DocumentAddressResolver() {
+            @Override
+            public String getRelativeAddressFor(SDDocument current, SDDocument referenced) {
+                return names.get(referenced);
+            }
+        };
+        for (Map.Entry<SDDocument, String> e : names.entrySet()) {
+            OutputStream os = new FileOutputStream(new File(dir, e.getValue()));
+            try {
+                e.getKey().writeTo(ports, documents, os);
+            } finally {
+                os.close();
+            }
+        }
+        SDDocument primary = endpoint.getServiceDefinition().getPrimary();
+        String wsdl = new String(java.nio.file.Files.readAllBytes(new File(dir, names.get(primary)).toPath()), "UTF-8");
+        assertTrue(wsdl, wsdl.contains("FastInfosetVocabulary"));
+        return new File(dir, names.get(primary)).toURI().toURL();
+    }
+
+    private WSEndpoint<EchoProvider> createEchoEndpoint() {
+        List<SDDocumentSource> metadata = new ArrayList<SDDocumentSource>();
+        metadata.add(SDDocumentSource.create(types));
+        metadata.add(SDDocumentSource.create(common));
+        return WSEndpoint.create(EchoProvider.class, false, null,
+                new QName(ECHO_NS, "EchoService"), new QName(ECHO_NS, "EchoPort"), null,
+                BindingImpl.create(BindingID.SOAP11_HTTP, new WebServiceFeature[] {new FastInfosetVocabularyFeature()}),
+                SDDocumentSource.create(wsdl), metadata, (EntityResolver) null, false);
+    }
+
+    private static FastInfosetVocabulary clientVocabulary(Service service) {
+        Dispatch<Source> dispatch = service.createDispatch(new QName(ECHO_NS, "EchoPort"), Source.class,
+                Service.Mode.PAYLOAD, new FastInfosetVocabularyFeature());
+        WSBinding binding = (WSBinding) ((BindingProvider) dispatch).getBinding();
+        return binding.getFeature(FastInfosetVocabularyFeature.class).getVocabulary();
+    }
+
+    private static URL resource(String name) {
+        URL url = FastInfosetVocabularyTest.class.getResource(name);
+        assertNotNull(name, url);
+        return url;
+    }
+
+    @WebService
+    public static class Echo {
+        public String echo(String text) {
+            return text;
+        }
+    }
+
+    @WebServiceProvider(serviceName = "EchoService", portName = "EchoPort", targetNamespace = ECHO_NS)
+    @ServiceMode(Service.Mode.PAYLOAD)
+    public static class EchoProvider implements Provider<Source> {
+        public Source invoke(Source request) {
+            return request;
+        }
+    }
+}
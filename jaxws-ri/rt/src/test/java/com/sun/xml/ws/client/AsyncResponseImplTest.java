@@ -0,0 +1,92 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2017 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * http://glassfish.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package com.sun.xml.ws.client;
+
+import com.sun.xml.ws.api.Cancelable;
+
+import javax.xml.ws.WebServiceException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+import junit.framework.TestCase;
+
+public class AsyncResponseImplTest extends TestCase {
+
+    private static final Runnable NOOP = new Runnable() {
+        public void run() {
+        }
+    };
+
+    public void testCompletableFutureCompletes() throws Exception {
+        AsyncResponseImpl<String> before = new AsyncResponseImpl<String>(NOOP, null);
+        CompletableFuture<String> f = before.toCompletableFuture();
+        assertFalse(f.isDone());
+        before.set("hello", null);
+        assertEquals("hello", f.getNow(null));
+        assertSame(f, before.toCompletableFuture());
+
+        // view obtained after completion
+        AsyncResponseImpl<String> after = new AsyncResponseImpl<String>(NOOP, null);
+        WebServiceException error = new WebServiceException("failed");
+        after.set(null, error);
+        try {
+            after.toCompletableFuture().get();
+            fail();
+        } catch (ExecutionException e) {
+            assertSame(error, e.getCause());
+        }
+    }
+
+    public void testCancelPropagates() {
+        AsyncResponseImpl<String> response = new AsyncResponseImpl<String>(NOOP, null);
+        final boolean[] cancelled = new boolean[1];
+        response.setCancelable(new Cancelable() {
+            public void cancel(boolean mayInterruptIfRunning) {
+                cancelled[0] = true;
+            }
+        });
+        CompletableFuture<String> f = response.toCompletableFuture();
+        assertTrue(f.cancel(true));
+        assertTrue(cancelled[0]);
+        assertTrue(response.isCancelled());
+        assertTrue(f.isCancelled());
+    }
+}
@@ -0,0 +1,161 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2017 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * http://glassfish.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package com.sun.xml.ws.client;
+
+import com.sun.xml.bind.api.JAXBRIContext;
+import com.sun.xml.bind.api.TypeReference;
+import com.sun.xml.ws.api.WSService;
+import com.sun.xml.ws.api.model.SEIModel;
+import com.sun.xml.ws.api.model.wsdl.WSDLModel;
+import com.sun.xml.ws.client.seiportinfo.Hello;
+import com.sun.xml.ws.developer.JAXBContextFactory;
+import com.sun.xml.ws.developer.UsesJAXBContextFeature;
+
+import junit.framework.TestCase;
+
+import javax.xml.bind.JAXBException;
+import javax.xml.namespace.QName;
+import javax.xml.ws.WebServiceFeature;
+import javax.xml.ws.soap.MTOMFeature;
+
+import java.net.URL;
+import java.util.Collections;
+import java.util.List;
+
+public class ClientModelCacheTest extends TestCase {
+
+    static final URL WSDL_URL = ClientModelCacheTest.class.getResource("hello_literal.wsdl");
+
+    static final QName SERVICE_NAME = new QName("urn:test", "Hello");
+    static final QName PORT_NAME = new QName("urn:test", "HelloPort");
+
+    private int size;
+
+    @Override
+    protected void setUp() throws Exception {
+        size = ClientModelCache.getMaximumSize();
+        ClientModelCache.setMaximumSize(10);
+        ClientModelCache.clear();
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        ClientModelCache.setMaximumSize(size);
+        ClientModelCache.clear();
+    }
+
+    public void testWSDLModelShared() {
+        long hits = ClientModelCache.getWSDLModelHitCount();
+        long misses = ClientModelCache.getWSDLModelMissCount();
+        WSDLModel m1 = wsdlModel(create());
+        WSDLModel m2 = wsdlModel(create());
+        assertSame(m1, m2);
+        assertEquals(hits + 1, ClientModelCache.getWSDLModelHitCount());
+        assertEquals(misses + 1, ClientModelCache.getWSDLModelMissCount());
+    }
+
+    public void testSEIModelShared() {
+        long hits = ClientModelCache.getSEIModelHitCount();
+        long misses = ClientModelCache.getSEIModelMissCount();
+        create().getPort(PORT_NAME, Hello.class);
+        create().getPort(PORT_NAME, Hello.class);
+        assertEquals(hits + 1, ClientModelCache.getSEIModelHitCount());
+        assertEquals(misses + 1, ClientModelCache.getSEIModelMissCount());
+
+        // different features, different model
+        create().getPort(PORT_NAME, Hello.class, new MTOMFeature());
+        assertEquals(hits + 1, ClientModelCache.getSEIModelHitCount());
+        assertEquals(misses + 2, ClientModelCache.getSEIModelMissCount());
+    }
+
+    public void testOwnJAXBContextNotShared() {
+        long hits = ClientModelCache.getSEIModelHitCount();
+        long misses = ClientModelCache.getSEIModelMissCount();
+        CountingFactory f1 = new CountingFactory();
+        CountingFactory f2 = new CountingFactory();
+        create().getPort(PORT_NAME, Hello.class, new UsesJAXBContextFeature(f1));
+        create().getPort(PORT_NAME, Hello.class, new UsesJAXBContextFeature(f2));
+        assertEquals(1, f1.count);
+        assertEquals(1, f2.count);
+        assertEquals(hits, ClientModelCache.getSEIModelHitCount());
+        assertEquals(misses, ClientModelCache.getSEIModelMissCount());
+    }
+
+    public void testStatefulFeatureNotShared() {
+        assertNull(ClientModelCache.seiKey(SERVICE_NAME, PORT_NAME, Hello.class, create().getPortModel(
+                create().getWsdlService(), PORT_NAME), WSDL_URL,
+                Collections.<WebServiceFeature>singletonList(new UsesJAXBContextFeature(new CountingFactory()))));
+        assertNotNull(ClientModelCache.seiKey(SERVICE_NAME, PORT_NAME, Hello.class, create().getPortModel(
+                create().getWsdlService(), PORT_NAME), WSDL_URL,
+                Collections.<WebServiceFeature>singletonList(new MTOMFeature(1024))));
+    }
+
+    public void testEvict() {
+        WSDLModel m1 = wsdlModel(create());
+        ClientModelCache.evict(Thread.currentThread().getContextClassLoader());
+        assertNotSame(m1, wsdlModel(create()));
+    }
+
+    public void testDisabled() {
+        ClientModelCache.setMaximumSize(0);
+        assertFalse(ClientModelCache.isEnabled());
+        assertNotSame(wsdlModel(create()), wsdlModel(create()));
+    }
+
+    private static final class CountingFactory implements JAXBContextFactory {
+        int count;
+
+        public JAXBRIContext createJAXBContext(SEIModel sei, List<Class> classesToBind,
+                                               List<TypeReference> typeReferences) throws JAXBException {
+            count++;
+            return JAXBContextFactory.DEFAULT.createJAXBContext(sei, classesToBind, typeReferences);
+        }
+    }
+
+    private static WSServiceDelegate create() {
+        return (WSServiceDelegate) WSService.create(WSDL_URL, SERVICE_NAME);
+    }
+
+    private static WSDLModel wsdlModel(WSServiceDelegate delegate) {
+        return delegate.getWsdlService().getParent();
+    }
+
+}
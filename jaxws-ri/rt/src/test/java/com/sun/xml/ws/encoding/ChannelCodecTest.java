@@ -0,0 +1,109 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2017 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * http://glassfish.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package com.sun.xml.ws.encoding;
+
+import com.sun.xml.ws.api.BindingID;
+import com.sun.xml.ws.api.SOAPVersion;
+import com.sun.xml.ws.api.message.Attachment;
+import com.sun.xml.ws.api.message.Message;
+import com.sun.xml.ws.api.message.Messages;
+import com.sun.xml.ws.api.message.Packet;
+import com.sun.xml.ws.api.pipe.Codec;
+import com.sun.xml.ws.api.pipe.ContentType;
+import com.sun.xml.ws.binding.BindingImpl;
+import com.sun.xml.ws.message.ByteArrayAttachment;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.StringReader;
+import java.nio.channels.Channels;
+import java.util.Arrays;
+import javax.xml.namespace.QName;
+import javax.xml.transform.stream.StreamSource;
+
+import junit.framework.TestCase;
+
+/**
+ * Encodes and decodes messages over NIO channels.
+ */
+public class ChannelCodecTest extends TestCase {
+
+    private static final String PAYLOAD = "<m:echo xmlns:m=\"urn:test\"><m:arg>hello</m:arg></m:echo>";
+
+    public void testSoapOverChannels() throws Exception {
+        Codec codec = BindingImpl.create(BindingID.SOAP11_HTTP).createCodec();
+        Packet request = new Packet(Messages.createUsingPayload(new StreamSource(new StringReader(PAYLOAD)), SOAPVersion.SOAP_11));
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ContentType ct = codec.encode(request, Channels.newChannel(out));
+
+        Packet response = new Packet();
+        codec.copy().decode(Channels.newChannel(new ByteArrayInputStream(out.toByteArray())), ct.getContentType(), response);
+        assertEquals(new QName("urn:test", "echo"), payloadName(response.getMessage()));
+    }
+
+    public void testMultipartOverChannels() throws Exception {
+        Codec codec = BindingImpl.create(BindingID.SOAP11_HTTP).createCodec();
+        Message msg = Messages.createUsingPayload(new StreamSource(new StringReader(PAYLOAD)), SOAPVersion.SOAP_11);
+        // larger than a buffer segment, so that gathering writes span several buffers
+        byte[] data = new byte[100000];
+        for (int i = 0; i < data.length; i++) {
+            data[i] = (byte) i;
+        }
+        msg.getAttachments().add(new ByteArrayAttachment("att1@example.com", data, "application/octet-stream"));
+        Packet request = new Packet(msg);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ContentType ct = codec.encode(request, Channels.newChannel(out));
+        assertTrue(ct.getContentType().startsWith("multipart/related"));
+
+        Packet response = new Packet();
+        codec.copy().decode(Channels.newChannel(new ByteArrayInputStream(out.toByteArray())), ct.getContentType(), response);
+        assertEquals(new QName("urn:test", "echo"), payloadName(response.getMessage()));
+        Attachment att = response.getMessage().getAttachments().get("att1@example.com");
+        assertNotNull(att);
+        assertTrue(Arrays.equals(data, att.asByteArray()));
+    }
+
+    private static QName payloadName(Message msg) {
+        return new QName(msg.getPayloadNamespaceURI(), msg.getPayloadLocalPart());
+    }
+}
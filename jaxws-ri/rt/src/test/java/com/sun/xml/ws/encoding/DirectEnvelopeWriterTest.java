@@ -0,0 +1,147 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2017 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * http://glassfish.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package com.sun.xml.ws.encoding;
+
+import com.sun.xml.ws.api.BindingID;
+import com.sun.xml.ws.api.SOAPVersion;
+import com.sun.xml.ws.api.addressing.AddressingVersion;
+import com.sun.xml.ws.api.message.Header;
+import com.sun.xml.ws.api.message.Message;
+import com.sun.xml.ws.api.message.Packet;
+import com.sun.xml.ws.api.pipe.Codec;
+import com.sun.xml.ws.api.streaming.XMLStreamWriterFactory;
+import com.sun.xml.ws.binding.BindingImpl;
+import com.sun.xml.ws.message.RelatesToHeader;
+import com.sun.xml.ws.message.StringHeader;
+import com.sun.xml.ws.message.jaxb.JAXBMessage;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.xml.bind.JAXBContext;
+import javax.xml.bind.annotation.XmlElement;
+import javax.xml.bind.annotation.XmlRootElement;
+import javax.xml.stream.XMLStreamWriter;
+
+import junit.framework.TestCase;
+
+/**
+ * Writes {@link JAXBMessage}s with {@link DirectEnvelopeWriter}, and reads them back.
+ */
+public class DirectEnvelopeWriterTest extends TestCase {
+
+    @XmlRootElement(name = "echo", namespace = "urn:test")
+    public static class Echo {
+        @XmlElement(namespace = "urn:test")
+        public String arg;
+    }
+
+    public void testRoundTrip() throws Exception {
+        for (BindingID id : new BindingID[] {BindingID.SOAP11_HTTP, BindingID.SOAP12_HTTP}) {
+            SOAPVersion sv = id.getSOAPVersion();
+            AddressingVersion av = AddressingVersion.W3C;
+            Echo echo = new Echo();
+            echo.arg = "a < b & \"c\"";
+            Message msg = JAXBMessage.create(JAXBContext.newInstance(Echo.class), echo, sv);
+            msg.getHeaders().add(new StringHeader(av.actionTag, "urn:test:echo&reply", sv, true));
+            msg.getHeaders().add(new RelatesToHeader(av.relatesToTag, "uuid:1", "urn:\"reply\""));
+
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            assertTrue(DirectEnvelopeWriter.write((JAXBMessage) msg, out));
+            String xml = out.toString("UTF-8");
+            assertTrue(xml, xml.startsWith("<?xml version='1.0' encoding='UTF-8'?><S:Envelope xmlns:S=\"" + sv.nsUri + "\"><S:Header>"));
+
+            Codec codec = BindingImpl.create(id).createCodec();
+            Packet response = new Packet();
+            codec.decode(new ByteArrayInputStream(out.toByteArray()), sv.contentType + "; charset=utf-8", response);
+            Message decoded = response.getMessage();
+            Header action = decoded.getHeaders().get(av.actionTag, false);
+            assertEquals("urn:test:echo&reply", action.getStringContent());
+            assertNotNull(action.getAttribute(sv.nsUri, "mustUnderstand"));
+            Header relatesTo = decoded.getHeaders().get(av.relatesToTag, false);
+            assertEquals("uuid:1", relatesTo.getStringContent());
+            assertEquals("urn:\"reply\"", relatesTo.getAttribute("", "type"));
+            Echo result = decoded.readPayloadAsJAXB(JAXBContext.newInstance(Echo.class).createUnmarshaller());
+            assertEquals(echo.arg, result.arg);
+        }
+    }
+
+    /**
+     * An application that installs its own factory sees every message written.
+     */
+    public void testInstalledWriterFactoryIsUsed() throws Exception {
+        final XMLStreamWriterFactory original = XMLStreamWriterFactory.get();
+        final AtomicInteger created = new AtomicInteger();
+        assertTrue(XMLStreamWriterFactory.isDefault());
+        XMLStreamWriterFactory.set(new XMLStreamWriterFactory() {
+            @Override
+            public XMLStreamWriter doCreate(OutputStream out) {
+                created.incrementAndGet();
+                return original.doCreate(out);
+            }
+
+            @Override
+            public XMLStreamWriter doCreate(OutputStream out, String encoding) {
+                created.incrementAndGet();
+                return original.doCreate(out, encoding);
+            }
+
+            @Override
+            public void doRecycle(XMLStreamWriter r) {
+                original.doRecycle(r);
+            }
+        });
+        try {
+            assertFalse(XMLStreamWriterFactory.isDefault());
+            Echo echo = new Echo();
+            echo.arg = "hello";
+            Message msg = JAXBMessage.create(JAXBContext.newInstance(Echo.class), echo, SOAPVersion.SOAP_11);
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            BindingImpl.create(BindingID.SOAP11_HTTP).createCodec().encode(new Packet(msg), out);
+            assertTrue("the message must be written with the installed factory", created.get() > 0);
+            assertTrue(out.toString("UTF-8"), out.toString("UTF-8").contains("hello"));
+        } finally {
+            XMLStreamWriterFactory.set(original);
+        }
+        assertTrue(XMLStreamWriterFactory.isDefault());
+    }
+}
@@ -0,0 +1,109 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2017 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * http://glassfish.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package com.sun.xml.ws.encoding;
+
+import com.sun.xml.ws.util.ByteArrayDataSource;
+
+import javax.activation.DataHandler;
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamWriter;
+import javax.xml.ws.soap.MTOMFeature;
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+public class MtomCodecTest extends TestCase {
+
+    public void testThreshold() throws Exception {
+        List<MtomCodec.ByteArrayBuffer> attachments = new ArrayList<MtomCodec.ByteArrayBuffer>();
+        ByteArrayOutputStream xml = new ByteArrayOutputStream();
+        XMLStreamWriter w = XMLOutputFactory.newInstance().createXMLStreamWriter(xml, "UTF-8");
+        MtomCodec.MtomStreamWriterImpl writer = new MtomCodec.MtomStreamWriterImpl(w, attachments, "b", new MTOMFeature(true, 100));
+
+        byte[] big = new byte[1000];
+        writer.writeStartDocument();
+        writer.writeStartElement("root");
+        writer.writeBinary(big, 10, 500, "application/octet-stream");
+        writer.writeBinary(new byte[] {1, 2, 3}, 0, 3, null);
+        writer.writeBinary(new DataHandler(new ByteArrayDataSource(new byte[] {4, 5}, "x/y")));
+        writer.writeBinary(new DataHandler(new ByteArrayDataSource(big, "x/y")));
+        writer.writeEndElement();
+        writer.writeEndDocument();
+        writer.flush();
+
+        assertEquals(2, attachments.size());
+        String s = xml.toString("UTF-8");
+        assertTrue(s, s.contains("AQID"));
+        assertTrue(s, s.contains("BAU="));
+        assertTrue(s, s.contains("cid:" + attachments.get(0).contentId));
+        assertTrue(s, s.contains("cid:" + attachments.get(1).contentId));
+    }
+
+    public void testAttachmentPart() throws Exception {
+        List<MtomCodec.ByteArrayBuffer> attachments = new ArrayList<MtomCodec.ByteArrayBuffer>();
+        XMLStreamWriter w = XMLOutputFactory.newInstance().createXMLStreamWriter(new ByteArrayOutputStream(), "UTF-8");
+        MtomCodec.MtomStreamWriterImpl writer = new MtomCodec.MtomStreamWriterImpl(w, attachments, "b", new MTOMFeature(true, 0));
+
+        byte[] data = new byte[100];
+        for (int i = 0; i < data.length; i++) {
+            data[i] = (byte) i;
+        }
+        writer.writeStartElement("root");
+        writer.writeBinary(data, 10, 20, null);
+        writer.writeEndElement();
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        attachments.get(0).write(out);
+        byte[] part = out.toByteArray();
+        String header = "--b\r\nContent-Id: <" + attachments.get(0).contentId + ">\r\n"
+                + "Content-Type: application/octet-stream\r\n"
+                + "Content-Transfer-Encoding: binary\r\n\r\n";
+        assertEquals(header, new String(part, 0, header.length(), "US-ASCII"));
+        assertTrue(Arrays.equals(Arrays.copyOfRange(data, 10, 30),
+                Arrays.copyOfRange(part, header.length(), header.length() + 20)));
+        assertEquals(header.length() + 22, part.length);
+        assertEquals('\r', part[part.length - 2]);
+        assertEquals('\n', part[part.length - 1]);
+    }
+}
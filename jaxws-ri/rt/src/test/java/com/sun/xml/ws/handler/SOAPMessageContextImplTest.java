@@ -0,0 +1,146 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2017 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * http://glassfish.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package com.sun.xml.ws.handler;
+
+import com.sun.xml.ws.api.BindingID;
+import com.sun.xml.ws.api.SOAPVersion;
+import com.sun.xml.ws.api.WSBinding;
+import com.sun.xml.ws.api.message.Header;
+import com.sun.xml.ws.api.message.Headers;
+import com.sun.xml.ws.api.message.Message;
+import com.sun.xml.ws.api.message.Messages;
+import com.sun.xml.ws.api.message.Packet;
+import com.sun.xml.ws.binding.BindingImpl;
+import junit.framework.TestCase;
+
+import javax.xml.namespace.QName;
+import javax.xml.soap.SOAPMessage;
+import javax.xml.transform.stream.StreamSource;
+import javax.xml.ws.WebServiceException;
+import java.io.StringReader;
+import java.util.Collections;
+
+public class SOAPMessageContextImplTest extends TestCase {
+
+    private static final QName H1 = new QName("urn:test", "h1");
+    private static final QName H2 = new QName("urn:test", "h2");
+
+    private final WSBinding binding = BindingImpl.create(BindingID.SOAP11_HTTP);
+
+    public void testHeaderOnlyMessageHasNoBody() throws Exception {
+        Packet packet = createPacket();
+        Message original = packet.getMessage();
+        SOAPMessageContextImpl ctx = new SOAPMessageContextImpl(binding, packet, Collections.<String>emptySet(), true);
+
+        SOAPMessage msg = ctx.getMessage();
+        assertFalse(msg.getSOAPBody().getChildElements().hasNext());
+        assertEquals("v1", msg.getSOAPHeader().getChildElements(H1).next().getTextContent());
+
+        msg.getSOAPHeader().addHeaderElement(H2).setTextContent("v2");
+        ctx.updatePacket();
+
+        Message m = packet.getMessage();
+        // the body was never read, the message is the same one
+        assertSame(original, m);
+        assertNotNull(m.getHeaders().get(H1, false));
+        assertEquals("v2", m.getHeaders().get(H2, false).getStringContent());
+        assertEquals("payload", m.getPayloadLocalPart());
+    }
+
+    public void testMessageHeaders() throws Exception {
+        Packet packet = createPacket();
+        SOAPMessageContextImpl ctx = new SOAPMessageContextImpl(binding, packet, Collections.<String>emptySet(), true);
+
+        ctx.getMessage().getSOAPHeader().addHeaderElement(H2).setTextContent("v2");
+        // pending SAAJ changes are put back first
+        assertNotNull(ctx.getMessageHeaders().get(H2, false));
+        ctx.getMessageHeaders().remove(H1);
+        ctx.updatePacket();
+
+        assertNull(packet.getMessage().getHeaders().get(H1, false));
+        assertNotNull(packet.getMessage().getHeaders().get(H2, false));
+    }
+
+    public void testReadOnlyAccessKeepsHeaders() throws Exception {
+        Packet packet = createPacket();
+        Header h1 = packet.getMessage().getHeaders().get(H1, false);
+        SOAPMessageContextImpl ctx = new SOAPMessageContextImpl(binding, packet, Collections.<String>emptySet(), true);
+
+        assertEquals("v1", ctx.getMessage().getSOAPHeader().getChildElements(H1).next().getTextContent());
+        ctx.updatePacket();
+
+        assertSame("unchanged headers must not be replaced", h1, packet.getMessage().getHeaders().get(H1, false));
+    }
+
+    public void testBodyChangeRejected() throws Exception {
+        Packet packet = createPacket();
+        SOAPMessageContextImpl ctx = new SOAPMessageContextImpl(binding, packet, Collections.<String>emptySet(), true);
+
+        ctx.getMessage().getSOAPBody().addChildElement(new QName("urn:test", "other"));
+        try {
+            ctx.updatePacket();
+            fail("a body change of a header-only handler must not be dropped silently");
+        } catch (WebServiceException e) {
+            // expected
+        }
+        assertEquals("payload", packet.getMessage().getPayloadLocalPart());
+    }
+
+    public void testBodyOfEmptyMessage() throws Exception {
+        Message m = Messages.createEmpty(SOAPVersion.SOAP_11);
+        m.getHeaders().add(Headers.create(H1, "v1"));
+        Packet packet = new Packet(m);
+        SOAPMessageContextImpl ctx = new SOAPMessageContextImpl(binding, packet, Collections.<String>emptySet(), true);
+
+        ctx.getMessage().getSOAPBody().addChildElement(new QName("urn:test", "added"));
+        ctx.updatePacket();
+
+        assertEquals("added", packet.getMessage().getPayloadLocalPart());
+        assertNotNull(packet.getMessage().getHeaders().get(H1, false));
+    }
+
+    private static Packet createPacket() {
+        Message m = Messages.createUsingPayload(
+                new StreamSource(new StringReader("<t:payload xmlns:t='urn:test'>x</t:payload>")), SOAPVersion.SOAP_11);
+        m.getHeaders().add(Headers.create(H1, "v1"));
+        return new Packet(m);
+    }
+}
@@ -0,0 +1,130 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2017 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * http://glassfish.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package com.sun.xml.ws.message.stream;
+
+import com.sun.xml.stream.buffer.MutableXMLStreamBuffer;
+import com.sun.xml.ws.api.SOAPVersion;
+import com.sun.xml.ws.api.message.Header;
+import com.sun.xml.ws.api.message.Message;
+import com.sun.xml.ws.api.message.Packet;
+import com.sun.xml.ws.api.pipe.Codec;
+import com.sun.xml.ws.api.pipe.Codecs;
+import junit.framework.TestCase;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Recycling of the buffers that cache the SOAP headers of a {@link StreamMessage}.
+ * Each test class runs in its own JVM, so the property is set before the
+ * message class is initialized.
+ */
+public class StreamMessageHeaderBufferTest extends TestCase {
+
+    static {
+        System.setProperty("com.sun.xml.ws.message.stream.StreamMessage.recycleHeaderBuffers", "true");
+    }
+
+    public void testBufferIsReusedOnceConsumed() throws Exception {
+        StreamMessage first = decode("<h:first xmlns:h='urn:h'>one</h:first><h:second xmlns:h='urn:h'>two</h:second>");
+        assertEquals(2, first.getHeaders().asList().size());
+        MutableXMLStreamBuffer buffer = first.getHeaderBuffer();
+        assertNotNull(buffer);
+        first.consume();
+
+        StreamMessage next = decode("<h:third xmlns:h='urn:h'>three</h:third>");
+        assertTrue(next.hasHeaders());
+        assertSame(buffer, next.getHeaderBuffer());
+        // nothing of the previous message shows through the recycled buffer
+        List<Header> headers = next.getHeaders().asList();
+        assertEquals(1, headers.size());
+        assertEquals("third", headers.get(0).getLocalPart());
+        assertEquals("three", headers.get(0).getStringContent());
+    }
+
+    public void testRetainedBufferIsNotReused() throws Exception {
+        StreamMessage request = decode("<h:first xmlns:h='urn:h'>one</h:first>");
+        request.retainHeaderBuffer();
+        MutableXMLStreamBuffer buffer = request.getHeaderBuffer();
+        request.consume();
+
+        StreamMessage other = decode("<h:second xmlns:h='urn:h'>two</h:second>");
+        assertTrue(other.hasHeaders());
+        assertNotSame(buffer, other.getHeaderBuffer());
+        assertEquals("one", request.getHeaders().asList().get(0).getStringContent());
+        other.consume();
+
+        request.releaseHeaderBuffer();
+        StreamMessage next = decode("<h:third xmlns:h='urn:h'>three</h:third>");
+        assertTrue(next.hasHeaders());
+        assertSame(buffer, next.getHeaderBuffer());
+    }
+
+    public void testCopySharesBuffer() throws Exception {
+        StreamMessage original = decode("<h:first xmlns:h='urn:h'>one</h:first>");
+        Message copy = original.copy();
+        MutableXMLStreamBuffer buffer = original.getHeaderBuffer();
+        assertSame(buffer, ((StreamMessage) copy).getHeaderBuffer());
+        original.consume();
+
+        StreamMessage other = decode("<h:second xmlns:h='urn:h'>two</h:second>");
+        assertTrue(other.hasHeaders());
+        assertNotSame("the copy still uses the buffer", buffer, other.getHeaderBuffer());
+        assertEquals("one", copy.getHeaders().asList().get(0).getStringContent());
+        other.consume();
+
+        copy.consume();
+        StreamMessage next = decode("<h:third xmlns:h='urn:h'>three</h:third>");
+        assertTrue(next.hasHeaders());
+        assertSame(buffer, next.getHeaderBuffer());
+    }
+
+    private static StreamMessage decode(String headers) throws IOException {
+        String envelope = "<S:Envelope xmlns:S='http://schemas.xmlsoap.org/soap/envelope/'>" +
+                "<S:Header>" + headers + "</S:Header>" +
+                "<S:Body><p:payload xmlns:p='urn:p'>text</p:payload></S:Body></S:Envelope>";
+        Codec codec = Codecs.createSOAPEnvelopeXmlCodec(SOAPVersion.SOAP_11);
+        Packet packet = new Packet();
+        codec.decode(new ByteArrayInputStream(envelope.getBytes("UTF-8")), "text/xml", packet);
+        return (StreamMessage) packet.getInternalMessage();
+    }
+}
@@ -0,0 +1,211 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2017 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * http://glassfish.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package com.sun.xml.ws.metrics;
+
+import com.sun.xml.ws.api.BindingID;
+import com.sun.xml.ws.api.SOAPVersion;
+import com.sun.xml.ws.api.message.Messages;
+import com.sun.xml.ws.api.message.Packet;
+import com.sun.xml.ws.api.server.WSEndpoint;
+import com.sun.xml.ws.binding.BindingImpl;
+import junit.framework.TestCase;
+import org.xml.sax.EntityResolver;
+
+import javax.jws.WebService;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.xml.namespace.QName;
+import javax.xml.transform.stream.StreamSource;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.StringReader;
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+public class OperationMetricsTest extends TestCase {
+
+    public void testCounters() {
+        OperationMetrics m = new OperationMetrics("server", "{urn:test}S", "{urn:test}P", "op");
+        long start = m.started();
+        assertEquals(1, m.getInFlight());
+        m.completed(start, false);
+        m.completed(m.started(), true);
+
+        assertEquals(0, m.getInFlight());
+        assertEquals(2, m.getRequestCount());
+        assertEquals(1, m.getErrorCount());
+        long[] histogram = m.getLatencyHistogram();
+        assertEquals(m.getLatencyBucketBoundsMillis().length + 1, histogram.length);
+        long total = 0;
+        for (long count : histogram) {
+            total += count;
+        }
+        assertEquals(2, total);
+    }
+
+    public void testCountBytesOut() throws Exception {
+        OperationMetrics m = new OperationMetrics("client", "S", "P", "op");
+        Packet packet = new Packet();
+        OutputStream out = new ByteArrayOutputStream();
+        // no metrics for the packet
+        assertSame(out, MetricsTube.countBytesOut(packet, out));
+
+        packet.invocationProperties.put(MetricsTube.class.getName() + ".bytesOut", m.bytesOut());
+        OutputStream counting = MetricsTube.countBytesOut(packet, out);
+        counting.write(new byte[10], 2, 5);
+        counting.write(1);
+        MetricsTube.addBytesOut(packet, 4);
+        assertEquals(10, m.getBytesOut());
+    }
+
+    public void testServerOperationResolvedOnResponse() throws Exception {
+        QName service = new QName("urn:test", "LazyService");
+        PortMetrics port = PortMetrics.get(false, service, null);
+        try {
+            MetricsTube tube = new MetricsTube(null, port, false);
+            Packet request = new Packet();
+            InputStream in = MetricsTube.countRequestBytes(request, new ByteArrayInputStream(new byte[100]));
+            tube.processRequest(request);
+            // read and dispatched by the tubes after this one
+            assertEquals(30, in.read(new byte[30]));
+            in.read();
+            request.setWSDLOperation(new QName("urn:test", "echo"));
+            tube.processResponse(new Packet());
+
+            OperationMetrics m = port.getOperation("echo");
+            assertEquals(1, m.getRequestCount());
+            assertEquals(0, m.getInFlight());
+            assertEquals("bytes read, not Content-Length", 31, m.getBytesIn());
+            assertEquals(0, port.getOperation("").getRequestCount());
+        } finally {
+            port.dispose();
+        }
+    }
+
+    public void testServerRequestInFlight() throws Exception {
+        QName service = new QName("urn:test", "InFlightService");
+        PortMetrics port = PortMetrics.get(false, service, null);
+        try {
+            MetricsTube tube = new MetricsTube(null, port, false);
+            tube.processRequest(new Packet());
+            assertEquals("the operation is not known yet", 1, port.getInFlight());
+            tube.processException(new RuntimeException());
+            assertEquals(0, port.getInFlight());
+            assertEquals(1, port.getOperation("").getErrorCount());
+        } finally {
+            port.dispose();
+        }
+    }
+
+    /**
+     * The port of an endpoint counts the request that its implementation is
+     * processing, and exports the gauge over JMX.
+     */
+    public void testEndpointRequestInFlight() throws Exception {
+        final WSEndpoint<Blocking> endpoint = WSEndpoint.create(Blocking.class, false, null, null, null, null,
+                BindingImpl.create(BindingID.SOAP11_HTTP, new MetricsFeature()), null, null, (EntityResolver) null, false);
+        PortMetrics port = PortMetrics.get(false, endpoint.getServiceName(), endpoint.getPortName());
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = JmxMetricsExporter.objectName(port);
+            assertEquals(0L, server.getAttribute(name, "InFlight"));
+
+            Blocking.entered = new CountDownLatch(1);
+            Blocking.release = new CountDownLatch(1);
+            Thread caller = new Thread() {
+                @Override
+                public void run() {
+                    Packet request = new Packet(Messages.createUsingPayload(new StreamSource(new StringReader(
+                            "<ns:echo xmlns:ns='http://metrics.ws.xml.sun.com/'><arg0>hello</arg0></ns:echo>")),
+                            SOAPVersion.SOAP_11));
+                    endpoint.createPipeHead().process(request, null, null);
+                }
+            };
+            caller.start();
+            try {
+                assertTrue(Blocking.entered.await(10, TimeUnit.SECONDS));
+                assertEquals(1, port.getInFlight());
+                assertEquals(1L, server.getAttribute(name, "InFlight"));
+            } finally {
+                Blocking.release.countDown();
+                caller.join(10000);
+            }
+            assertEquals(0, port.getInFlight());
+            assertEquals(1, port.getOperation("echo").getRequestCount());
+        } finally {
+            port.dispose();
+            endpoint.dispose();
+        }
+    }
+
+    public void testPortReleasedWhenLastTubelineIsDestroyed() {
+        QName service = new QName("urn:test", "ClientService");
+        PortMetrics first = PortMetrics.get(true, service, null);
+        PortMetrics second = PortMetrics.get(true, service, null);
+        assertSame(first, second);
+        first.dispose();
+        assertSame("still used by the other proxy", first, PortMetrics.get(true, service, null));
+        first.dispose();
+        first.dispose();
+        PortMetrics next = PortMetrics.get(true, service, null);
+        assertNotSame(first, next);
+        next.dispose();
+    }
+
+    @WebService
+    public static class Blocking {
+        static volatile CountDownLatch entered;
+        static volatile CountDownLatch release;
+
+        public String echo(String text) {
+            entered.countDown();
+            try {
+                release.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return text;
+        }
+    }
+}
@@ -0,0 +1,127 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2017 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * http://glassfish.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package com.sun.xml.ws.server;
+
+import com.sun.xml.ws.developer.AdmissionControlFeature;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests {@link AdmissionController}.
+ */
+public class AdmissionControllerTest extends TestCase {
+
+    public void testRejectsWhenQueueIsFull() {
+        AdmissionController ac = new AdmissionController(new AdmissionControlFeature(2, 0, 1000L, false, false));
+        long start = System.nanoTime();
+        assertTrue(ac.tryAcquire());
+        assertTrue(ac.tryAcquire());
+        assertFalse(ac.tryAcquire());
+        assertEquals(2, ac.getInFlight());
+        assertEquals(1, ac.getRejectedCount());
+
+        ac.release(start);
+        assertTrue(ac.tryAcquire());
+        assertEquals(3, ac.getAcceptedCount());
+    }
+
+    public void testQueueTimeout() {
+        AdmissionController ac = new AdmissionController(new AdmissionControlFeature(1, 1, 50L, false, false));
+        assertTrue(ac.tryAcquire());
+        long start = System.nanoTime();
+        assertFalse(ac.tryAcquire());
+        assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(40));
+        assertEquals(0, ac.getQueued());
+    }
+
+    public void testAcquireNowDoesNotQueue() {
+        AdmissionController ac = new AdmissionController(new AdmissionControlFeature(1, 1, 10000L, false, false));
+        long start = System.nanoTime();
+        assertTrue(ac.tryAcquireNow());
+        assertFalse(ac.tryAcquireNow());
+        assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(5));
+        assertEquals(1, ac.getRejectedCount());
+
+        ac.release(start);
+        assertTrue(ac.tryAcquireNow());
+    }
+
+    public void testQueuedRequestGetsReleasedSlot() throws Exception {
+        final AdmissionController ac = new AdmissionController(new AdmissionControlFeature(1, 1, 10000L, false, false));
+        final long start = System.nanoTime();
+        assertTrue(ac.tryAcquire());
+        final AtomicBoolean admitted = new AtomicBoolean();
+        final CountDownLatch done = new CountDownLatch(1);
+        Thread t = new Thread() {
+            @Override
+            public void run() {
+                admitted.set(ac.tryAcquire());
+                done.countDown();
+            }
+        };
+        t.start();
+        while (ac.getQueued() == 0) {
+            Thread.sleep(5);
+        }
+        ac.release(start);
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        assertTrue(admitted.get());
+    }
+
+    public void testAdaptiveLimitShrinksWhenLatencyGrows() {
+        AdmissionController ac = new AdmissionController(new AdmissionControlFeature(100, 0, 0L, true, false));
+        long now = System.nanoTime();
+        for (int i = 0; i < 100; i++) {
+            ac.tryAcquire();
+            ac.release(now - TimeUnit.MILLISECONDS.toNanos(1));
+        }
+        assertEquals(100, ac.getLimit());
+        for (int i = 0; i < 100; i++) {
+            ac.tryAcquire();
+            ac.release(now - TimeUnit.MILLISECONDS.toNanos(50));
+        }
+        assertEquals(90, ac.getLimit());
+    }
+}
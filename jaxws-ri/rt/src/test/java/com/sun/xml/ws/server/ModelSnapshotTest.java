@@ -0,0 +1,206 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2017 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * http://glassfish.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package com.sun.xml.ws.server;
+
+import com.sun.xml.ws.api.BindingID;
+import com.sun.xml.ws.api.server.DocumentAddressResolver;
+import com.sun.xml.ws.api.server.PortAddressResolver;
+import com.sun.xml.ws.api.server.SDDocument;
+import com.sun.xml.ws.api.server.SDDocumentSource;
+import com.sun.xml.ws.api.server.WSEndpoint;
+import com.sun.xml.ws.binding.BindingImpl;
+import junit.framework.TestCase;
+import org.xml.sax.EntityResolver;
+
+import javax.jws.WebService;
+import javax.xml.namespace.QName;
+import javax.xml.ws.soap.MTOMFeature;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Handler;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+import java.util.logging.Logger;
+
+public class ModelSnapshotTest extends TestCase {
+
+    private File dir;
+
+    @Override
+    protected void setUp() throws Exception {
+        dir = File.createTempFile("snapshot", "");
+        dir.delete();
+        ModelSnapshot.setDir(dir);
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        ModelSnapshot.setDir(null);
+        File[] files = dir.listFiles();
+        if (files != null) {
+            for (File f : files) {
+                f.delete();
+            }
+        }
+        dir.delete();
+    }
+
+    public void testFingerprintMismatch() throws Exception {
+        Map<String, byte[]> entries = Collections.singletonMap("doc", new byte[]{1, 2, 3});
+        ModelSnapshot.store("key", "one", entries);
+        assertEquals(1, ModelSnapshot.load("key", "one").size());
+        assertNull("changed inputs must invalidate the entry", ModelSnapshot.load("key", "two"));
+        assertNull(ModelSnapshot.load("other", "one"));
+    }
+
+    public void testDocumentContentFingerprinted() throws Exception {
+        File schema = new File(dir, "echo.xsd");
+        dir.mkdirs();
+        write(schema, "<xsd:schema xmlns:xsd='http://www.w3.org/2001/XMLSchema' targetNamespace='urn:one'/>");
+        String one = ModelSnapshot.fingerprint(document(schema));
+        assertEquals(one, ModelSnapshot.fingerprint(document(schema)));
+
+        write(schema, "<xsd:schema xmlns:xsd='http://www.w3.org/2001/XMLSchema' targetNamespace='urn:two'/>");
+        assertFalse("a document changed in place must change the fingerprint",
+                one.equals(ModelSnapshot.fingerprint(document(schema))));
+    }
+
+    public void testDescribeSortsProperties() {
+        String description = ModelSnapshot.describe(new MTOMFeature(true, 1024));
+        String[] parts = description.split(";");
+        assertEquals(MTOMFeature.class.getName(), parts[0]);
+        for (int i = 2; i < parts.length; i++) {
+            assertTrue(description, parts[i - 1].compareTo(parts[i]) < 0);
+        }
+        assertTrue(description, description.contains(";getThreshold=1024"));
+    }
+
+    public void testWSDLRestoredFromSnapshot() throws Exception {
+        final List<String> messages = new ArrayList<String>();
+        Handler handler = new Handler() {
+            @Override
+            public void publish(LogRecord record) {
+                messages.add(record.getMessage());
+            }
+
+            @Override
+            public void flush() {
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+        Logger logger = Logger.getLogger(com.sun.xml.ws.util.Constants.LoggingDomain + ".server.endpoint");
+        Level level = logger.getLevel();
+        logger.setLevel(Level.FINE);
+        logger.addHandler(handler);
+        try {
+            String generated = toString(createEndpoint());
+            assertFalse(messages.contains("Using the WSDL of {0} from the model snapshot"));
+            assertEquals(1, dir.listFiles().length);
+
+            String restored = toString(createEndpoint());
+            assertTrue("WSDL must be restored from the snapshot",
+                    messages.contains("Using the WSDL of {0} from the model snapshot"));
+            assertEquals(generated, restored);
+        } finally {
+            logger.removeHandler(handler);
+            logger.setLevel(level);
+        }
+    }
+
+    private static WSEndpoint<Echo> createEndpoint() {
+        return WSEndpoint.create(Echo.class, false, null, null, null, null,
+                BindingImpl.create(BindingID.SOAP11_HTTP), null, null, (EntityResolver) null, false);
+    }
+
+    /**
+     * Writes out all the documents of the endpoint.
+     */
+    private static String toString(WSEndpoint<?> endpoint) throws IOException {
+        PortAddressResolver portAddresses = new PortAddressResolver() {
+            @Override
+            public String getAddressFor(QName serviceName, String portName) {
+                return "http://localhost/echo";
+            }
+        };
+        DocumentAddressResolver docAddresses = new DocumentAddressResolver() {
+            @Override
+            public String getRelativeAddressFor(SDDocument current, SDDocument referenced) {
+                return referenced.getURL().toExternalForm();
+            }
+        };
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        for (SDDocument doc : endpoint.getServiceDefinition()) {
+            out.write(doc.getURL().toExternalForm().getBytes("UTF-8"));
+            doc.writeTo(portAddresses, docAddresses, out);
+        }
+        return out.toString("UTF-8");
+    }
+
+    private static SDDocumentImpl document(File file) throws IOException {
+        return SDDocumentImpl.create(SDDocumentSource.create(file.toURI().toURL()),
+                new QName("urn:test", "EchoService"), new QName("urn:test", "Echo"));
+    }
+
+    private static void write(File file, String content) throws IOException {
+        FileOutputStream out = new FileOutputStream(file);
+        try {
+            out.write(content.getBytes("UTF-8"));
+        } finally {
+            out.close();
+        }
+    }
+
+    @WebService
+    public static class Echo {
+        public String echo(String text) {
+            return text;
+        }
+    }
+}
@@ -0,0 +1,160 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2017 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * http://glassfish.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package com.sun.xml.ws.transport.http;
+
+import com.sun.xml.ws.api.server.Container;
+import com.sun.xml.ws.api.server.WSEndpoint;
+import junit.framework.TestCase;
+
+import javax.jws.WebService;
+import java.io.ByteArrayInputStream;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Executor;
+
+public class DeploymentDescriptorParserTest extends TestCase {
+
+    private static final String DD =
+            "<endpoints xmlns='http://java.sun.com/xml/ns/jax-ws/ri/runtime' version='2.0'>" +
+            "<endpoint name='one' implementation='" + One.class.getName() + "' url-pattern='/one'/>" +
+            "<endpoint name='two' implementation='" + Two.class.getName() + "' url-pattern='/two'/>" +
+            "<endpoint name='three' implementation='" + Three.class.getName() + "' url-pattern='/three'/>" +
+            "</endpoints>";
+
+    public void testParallelCreationKeepsOrder() throws Exception {
+        DeploymentDescriptorParser<String> parser = createParser(null);
+        parser.parallelism = 3;
+        assertEquals(names(), parse(parser));
+    }
+
+    public void testContainerExecutor() throws Exception {
+        // runs the endpoint creations in the reverse order
+        final List<Runnable> tasks = new ArrayList<Runnable>();
+        final Executor executor = new Executor() {
+            @Override
+            public void execute(Runnable task) {
+                tasks.add(task);
+                if (tasks.size() == 3) {
+                    new Thread() {
+                        @Override
+                        public void run() {
+                            for (int i = tasks.size() - 1; i >= 0; i--) {
+                                tasks.get(i).run();
+                            }
+                        }
+                    }.start();
+                }
+            }
+        };
+        Container container = new Container() {
+            @Override
+            public <T> T getSPI(Class<T> spiType) {
+                return (spiType == Executor.class) ? spiType.cast(executor) : null;
+            }
+        };
+        DeploymentDescriptorParser<String> parser = createParser(container);
+        parser.parallelism = 3;
+        assertEquals(names(), parse(parser));
+        assertEquals("endpoints must be created by the container's executor", 3, tasks.size());
+    }
+
+    private static List<String> names() {
+        List<String> names = new ArrayList<String>();
+        names.add("one:/one:" + One.class.getSimpleName());
+        names.add("two:/two:" + Two.class.getSimpleName());
+        names.add("three:/three:" + Three.class.getSimpleName());
+        return names;
+    }
+
+    private static List<String> parse(DeploymentDescriptorParser<String> parser) throws Exception {
+        return parser.parse("sun-jaxws.xml", new ByteArrayInputStream(DD.getBytes("UTF-8")));
+    }
+
+    private static DeploymentDescriptorParser<String> createParser(Container container) throws Exception {
+        ResourceLoader loader = new ResourceLoader() {
+            @Override
+            public URL getResource(String path) {
+                return null;
+            }
+
+            @Override
+            public URL getCatalogFile() {
+                return null;
+            }
+
+            @Override
+            public Set<String> getResourcePaths(String path) {
+                return Collections.emptySet();
+            }
+        };
+        return new DeploymentDescriptorParser<String>(DeploymentDescriptorParserTest.class.getClassLoader(), loader, container,
+                new DeploymentDescriptorParser.AdapterFactory<String>() {
+                    @Override
+                    public String createAdapter(String name, String urlPattern, WSEndpoint<?> endpoint) {
+                        return name + ':' + urlPattern + ':' + endpoint.getImplementationClass().getSimpleName();
+                    }
+                });
+    }
+
+    @WebService
+    public static class One {
+        public String one(String text) {
+            return text;
+        }
+    }
+
+    @WebService
+    public static class Two {
+        public String two(String text) {
+            return text;
+        }
+    }
+
+    @WebService
+    public static class Three {
+        public String three(String text) {
+            return text;
+        }
+    }
+}
@@ -0,0 +1,424 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2017 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * http://glassfish.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package com.sun.xml.ws.transport.http;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import javax.jws.WebService;
+import javax.xml.ws.WebServiceFeature;
+
+import com.sun.xml.ws.api.BindingID;
+import com.sun.xml.ws.api.server.WSEndpoint;
+import com.sun.xml.ws.binding.BindingImpl;
+import com.sun.xml.ws.developer.AdmissionControlFeature;
+import com.sun.xml.ws.developer.HttpCompressionFeature;
+import com.sun.xml.ws.server.AdmissionController;
+import com.sun.xml.ws.util.ByteArrayBuffer;
+import junit.framework.TestCase;
+import org.xml.sax.EntityResolver;
+
+public class HttpAdapterTest extends TestCase {
+
+    public void testAcceptsGzip() {
+        assertTrue(HttpAdapter.acceptsGzip("gzip"));
+        assertTrue(HttpAdapter.acceptsGzip("deflate, gzip;q=1.0, *;q=0.5"));
+        assertTrue(HttpAdapter.acceptsGzip("x-gzip"));
+        assertTrue(HttpAdapter.acceptsGzip("GZIP; q=0.3"));
+    }
+
+    public void testDoesNotAcceptGzip() {
+        assertFalse(HttpAdapter.acceptsGzip(null));
+        assertFalse(HttpAdapter.acceptsGzip(""));
+        assertFalse(HttpAdapter.acceptsGzip("deflate"));
+        assertFalse(HttpAdapter.acceptsGzip("gzip;q=0"));
+        assertFalse(HttpAdapter.acceptsGzip("gzip;q=0.0, deflate"));
+    }
+
+    public void testAcceptsWildcard() {
+        assertTrue(HttpAdapter.acceptsGzip("*"));
+        assertFalse(HttpAdapter.acceptsGzip("*;q=0"));
+        assertFalse(HttpAdapter.acceptsGzip("gzip;q=0, *"));
+    }
+
+    public void testNegotiateCoding() {
+        assertEquals("gzip", HttpContentEncoding.negotiate("deflate, gzip"));
+        assertEquals("deflate", HttpContentEncoding.negotiate("deflate, gzip;q=0"));
+        assertNull(HttpContentEncoding.negotiate("identity"));
+        assertNull(HttpContentEncoding.negotiate(null));
+    }
+
+    public void testDecodeGzip() throws Exception {
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        GZIPOutputStream gz = new GZIPOutputStream(bos);
+        gz.write("<S:Envelope/>".getBytes("UTF-8"));
+        gz.close();
+        InputStream in = HttpContentEncoding.decode(" GZIP", new ByteArrayInputStream(bos.toByteArray()));
+        ByteArrayBuffer buf = new ByteArrayBuffer();
+        buf.write(in);
+        assertEquals("<S:Envelope/>", buf.toString());
+
+        InputStream plain = new ByteArrayInputStream(new byte[0]);
+        assertSame(plain, HttpContentEncoding.decode("identity", plain));
+    }
+
+    public void testCompressedRequest() throws Exception {
+        WSEndpoint<Echo> endpoint = createEndpoint(new HttpCompressionFeature());
+        try {
+            StubConnection con = post(HttpAdapter.createAlone(endpoint), "gzip", gzip(ECHO_REQUEST));
+            assertEquals(HttpURLConnection.HTTP_OK, con.getStatus());
+            String response = new String(con.getResponseBody(), "UTF-8");
+            assertTrue(response, response.contains("<return>compressed</return>"));
+        } finally {
+            endpoint.dispose();
+        }
+    }
+
+    public void testCompressedRequestNeedsFeature() throws Exception {
+        WSEndpoint<Echo> endpoint = createEndpoint();
+        try {
+            StubConnection con = post(HttpAdapter.createAlone(endpoint), "gzip", gzip(ECHO_REQUEST));
+            assertEquals(HttpURLConnection.HTTP_UNSUPPORTED_TYPE, con.getStatus());
+            con = post(HttpAdapter.createAlone(endpoint), "identity", ECHO_REQUEST.getBytes("UTF-8"));
+            assertEquals(HttpURLConnection.HTTP_OK, con.getStatus());
+        } finally {
+            endpoint.dispose();
+        }
+    }
+
+    public void testDecodeWithoutFeature() throws Exception {
+        byte[] body = gzip(ECHO_REQUEST);
+        for (String coding : new String[]{"gzip", "x-gzip", "Deflate", "br"}) {
+            ByteArrayInputStream in = new ByteArrayInputStream(body);
+            try {
+                HttpContentEncoding.decodeRequest(coding, false, Long.MAX_VALUE, in);
+                fail(coding + " must be rejected without HttpCompressionFeature");
+            } catch (HttpContentEncoding.StatusException e) {
+                assertEquals(HttpURLConnection.HTTP_UNSUPPORTED_TYPE, e.status);
+            }
+            assertEquals("the body is not read", body.length, in.available());
+        }
+
+        InputStream plain = new ByteArrayInputStream(new byte[0]);
+        assertSame(plain, HttpContentEncoding.decodeRequest(null, false, Long.MAX_VALUE, plain));
+        assertSame(plain, HttpContentEncoding.decodeRequest("", false, Long.MAX_VALUE, plain));
+        assertSame(plain, HttpContentEncoding.decodeRequest(" Identity", false, Long.MAX_VALUE, plain));
+    }
+
+    public void testAsyncCompressedRequestNeedsFeature() throws Exception {
+        WSEndpoint<Echo> endpoint = createEndpoint();
+        try {
+            final boolean[] completed = new boolean[1];
+            StubConnection con = new StubConnection("POST", null, gzip(ECHO_REQUEST))
+                    .header("Content-Type", "text/xml")
+                    .header("Content-Encoding", "gzip");
+            HttpAdapter.createAlone(endpoint).invokeAsync(con, new HttpAdapter.CompletionCallback() {
+                public void onCompletion() {
+                    completed[0] = true;
+                }
+            });
+            assertEquals(HttpURLConnection.HTTP_UNSUPPORTED_TYPE, con.getStatus());
+            assertTrue(completed[0]);
+        } finally {
+            endpoint.dispose();
+        }
+    }
+
+    public void testUnsupportedCoding() throws Exception {
+        WSEndpoint<Echo> endpoint = createEndpoint(new HttpCompressionFeature());
+        try {
+            StubConnection con = post(HttpAdapter.createAlone(endpoint), "br", ECHO_REQUEST.getBytes("UTF-8"));
+            assertEquals(HttpURLConnection.HTTP_UNSUPPORTED_TYPE, con.getStatus());
+        } finally {
+            endpoint.dispose();
+        }
+    }
+
+    public void testMalformedGzip() throws Exception {
+        WSEndpoint<Echo> endpoint = createEndpoint(new HttpCompressionFeature());
+        try {
+            StubConnection con = post(HttpAdapter.createAlone(endpoint), "gzip", ECHO_REQUEST.getBytes("UTF-8"));
+            assertEquals(HttpURLConnection.HTTP_BAD_REQUEST, con.getStatus());
+        } finally {
+            endpoint.dispose();
+        }
+    }
+
+    public void testDecodedSizeLimit() throws Exception {
+        byte[] zeros = gzip(new String(new char[100000]).replace('\0', ' '));
+        assertTrue(zeros.length < 1000);
+        InputStream in = HttpContentEncoding.decodeRequest("gzip", true, 50000, new ByteArrayInputStream(zeros));
+        try {
+            new ByteArrayBuffer().write(in);
+            fail("the decompressed request is too large");
+        } catch (HttpContentEncoding.StatusException e) {
+            assertEquals(HttpURLConnection.HTTP_ENTITY_TOO_LARGE, e.status);
+        }
+
+        long max = HttpAdapter.maxDecodedRequestSize;
+        HttpAdapter.maxDecodedRequestSize = 100;
+        WSEndpoint<Echo> endpoint = createEndpoint(new HttpCompressionFeature());
+        try {
+            StubConnection con = post(HttpAdapter.createAlone(endpoint), "gzip", gzip(ECHO_REQUEST));
+            assertFalse(HttpURLConnection.HTTP_OK == con.getStatus());
+            assertFalse(new String(con.getResponseBody(), "UTF-8").contains("<return>compressed"));
+        } finally {
+            HttpAdapter.maxDecodedRequestSize = max;
+            endpoint.dispose();
+        }
+    }
+
+    public void testAsyncFailureReleasesAdmission() throws Exception {
+        WSEndpoint<Echo> endpoint = createEndpoint(new AdmissionControlFeature(1, 0, 0, false, false));
+        try {
+            HttpAdapter adapter = HttpAdapter.createAlone(endpoint);
+            AdmissionController controller = endpoint.getSPI(AdmissionController.class);
+            for (int i = 0; i < 3; i++) {
+                StubConnection con = new StubConnection("POST", null, null).header("Content-Type", "text/xml");
+                con.inputFailure = new IOException("truncated request");
+                try {
+                    adapter.invokeAsync(con);
+                    fail("the read failure should be reported");
+                } catch (IOException e) {
+                    assertSame(con.inputFailure, e);
+                }
+                assertEquals(0, controller.getInFlight());
+            }
+            assertEquals(0, controller.getRejectedCount());
+        } finally {
+            endpoint.dispose();
+        }
+    }
+
+    public void testAsyncRejectsWithoutWaiting() throws Exception {
+        WSEndpoint<Echo> endpoint = createEndpoint(new AdmissionControlFeature(1, 10, 60000, false, false));
+        try {
+            HttpAdapter adapter = HttpAdapter.createAlone(endpoint);
+            AdmissionController controller = endpoint.getSPI(AdmissionController.class);
+            long start = System.nanoTime();
+            assertTrue(controller.tryAcquire());
+            final boolean[] completed = new boolean[1];
+            StubConnection con = new StubConnection("POST", null, null).header("Content-Type", "text/xml");
+            adapter.invokeAsync(con, new HttpAdapter.CompletionCallback() {
+                public void onCompletion() {
+                    completed[0] = true;
+                }
+            });
+            assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(30));
+            assertEquals(HttpURLConnection.HTTP_UNAVAILABLE, con.getStatus());
+            assertTrue(completed[0]);
+            assertEquals(1, controller.getInFlight());
+            controller.release(start);
+        } finally {
+            endpoint.dispose();
+        }
+    }
+
+    public void testWSDLPublishedPerBaseAddress() throws Exception {
+        WSEndpoint<Echo> endpoint = createEndpoint();
+        try {
+            HttpAdapter adapter = HttpAdapter.createAlone(endpoint);
+            StubConnection first = getWSDL(adapter, "http://one:8080/app/echo");
+            StubConnection second = getWSDL(adapter, "http://two:9090/app/echo");
+            StubConnection again = getWSDL(adapter, "http://one:8080/app/echo");
+
+            String wsdl = new String(first.getResponseBody(), "UTF-8");
+            assertTrue(wsdl, wsdl.contains("http://one:8080/app/echo"));
+            String other = new String(second.getResponseBody(), "UTF-8");
+            assertTrue(other, other.contains("http://two:9090/app/echo"));
+            assertFalse(other.contains("http://one:8080/app/echo"));
+            assertFalse(first.getResponseHeader("ETag").equals(second.getResponseHeader("ETag")));
+
+            assertEquals(wsdl, new String(again.getResponseBody(), "UTF-8"));
+            assertEquals(first.getResponseHeader("ETag"), again.getResponseHeader("ETag"));
+            assertEquals(first.getResponseHeader("Last-Modified"), again.getResponseHeader("Last-Modified"));
+        } finally {
+            endpoint.dispose();
+        }
+    }
+
+    public void testPublishedDocumentCacheEvictsLeastRecentlyUsed() {
+        Map<String, String> cache = new HttpAdapter.PublishedDocumentCache<String, String>(3);
+        cache.put("a", "A");
+        cache.put("b", "B");
+        cache.put("c", "C");
+        assertEquals("A", cache.get("a"));
+        cache.put("d", "D");
+        assertEquals(3, cache.size());
+        assertFalse("b was the least recently used", cache.containsKey("b"));
+        assertTrue(cache.containsKey("a"));
+        for (int i = 0; i < 10; i++) {
+            cache.put("host" + i, "");
+            cache.get("a");
+        }
+        assertEquals(3, cache.size());
+        assertEquals("A", cache.get("a"));
+    }
+
+    public void testIfNoneMatch() throws Exception {
+        WSEndpoint<Echo> endpoint = createEndpoint();
+        try {
+            HttpAdapter adapter = HttpAdapter.createAlone(endpoint);
+            String etag = getWSDL(adapter, null).getResponseHeader("ETag");
+            assertNotNull(etag);
+
+            StubConnection con = getWSDL(adapter, null, "If-None-Match", etag);
+            assertEquals(HttpURLConnection.HTTP_NOT_MODIFIED, con.getStatus());
+            assertEquals(0, con.getResponseBody().length);
+            assertEquals(etag, con.getResponseHeader("ETag"));
+
+            con = getWSDL(adapter, null, "If-None-Match", "\"other\", W/" + etag);
+            assertEquals(HttpURLConnection.HTTP_NOT_MODIFIED, con.getStatus());
+
+            con = getWSDL(adapter, null, "If-None-Match", "\"other\"");
+            assertEquals(HttpURLConnection.HTTP_OK, con.getStatus());
+            assertTrue(con.getResponseBody().length > 0);
+        } finally {
+            endpoint.dispose();
+        }
+    }
+
+    public void testIfModifiedSince() throws Exception {
+        WSEndpoint<Echo> endpoint = createEndpoint();
+        try {
+            HttpAdapter adapter = HttpAdapter.createAlone(endpoint);
+            String lastModified = getWSDL(adapter, null).getResponseHeader("Last-Modified");
+            assertNotNull(lastModified);
+
+            StubConnection con = getWSDL(adapter, null, "If-Modified-Since", lastModified);
+            assertEquals(HttpURLConnection.HTTP_NOT_MODIFIED, con.getStatus());
+            assertEquals(0, con.getResponseBody().length);
+
+            con = getWSDL(adapter, null, "If-Modified-Since", "Thu, 01 Jan 1970 00:00:00 GMT");
+            assertEquals(HttpURLConnection.HTTP_OK, con.getStatus());
+
+            con = getWSDL(adapter, null, "If-Modified-Since", "not a date");
+            assertEquals(HttpURLConnection.HTTP_OK, con.getStatus());
+
+            // If-None-Match takes precedence
+            con = getWSDL(adapter, null, "If-Modified-Since", lastModified, "If-None-Match", "\"other\"");
+            assertEquals(HttpURLConnection.HTTP_OK, con.getStatus());
+        } finally {
+            endpoint.dispose();
+        }
+    }
+
+    public void testGzipVariant() throws Exception {
+        WSEndpoint<Echo> endpoint = createEndpoint();
+        try {
+            HttpAdapter adapter = HttpAdapter.createAlone(endpoint);
+            StubConnection plain = getWSDL(adapter, null);
+            StubConnection gzip = getWSDL(adapter, null, "Accept-Encoding", "gzip");
+
+            assertNull(plain.getResponseHeader("Content-Encoding"));
+            assertEquals("gzip", gzip.getResponseHeader("Content-Encoding"));
+            assertEquals("Accept-Encoding", gzip.getResponseHeader("Vary"));
+            assertFalse(plain.getResponseHeader("ETag").equals(gzip.getResponseHeader("ETag")));
+            assertEquals(String.valueOf(gzip.getResponseBody().length), gzip.getResponseHeader("Content-Length"));
+
+            ByteArrayBuffer unzipped = new ByteArrayBuffer();
+            unzipped.write(new GZIPInputStream(new ByteArrayInputStream(gzip.getResponseBody())));
+            assertEquals(new String(plain.getResponseBody(), "UTF-8"), unzipped.toString());
+
+            // the ETag of one variant doesn't match the other
+            StubConnection con = getWSDL(adapter, null,
+                    "Accept-Encoding", "gzip", "If-None-Match", plain.getResponseHeader("ETag"));
+            assertEquals(HttpURLConnection.HTTP_OK, con.getStatus());
+            con = getWSDL(adapter, null, "If-None-Match", gzip.getResponseHeader("ETag"));
+            assertEquals(HttpURLConnection.HTTP_OK, con.getStatus());
+            assertNull(con.getResponseHeader("Content-Encoding"));
+        } finally {
+            endpoint.dispose();
+        }
+    }
+
+    private static StubConnection getWSDL(HttpAdapter adapter, String baseAddress, String... headers) throws IOException {
+        StubConnection con = new StubConnection("GET", "wsdl", null);
+        if (baseAddress != null) {
+            con.baseAddress = baseAddress;
+        }
+        for (int i = 0; i < headers.length; i += 2) {
+            con.header(headers[i], headers[i + 1]);
+        }
+        adapter.handle(con);
+        return con;
+    }
+
+    private static StubConnection post(HttpAdapter adapter, String contentEncoding, byte[] body) throws IOException {
+        StubConnection con = new StubConnection("POST", null, body)
+                .header("Content-Type", "text/xml")
+                .header("Content-Encoding", contentEncoding);
+        adapter.handle(con);
+        return con;
+    }
+
+    private static byte[] gzip(String text) throws IOException {
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        GZIPOutputStream gz = new GZIPOutputStream(bos);
+        gz.write(text.getBytes("UTF-8"));
+        gz.close();
+        return bos.toByteArray();
+    }
+
+    private static final String ECHO_REQUEST =
+            "<S:Envelope xmlns:S='http://schemas.xmlsoap.org/soap/envelope/'><S:Body>"
+            + "<ns:echo xmlns:ns='http://http.transport.ws.xml.sun.com/'><arg0>compressed</arg0></ns:echo>"
+            + "</S:Body></S:Envelope>";
+
+    static WSEndpoint<Echo> createEndpoint(WebServiceFeature... features) {
+        return WSEndpoint.create(Echo.class, false, null, null, null, null,
+                BindingImpl.create(BindingID.SOAP11_HTTP, features), null, null, (EntityResolver) null, false);
+    }
+
+    @WebService
+    public static class Echo {
+        public String echo(String text) {
+            return text;
+        }
+    }
+}
@@ -0,0 +1,222 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2017 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * http://glassfish.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+package com.sun.xml.ws.transport.http;
+
+import com.oracle.webservices.api.message.BasePropertySet;
+import com.sun.istack.NotNull;
+import com.sun.xml.ws.api.message.Packet;
+import com.sun.xml.ws.api.server.WSEndpoint;
+import com.sun.xml.ws.api.server.WebServiceContextDelegate;
+import com.sun.xml.ws.util.ByteArrayBuffer;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.security.Principal;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * {@link WSHTTPConnection} that serves one in-memory request and records the response.
+ */
+class StubConnection extends WSHTTPConnection implements WebServiceContextDelegate {
+
+    private final String method;
+    private final String queryString;
+    private final byte[] body;
+    private final Map<String, List<String>> requestHeaders = new TreeMap<String, List<String>>(String.CASE_INSENSITIVE_ORDER);
+    private final Map<String, List<String>> responseHeaders = new HashMap<String, List<String>>();
+    private final ByteArrayBuffer output = new ByteArrayBuffer();
+    private int status;
+    String baseAddress = "http://localhost:8080/app/echo";
+    IOException inputFailure;
+
+    StubConnection(String method, String queryString, byte[] body) {
+        this.method = method;
+        this.queryString = queryString;
+        this.body = body;
+    }
+
+    StubConnection header(String name, String value) {
+        requestHeaders.put(name, Collections.singletonList(value));
+        return this;
+    }
+
+    byte[] getResponseBody() {
+        return output.toByteArray();
+    }
+
+    String getResponseHeader(String name) {
+        for (Map.Entry<String, List<String>> e : responseHeaders.entrySet()) {
+            if (e.getKey().equalsIgnoreCase(name) && !e.getValue().isEmpty()) {
+                return e.getValue().get(0);
+            }
+        }
+        return null;
+    }
+
+    public void setResponseHeaders(Map<String, List<String>> headers) {
+        responseHeaders.clear();
+        if (headers != null) {
+            responseHeaders.putAll(headers);
+        }
+    }
+
+    public void setResponseHeader(String key, List<String> value) {
+        responseHeaders.put(key, value);
+    }
+
+    public void setContentTypeResponseHeader(@NotNull String value) {
+        responseHeaders.put("Content-Type", Collections.singletonList(value));
+    }
+
+    @Override
+    public void setContentLengthResponseHeader(int value) {
+        responseHeaders.put("Content-Length", Collections.singletonList(String.valueOf(value)));
+    }
+
+    public void setStatus(int status) {
+        this.status = status;
+    }
+
+    public int getStatus() {
+        return status;
+    }
+
+    public @NotNull InputStream getInput() throws IOException {
+        if (inputFailure != null) {
+            throw inputFailure;
+        }
+        return new ByteArrayInputStream(body == null ? new byte[0] : body);
+    }
+
+    public @NotNull OutputStream getOutput() {
+        return output;
+    }
+
+    public @NotNull WebServiceContextDelegate getWebServiceContextDelegate() {
+        return this;
+    }
+
+    public @NotNull String getRequestMethod() {
+        return method;
+    }
+
+    public @NotNull Map<String, List<String>> getRequestHeaders() {
+        return requestHeaders;
+    }
+
+    public @NotNull Set<String> getRequestHeaderNames() {
+        return requestHeaders.keySet();
+    }
+
+    public Map<String, List<String>> getResponseHeaders() {
+        return responseHeaders;
+    }
+
+    public String getRequestHeader(@NotNull String headerName) {
+        List<String> values = requestHeaders.get(headerName);
+        return (values == null || values.isEmpty()) ? null : values.get(0);
+    }
+
+    public List<String> getRequestHeaderValues(@NotNull String headerName) {
+        return requestHeaders.get(headerName);
+    }
+
+    public String getQueryString() {
+        return queryString;
+    }
+
+    public String getPathInfo() {
+        return null;
+    }
+
+    public @NotNull String getRequestURI() {
+        return "/app/echo";
+    }
+
+    public @NotNull String getRequestScheme() {
+        return "http";
+    }
+
+    public @NotNull String getServerName() {
+        return "localhost";
+    }
+
+    public int getServerPort() {
+        return 8080;
+    }
+
+    @Override
+    public @NotNull String getBaseAddress() {
+        return baseAddress;
+    }
+
+    public boolean isSecure() {
+        return false;
+    }
+
+    public Principal getUserPrincipal(Packet request) {
+        return null;
+    }
+
+    public boolean isUserInRole(Packet request, String role) {
+        return false;
+    }
+
+    public @NotNull String getEPRAddress(Packet request, WSEndpoint endpoint) {
+        return baseAddress;
+    }
+
+    public String getWSDLAddress(@NotNull Packet request, @NotNull WSEndpoint endpoint) {
+        return baseAddress + "?wsdl";
+    }
+
+    protected BasePropertySet.PropertyMap getPropertyMap() {
+        return model;
+    }
+
+    private static final BasePropertySet.PropertyMap model = parse(StubConnection.class);
+}
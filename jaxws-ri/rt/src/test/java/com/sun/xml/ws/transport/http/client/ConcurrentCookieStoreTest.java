@@ -0,0 +1,106 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2017 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * http://glassfish.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package com.sun.xml.ws.transport.http.client;
+
+import junit.framework.TestCase;
+
+import java.net.CookieManager;
+import java.net.CookiePolicy;
+import java.net.HttpCookie;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+public class ConcurrentCookieStoreTest extends TestCase {
+
+    public void testCookieManager() throws Exception {
+        CookieManager manager = new CookieManager(new ConcurrentCookieStore(100), CookiePolicy.ACCEPT_ALL);
+        URI uri = new URI("http://a.example.com/service");
+        manager.put(uri, Collections.singletonMap("Set-Cookie",
+                Collections.singletonList("JSESSIONID=abc; Path=/")));
+        manager.put(uri, Collections.singletonMap("Set-Cookie",
+                Collections.singletonList("route=r1; Domain=.example.com; Path=/")));
+
+        assertEquals("[JSESSIONID=abc, route=r1]", cookies(manager, "http://a.example.com/service").toString());
+        assertEquals("[route=r1]", cookies(manager, "http://b.example.com/service").toString());
+        assertEquals("[]", cookies(manager, "http://example.org/service").toString());
+
+        // replaced, not added
+        manager.put(uri, Collections.singletonMap("Set-Cookie",
+                Collections.singletonList("JSESSIONID=def; Path=/")));
+        assertEquals("[JSESSIONID=def, route=r1]", cookies(manager, "http://a.example.com/service").toString());
+    }
+
+    public void testExpiredAndEvicted() throws Exception {
+        ConcurrentCookieStore store = new ConcurrentCookieStore(2);
+        URI uri = new URI("http://localhost/");
+        HttpCookie expired = new HttpCookie("expired", "1");
+        expired.setDomain("localhost.local");
+        expired.setMaxAge(-1);
+        store.add(uri, expired);
+        expired.setMaxAge(0);   // hasExpired() from now on
+        for (int i = 0; i < 3; i++) {
+            HttpCookie c = new HttpCookie("c" + i, "v");
+            c.setDomain("localhost.local");
+            store.add(uri, c);
+        }
+
+        assertEquals(2, store.size());
+        List<HttpCookie> cookies = store.get(uri);
+        assertEquals(2, cookies.size());
+        assertEquals("c1", cookies.get(0).getName());
+        assertEquals("c2", cookies.get(1).getName());
+    }
+
+    private static List<String> cookies(CookieManager manager, String uri) throws Exception {
+        Map<String, List<String>> headers = manager.get(new URI(uri), Collections.<String, List<String>>emptyMap());
+        List<String> cookie = headers.get("Cookie");
+        if (cookie == null) {
+            return Collections.emptyList();
+        }
+        // the order depends on the creation time of the cookies
+        List<String> sorted = new ArrayList<String>(cookie);
+        Collections.sort(sorted);
+        return sorted;
+    }
+}
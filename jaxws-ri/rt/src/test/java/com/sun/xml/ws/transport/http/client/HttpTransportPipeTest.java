@@ -0,0 +1,134 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2017 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * http://glassfish.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package com.sun.xml.ws.transport.http.client;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import com.sun.xml.ws.api.BindingID;
+import com.sun.xml.ws.api.EndpointAddress;
+import com.sun.xml.ws.api.SOAPVersion;
+import com.sun.xml.ws.api.message.Messages;
+import com.sun.xml.ws.api.message.Packet;
+import com.sun.xml.ws.binding.BindingImpl;
+import com.sun.xml.ws.developer.JAXWSProperties;
+import com.sun.xml.ws.util.ByteArrayBuffer;
+
+import javax.xml.transform.stream.StreamSource;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.StringReader;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+public class HttpTransportPipeTest extends TestCase {
+
+    private static final String RESPONSE =
+            "<S:Envelope xmlns:S='http://schemas.xmlsoap.org/soap/envelope/'><S:Body><ok/></S:Body></S:Envelope>";
+
+    private HttpServer server;
+    private final List<String> transferEncodings = new ArrayList<String>();
+    private final List<String> contentLengths = new ArrayList<String>();
+    private final List<Integer> requestSizes = new ArrayList<Integer>();
+
+    @Override
+    protected void setUp() throws Exception {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/soap", new HttpHandler() {
+            @Override
+            public void handle(HttpExchange t) throws IOException {
+                transferEncodings.add(t.getRequestHeaders().getFirst("Transfer-Encoding"));
+                contentLengths.add(t.getRequestHeaders().getFirst("Content-Length"));
+                ByteArrayBuffer in = new ByteArrayBuffer();
+                in.write(t.getRequestBody());
+                requestSizes.add(in.size());
+                byte[] response = RESPONSE.getBytes("UTF-8");
+                t.getResponseHeaders().add("Content-Type", "text/xml");
+                t.sendResponseHeaders(200, response.length);
+                OutputStream out = t.getResponseBody();
+                out.write(response);
+                out.close();
+            }
+        });
+        server.start();
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        server.stop(0);
+    }
+
+    public void testStreamingThreshold() throws Exception {
+        BindingImpl binding = BindingImpl.create(BindingID.SOAP11_HTTP);
+        HttpTransportPipe pipe = new HttpTransportPipe(binding.createCodec(), binding);
+
+        assertEquals("ok", send(pipe, 100, 64 * 1024));
+        assertNull(transferEncodings.get(0));
+        assertEquals(String.valueOf(requestSizes.get(0)), contentLengths.get(0));
+
+        assertEquals("ok", send(pipe, 200 * 1024, 64 * 1024));
+        assertEquals("chunked", transferEncodings.get(1));
+        assertNull(contentLengths.get(1));
+        assertTrue(requestSizes.get(1) > 200 * 1024);
+
+        // buffer reused by the tube doesn't leak into the next request
+        assertEquals("ok", send(pipe, 100, 64 * 1024));
+        assertEquals(requestSizes.get(0), requestSizes.get(2));
+    }
+
+    private String send(HttpTransportPipe pipe, int payloadSize, int threshold) throws Exception {
+        StringBuilder payload = new StringBuilder("<data>");
+        for (int i = 0; i < payloadSize; i++) {
+            payload.append('x');
+        }
+        payload.append("</data>");
+        Packet request = new Packet(Messages.createUsingPayload(
+                new StreamSource(new StringReader(payload.toString())), SOAPVersion.SOAP_11));
+        request.endpointAddress = EndpointAddress.create(
+                "http://localhost:" + server.getAddress().getPort() + "/soap");
+        request.invocationProperties.put(JAXWSProperties.HTTP_CLIENT_STREAMING_THRESHOLD, threshold);
+        Packet response = pipe.process(request);
+        return response.getMessage().getPayloadLocalPart();
+    }
+}
@@ -0,0 +1,318 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2017 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * http://glassfish.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package com.sun.xml.ws.transport.http.client;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import com.sun.xml.ws.util.ByteArrayBuffer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import junit.framework.TestCase;
+
+public class NioHttpClientTest extends TestCase {
+
+    public void testChunkedResponseInPieces() throws Exception {
+        NioHttpExchange ex = new NioHttpExchange("localhost", 80, new byte[0], null, false, 0, 0, null);
+        ex.prepare();
+        String response = "HTTP/1.1 100 Continue\r\n\r\n"
+                + "HTTP/1.1 200 OK\r\nTransfer-Encoding: chunked\r\nContent-Type: text/xml\r\n\r\n"
+                + "5\r\nhello\r\n6;ext=1\r\n world\r\n0\r\n\r\n";
+        byte[] bytes = response.getBytes("ISO-8859-1");
+        boolean done = false;
+        for (int i = 0; i < bytes.length; i++) {
+            assertFalse(done);
+            done = ex.consume(ByteBuffer.wrap(bytes, i, 1));
+        }
+        assertTrue(done);
+        assertEquals(200, ex.getStatusCode());
+        assertEquals("OK", ex.getStatusMessage());
+        assertTrue(ex.isKeepAlive());
+        assertEquals("text/xml", ex.getResponseHeaders().get("content-type").get(0));
+        assertEquals("hello world", new String(ex.getResponseBody().toByteArray(), "ISO-8859-1"));
+    }
+
+    public void testResponseUntilEndOfStream() throws Exception {
+        NioHttpExchange ex = new NioHttpExchange("localhost", 80, new byte[0], null, false, 0, 0, null);
+        ex.prepare();
+        byte[] bytes = "HTTP/1.0 500 Internal Server Error\r\n\r\n<fault/>".getBytes("ISO-8859-1");
+        assertFalse(ex.consume(ByteBuffer.wrap(bytes)));
+        assertTrue(ex.endOfStream());
+        assertEquals(500, ex.getStatusCode());
+        assertFalse(ex.isKeepAlive());
+        assertEquals("<fault/>", new String(ex.getResponseBody().toByteArray(), "ISO-8859-1"));
+    }
+
+    public void testKeepAliveConnectionsAreReused() throws Exception {
+        final Set<Integer> clientPorts = Collections.synchronizedSet(new HashSet<Integer>());
+        HttpServer server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/echo", new HttpHandler() {
+            @Override
+            public void handle(HttpExchange t) throws IOException {
+                clientPorts.add(t.getRemoteAddress().getPort());
+                ByteArrayBuffer in = new ByteArrayBuffer();
+                in.write(t.getRequestBody());
+                t.sendResponseHeaders(200, in.size());
+                OutputStream out = t.getResponseBody();
+                in.writeTo(out);
+                out.close();
+            }
+        });
+        server.start();
+        try {
+            int port = server.getAddress().getPort();
+            final int requests = 20;
+            final CountDownLatch latch = new CountDownLatch(requests);
+            final AtomicInteger ok = new AtomicInteger();
+            NioHttpExchange.Callback callback = new NioHttpExchange.Callback() {
+                @Override
+                public void onResponse(NioHttpExchange exchange) {
+                    if (exchange.getStatusCode() == 200
+                            && "ping".equals(new String(exchange.getResponseBody().toByteArray()))) {
+                        ok.incrementAndGet();
+                    }
+                    latch.countDown();
+                }
+
+                @Override
+                public void onFailure(IOException e) {
+                    latch.countDown();
+                }
+            };
+            for (int i = 0; i < requests; i++) {
+                ByteArrayBuffer body = new ByteArrayBuffer("ping".getBytes());
+                byte[] head = ("POST /echo HTTP/1.1\r\nHost: localhost:" + port + "\r\nContent-Length: 4\r\n\r\n").getBytes("ISO-8859-1");
+                NioHttpClient.getInstance().send(
+                        new NioHttpExchange("localhost", port, head, body, false, 5000, 5000, callback), 2, 60000);
+            }
+            assertTrue(latch.await(30, TimeUnit.SECONDS));
+            assertEquals(requests, ok.get());
+            assertTrue("connections were not pooled: " + clientPorts, clientPorts.size() <= 2);
+        } finally {
+            server.stop(0);
+        }
+    }
+
+    public void testWrittenRequestIsNotRetried() throws Exception {
+        final ServerSocket server = new ServerSocket(0, 0, InetAddress.getByName("localhost"));
+        final AtomicInteger received = new AtomicInteger();
+        Thread acceptor = new Thread() {
+            @Override
+            public void run() {
+                try {
+                    while (true) {
+                        Socket s = server.accept();
+                        try {
+                            while (readRequest(s.getInputStream())) {
+                                if (received.incrementAndGet() == 2) {
+                                    // the request arrived completely, fail before answering
+                                    break;
+                                }
+                                s.getOutputStream().write("HTTP/1.1 200 OK\r\nContent-Length: 4\r\n\r\npong".getBytes("ISO-8859-1"));
+                                s.getOutputStream().flush();
+                            }
+                        } finally {
+                            s.close();
+                        }
+                    }
+                } catch (IOException e) {
+                    // server socket closed
+                }
+            }
+        };
+        acceptor.setDaemon(true);
+        acceptor.start();
+        try {
+            int port = server.getLocalPort();
+            Result first = new Result();
+            NioHttpClient.getInstance().send(ping(port, first), 1, 60000);
+            assertTrue(first.latch.await(10, TimeUnit.SECONDS));
+            assertEquals(Integer.valueOf(200), first.status.get());
+
+            Result second = new Result();
+            NioHttpClient.getInstance().send(ping(port, second), 1, 60000);
+            assertTrue(second.latch.await(10, TimeUnit.SECONDS));
+            assertNull("a fully written request was sent again", second.status.get());
+            assertNotNull(second.failure.get());
+            assertEquals(2, received.get());
+        } finally {
+            server.close();
+        }
+    }
+
+    /**
+     * Exchanges sent with different limits to the same endpoint don't share
+     * a pool, each one gets the limits it was sent with.
+     */
+    public void testPoolPerConfiguration() throws Exception {
+        final ServerSocket server = new ServerSocket(0, 0, InetAddress.getByName("localhost"));
+        final AtomicInteger accepted = new AtomicInteger();
+        Thread acceptor = new Thread() {
+            @Override
+            public void run() {
+                try {
+                    while (true) {
+                        // never answers, the connections stay busy
+                        server.accept();
+                        accepted.incrementAndGet();
+                    }
+                } catch (IOException e) {
+                    // server socket closed
+                }
+            }
+        };
+        acceptor.setDaemon(true);
+        acceptor.start();
+        try {
+            int port = server.getLocalPort();
+            NioHttpClient.getInstance().send(ping(port, new Result()), 1, 60000);
+            NioHttpClient.getInstance().send(ping(port, new Result()), 1, 60000);
+            waitFor(accepted, 1);
+            Thread.sleep(500);
+            assertEquals("the second exchange must wait for the only connection", 1, accepted.get());
+
+            NioHttpClient.getInstance().send(ping(port, new Result()), 2, 60000);
+            waitFor(accepted, 2);
+            NioHttpClient.getInstance().send(ping(port, new Result()), 1, 30000);
+            waitFor(accepted, 3);
+        } finally {
+            server.close();
+        }
+    }
+
+    public void testShutdown() throws Exception {
+        final ServerSocket server = new ServerSocket(0, 0, InetAddress.getByName("localhost"));
+        try {
+            NioHttpClient client = NioHttpClient.getInstance();
+            Result result = new Result();
+            client.send(ping(server.getLocalPort(), result), 1, 60000);
+            Socket s = server.accept();
+            try {
+                NioHttpClient.shutdown();
+                assertTrue(result.latch.await(10, TimeUnit.SECONDS));
+                assertNotNull("the exchange in flight must fail", result.failure.get());
+            } finally {
+                s.close();
+            }
+            for (int i = 0; i < 100 && client.isRunning(); i++) {
+                Thread.sleep(100);
+            }
+            assertFalse("the I/O thread must stop", client.isRunning());
+
+            // a new I/O thread serves the exchanges sent through the stopped instance
+            NioHttpClient next = NioHttpClient.getInstance();
+            assertNotSame(client, next);
+            Result late = new Result();
+            client.send(ping(server.getLocalPort(), late), 1, 60000);
+            server.accept().close();
+            assertTrue(late.latch.await(10, TimeUnit.SECONDS));
+            assertTrue(next.isRunning());
+        } finally {
+            server.close();
+        }
+    }
+
+    private static void waitFor(AtomicInteger counter, int value) throws InterruptedException {
+        for (int i = 0; i < 100 && counter.get() < value; i++) {
+            Thread.sleep(100);
+        }
+        assertEquals(value, counter.get());
+    }
+
+    private static NioHttpExchange ping(int port, NioHttpExchange.Callback callback) throws IOException {
+        ByteArrayBuffer body = new ByteArrayBuffer("ping".getBytes());
+        byte[] head = ("POST /echo HTTP/1.1\r\nHost: localhost:" + port + "\r\nContent-Length: 4\r\n\r\n").getBytes("ISO-8859-1");
+        return new NioHttpExchange("localhost", port, head, body, false, 5000, 5000, callback);
+    }
+
+    /**
+     * Reads the head and the 4 byte body of one request.
+     */
+    private static boolean readRequest(InputStream in) throws IOException {
+        int matched = 0;
+        while (matched < 4) {
+            int b = in.read();
+            if (b < 0) {
+                return false;
+            }
+            matched = (b == "\r\n\r\n".charAt(matched)) ? matched + 1 : (b == '\r' ? 1 : 0);
+        }
+        for (int i = 0; i < 4; i++) {
+            if (in.read() < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static final class Result implements NioHttpExchange.Callback {
+        final CountDownLatch latch = new CountDownLatch(1);
+        final AtomicReference<Integer> status = new AtomicReference<Integer>();
+        final AtomicReference<IOException> failure = new AtomicReference<IOException>();
+
+        @Override
+        public void onResponse(NioHttpExchange exchange) {
+            status.set(exchange.getStatusCode());
+            latch.countDown();
+        }
+
+        @Override
+        public void onFailure(IOException e) {
+            failure.set(e);
+            latch.countDown();
+        }
+    }
+}
@@ -0,0 +1,183 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2017 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * http://glassfish.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package com.sun.xml.ws.util;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests {@link MethodHandleInvoker}.
+ */
+public class MethodHandleInvokerTest extends TestCase {
+
+    public interface Hello {
+        String hello(String name, int count);
+        void fail(String message) throws Exception;
+        long ping();
+        String cast(Object o);
+    }
+
+    public static class HelloImpl implements Hello {
+        public String hello(String name, int count) {
+            StringBuilder sb = new StringBuilder();
+            for (int i = 0; i < count; i++) {
+                sb.append(name);
+            }
+            return sb.toString();
+        }
+
+        public void fail(String message) throws Exception {
+            throw new Exception(message);
+        }
+
+        public long ping() {
+            return 42L;
+        }
+
+        public String cast(Object o) {
+            return (String) o;
+        }
+
+        private String secret() {
+            return "secret";
+        }
+    }
+
+    public void testInvoke() throws Exception {
+        MethodHandleInvoker invoker = MethodHandleInvoker.get(Hello.class.getMethod("hello", String.class, int.class));
+        assertNotNull(invoker);
+        assertEquals("abab", invoker.invoke(new HelloImpl(), new Object[] {"ab", 2}));
+    }
+
+    public void testNoArguments() throws Exception {
+        MethodHandleInvoker invoker = MethodHandleInvoker.get(Hello.class.getMethod("ping"));
+        assertEquals(42L, invoker.invoke(new HelloImpl(), null));
+        assertEquals(42L, invoker.invoke(new HelloImpl(), new Object[0]));
+    }
+
+    public void testException() throws Exception {
+        MethodHandleInvoker invoker = MethodHandleInvoker.get(Hello.class.getMethod("fail", String.class));
+        try {
+            invoker.invoke(new HelloImpl(), new Object[] {"boom"});
+            fail();
+        } catch (InvocationTargetException e) {
+            assertEquals("boom", e.getCause().getMessage());
+        }
+    }
+
+    public void testExceptionLikeConversionFailure() throws Exception {
+        MethodHandleInvoker invoker = MethodHandleInvoker.get(Hello.class.getMethod("cast", Object.class));
+        try {
+            invoker.invoke(new HelloImpl(), new Object[] {42});
+            fail();
+        } catch (InvocationTargetException e) {
+            assertTrue(e.getCause() instanceof ClassCastException);
+        }
+    }
+
+    public void testWrongArity() throws Exception {
+        MethodHandleInvoker invoker = MethodHandleInvoker.get(Hello.class.getMethod("hello", String.class, int.class));
+        try {
+            invoker.invoke(new HelloImpl(), new Object[] {"ab"});
+            fail();
+        } catch (IllegalArgumentException expected) {
+        }
+        try {
+            invoker.invoke(new HelloImpl(), null);
+            fail();
+        } catch (IllegalArgumentException expected) {
+        }
+    }
+
+    public void testWrongArgumentType() throws Exception {
+        MethodHandleInvoker invoker = MethodHandleInvoker.get(Hello.class.getMethod("hello", String.class, int.class));
+        try {
+            invoker.invoke(new HelloImpl(), new Object[] {42, 2});
+            fail();
+        } catch (IllegalArgumentException expected) {
+        }
+        try {
+            invoker.invoke(new HelloImpl(), new Object[] {"ab", null});
+            fail();
+        } catch (IllegalArgumentException expected) {
+        }
+        try {
+            invoker.invoke(new HelloImpl(), new Object[] {"ab", 2L});
+            fail();
+        } catch (IllegalArgumentException expected) {
+        }
+        try {
+            invoker.invoke("not a hello", new Object[] {"ab", 2});
+            fail();
+        } catch (IllegalArgumentException expected) {
+        }
+    }
+
+    public void testWidening() throws Exception {
+        MethodHandleInvoker invoker = MethodHandleInvoker.get(Hello.class.getMethod("hello", String.class, int.class));
+        Object[] args = {"ab", (short) 2};
+        assertEquals("abab", invoker.invoke(new HelloImpl(), args));
+        assertEquals((short) 2, args[1]);
+        assertEquals("", invoker.invoke(new HelloImpl(), new Object[] {"ab", (byte) 0}));
+    }
+
+    public void testNullTarget() throws Exception {
+        MethodHandleInvoker invoker = MethodHandleInvoker.get(Hello.class.getMethod("ping"));
+        try {
+            invoker.invoke(null, null);
+            fail();
+        } catch (NullPointerException expected) {
+        }
+    }
+
+    public void testCached() throws Exception {
+        Method m = Hello.class.getMethod("ping");
+        assertSame(MethodHandleInvoker.get(m), MethodHandleInvoker.get(Hello.class.getMethod("ping")));
+    }
+
+    public void testUnsupported() throws Exception {
+        assertNull(MethodHandleInvoker.get(HelloImpl.class.getDeclaredMethod("secret")));
+        assertNull(MethodHandleInvoker.get(Method.class.getMethod("invoke", Object.class, Object[].class)));
+        assertNull(MethodHandleInvoker.get(Integer.class.getMethod("valueOf", int.class)));
+    }
+}
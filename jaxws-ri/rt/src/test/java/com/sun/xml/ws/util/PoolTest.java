@@ -0,0 +1,181 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2017 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * http://glassfish.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package com.sun.xml.ws.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.sun.xml.ws.api.message.Packet;
+import com.sun.xml.ws.api.pipe.NextAction;
+import com.sun.xml.ws.api.pipe.Tube;
+import com.sun.xml.ws.api.pipe.TubeCloner;
+import com.sun.xml.ws.api.pipe.helper.AbstractTubeImpl;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests {@link Pool}.
+ */
+public class PoolTest extends TestCase {
+
+    private static class CountingPool extends Pool<Object> {
+        final List<Object> destroyed = new ArrayList<Object>();
+
+        CountingPool(int minSize, int maxSize, long idleTimeout) {
+            super(minSize, maxSize, idleTimeout);
+        }
+
+        @Override
+        protected Object create() {
+            return new Object();
+        }
+
+        @Override
+        protected synchronized void destroy(Object o) {
+            destroyed.add(o);
+        }
+    }
+
+    private static class CountingTube extends AbstractTubeImpl {
+        final AtomicInteger destroyed;
+
+        CountingTube(AtomicInteger destroyed) {
+            this.destroyed = destroyed;
+        }
+
+        CountingTube(CountingTube that, TubeCloner cloner) {
+            super(that, cloner);
+            this.destroyed = that.destroyed;
+        }
+
+        @Override
+        public NextAction processRequest(Packet request) {
+            return doReturnWith(request);
+        }
+
+        @Override
+        public NextAction processResponse(Packet response) {
+            return doReturnWith(response);
+        }
+
+        @Override
+        public NextAction processException(Throwable t) {
+            return doThrow(t);
+        }
+
+        @Override
+        public void preDestroy() {
+            destroyed.incrementAndGet();
+        }
+
+        @Override
+        public CountingTube copy(TubeCloner cloner) {
+            return new CountingTube(this, cloner);
+        }
+    }
+
+    public void testReuse() {
+        Pool<Object> pool = new CountingPool(0, 8, 0);
+        Object o = pool.take();
+        pool.recycle(o);
+        assertSame(o, pool.take());
+        assertEquals(1, pool.getHitCount());
+        assertEquals(1, pool.getMissCount());
+        assertEquals(1, pool.getCreateCount());
+    }
+
+    public void testBounded() {
+        Pool<Object> pool = new CountingPool(0, 4, 0);
+        List<Object> taken = new ArrayList<Object>();
+        for (int i = 0; i < 10; i++) {
+            taken.add(pool.take());
+        }
+        for (Object o : taken) {
+            pool.recycle(o);
+        }
+        assertEquals(4, pool.size());
+        assertEquals(6, pool.getDiscardCount());
+        assertEquals(6, ((CountingPool) pool).destroyed.size());
+    }
+
+    public void testWarmUp() {
+        Pool<Object> pool = new CountingPool(0, 16, 0);
+        pool.warmUp(5);
+        assertEquals(5, pool.size());
+        assertEquals(5, pool.getCreateCount());
+        for (int i = 0; i < 5; i++) {
+            pool.take();
+        }
+        assertEquals(5, pool.getHitCount());
+        assertEquals(0, pool.getMissCount());
+    }
+
+    public void testIdleEviction() throws Exception {
+        Pool<Object> pool = new CountingPool(1, 16, 1);
+        pool.warmUp(3);
+        Thread.sleep(20);
+        pool.evictIdle();
+        assertEquals(1, pool.size());
+        assertEquals(2, pool.getEvictionCount());
+        assertEquals(2, ((CountingPool) pool).destroyed.size());
+    }
+
+    public void testTubePoolDestroysEvictedCopies() throws Exception {
+        AtomicInteger destroyed = new AtomicInteger();
+        Pool<Tube> pool = new Pool.TubePool(new CountingTube(destroyed), 0, 16, 1, true);
+        pool.warmUp(3);
+        Thread.sleep(20);
+        pool.evictIdle();
+        assertEquals(0, pool.size());
+        assertEquals("copies are destroyed, the master is not", 2, destroyed.get());
+    }
+
+    public void testTubePoolKeepsSharedCopies() throws Exception {
+        AtomicInteger destroyed = new AtomicInteger();
+        Pool<Tube> pool = new Pool.TubePool(new CountingTube(destroyed), 0, 16, 1);
+        pool.warmUp(3);
+        Thread.sleep(20);
+        pool.evictIdle();
+        assertEquals(3, pool.getEvictionCount());
+        assertEquals(0, destroyed.get());
+    }
+}
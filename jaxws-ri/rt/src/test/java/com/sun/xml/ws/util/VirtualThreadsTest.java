@@ -0,0 +1,129 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2017 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * http://glassfish.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package com.sun.xml.ws.util;
+
+import com.sun.xml.ws.api.pipe.Engine;
+import junit.framework.TestCase;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Each test class runs in its own JVM, so the property is set before
+ * {@link VirtualThreads} is initialized.
+ */
+public class VirtualThreadsTest extends TestCase {
+
+    static {
+        System.setProperty("com.sun.xml.ws.virtualThreads", "true");
+    }
+
+    public void testSupportFollowsTheRuntime() throws Exception {
+        assertEquals(runtimeHasVirtualThreads(), VirtualThreads.isSupported());
+        // the property is only honoured where virtual threads exist
+        assertEquals(VirtualThreads.isSupported(), VirtualThreads.isEnabled());
+    }
+
+    public void testVirtualThreadPerTaskExecutor() throws Exception {
+        ExecutorService executor = VirtualThreads.newVirtualThreadPerTaskExecutor("test-virtual-");
+        if (!runtimeHasVirtualThreads()) {
+            assertNull("no virtual threads before Java 21", executor);
+            return;
+        }
+        assertNotNull(executor);
+        try {
+            Thread first = runOn(new Engine("test", executor));
+            Thread second = runOn(new Engine("test", executor));
+            assertTrue(isVirtual(first));
+            assertTrue(first.getName(), first.getName().startsWith("test-virtual-"));
+            assertNotSame("a new thread for each task", first, second);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * The default executor of the engine runs the fibers on virtual threads when
+     * they are supported, and on the pooled platform threads otherwise.
+     */
+    public void testEngineDefaultExecutor() throws Exception {
+        Thread thread = runOn(new Engine("test"));
+        if (runtimeHasVirtualThreads()) {
+            assertTrue(isVirtual(thread));
+            assertTrue(thread.getName(), thread.getName().startsWith("jaxws-engine-virtual-"));
+        } else {
+            assertTrue(thread.isDaemon());
+            assertTrue(thread.getName(), thread.getName().startsWith("jaxws-engine-"));
+            assertFalse(thread.getName(), thread.getName().startsWith("jaxws-engine-virtual-"));
+        }
+    }
+
+    private static Thread runOn(Engine engine) throws InterruptedException {
+        final AtomicReference<Thread> thread = new AtomicReference<Thread>();
+        final CountDownLatch done = new CountDownLatch(1);
+        engine.execute(new Runnable() {
+            @Override
+            public void run() {
+                thread.set(Thread.currentThread());
+                done.countDown();
+            }
+        });
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+        return thread.get();
+    }
+
+    private static boolean runtimeHasVirtualThreads() {
+        try {
+            Thread.class.getMethod("ofVirtual");
+            return true;
+        } catch (NoSuchMethodException e) {
+            return false;
+        }
+    }
+
+    private static boolean isVirtual(Thread thread) throws Exception {
+        Method isVirtual = Thread.class.getMethod("isVirtual");
+        return (Boolean) isVirtual.invoke(thread);
+    }
+}
@@ -0,0 +1,222 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2017 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * http://glassfish.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package com.sun.xml.ws.util.pipe;
+
+import com.sun.xml.ws.api.SOAPVersion;
+import com.sun.xml.ws.api.message.Message;
+import com.sun.xml.ws.api.message.Packet;
+import com.sun.xml.ws.api.pipe.Codec;
+import com.sun.xml.ws.api.pipe.Codecs;
+import com.sun.xml.ws.server.DraconianValidationErrorHandler;
+import com.sun.xml.ws.streaming.XMLStreamReaderUtil;
+import com.sun.xml.ws.util.Pool;
+
+import junit.framework.TestCase;
+
+import javax.xml.XMLConstants;
+import javax.xml.bind.JAXBContext;
+import javax.xml.bind.JAXBException;
+import javax.xml.bind.annotation.XmlElement;
+import javax.xml.bind.annotation.XmlRootElement;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import javax.xml.transform.stream.StreamSource;
+import javax.xml.validation.Schema;
+import javax.xml.validation.SchemaFactory;
+import javax.xml.validation.ValidatorHandler;
+import javax.xml.ws.WebServiceException;
+
+import org.xml.sax.SAXException;
+
+import java.io.ByteArrayInputStream;
+import java.io.StringReader;
+
+public class ValidatingMessageTest extends TestCase {
+
+    private static final String SCHEMA =
+            "<xsd:schema xmlns:xsd='http://www.w3.org/2001/XMLSchema' targetNamespace='urn:test' elementFormDefault='qualified'>" +
+            "<xsd:element name='echo'><xsd:complexType><xsd:sequence>" +
+            "<xsd:element name='n' type='xsd:int'/>" +
+            "<xsd:element name='any' type='xsd:anyType' minOccurs='0'/>" +
+            "</xsd:sequence></xsd:complexType></xsd:element>" +
+            "</xsd:schema>";
+
+    private Pool<ValidatorHandler> handlers;
+
+    @Override
+    protected void setUp() throws Exception {
+        SchemaFactory sf = SchemaFactory.newInstance(XMLConstants.W3C_XML_SCHEMA_NS_URI);
+        final Schema schema = sf.newSchema(new StreamSource(new StringReader(SCHEMA)));
+        handlers = new Pool<ValidatorHandler>() {
+            @Override
+            protected ValidatorHandler create() {
+                return schema.newValidatorHandler();
+            }
+        };
+    }
+
+    public void testValidPayload() throws Exception {
+        Message msg = validating("<t:echo xmlns:t='urn:test'><t:n>5</t:n></t:echo>");
+        XMLStreamReader reader = msg.readPayload();
+        assertEquals("echo", reader.getLocalName());
+        XMLStreamReaderUtil.readRest(reader);
+    }
+
+    public void testInvalidPayload() throws Exception {
+        Message msg = validating("<t:echo xmlns:t='urn:test'><t:n>five</t:n></t:echo>");
+        XMLStreamReader reader = msg.readPayload();
+        try {
+            XMLStreamReaderUtil.readRest(reader);
+            fail("invalid payload must be rejected");
+        } catch (WebServiceException e) {
+            // expected
+        }
+    }
+
+    public void testInvalidPayloadConsumed() throws Exception {
+        Message msg = validating("<t:echo xmlns:t='urn:test'><t:x/></t:echo>");
+        try {
+            msg.consume();
+            fail("invalid payload must be rejected");
+        } catch (WebServiceException e) {
+            // expected
+        }
+    }
+
+    public void testInvalidPayloadIsValidationError() throws Exception {
+        Message msg = validating("<t:echo xmlns:t='urn:test'><t:x/></t:echo>");
+        try {
+            msg.consume();
+            fail("invalid payload must be rejected");
+        } catch (WebServiceException e) {
+            assertTrue(e.getCause() instanceof SAXException);
+            assertSame(e.getCause(), AbstractSchemaValidationTube.getStreamingValidationError(e));
+        }
+    }
+
+    public void testInvalidPayloadReadAsJAXB() throws Exception {
+        // JAXB skips the unknown element, the validator doesn't
+        Message msg = validating("<t:echo xmlns:t='urn:test'><t:n>5</t:n><t:x/></t:echo>");
+        try {
+            msg.readPayloadAsJAXB(JAXBContext.newInstance(Echo.class).createUnmarshaller());
+            fail("invalid payload must be rejected");
+        } catch (WebServiceException e) {
+            assertTrue(e.getCause() instanceof SAXException);
+        } catch (JAXBException e) {
+            fail("validation error must not be reported as an unmarshalling error: " + e);
+        }
+    }
+
+    public void testClosedReaderValidatesRest() throws Exception {
+        Message msg = validating("<t:echo xmlns:t='urn:test'><t:n>five</t:n></t:echo>");
+        XMLStreamReader reader = msg.readPayload();
+        assertEquals("echo", reader.getLocalName());
+        try {
+            reader.close();
+            fail("rest of the invalid payload must be validated");
+        } catch (XMLStreamException e) {
+            // expected
+        } catch (WebServiceException e) {
+            // expected
+        }
+
+        msg = validating("<t:echo xmlns:t='urn:test'><t:n>5</t:n></t:echo>");
+        reader = msg.readPayload();
+        reader.close();
+    }
+
+    public void testElementText() throws Exception {
+        Message msg = validating("<t:echo xmlns:t='urn:test'><t:n>5</t:n></t:echo>");
+        XMLStreamReader reader = msg.readPayload();
+        assertEquals(XMLStreamReader.START_ELEMENT, reader.nextTag());
+        assertEquals("5", reader.getElementText());
+        XMLStreamReaderUtil.readRest(reader);
+    }
+
+    public void testPrefixesOfEnvelope() throws Exception {
+        Message msg = validating("<t:echo><t:n>5</t:n><t:any xsi:type='xsd:int'>7</t:any></t:echo>");
+        XMLStreamReaderUtil.readRest(msg.readPayload());
+
+        msg = validating("<t:echo><t:n>5</t:n><t:any xsi:type='xsd:int'>seven</t:any></t:echo>");
+        try {
+            msg.consume();
+            fail("invalid payload must be rejected");
+        } catch (WebServiceException e) {
+            // expected
+        }
+    }
+
+    public void testCopyIsValidated() throws Exception {
+        Message msg = validating("<t:echo xmlns:t='urn:test'><t:n>five</t:n></t:echo>");
+        try {
+            msg.copy();
+            fail("invalid payload must be rejected");
+        } catch (WebServiceException e) {
+            // expected
+        }
+        msg = validating("<t:echo xmlns:t='urn:test'><t:n>5</t:n></t:echo>");
+        assertEquals("echo", msg.copy().getPayloadLocalPart());
+    }
+
+    public void testHandlerReused() throws Exception {
+        for (int i = 0; i < 3; i++) {
+            validating("<t:echo xmlns:t='urn:test'><t:n>5</t:n></t:echo>").consume();
+        }
+        assertEquals(1, handlers.getCreateCount());
+    }
+
+    @XmlRootElement(name = "echo", namespace = "urn:test")
+    public static class Echo {
+        @XmlElement(namespace = "urn:test")
+        public int n;
+    }
+
+    private Message validating(String payload) throws Exception {
+        String envelope = "<S:Envelope xmlns:S='http://schemas.xmlsoap.org/soap/envelope/' xmlns:t='urn:test'" +
+                " xmlns:xsd='http://www.w3.org/2001/XMLSchema' xmlns:xsi='http://www.w3.org/2001/XMLSchema-instance'>" +
+                "<S:Body>" + payload + "</S:Body></S:Envelope>";
+        Codec codec = Codecs.createSOAPEnvelopeXmlCodec(SOAPVersion.SOAP_11);
+        Packet packet = new Packet();
+        codec.decode(new ByteArrayInputStream(envelope.getBytes("UTF-8")), "text/xml", packet);
+        return new ValidatingMessage(packet.getMessage(), handlers, new DraconianValidationErrorHandler());
+    }
+
+}
@@ -0,0 +1,453 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2017 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * http://glassfish.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package com.sun.xml.ws.transport.http.servlet;
+
+import com.sun.istack.NotNull;
+import com.sun.xml.ws.api.pipe.Engine;
+import com.sun.xml.ws.transport.http.HttpAdapter;
+import com.sun.xml.ws.util.ByteArrayBuffer;
+
+import javax.servlet.AsyncContext;
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import javax.servlet.ReadListener;
+import javax.servlet.ServletContext;
+import javax.servlet.ServletInputStream;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Queue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Processes a request with the Servlet 3.1 non-blocking I/O, so that no
+ * container thread is blocked while a slow client sends the request or
+ * receives the response.
+ *
+ * <p>
+ * The request body is read by a {@link ReadListener} into memory, up to
+ * {@link ServletAdapter#maxRequestSize} bytes. A larger request is rejected
+ * with 413 (Request Entity Too Large) without reading the rest. Once it's
+ * all read, the request is admitted on the container thread, and decoding,
+ * invocation and encoding are handed over to the {@link Engine} of the endpoint.
+ *
+ * <p>
+ * The response is streamed: the encoder writes it in chunks of {@value #CHUNK_SIZE}
+ * bytes, which a {@link WriteListener} sends as the connection becomes writable.
+ * At most {@value #MAX_PENDING} bytes wait for the connection; beyond that the
+ * encoding thread waits, so a slow client holds an engine thread rather than
+ * the whole response. The asynchronous request completes once the last chunk
+ * has been written.
+ *
+ * @see ServletAdapter#invokeAsync(ServletContext, HttpServletRequest, HttpServletResponse, HttpAdapter.CompletionCallback)
+ */
+final class NonBlockingServletExchange implements ReadListener, WriteListener {
+
+    private static final Logger LOGGER = Logger.getLogger(NonBlockingServletExchange.class.getName());
+
+    /*package*/ static final int CHUNK_SIZE = 8192;
+
+    /*package*/ static final int MAX_PENDING = 8 * CHUNK_SIZE;
+
+    private final ServletAdapter adapter;
+    private final HttpServletResponse response;
+    private final AsyncContext asyncContext;
+    private final ServletAdapter.AsyncCompletionCheck completionCheck;
+    /*package*/ final Connection connection;
+
+    private ServletInputStream in;
+    private final byte[] buf = new byte[CHUNK_SIZE];
+    private boolean rejected;
+
+    // guarded by this
+    private ServletOutputStream out;
+    private final Queue<byte[]> pending = new ArrayDeque<byte[]>();
+    private int pendingBytes;
+    private boolean ended;
+    private boolean failed;
+
+    /**
+     * Notified by the adapter once the response is encoded.
+     */
+    private final HttpAdapter.CompletionCallback encoded = new HttpAdapter.CompletionCallback() {
+        @Override
+        public void onCompletion() {
+            endResponse();
+        }
+    };
+
+    NonBlockingServletExchange(ServletAdapter adapter, ServletContext context, HttpServletRequest request, HttpServletResponse response,
+                               AsyncContext asyncContext, ServletAdapter.AsyncCompletionCheck completionCheck) {
+        this.adapter = adapter;
+        this.response = response;
+        this.asyncContext = asyncContext;
+        this.completionCheck = completionCheck;
+        this.connection = new Connection(this, adapter, context, request, response);
+    }
+
+    /**
+     * Starts reading the request. Returns right away, the rest of the exchange
+     * is driven by the container's callbacks.
+     */
+    void start() throws IOException {
+        // an encoder waiting for the connection must not wait forever
+        asyncContext.addListener(new AsyncListener() {
+            @Override
+            public void onComplete(AsyncEvent event) {
+            }
+
+            @Override
+            public void onTimeout(AsyncEvent event) {
+                fail();
+            }
+
+            @Override
+            public void onError(AsyncEvent event) {
+                fail();
+            }
+
+            @Override
+            public void onStartAsync(AsyncEvent event) {
+            }
+        });
+        if (connection.getRequest().getContentLengthLong() > adapter.maxRequestSize) {
+            reject();
+            return;
+        }
+        in = connection.getRequest().getInputStream();
+        in.setReadListener(this);
+    }
+
+    @Override
+    public void onDataAvailable() throws IOException {
+        int n;
+        while (!rejected && in.isReady() && (n = in.read(buf)) != -1) {
+            if (connection.requestBody.size() + n > adapter.maxRequestSize) {
+                reject();
+                return;
+            }
+            connection.requestBody.write(buf, 0, n);
+        }
+    }
+
+    @Override
+    public void onAllDataRead() throws IOException {
+        if (rejected) {
+            return;
+        }
+        // admitted here, on the container thread, so that the engine thread
+        // goes straight to the processing
+        final long start = System.nanoTime();
+        if (!adapter.admitRequest(connection, encoded)) {
+            return;
+        }
+        Runnable task = new Runnable() {
+            @Override
+            public void run() {
+                invoke(start);
+            }
+        };
+        Engine engine;
+        try {
+            engine = adapter.getEndpoint().getEngine();
+        } catch (UnsupportedOperationException e) {
+            engine = null;
+        }
+        if (engine != null) {
+            try {
+                engine.execute(task);
+                return;
+            } catch (RejectedExecutionException e) {
+                LOGGER.log(Level.FINE, "Engine rejected the request, processing it on the container thread", e);
+            }
+        }
+        task.run();
+    }
+
+    private void invoke(long start) {
+        try {
+            adapter.dispatchRequest(connection, encoded, start);
+        } catch (Throwable t) {
+            LOGGER.log(Level.SEVERE, t.getMessage(), t);
+            fail();
+        }
+    }
+
+    private void reject() {
+        rejected = true;
+        if (LOGGER.isLoggable(Level.FINE)) {
+            LOGGER.log(Level.FINE, "Request to {0} exceeds {1} bytes",
+                    new Object[]{connection.getRequestURL(), adapter.maxRequestSize});
+        }
+        response.setStatus(HttpServletResponse.SC_REQUEST_ENTITY_TOO_LARGE);
+        response.setHeader("Connection", "close");
+        complete();
+    }
+
+    /**
+     * Starts the response, once its status and headers are set.
+     */
+    private void startResponse() throws IOException {
+        ServletOutputStream o = response.getOutputStream();
+        o.setWriteListener(this);
+        boolean done;
+        synchronized (this) {
+            out = o;
+            done = drain();
+        }
+        if (done) {
+            complete();
+        }
+    }
+
+    /**
+     * Queues a chunk of the response, waiting while too much of it is pending.
+     */
+    private void send(byte[] chunk) throws IOException {
+        boolean done;
+        synchronized (this) {
+            while (pendingBytes >= MAX_PENDING && !failed) {
+                try {
+                    wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new InterruptedIOException();
+                }
+            }
+            if (failed) {
+                throw new IOException("Response to " + connection.getRequestURL() + " was aborted");
+            }
+            pending.add(chunk);
+            pendingBytes += chunk.length;
+            done = drain();
+        }
+        if (done) {
+            complete();
+        }
+    }
+
+    /**
+     * The response is complete, finishes the exchange once it's written.
+     */
+    private void endResponse() {
+        try {
+            connection.closeResponse();
+        } catch (IOException e) {
+            LOGGER.log(Level.FINE, e.getMessage(), e);
+            fail();
+            return;
+        }
+        boolean done;
+        synchronized (this) {
+            ended = true;
+            // no body at all
+            done = out == null || drain();
+        }
+        if (done) {
+            complete();
+        }
+    }
+
+    @Override
+    public void onWritePossible() throws IOException {
+        boolean done;
+        synchronized (this) {
+            if (out == null) {
+                // called back while the listener is being set
+                out = response.getOutputStream();
+            }
+            done = drain();
+        }
+        if (done) {
+            complete();
+        }
+    }
+
+    /**
+     * Writes the pending chunks while the connection accepts them.
+     * Called with the lock held, by the encoding thread or the container.
+     *
+     * @return true if the whole response has been written
+     */
+    private boolean drain() throws IOException {
+        if (out == null || failed) {
+            return false;
+        }
+        while (out.isReady()) {
+            byte[] chunk = pending.poll();
+            if (chunk == null) {
+                return ended;
+            }
+            out.write(chunk);
+            pendingBytes -= chunk.length;
+            notifyAll();
+        }
+        return false;
+    }
+
+    @Override
+    public void onError(Throwable t) {
+        if (LOGGER.isLoggable(Level.FINE)) {
+            LOGGER.log(Level.FINE, "I/O error on " + connection.getRequestURL(), t);
+        }
+        fail();
+    }
+
+    private void fail() {
+        synchronized (this) {
+            failed = true;
+            pending.clear();
+            pendingBytes = 0;
+            notifyAll();
+        }
+        complete();
+    }
+
+    private void complete() {
+        synchronized (completionCheck) {
+            if (!completionCheck.isCompleted()) {
+                asyncContext.complete();
+                completionCheck.markComplete();
+            }
+        }
+    }
+
+    /**
+     * {@link ServletConnectionImpl} whose request body is in memory, and whose
+     * response body is streamed by the exchange.
+     */
+    static final class Connection extends ServletConnectionImpl {
+        private final NonBlockingServletExchange exchange;
+        /*package*/ final ByteArrayBuffer requestBody = new ByteArrayBuffer();
+        private ResponseOutput responseBody;
+
+        Connection(NonBlockingServletExchange exchange, ServletAdapter adapter, ServletContext context,
+                   HttpServletRequest request, HttpServletResponse response) {
+            super(adapter, context, request, response);
+            this.exchange = exchange;
+        }
+
+        @Override
+        public @NotNull InputStream getInput() {
+            return requestBody.newInputStream();
+        }
+
+        @Override
+        public @NotNull OutputStream getOutput() throws IOException {
+            if (responseBody == null) {
+                setResponseStatusAndHeaders();
+                responseBody = new ResponseOutput(exchange);
+                exchange.startResponse();
+            }
+            return responseBody;
+        }
+
+        /*package*/ void closeResponse() throws IOException {
+            if (responseBody == null) {
+                setResponseStatusAndHeaders();
+            } else {
+                responseBody.close();
+            }
+        }
+    }
+
+    /**
+     * Cuts the response into chunks for the {@link WriteListener}.
+     */
+    private static final class ResponseOutput extends OutputStream {
+        private final NonBlockingServletExchange exchange;
+        private byte[] chunk = new byte[CHUNK_SIZE];
+        private int count;
+        private boolean closed;
+
+        ResponseOutput(NonBlockingServletExchange exchange) {
+            this.exchange = exchange;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            if (count == chunk.length) {
+                sendChunk();
+            }
+            chunk[count++] = (byte) b;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            while (len > 0) {
+                if (count == chunk.length) {
+                    sendChunk();
+                }
+                int n = Math.min(len, chunk.length - count);
+                System.arraycopy(b, off, chunk, count, n);
+                count += n;
+                off += n;
+                len -= n;
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (!closed) {
+                closed = true;
+                if (count > 0) {
+                    sendChunk();
+                }
+            }
+        }
+
+        private void sendChunk() throws IOException {
+            byte[] full = count == chunk.length ? chunk : Arrays.copyOf(chunk, count);
+            chunk = new byte[CHUNK_SIZE];
+            count = 0;
+            exchange.send(full);
+        }
+    }
+}
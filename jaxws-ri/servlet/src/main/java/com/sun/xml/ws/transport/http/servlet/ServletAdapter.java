@@ -180,6 +180,9 @@ public class ServletAdapter extends HttpAdapter implements BoundEndpoint {
      * When run in async mode, this method returns immediately. The response is delayed until the application is ready with the response or
      *  the corresponding asynchronous operation times out. The CompletionCallback is guaranteed to run after response is committed..
      *
+     * If the {@code com.sun.xml.ws.transport.http.servlet.ServletAdapter.nonBlockingIO} system property is true
+     * and the container supports Servlet 3.1, async requests are read and written with non-blocking I/O.
+     *
      * @param context Servlet Context
      * @param request Servlet Request
      * @param response Servlet Response
@@ -207,6 +210,13 @@ public class ServletAdapter extends HttpAdapter implements BoundEndpoint {
             if (asyncRequest) {
                 final javax.servlet.AsyncContext asyncContext = request.startAsync(request, response);
                 final AsyncCompletionCheck completionCheck = new AsyncCompletionCheck();
+                if (nonBlockingIO) {
+                    NonBlockingServletExchange exchange = new NonBlockingServletExchange(this, context, request, response, asyncContext, completionCheck);
+                    new WSAsyncListener(exchange.connection, callback).addListenerTo(asyncContext, completionCheck);
+                    exchange.start();
+                    asyncStarted = true;
+                    return;
+                }
                 new WSAsyncListener(connection, callback).addListenerTo(asyncContext,completionCheck);
                 //asyncContext.setTimeout(10000L);// TODO get it from @ or config file
                 super.invokeAsync(connection, new CompletionCallback() {
@@ -231,6 +241,20 @@ public class ServletAdapter extends HttpAdapter implements BoundEndpoint {
         }
     }
 
+    /**
+     * {@link #admitAsync(WSHTTPConnection, CompletionCallback)} for {@link NonBlockingServletExchange}.
+     */
+    /*package*/ boolean admitRequest(WSHTTPConnection connection, CompletionCallback callback) throws IOException {
+        return admitAsync(connection, callback);
+    }
+
+    /**
+     * {@link #dispatchAsync(WSHTTPConnection, CompletionCallback, long)} for {@link NonBlockingServletExchange}.
+     */
+    /*package*/ void dispatchRequest(WSHTTPConnection connection, CompletionCallback callback, long start) throws IOException {
+        dispatchAsync(connection, callback, start);
+    }
+
     /**
      * Synchronizes the CompletionHandler action and Container's timeout action.
      */
@@ -266,6 +290,41 @@ public class ServletAdapter extends HttpAdapter implements BoundEndpoint {
 
     private static final Logger LOGGER = Logger.getLogger(ServletAdapter.class.getName());
 
+    /**
+     * If true, asynchronous requests are read and written with the Servlet 3.1
+     * non-blocking I/O, see {@link NonBlockingServletExchange}. The request
+     * body is then held in memory, and the response is streamed.
+     */
+    private static final boolean NON_BLOCKING_IO;
+
+    /**
+     * Maximum size in bytes of a request read with the non-blocking I/O.
+     * Larger requests are rejected with 413 (Request Entity Too Large).
+     * Set with the {@code com.sun.xml.ws.transport.http.servlet.ServletAdapter.nonBlockingIO.maxRequestSize}
+     * system property, 1MB by default.
+     */
+    private static final long MAX_REQUEST_SIZE;
+
+    static {
+        String name = ServletAdapter.class.getName() + ".nonBlockingIO";
+        boolean nonBlocking = false;
+        long maxRequestSize = 1024L * 1024;
+        try {
+            nonBlocking = Boolean.getBoolean(name);
+            maxRequestSize = Long.getLong(name + ".maxRequestSize", maxRequestSize);
+        } catch (SecurityException se) {
+            if (LOGGER.isLoggable(Level.CONFIG)) {
+                LOGGER.log(Level.CONFIG, "Cannot read ''{0}'' property, using defaults.", name);
+            }
+        }
+        NON_BLOCKING_IO = nonBlocking;
+        MAX_REQUEST_SIZE = maxRequestSize;
+    }
+
     private boolean isServlet30Based = ServletUtil.isServlet30Based();
 
+    /*package*/ boolean nonBlockingIO = NON_BLOCKING_IO && ServletUtil.isServlet31Based();
+
+    /*package*/ long maxRequestSize = MAX_REQUEST_SIZE;
+
 }
@@ -55,4 +55,18 @@ public class ServletUtil {
         }
         return false;        
     }
+
+    /**
+     * True if the Servlet 3.1 non-blocking I/O is available.
+     */
+    public static boolean isServlet31Based() {
+        try {
+            Class servletInputStreamClazz = Class.forName("javax.servlet.ServletInputStream");
+            servletInputStreamClazz.getDeclaredMethod("setReadListener", Class.forName("javax.servlet.ReadListener"));
+            return true;
+        } catch (Throwable t) {
+            // Not Servlet 3.1 API
+        }
+        return false;
+    }
 }
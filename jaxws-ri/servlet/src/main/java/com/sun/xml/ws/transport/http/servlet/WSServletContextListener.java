@@ -42,9 +42,11 @@ package com.sun.xml.ws.transport.http.servlet;
 
 import com.sun.istack.NotNull;
 import com.sun.xml.ws.api.server.Container;
+import com.sun.xml.ws.client.ClientModelCache;
 import com.sun.xml.ws.resources.WsservletMessages;
 import com.sun.xml.ws.transport.http.DeploymentDescriptorParser;
 import com.sun.xml.ws.transport.http.HttpAdapter;
+import com.sun.xml.ws.transport.http.client.NonBlockingHttpTransportPipe;
 
 import javax.servlet.*;
 import javax.xml.ws.WebServiceException;
@@ -102,6 +104,14 @@ public final class WSServletContextListener
             }
         }
 
+        // cached client models keep the classes of the application reachable
+        ClassLoader classLoader = Thread.currentThread().getContextClassLoader();
+        if (classLoader != null) {
+            ClientModelCache.evict(classLoader);
+            // the I/O thread of a runtime bundled with the application
+            NonBlockingHttpTransportPipe.shutdown(classLoader);
+        }
+
         if (logger.isLoggable(Level.INFO)) {
             logger.info(WsservletMessages.LISTENER_INFO_DESTROY());
         }
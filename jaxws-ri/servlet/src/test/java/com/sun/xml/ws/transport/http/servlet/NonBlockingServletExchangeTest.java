@@ -0,0 +1,153 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2017 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * http://glassfish.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package com.sun.xml.ws.transport.http.servlet;
+
+import junit.framework.TestCase;
+
+import javax.servlet.http.HttpServletResponse;
+import java.util.concurrent.TimeUnit;
+
+public class NonBlockingServletExchangeTest extends TestCase {
+
+    private ServletAdapter adapter;
+
+    @Override
+    protected void setUp() throws Exception {
+        adapter = ServletAdapterTest.createAdapter();
+        adapter.nonBlockingIO = true;
+    }
+
+    public void testReadAndWriteListeners() throws Exception {
+        StubServlet servlet = ServletAdapterTest.echo();
+        adapter.invokeAsync(null, servlet.request, servlet.response, new ServletAdapterTest.Callback());
+
+        // request arrives in two parts
+        servlet.input.feed(10);
+        servlet.input.listener.onDataAvailable();
+        servlet.input.feed(Integer.MAX_VALUE);
+        servlet.input.listener.onDataAvailable();
+        servlet.input.listener.onAllDataRead();
+
+        // the response is written as the connection becomes writable
+        assertTrue(servlet.output.writing.await(10, TimeUnit.SECONDS));
+        servlet.output.listener.onWritePossible();
+        assertEquals("not writable yet", 0, servlet.output.data.size());
+        writeAll(servlet);
+
+        assertEquals(200, servlet.status);
+        String body = servlet.output.data.toString("UTF-8");
+        assertTrue(body, body.contains("<return>hello</return>"));
+        assertNull("the response is streamed", servlet.responseHeaders.get("Content-Length"));
+    }
+
+    public void testResponseIsStreamedInChunks() throws Exception {
+        StringBuilder text = new StringBuilder();
+        while (text.length() < 4 * NonBlockingServletExchange.MAX_PENDING) {
+            text.append("0123456789abcdef");
+        }
+        String request = ServletAdapterTest.ECHO_REQUEST.replace("hello", text);
+        StubServlet servlet = new StubServlet("text/xml", request.getBytes("UTF-8"));
+        servlet.requestHeaders.put("SOAPAction", "\"\"");
+        adapter.invokeAsync(null, servlet.request, servlet.response, new ServletAdapterTest.Callback());
+        servlet.input.feed(Integer.MAX_VALUE);
+        servlet.input.listener.onDataAvailable();
+        servlet.input.listener.onAllDataRead();
+
+        // the encoder waits for the connection instead of buffering the whole response
+        assertTrue(servlet.output.writing.await(10, TimeUnit.SECONDS));
+        Thread.sleep(200);
+        assertFalse(servlet.isCompleted());
+        writeAll(servlet);
+
+        String body = servlet.output.data.toString("UTF-8");
+        assertTrue(body.contains("<return>" + text + "</return>"));
+        assertTrue(servlet.output.writeSizes.size() > 20);
+        for (int size : servlet.output.writeSizes) {
+            assertTrue(String.valueOf(size), size <= NonBlockingServletExchange.CHUNK_SIZE);
+        }
+    }
+
+    public void testDefaultMaxRequestSize() throws Exception {
+        assertEquals(1024 * 1024, ServletAdapterTest.createAdapter().maxRequestSize);
+    }
+
+    public void testRequestTooLarge() throws Exception {
+        adapter.maxRequestSize = 16;
+        StubServlet servlet = ServletAdapterTest.echo();
+        adapter.invokeAsync(null, servlet.request, servlet.response, new ServletAdapterTest.Callback());
+
+        servlet.input.feed(10);
+        servlet.input.listener.onDataAvailable();
+        assertFalse(servlet.isCompleted());
+        servlet.input.feed(10);
+        servlet.input.listener.onDataAvailable();
+        assertTrue(servlet.isCompleted());
+        assertEquals(HttpServletResponse.SC_REQUEST_ENTITY_TOO_LARGE, servlet.status);
+
+        servlet.input.feed(Integer.MAX_VALUE);
+        servlet.input.listener.onAllDataRead();
+        assertNull("rejected request must not be invoked", servlet.output.listener);
+    }
+
+    public void testContentLengthTooLarge() throws Exception {
+        adapter.maxRequestSize = 16;
+        StubServlet servlet = ServletAdapterTest.echo();
+        servlet.contentLength = ServletAdapterTest.ECHO_REQUEST.length();
+        adapter.invokeAsync(null, servlet.request, servlet.response, new ServletAdapterTest.Callback());
+
+        assertTrue(servlet.isCompleted());
+        assertEquals(HttpServletResponse.SC_REQUEST_ENTITY_TOO_LARGE, servlet.status);
+        assertNull("body of a rejected request must not be read", servlet.input.listener);
+    }
+
+    /**
+     * Lets the connection accept one write at a time, until the exchange completes.
+     */
+    private static void writeAll(StubServlet servlet) throws Exception {
+        long deadline = System.currentTimeMillis() + 10000;
+        while (!servlet.isCompleted()) {
+            assertTrue("response not written in time", System.currentTimeMillis() < deadline);
+            servlet.output.allow(1);
+            servlet.output.listener.onWritePossible();
+            Thread.yield();
+        }
+    }
+}
@@ -0,0 +1,118 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2017 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * http://glassfish.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package com.sun.xml.ws.transport.http.servlet;
+
+import com.sun.xml.ws.api.BindingID;
+import com.sun.xml.ws.api.server.WSEndpoint;
+import com.sun.xml.ws.binding.BindingImpl;
+import com.sun.xml.ws.transport.http.HttpAdapter;
+import junit.framework.TestCase;
+import org.xml.sax.EntityResolver;
+
+import javax.jws.WebService;
+
+public class ServletAdapterTest extends TestCase {
+
+    static final String ECHO_REQUEST =
+            "<S:Envelope xmlns:S='http://schemas.xmlsoap.org/soap/envelope/'><S:Body>" +
+            "<t:echo xmlns:t='http://servlet.http.transport.ws.xml.sun.com/'><arg0>hello</arg0></t:echo>" +
+            "</S:Body></S:Envelope>";
+
+    private ServletAdapter adapter;
+
+    @Override
+    protected void setUp() throws Exception {
+        adapter = createAdapter();
+    }
+
+    public void testNonBlockingIOOffByDefault() throws Exception {
+        assertFalse(adapter.nonBlockingIO);
+    }
+
+    public void testBlockingIO() throws Exception {
+        StubServlet servlet = echo();
+        adapter.invokeAsync(null, servlet.request, servlet.response, new Callback());
+
+        assertTrue(servlet.awaitCompletion());
+        assertNull("no read listener without non-blocking I/O", servlet.input.listener);
+        assertNull(servlet.output.listener);
+        assertEquals(200, servlet.status);
+        assertTrue(servlet.output.data.toString("UTF-8").contains("<return>hello</return>"));
+    }
+
+    public void testNonBlockingIO() throws Exception {
+        adapter.nonBlockingIO = true;
+        StubServlet servlet = echo();
+        adapter.invokeAsync(null, servlet.request, servlet.response, new Callback());
+
+        assertNotNull("request must be read by a read listener", servlet.input.listener);
+        assertEquals(0, servlet.output.data.size());
+        assertFalse(servlet.isCompleted());
+    }
+
+    static ServletAdapter createAdapter() {
+        WSEndpoint<Echo> endpoint = WSEndpoint.create(Echo.class, false, null, null, null, null,
+                BindingImpl.create(BindingID.SOAP11_HTTP), null, null, (EntityResolver) null, false);
+        return new ServletAdapterList().createAdapter("echo", "/echo", endpoint);
+    }
+
+    static StubServlet echo() throws Exception {
+        StubServlet servlet = new StubServlet("text/xml", ECHO_REQUEST.getBytes("UTF-8"));
+        servlet.requestHeaders.put("SOAPAction", "\"\"");
+        return servlet;
+    }
+
+    static final class Callback implements HttpAdapter.CompletionCallback {
+        boolean completed;
+
+        @Override
+        public void onCompletion() {
+            completed = true;
+        }
+    }
+
+    @WebService
+    public static class Echo {
+        public String echo(String text) {
+            return text;
+        }
+    }
+}
@@ -0,0 +1,296 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2017 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * http://glassfish.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package com.sun.xml.ws.transport.http.servlet;
+
+import javax.servlet.AsyncContext;
+import javax.servlet.ReadListener;
+import javax.servlet.ServletInputStream;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * In-memory servlet request and response of one POST to
+ * {@code http://localhost:8080/app/echo}, whose streams are driven by the test.
+ */
+final class StubServlet {
+
+    final Map<String, String> requestHeaders = new TreeMap<String, String>(String.CASE_INSENSITIVE_ORDER);
+    final Map<String, String> responseHeaders = new TreeMap<String, String>(String.CASE_INSENSITIVE_ORDER);
+    long contentLength = -1;
+    int status = HttpServletResponse.SC_OK;
+
+    final Input input;
+    final Output output = new Output();
+    final CountDownLatch completed = new CountDownLatch(1);
+
+    final HttpServletRequest request = proxy(HttpServletRequest.class, new InvocationHandler() {
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            if (name.equals("getMethod")) {
+                return "POST";
+            } else if (name.equals("getHeader")) {
+                return requestHeaders.get((String) args[0]);
+            } else if (name.equals("getHeaders")) {
+                String value = requestHeaders.get((String) args[0]);
+                return Collections.enumeration(value == null
+                        ? Collections.<String>emptyList() : Collections.singletonList(value));
+            } else if (name.equals("getHeaderNames")) {
+                return Collections.enumeration(requestHeaders.keySet());
+            } else if (name.equals("getContentType")) {
+                return requestHeaders.get("Content-Type");
+            } else if (name.equals("getContentLength")) {
+                return (int) contentLength;
+            } else if (name.equals("getContentLengthLong")) {
+                return contentLength;
+            } else if (name.equals("getInputStream")) {
+                return input;
+            } else if (name.equals("isAsyncSupported")) {
+                return true;
+            } else if (name.equals("startAsync")) {
+                return asyncContext;
+            } else if (name.equals("getRequestURL")) {
+                return new StringBuffer("http://localhost:8080/app/echo");
+            } else if (name.equals("getRequestURI")) {
+                return "/app/echo";
+            } else if (name.equals("getContextPath")) {
+                return "/app";
+            } else if (name.equals("getServletPath")) {
+                return "/echo";
+            } else if (name.equals("getScheme")) {
+                return "http";
+            } else if (name.equals("getServerName")) {
+                return "localhost";
+            } else if (name.equals("getServerPort")) {
+                return 8080;
+            } else if (name.equals("getProtocol")) {
+                return "HTTP/1.1";
+            }
+            return defaultValue(proxy, method, args);
+        }
+    });
+
+    final HttpServletResponse response = proxy(HttpServletResponse.class, new InvocationHandler() {
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            if (name.equals("setStatus") || name.equals("sendError")) {
+                status = (Integer) args[0];
+            } else if (name.equals("setHeader") || name.equals("addHeader")) {
+                responseHeaders.put((String) args[0], (String) args[1]);
+            } else if (name.equals("setContentType")) {
+                responseHeaders.put("Content-Type", (String) args[0]);
+            } else if (name.equals("setContentLength")) {
+                responseHeaders.put("Content-Length", String.valueOf(args[0]));
+            } else if (name.equals("getOutputStream")) {
+                return output;
+            } else {
+                return defaultValue(proxy, method, args);
+            }
+            return null;
+        }
+    });
+
+    final AsyncContext asyncContext = proxy(AsyncContext.class, new InvocationHandler() {
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            if (name.equals("complete")) {
+                completed.countDown();
+            } else if (name.equals("getRequest")) {
+                return request;
+            } else if (name.equals("getResponse")) {
+                return response;
+            } else {
+                return defaultValue(proxy, method, args);
+            }
+            return null;
+        }
+    });
+
+    StubServlet(String contentType, byte[] body) {
+        requestHeaders.put("Content-Type", contentType);
+        input = new Input(body);
+    }
+
+    boolean isCompleted() {
+        return completed.getCount() == 0;
+    }
+
+    boolean awaitCompletion() throws InterruptedException {
+        return completed.await(10, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Request body of which only the {@link #feed(int) fed} bytes are ready.
+     */
+    static final class Input extends ServletInputStream {
+        private final byte[] data;
+        private int pos;
+        private int limit;
+        ReadListener listener;
+
+        Input(byte[] data) {
+            this.data = data;
+        }
+
+        void feed(int n) {
+            limit = (int) Math.min(data.length, (long) limit + n);
+        }
+
+        @Override
+        public boolean isFinished() {
+            return pos == data.length;
+        }
+
+        @Override
+        public boolean isReady() {
+            return pos < limit || isFinished();
+        }
+
+        @Override
+        public void setReadListener(ReadListener readListener) {
+            listener = readListener;
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (isFinished()) {
+                return -1;
+            }
+            feed(1);
+            return data[pos++] & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (isFinished()) {
+                return -1;
+            }
+            if (listener == null) {
+                // blocking read
+                feed(len);
+            }
+            int n = Math.min(len, limit - pos);
+            System.arraycopy(data, pos, b, off, n);
+            pos += n;
+            return n;
+        }
+    }
+
+    /**
+     * Response body that is ready for the {@link #allow(int) allowed} number of writes.
+     */
+    static final class Output extends ServletOutputStream {
+        final ByteArrayOutputStream data = new ByteArrayOutputStream();
+        final List<Integer> writeSizes = new CopyOnWriteArrayList<Integer>();
+        private volatile int writes;
+        final CountDownLatch writing = new CountDownLatch(1);
+        WriteListener listener;
+
+        void allow(int n) {
+            writes = n;
+        }
+
+        @Override
+        public boolean isReady() {
+            return writes > 0;
+        }
+
+        @Override
+        public void setWriteListener(WriteListener writeListener) {
+            listener = writeListener;
+            writing.countDown();
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            data.write(b);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            writes--;
+            writeSizes.add(len);
+            data.write(b, off, len);
+        }
+    }
+
+    private static <T> T proxy(Class<T> type, InvocationHandler handler) {
+        return type.cast(Proxy.newProxyInstance(StubServlet.class.getClassLoader(), new Class<?>[]{type}, handler));
+    }
+
+    private static Object defaultValue(Object proxy, Method method, Object[] args) {
+        String name = method.getName();
+        if (name.equals("equals")) {
+            return proxy == args[0];
+        } else if (name.equals("hashCode")) {
+            return System.identityHashCode(proxy);
+        } else if (name.equals("toString")) {
+            return "stub " + method.getDeclaringClass().getSimpleName();
+        }
+        Class<?> type = method.getReturnType();
+        if (type == boolean.class) {
+            return false;
+        } else if (type == int.class) {
+            return 0;
+        } else if (type == long.class) {
+            return 0L;
+        } else if (type == java.util.Enumeration.class) {
+            return Collections.enumeration(Collections.emptyList());
+        }
+        return null;
+    }
+}
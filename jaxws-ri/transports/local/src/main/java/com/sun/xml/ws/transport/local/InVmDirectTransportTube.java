@@ -0,0 +1,217 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2017 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * http://glassfish.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package com.sun.xml.ws.transport.local;
+
+import com.sun.istack.NotNull;
+import com.sun.xml.ws.api.SOAPVersion;
+import com.sun.xml.ws.api.message.Message;
+import com.sun.xml.ws.api.message.Packet;
+import com.sun.xml.ws.api.pipe.Fiber;
+import com.sun.xml.ws.api.pipe.NextAction;
+import com.sun.xml.ws.api.pipe.Tube;
+import com.sun.xml.ws.api.pipe.TubeCloner;
+import com.sun.xml.ws.api.pipe.helper.AbstractTubeImpl;
+import com.sun.xml.ws.api.server.ServiceDefinition;
+import com.sun.xml.ws.api.server.TransportBackChannel;
+import com.sun.xml.ws.api.server.WSEndpoint;
+import com.sun.xml.ws.api.server.WebServiceContextDelegate;
+import com.sun.xml.ws.message.saaj.SAAJMessage;
+import com.sun.xml.ws.transport.http.HttpAdapter;
+
+import javax.xml.soap.SOAPException;
+import javax.xml.ws.WebServiceException;
+import java.net.URI;
+import java.security.Principal;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Transport {@link Tube} that hands the request {@link Message} to a service
+ * that runs within the same VM, without serializing it.
+ *
+ * <p>
+ * Unlike {@link LocalTransportTube} and {@link LocalAsyncTransportTube}, the
+ * request isn't encoded by the codec and decoded again by {@link HttpAdapter}.
+ * The {@link Message} is wrapped in a new server {@link Packet} and
+ * {@link WSEndpoint#schedule scheduled} on the endpoint, so both the client
+ * and the server tubelines still run, and the response {@link Message} is
+ * handed back to the client in the same way.
+ *
+ * <p>
+ * Messages are shared between the client and the server. Only messages that
+ * are backed by a SAAJ {@link javax.xml.soap.SOAPMessage}, which the
+ * application may still hold on to and modify, are copied. Any other message,
+ * including its {@link com.sun.xml.ws.api.message.MessageHeaders headers},
+ * is the same object on both sides: headers that the server tubeline adds,
+ * removes or marks as understood in the request are seen that way by the
+ * client, and likewise for the response. Since there is no HTTP exchange,
+ * HTTP headers and status codes are not available to either side.
+ *
+ * @see InVmTransportFactory
+ */
+final class InVmDirectTransportTube extends AbstractTubeImpl implements WebServiceContextDelegate {
+
+    private final WSEndpoint endpoint;
+
+    /**
+     * The address of the endpoint deployed in this tube.
+     */
+    private final URI baseURI;
+
+    public InVmDirectTransportTube(URI baseURI, WSEndpoint endpoint) {
+        this.endpoint = endpoint;
+        this.baseURI = baseURI;
+    }
+
+    /**
+     * Copy constructor for {@link Tube#copy(TubeCloner)}.
+     */
+    private InVmDirectTransportTube(InVmDirectTransportTube that, TubeCloner cloner) {
+        super(that, cloner);
+        this.endpoint = that.endpoint;
+        this.baseURI = that.baseURI;
+    }
+
+    @NotNull
+    @Override
+    public NextAction processRequest(@NotNull final Packet request) {
+        final Fiber fiber = Fiber.current();
+        // makes sure the fiber is resumed only once, as a one-way
+        // response may be sent on the back channel before completion
+        final AtomicBoolean responded = new AtomicBoolean();
+
+        Packet serverRequest = new Packet(isolate(request.getInternalMessage()));
+        serverRequest.soapAction = getSOAPAction(request);
+        serverRequest.webServiceContextDelegate = this;
+        serverRequest.transportBackChannel = new TransportBackChannel() {
+            @Override
+            public void close() {
+                if (responded.compareAndSet(false, true)) {
+                    fiber.resume(request.createClientResponse(null));
+                }
+            }
+        };
+        serverRequest.setState(Packet.State.ServerRequest);
+
+        endpoint.schedule(serverRequest, new WSEndpoint.CompletionCallback() {
+            @Override
+            public void onCompletion(@NotNull Packet response) {
+                if (responded.compareAndSet(false, true)) {
+                    Message msg = response.getInternalMessage();
+                    fiber.resume(request.createClientResponse(msg == null ? null : isolate(msg)));
+                }
+            }
+        });
+        return doSuspend();
+    }
+
+    @NotNull
+    @Override
+    public NextAction processResponse(@NotNull Packet response) {
+        return doReturnWith(response);
+    }
+
+    @NotNull
+    @Override
+    public NextAction processException(@NotNull Throwable t) {
+        return doThrow(t);
+    }
+
+    @Override
+    public void preDestroy() {
+        // Nothing to do here. Intenionally left empty
+    }
+
+    @Override
+    public InVmDirectTransportTube copy(TubeCloner cloner) {
+        return new InVmDirectTransportTube(this, cloner);
+    }
+
+    /**
+     * SOAPAction as the server would have received it in the HTTP header
+     * or the content type.
+     */
+    private String getSOAPAction(Packet request) {
+        if (request.soapAction == null) {
+            return (endpoint.getBinding().getSOAPVersion() == SOAPVersion.SOAP_11) ? "\"\"" : null;
+        }
+        return HttpAdapter.fixQuotesAroundSoapAction(request.soapAction);
+    }
+
+    /**
+     * Copies the message if it is backed by an object model that the
+     * sending side may still access. The message must not be a
+     * {@link Packet#getMessage() wrapper}, which hides its type.
+     */
+    private static Message isolate(Message msg) {
+        if (!(msg instanceof SAAJMessage)) {
+            return msg;
+        }
+        try {
+            // Message.copy() and readAsSOAPMessage() hand out the SOAPMessage
+            // as it is until the headers are parsed, and build a new one
+            // from copies of its parts afterwards
+            msg.getHeaders();
+            return new SAAJMessage(msg.readAsSOAPMessage()).copyFrom(msg);
+        } catch (SOAPException e) {
+            throw new WebServiceException(e);
+        }
+    }
+
+    public Principal getUserPrincipal(@NotNull Packet request) {
+        return null;   // not really supported
+    }
+
+    public boolean isUserInRole(@NotNull Packet request, String role) {
+        return false;   // not really supported
+    }
+
+    public @NotNull String getEPRAddress(@NotNull Packet request, @NotNull WSEndpoint endpoint) {
+        return baseURI.resolve("?"+endpoint.getPortName().getLocalPart()).toString();
+    }
+
+    public String getWSDLAddress(@NotNull Packet request, @NotNull WSEndpoint endpoint) {
+        ServiceDefinition sd = endpoint.getServiceDefinition();
+        if(sd != null) {
+            return sd.getPrimary().getURL().toString();
+        } else
+            return null;
+    }
+}
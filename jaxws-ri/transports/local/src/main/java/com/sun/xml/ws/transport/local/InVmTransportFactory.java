@@ -52,11 +52,17 @@ import java.net.URI;
 /**
  * {@link TransportTubeFactory} that recognizes
  * "in-vm://<i>inVmServerId</i>[?<i>portLocalName</i>]".
+ *
+ * <p>
+ * The "in-vm-async" scheme processes the request asynchronously, and the
+ * "in-vm-direct" scheme passes messages to the service without serializing
+ * them, while still running both the client and the server tubelines.
  */
 public final class InVmTransportFactory extends TransportTubeFactory {
     public Tube doCreate(@NotNull ClientTubeAssemblerContext context) {
         URI adrs = context.getAddress().getURI();
-        if(!adrs.getScheme().equals("in-vm") && !adrs.getScheme().equals("in-vm-async"))
+        if(!adrs.getScheme().equals("in-vm") && !adrs.getScheme().equals("in-vm-async")
+                && !adrs.getScheme().equals("in-vm-direct"))
             return null;
 
         String serverId = adrs.getAuthority();
@@ -74,6 +80,8 @@ public final class InVmTransportFactory extends TransportTubeFactory {
         // maybe I should be passing in my custom adapter
         if(adrs.getScheme().equals("in-vm"))
             return new LocalTransportTube(adrs,endpoint,context.getCodec());
+        else if(adrs.getScheme().equals("in-vm-direct"))
+            return new InVmDirectTransportTube(adrs,endpoint);
         else
             return new LocalAsyncTransportTube(adrs,endpoint,context.getCodec());
     }
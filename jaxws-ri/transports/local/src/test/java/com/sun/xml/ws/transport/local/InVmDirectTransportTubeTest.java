@@ -0,0 +1,201 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2017 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * http://glassfish.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package com.sun.xml.ws.transport.local;
+
+import com.sun.xml.ws.api.BindingID;
+import com.sun.xml.ws.api.server.WSEndpoint;
+import com.sun.xml.ws.binding.BindingImpl;
+import junit.framework.TestCase;
+import org.w3c.dom.Node;
+import org.xml.sax.EntityResolver;
+
+import javax.jws.Oneway;
+import javax.jws.WebService;
+import javax.xml.namespace.QName;
+import javax.xml.soap.MessageFactory;
+import javax.xml.soap.SOAPElement;
+import javax.xml.soap.SOAPMessage;
+import javax.xml.transform.Source;
+import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.dom.DOMSource;
+import javax.xml.transform.stream.StreamResult;
+import javax.xml.transform.stream.StreamSource;
+import javax.xml.ws.Dispatch;
+import javax.xml.ws.Provider;
+import javax.xml.ws.Response;
+import javax.xml.ws.Service;
+import javax.xml.ws.WebServiceProvider;
+import javax.xml.ws.soap.SOAPBinding;
+import javax.xml.ws.soap.SOAPFaultException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.Collections;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+public class InVmDirectTransportTubeTest extends TestCase {
+
+    private static final String NS = "http://local.transport.ws.xml.sun.com/";
+    private static final QName SERVICE = new QName(NS, "EchoService");
+    private static final QName PORT = new QName(NS, "EchoPort");
+
+    private static CountDownLatch pinged;
+    private static CountDownLatch release;
+
+    private InVmServer server;
+
+    @Override
+    protected void tearDown() throws Exception {
+        if (server != null) {
+            server.undeploy();
+        }
+    }
+
+    public void testRequestResponse() throws Exception {
+        Dispatch<Source> dispatch = dispatch(Echo.class, Source.class, Service.Mode.PAYLOAD);
+        Source response = dispatch.invoke(payload("echo", "hello"));
+        assertTrue(toString(response).contains(">hello</return>"));
+    }
+
+    public void testOneWayResumesOnBackChannel() throws Exception {
+        pinged = new CountDownLatch(1);
+        release = new CountDownLatch(1);
+        Dispatch<Source> dispatch = dispatch(Echo.class, Source.class, Service.Mode.PAYLOAD);
+        try {
+            // returns while the service is still running
+            dispatch.invokeOneWay(payload("ping", "hello"));
+            assertTrue(pinged.await(10, TimeUnit.SECONDS));
+        } finally {
+            release.countDown();
+        }
+        // the completion of the one-way request doesn't resume the client again
+        Source response = dispatch.invoke(payload("echo", "again"));
+        assertTrue(toString(response).contains(">again</return>"));
+    }
+
+    public void testFault() throws Exception {
+        Dispatch<Source> dispatch = dispatch(Echo.class, Source.class, Service.Mode.PAYLOAD);
+        try {
+            dispatch.invoke(payload("fail", "broken"));
+            fail("fault must be thrown");
+        } catch (SOAPFaultException e) {
+            assertEquals("broken", e.getFault().getFaultString());
+        }
+    }
+
+    public void testSAAJMessagesIsolated() throws Exception {
+        pinged = new CountDownLatch(1);
+        release = new CountDownLatch(1);
+        Dispatch<SOAPMessage> dispatch = dispatch(EchoProvider.class, SOAPMessage.class, Service.Mode.MESSAGE);
+        SOAPMessage request = MessageFactory.newInstance().createMessage();
+        SOAPElement text = request.getSOAPBody().addChildElement(new QName(NS, "echo"));
+        text.addTextNode("hello");
+        request.saveChanges();
+
+        Response<SOAPMessage> response = dispatch.invokeAsync(request);
+        try {
+            // the application changes its message while the service reads it
+            assertTrue(pinged.await(10, TimeUnit.SECONDS));
+            text.setTextContent("changed");
+        } finally {
+            release.countDown();
+        }
+
+        SOAPMessage reply = response.get(10, TimeUnit.SECONDS);
+        assertEquals("hello", reply.getSOAPBody().getFirstChild().getTextContent());
+    }
+
+    private <T> Dispatch<T> dispatch(Class<?> implType, Class<T> type, Service.Mode mode) throws Exception {
+        WSEndpoint<?> endpoint = WSEndpoint.create(implType, false, null, SERVICE, PORT, null,
+                BindingImpl.create(BindingID.SOAP11_HTTP), null, null, (EntityResolver) null, false);
+        server = new InVmServer(getName(), Collections.<WSEndpoint>singletonList(endpoint));
+        Service service = Service.create(SERVICE);
+        service.addPort(PORT, SOAPBinding.SOAP11HTTP_BINDING, "in-vm-direct://" + getName());
+        return service.createDispatch(PORT, type, mode);
+    }
+
+    private static Source payload(String operation, String text) {
+        return new StreamSource(new StringReader(
+                "<t:" + operation + " xmlns:t='" + NS + "'><arg0>" + text + "</arg0></t:" + operation + ">"));
+    }
+
+    private static String toString(Source source) throws Exception {
+        StringWriter w = new StringWriter();
+        TransformerFactory.newInstance().newTransformer().transform(source, new StreamResult(w));
+        return w.toString();
+    }
+
+    @WebService(serviceName = "EchoService", portName = "EchoPort")
+    public static class Echo {
+        public String echo(String text) {
+            return text;
+        }
+
+        @Oneway
+        public void ping(String text) {
+            pinged.countDown();
+            try {
+                release.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        public String fail(String text) {
+            throw new IllegalStateException(text);
+        }
+    }
+
+    @WebServiceProvider(serviceName = "EchoService", portName = "EchoPort", targetNamespace = NS)
+    public static class EchoProvider implements Provider<Source> {
+        @Override
+        public Source invoke(Source request) {
+            pinged.countDown();
+            try {
+                release.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            Node payload = ((DOMSource) request).getNode();
+            return payload("echoResponse", payload.getTextContent());
+        }
+    }
+}